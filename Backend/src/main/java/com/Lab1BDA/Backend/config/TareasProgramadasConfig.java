@@ -0,0 +1,61 @@
+package com.Lab1BDA.Backend.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.NoneNestedConditions;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.util.List;
+
+/**
+ * Habilita las tareas @Scheduled (archivo, simplificación, reconciliación, particiones,
+ * coordinación de réplicas, etc.) sólo cuando la aplicación corre como servidor.
+ *
+ * En los modos de línea de comandos (Ej: --carga, --importar) el proceso es un cliente de corta duración:
+ * sus tareas correrían contra la misma base que el servidor, falseando las mediciones del
+ * benchmark y compitiendo con el servidor por su trabajo de mantenimiento.
+ */
+@Configuration
+@EnableScheduling
+@Conditional(TareasProgramadasConfig.ModoServidor.class)
+public class TareasProgramadasConfig {
+
+    // Las mismas opciones de ModoServidor
+    private static final List<String> OPCIONES_LINEA_COMANDOS = List.of("carga", "importar", "generar-dataset", "reconstruir-agregados");
+
+    /**
+     * Indica si la aplicación corre como servidor, para los beans que existen en ambos modos
+     * pero no deben actuar en uno de línea de comandos (Ej: la coordinación de réplicas).
+     */
+    public static boolean esModoServidor(Environment environment) {
+        return OPCIONES_LINEA_COMANDOS.stream().noneMatch(environment::containsProperty);
+    }
+
+    /**
+     * Se cumple si no se pasó ninguna de las opciones de línea de comandos.
+     */
+    static class ModoServidor extends NoneNestedConditions {
+
+        ModoServidor() {
+            super(ConfigurationPhase.PARSE_CONFIGURATION);
+        }
+
+        @ConditionalOnProperty("carga")
+        static class Carga {
+        }
+
+        @ConditionalOnProperty("importar")
+        static class Importacion {
+        }
+
+        @ConditionalOnProperty("generar-dataset")
+        static class GeneracionDataset {
+        }
+
+        @ConditionalOnProperty("reconstruir-agregados")
+        static class ReconstruccionAgregados {
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.Lab1BDA.Backend.config;
+
+import com.Lab1BDA.Backend.controller.TelemetriaStreamHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+/**
+ * Registra los canales WebSocket de la aplicación.
+ */
+@Configuration
+@EnableWebSocket
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    @Autowired
+    private TelemetriaStreamHandler telemetriaStreamHandler;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        // Ingesta binaria de telemetría (ver TelemetriaStreamHandler para el formato)
+        registry.addHandler(telemetriaStreamHandler, "/api/telemetria/stream")
+                .setAllowedOrigins("http://localhost:3000");
+    }
+}
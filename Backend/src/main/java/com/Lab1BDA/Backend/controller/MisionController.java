@@ -111,12 +111,16 @@ public class MisionController {
      * Se accede vía POST /api/misiones/optimizar-ruta
      *
      * @param idMisiones Lista con los id de las misiones a optimizar
-     * @return ResponseEntity con la ruta óptima.
+     * @return ResponseEntity con la ruta óptima, o 400 si se piden demasiadas misiones.
      */
     @PostMapping("/optimizar-ruta")
-    public ResponseEntity<RutaOptimaResponseDTO> optimizarRuta(@RequestBody List<Long> idMisiones) {
-        RutaOptimaResponseDTO respuesta = misionService.generarRutaOptimaMultidron(idMisiones);
-        return ResponseEntity.ok(respuesta);
+    public ResponseEntity<?> optimizarRuta(@RequestBody List<Long> idMisiones) {
+        try {
+            RutaOptimaResponseDTO respuesta = misionService.generarRutaOptimaMultidron(idMisiones);
+            return ResponseEntity.ok(respuesta);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     /**
@@ -203,8 +207,14 @@ public class MisionController {
         return ResponseEntity.ok(new ProximidadDTO(idMision, idPoi, distancia));
     }
 
+    /**
+     * Puntos de la ruta planificada para el mapa.
+     * GET /api/misiones/{id}/ruta-puntos?zoom=12 (o ?tolerancia=metros) para una versión simplificada.
+     */
     @GetMapping("/{id}/ruta-puntos")
-    public ResponseEntity<List<CoordenadaDTO>> getRutaVisual(@PathVariable Long id) {
-        return ResponseEntity.ok(misionService.obtenerRutaDeVuelo(id));
+    public ResponseEntity<List<CoordenadaDTO>> getRutaVisual(@PathVariable Long id,
+                                                             @RequestParam(required = false) Integer zoom,
+                                                             @RequestParam(required = false) Double tolerancia) {
+        return ResponseEntity.ok(misionService.obtenerRutaDeVuelo(id, zoom, tolerancia));
     }
 }
@@ -1,16 +1,42 @@
 package com.Lab1BDA.Backend.controller;
 
+import com.Lab1BDA.Backend.dto.CoordenadaDTO;
+import com.Lab1BDA.Backend.dto.EscenarioSimulacionDTO;
+import com.Lab1BDA.Backend.dto.MonitoreoCambiosDTO;
+import com.Lab1BDA.Backend.dto.RegistroVueloLoteResponseDTO;
 import com.Lab1BDA.Backend.dto.RegistroVueloRequestDTO;
+import com.Lab1BDA.Backend.dto.SimulacionMetricasDTO;
+import com.Lab1BDA.Backend.dto.TelemetriaMetricasDTO;
+import com.Lab1BDA.Backend.dto.TicketStreamDTO;
 import com.Lab1BDA.Backend.dto.UbicacionDTO;
 import com.Lab1BDA.Backend.dto.VelocidadCalculadaDTO;
+import com.Lab1BDA.Backend.exception.TelemetriaSaturadaException;
+import com.Lab1BDA.Backend.model.PuntoTelemetria;
 import com.Lab1BDA.Backend.model.RegistroVuelo;
+import com.Lab1BDA.Backend.security.JwtTokenProvider;
+import com.Lab1BDA.Backend.service.DifusionUbicacionesService;
+import com.Lab1BDA.Backend.service.EscenarioFlotaService;
+import com.Lab1BDA.Backend.service.ImportacionVuelosService;
 import com.Lab1BDA.Backend.service.RegistroVueloService;
+import com.Lab1BDA.Backend.service.SimplificacionTrayectoriaService;
+import com.Lab1BDA.Backend.service.SimulacionVueloService;
+import com.Lab1BDA.Backend.service.TelemetriaWriteBehindService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/telemetria")
@@ -20,40 +46,241 @@ public class RegistroVueloController {
     @Autowired
     private RegistroVueloService registroVueloService;
 
+    @Autowired
+    private ImportacionVuelosService importacionVuelosService;
+
+    @Autowired
+    private TelemetriaWriteBehindService telemetriaWriteBehindService;
+
+    @Autowired
+    private SimplificacionTrayectoriaService simplificacionTrayectoriaService;
+
+    @Autowired
+    private DifusionUbicacionesService difusionUbicacionesService;
+
+    @Autowired
+    private SimulacionVueloService simulacionVueloService;
+
+    @Autowired
+    private EscenarioFlotaService escenarioFlotaService;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
     /**
      * Endpoint para que un dron registre un nuevo punto de telemetría.
      * Se accede vía POST /api/telemetria/registrar
+     * La posición se envía como 'longitud'/'latitud' numéricos (o 'coordenadasWKT' como alternativa).
+     * El punto se escribe en segundo plano (write-behind), por lo que se responde 202 Accepted
+     * con el punto aceptado (sin ID). Si el buffer está lleno se responde 503 con Retry-After.
      * @param dto El cuerpo del JSON con los datos de telemetría.
-     * @return El registro de telemetría que fue guardado en la BD (con HTTP 201 Created).
+     * @return El punto de telemetría aceptado (con HTTP 202 Accepted).
      */
     @PostMapping("/registrar")
-    public ResponseEntity<RegistroVuelo> registrarTelemetria(@RequestBody RegistroVueloRequestDTO dto) {
+    public ResponseEntity<PuntoTelemetria> registrarTelemetria(@RequestBody RegistroVueloRequestDTO dto) {
+
+        PuntoTelemetria puntoAceptado = registroVueloService.registrarTelemetria(dto);
+
+        // Devolvemos 202 Accepted, ya que el registro se guardará de forma asíncrona
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(puntoAceptado);
+    }
+
+    /**
+     * Responde 503 indicando al dron cuándo reintentar si el buffer de telemetría está lleno.
+     */
+    @ExceptionHandler(TelemetriaSaturadaException.class)
+    public ResponseEntity<Map<String, Object>> manejarSaturacion(TelemetriaSaturadaException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getReintentarEnSegundos()))
+                .body(Map.of(
+                        "mensaje", e.getMessage(),
+                        "reintentarEnSegundos", e.getReintentarEnSegundos()
+                ));
+    }
+
+    /**
+     * Endpoint con las métricas del buffer de telemetría (profundidad de la cola,
+     * latencia de escritura de lotes y puntos descartados).
+     * Se accede vía GET /api/telemetria/metricas
+     */
+    @GetMapping("/metricas")
+    public ResponseEntity<TelemetriaMetricasDTO> getMetricas() {
+        return ResponseEntity.ok(telemetriaWriteBehindService.getMetricas());
+    }
+
+    /**
+     * Endpoint con las métricas de la simulación de vuelo (duración y atraso de los ciclos,
+     * ciclos saltados por atraso).
+     * Se accede vía GET /api/telemetria/simulacion/metricas
+     */
+    @GetMapping("/simulacion/metricas")
+    public ResponseEntity<SimulacionMetricasDTO> getMetricasSimulacion() {
+        return ResponseEntity.ok(simulacionVueloService.getMetricas());
+    }
+
+    /**
+     * Endpoint para simular en memoria una flota y demanda hipotéticas (Ej: una semana de operación),
+     * sin tocar la base. Responde la utilización de la flota, la espera de las misiones y su consumo de batería,
+     * en total, por grupo de la flota y por flujo de la demanda.
+     * Se accede vía POST /api/telemetria/simulacion/escenario
+     */
+    @PostMapping("/simulacion/escenario")
+    public ResponseEntity<?> simularEscenario(@RequestBody EscenarioSimulacionDTO escenario) {
+        try {
+            return ResponseEntity.ok(escenarioFlotaService.simular(escenario));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Endpoint para registrar varios puntos de telemetría (de una o más misiones) en una sola petición.
+     * Se accede vía POST /api/telemetria/registrar-lote
+     * @param dtos Arreglo JSON con los puntos de telemetría.
+     * @return Resumen con el estado de cada punto (ACEPTADO / RECHAZADO).
+     */
+    @PostMapping("/registrar-lote")
+    public ResponseEntity<RegistroVueloLoteResponseDTO> registrarTelemetriaLote(@RequestBody List<RegistroVueloRequestDTO> dtos) {
+        RegistroVueloLoteResponseDTO resultado = registroVueloService.registrarTelemetriaLote(dtos);
+        return ResponseEntity.ok(resultado);
+    }
 
-        RegistroVuelo registroGuardado = registroVueloService.registrarTelemetria(dto);
+    /**
+     * Endpoint para importar masivamente un archivo de registros de vuelo (CSV o GPX) usando COPY.
+     * Se accede vía POST /api/telemetria/importar (multipart/form-data)
+     * @param archivo Archivo .csv o .gpx.
+     * @param idMision Misión a la que pertenecen los puntos (solo para GPX).
+     * @return Resumen con filas importadas, rechazadas y throughput.
+     */
+    @PostMapping(value = "/importar", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> importarRegistros(
+            @RequestParam("archivo") MultipartFile archivo,
+            @RequestParam(required = false) Long idMision) throws IOException {
 
-        // Devolvemos 201 Created, ya que se creó un nuevo recurso
-        return ResponseEntity.status(HttpStatus.CREATED).body(registroGuardado);
+        try (InputStream entrada = archivo.getInputStream()) {
+            return ResponseEntity.ok(importacionVuelosService.importar(entrada, archivo.getOriginalFilename(), idMision));
+        } catch (IllegalArgumentException e) {
+            // Ej: un GPX sin idMision
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
     }
 
     /**
      * Endpoint para obtener todo el historial de telemetría de una misión específica.
      * Se accede vía GET /api/telemetria/mision/1
+     * Con ?resolucion=N (segundos) se devuelven agregados por intervalo (10 s o 1 min) en vez
+     * de los puntos crudos; Ej: /api/telemetria/mision/1?resolucion=60
      * @param idMision El ID de la misión (desde la URL).
-     * @return Una lista de todos los registros de vuelo para esa misión.
+     * @param resolucion Separación aceptable entre muestras, en segundos (opcional).
+     * @return Los registros de vuelo de la misión, o sus agregados.
      */
     @GetMapping("/mision/{idMision}")
-    public ResponseEntity<List<RegistroVuelo>> getTelemetriaPorMision(@PathVariable Long idMision) {
+    public ResponseEntity<List<?>> getTelemetriaPorMision(@PathVariable Long idMision,
+                                                          @RequestParam(required = false) Integer resolucion) {
 
-        List<RegistroVuelo> telemetria = registroVueloService.getTelemetriaPorMision(idMision);
+        List<?> telemetria = registroVueloService.getTelemetriaPorMision(idMision, resolucion);
         return ResponseEntity.ok(telemetria);
     }
 
+    /**
+     * Endpoint para descargar toda la telemetría de una misión sin cargarla en memoria.
+     * Los registros se escriben en la respuesta a medida que se leen de la base.
+     * Se accede vía GET /api/telemetria/mision/1/exportar?formato=ndjson (o formato=csv)
+     * @param idMision El ID de la misión.
+     * @param formato "ndjson" (por defecto) o "csv".
+     * @return El flujo de registros, ordenados por timestamp.
+     */
+    @GetMapping("/mision/{idMision}/exportar")
+    public ResponseEntity<StreamingResponseBody> exportarTelemetriaPorMision(@PathVariable Long idMision,
+                                                                            @RequestParam(defaultValue = "ndjson") String formato) {
+        if (!formato.equals("ndjson") && !formato.equals("csv")) {
+            return ResponseEntity.badRequest().build();
+        }
+        StreamingResponseBody cuerpo = salida -> registroVueloService.exportarTelemetria(idMision, formato, salida);
+        return ResponseEntity.ok()
+                .contentType(formato.equals("csv") ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"mision-" + idMision + "." + formato + "\"")
+                .body(cuerpo);
+    }
+
+    /**
+     * Endpoint con la trayectoria volada de una misión para dibujarla en el mapa.
+     * Se accede vía GET /api/telemetria/mision/1/trayectoria?zoom=12 (o ?tolerancia=metros);
+     * sin parámetros devuelve todos los puntos.
+     * @return Los puntos (latitud, longitud) en orden de vuelo.
+     */
+    @GetMapping("/mision/{idMision}/trayectoria")
+    public ResponseEntity<List<CoordenadaDTO>> getTrayectoriaPorMision(@PathVariable Long idMision,
+                                                                      @RequestParam(required = false) Integer zoom,
+                                                                      @RequestParam(required = false) Double tolerancia) {
+        return ResponseEntity.ok(simplificacionTrayectoriaService.getTrayectoriaVolada(idMision, zoom, tolerancia));
+    }
+
     @GetMapping("/monitoreo")
     public ResponseEntity<List<UbicacionDTO>> getMonitoreo() {
         List<UbicacionDTO> ubicaciones = registroVueloService.getMonitoreo();
         return ResponseEntity.ok(ubicaciones);
     }
 
+    /**
+     * Endpoint de monitoreo incremental.
+     * Se accede vía GET /api/telemetria/monitoreo?since=0 y luego con la 'version' recibida:
+     * sólo vienen las misiones que cambiaron y las que dejaron de estar en progreso.
+     * Si 'completo' es true, 'ubicaciones' trae la flota completa y reemplaza la anterior.
+     */
+    @GetMapping(value = "/monitoreo", params = "since")
+    public ResponseEntity<MonitoreoCambiosDTO> getMonitoreoDesde(@RequestParam("since") long since) {
+        return ResponseEntity.ok(registroVueloService.getMonitoreoDesde(since));
+    }
+
+    /**
+     * Endpoint de monitoreo en vivo por Server-Sent Events (alternativa a consultar /monitoreo).
+     * Se accede vía GET /api/telemetria/monitoreo/stream, opcionalmente con
+     * ?bbox=minLongitud,minLatitud,maxLongitud,maxLatitud para recibir sólo lo visible en el mapa.
+     * Primero llega el evento 'suscripcion' con el id de la suscripción y luego 'flota' con todas
+     * las ubicaciones; después 'ubicaciones' con las misiones que se movieron y 'eliminadas' con
+     * las que dejaron de estar en progreso (o salieron del área).
+     * Desde el navegador (EventSource no envía la cabecera Authorization) se autentica con
+     * ?ticket=..., obtenido antes en POST /api/telemetria/monitoreo/stream/ticket.
+     */
+    @GetMapping(value = "/monitoreo/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> getMonitoreoStream(@RequestParam(required = false) String bbox) {
+        try {
+            DifusionUbicacionesService.Area area = bbox != null ? DifusionUbicacionesService.Area.parsear(bbox) : null;
+            return ResponseEntity.ok(difusionUbicacionesService.suscribir(area));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Endpoint para obtener un ticket del monitoreo en vivo (con el token de sesión en la cabecera).
+     * Se accede vía POST /api/telemetria/monitoreo/stream/ticket. El ticket vence en segundos y sólo
+     * sirve para abrir GET /api/telemetria/monitoreo/stream, así no queda un token de sesión en la URL.
+     */
+    @PostMapping("/monitoreo/stream/ticket")
+    public ResponseEntity<TicketStreamDTO> getTicketMonitoreoStream(Authentication authentication) {
+        String ticket = jwtTokenProvider.generateTicketStream(authentication.getName());
+        return ResponseEntity.ok(new TicketStreamDTO(ticket, jwtTokenProvider.getTicketStreamInMs()));
+    }
+
+    /**
+     * Endpoint para cambiar el área de una suscripción de monitoreo en vivo (Ej: al mover el mapa).
+     * Se accede vía PUT /api/telemetria/monitoreo/stream/{idSuscripcion}?bbox=minLongitud,minLatitud,maxLongitud,maxLatitud
+     * (sin bbox se vuelve a recibir toda la flota). La suscripción recibe un nuevo evento 'flota' con su área.
+     */
+    @PutMapping("/monitoreo/stream/{idSuscripcion}")
+    public ResponseEntity<?> cambiarAreaMonitoreo(@PathVariable String idSuscripcion,
+                                                  @RequestParam(required = false) String bbox) {
+        try {
+            DifusionUbicacionesService.Area area = bbox != null ? DifusionUbicacionesService.Area.parsear(bbox) : null;
+            difusionUbicacionesService.cambiarArea(idSuscripcion, area);
+            return ResponseEntity.noContent().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping("/velocidad/{idMision}")
     public ResponseEntity<List<VelocidadCalculadaDTO>> obtenerVelocidadMision(@PathVariable Long idMision) {
 
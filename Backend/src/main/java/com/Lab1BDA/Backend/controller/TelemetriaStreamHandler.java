@@ -0,0 +1,151 @@
+package com.Lab1BDA.Backend.controller;
+
+import com.Lab1BDA.Backend.model.PuntoTelemetria;
+import com.Lab1BDA.Backend.repository.MisionRepository;
+import com.Lab1BDA.Backend.service.RegistroVueloService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.BinaryWebSocketHandler;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Canal WebSocket persistente para la telemetría binaria de los drones.
+ * Se conecta vía ws://host/api/telemetria/stream (con el mismo JWT que el resto de la API).
+ *
+ * Cada mensaje binario agrupa varios puntos (big-endian):
+ *   int secuencia, seguido de N tramas de 48 bytes:
+ *   long idMision, long epochMillis, double longitud, double latitud, double altitudMsnm,
+ *   float velocidadKmh, float nivelBateriaPorcentaje   (NaN en altitud/velocidad = sin dato)
+ *
+ * Por cada mensaje se responde un ACK binario de 16 bytes:
+ *   int secuencia, int aceptados, int rechazados, int reintentarEnMs (0 si no hay saturación)
+ */
+@Component
+@Slf4j
+public class TelemetriaStreamHandler extends BinaryWebSocketHandler {
+
+    public static final int BYTES_ENCABEZADO = 4;
+    public static final int BYTES_TRAMA = 48;
+    public static final int BYTES_ACK = 16;
+
+    // Tamaño máximo de un mensaje (~21.000 puntos)
+    private static final int MAX_BYTES_MENSAJE = 1 << 20;
+    private static final String MISIONES_VALIDAS = "misionesValidas";
+
+    private final ZoneId zona = ZoneId.systemDefault();
+
+    @Autowired
+    private RegistroVueloService registroVueloService;
+
+    @Autowired
+    private MisionRepository misionRepository;
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        session.setBinaryMessageSizeLimit(MAX_BYTES_MENSAJE);
+        // Misiones ya verificadas en esta conexión, para no consultar la BD en cada mensaje
+        session.getAttributes().put(MISIONES_VALIDAS, new HashSet<Long>());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) throws IOException {
+        ByteBuffer datos = message.getPayload();
+        if (datos.remaining() < BYTES_ENCABEZADO || (datos.remaining() - BYTES_ENCABEZADO) % BYTES_TRAMA != 0) {
+            session.close(CloseStatus.BAD_DATA.withReason("Largo de mensaje inválido"));
+            return;
+        }
+
+        int secuencia = datos.getInt();
+        int tramas = datos.remaining() / BYTES_TRAMA;
+        Set<Long> misionesValidas = (Set<Long>) session.getAttributes().get(MISIONES_VALIDAS);
+        verificarMisiones(datos, tramas, misionesValidas);
+
+        int aceptados = 0;
+        int rechazados = 0;
+        int reintentarEnMs = 0;
+
+        for (int i = 0; i < tramas; i++) {
+            PuntoTelemetria punto = leerTrama(datos);
+            if (punto == null || !misionesValidas.contains(punto.idMision())) {
+                rechazados++;
+            } else if (reintentarEnMs == 0 && registroVueloService.aceptarPunto(punto)) {
+                aceptados++;
+            } else {
+                // Buffer lleno: se rechaza el resto del mensaje y se pide al dron reintentar
+                reintentarEnMs = (int) (registroVueloService.getReintentarEnSegundos() * 1000);
+                rechazados++;
+            }
+        }
+
+        ByteBuffer ack = ByteBuffer.allocate(BYTES_ACK)
+                .putInt(secuencia)
+                .putInt(aceptados)
+                .putInt(rechazados)
+                .putInt(reintentarEnMs)
+                .flip();
+        session.sendMessage(new BinaryMessage(ack));
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        log.warn("Error en el canal de telemetría {}: {}", session.getId(), exception.getMessage());
+    }
+
+    /**
+     * Decodifica una trama en la posición actual del buffer.
+     * @return El punto, o null si los valores no son válidos.
+     */
+    private PuntoTelemetria leerTrama(ByteBuffer datos) {
+        long idMision = datos.getLong();
+        long epochMillis = datos.getLong();
+        double longitud = datos.getDouble();
+        double latitud = datos.getDouble();
+        double altitud = datos.getDouble();
+        float velocidad = datos.getFloat();
+        float bateria = datos.getFloat();
+
+        if (idMision <= 0 || !(longitud >= -180 && longitud <= 180 && latitud >= -90 && latitud <= 90)
+                || !Float.isFinite(bateria)) {
+            return null;
+        }
+        return new PuntoTelemetria(
+                idMision,
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), zona),
+                longitud,
+                latitud,
+                Double.isNaN(altitud) ? null : altitud,
+                Float.isNaN(velocidad) ? null : (double) velocidad,
+                bateria
+        );
+    }
+
+    /**
+     * Verifica en una sola consulta las misiones del mensaje que aún no se conocen en esta conexión,
+     * para que un ID inexistente no haga fallar el lote completo al escribirse.
+     */
+    private void verificarMisiones(ByteBuffer datos, int tramas, Set<Long> misionesValidas) {
+        Set<Long> desconocidas = new HashSet<>();
+        int inicio = datos.position();
+        for (int i = 0; i < tramas; i++) {
+            long idMision = datos.getLong(inicio + i * BYTES_TRAMA);
+            if (!misionesValidas.contains(idMision)) {
+                desconocidas.add(idMision);
+            }
+        }
+        if (!desconocidas.isEmpty()) {
+            misionesValidas.addAll(misionRepository.findIdsExistentes(desconocidas));
+        }
+    }
+}
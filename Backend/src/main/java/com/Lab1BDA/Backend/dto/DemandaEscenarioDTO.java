@@ -0,0 +1,11 @@
+package com.Lab1BDA.Backend.dto;
+
+/**
+ * Flujo de misiones del escenario: llegadas de Poisson con la tasa indicada.
+ */
+public record DemandaEscenarioDTO(
+        String tipo,              // Nombre del flujo en el resultado (por defecto "Demanda n")
+        Double misionesPorHora,
+        Double distanciaMediaKm,  // Largo de la ruta; cada misión varía entre 50% y 150%
+        Double minutosOperacion   // Tiempo en el lugar, además del vuelo
+) {}
@@ -0,0 +1,16 @@
+package com.Lab1BDA.Backend.dto;
+
+import java.util.List;
+
+/**
+ * Escenario hipotético para la simulación en memoria (planificación de capacidad).
+ * Los campos nulos toman un valor por defecto.
+ */
+public record EscenarioSimulacionDTO(
+        Double dias,                    // Horizonte simulado (por defecto 7)
+        Long semilla,                   // Misma semilla y escenario = mismo resultado (por defecto 42)
+        Double reservaBateriaPorcentaje, // Batería mínima al terminar una misión para aceptarla (por defecto 20)
+        Double minutosRecargaCompleta,  // Recarga de 0 a 100% tras cada misión (por defecto 0: recarga instantánea)
+        List<FlotaEscenarioDTO> flota,
+        List<DemandaEscenarioDTO> demanda
+) {}
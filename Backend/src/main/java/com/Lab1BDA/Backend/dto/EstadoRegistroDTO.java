@@ -0,0 +1,11 @@
+package com.Lab1BDA.Backend.dto;
+
+/**
+ * DTO con el resultado de un punto de telemetría dentro de un lote.
+ */
+public record EstadoRegistroDTO(
+        int indice,      // Posición del punto en el arreglo recibido
+        Long idMision,
+        String estado,   // "ACEPTADO", "RECHAZADO" o "DUPLICADO"
+        String mensaje   // Motivo del rechazo (null si fue aceptado)
+) {}
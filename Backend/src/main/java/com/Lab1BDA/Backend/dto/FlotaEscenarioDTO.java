@@ -0,0 +1,13 @@
+package com.Lab1BDA.Backend.dto;
+
+/**
+ * Grupo de drones de la flota hipotética. Con idModelo se usan la velocidad y autonomía del
+ * modelo registrado; sin él (un modelo que aún no se tiene) deben indicarse.
+ */
+public record FlotaEscenarioDTO(
+        Long idModelo,
+        String nombre,
+        Integer cantidad,
+        Double velocidadKmh,
+        Integer autonomiaMinutos
+) {}
@@ -0,0 +1,16 @@
+package com.Lab1BDA.Backend.dto;
+
+import java.util.List;
+
+/**
+ * DTO con el resumen de una importación masiva de registros de vuelo.
+ */
+public record ImportacionResultadoDTO(
+        String archivo,
+        long filasLeidas,
+        long filasImportadas,
+        long filasRechazadas,
+        double segundos,
+        double filasPorSegundo, // Throughput de la importación completa
+        List<String> errores    // Primeros errores encontrados (línea y motivo)
+) {}
@@ -0,0 +1,14 @@
+package com.Lab1BDA.Backend.dto;
+
+import org.locationtech.jts.geom.LineString;
+
+/**
+ * DTO con lo que necesita la simulación de vuelo de cada misión en progreso
+ * (misión, dron asignado y velocidad de su modelo), leído en una sola consulta.
+ */
+public record MisionSimulacionDTO(
+        Long idMision,
+        Long idDron,
+        double velocidadPromedioKmh,
+        LineString ruta
+) {}
@@ -0,0 +1,17 @@
+package com.Lab1BDA.Backend.dto;
+
+import java.util.List;
+
+/**
+ * DTO con los cambios de la flota desde una versión (monitoreo con ?since=).
+ */
+public record MonitoreoCambiosDTO(
+        long version,                    // Enviar como 'since' en la próxima consulta
+        boolean completo,                // true: 'ubicaciones' es la flota completa y reemplaza lo anterior
+        List<UbicacionDTO> ubicaciones,  // Misiones que cambiaron
+        List<Long> eliminadas            // Misiones que dejaron de estar en progreso
+) {
+    public boolean vacio() {
+        return !completo && ubicaciones.isEmpty() && eliminadas.isEmpty();
+    }
+}
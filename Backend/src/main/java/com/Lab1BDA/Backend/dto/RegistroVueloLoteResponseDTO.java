@@ -0,0 +1,14 @@
+package com.Lab1BDA.Backend.dto;
+
+import java.util.List;
+
+/**
+ * DTO de respuesta para la ingesta de telemetría por lotes.
+ */
+public record RegistroVueloLoteResponseDTO(
+        int recibidos,
+        int aceptados,
+        int rechazados,
+        int duplicados, // Puntos válidos que ya estaban registrados (retransmisiones)
+        List<EstadoRegistroDTO> resultados // Estado de cada punto, en el mismo orden del lote
+) {}
@@ -4,12 +4,16 @@ import java.time.LocalDateTime;
 
 /**
  * DTO para recibir un único punto de telemetría desde un dron.
+ * La posición se envía preferentemente como 'longitud'/'latitud' numéricos;
+ * 'coordenadasWKT' se mantiene como alternativa para clientes antiguos.
  */
 public record RegistroVueloRequestDTO(
         Long idMision,
         LocalDateTime timestamp, // Cuándo se tomó la lectura
-        String coordenadasWKT, // Ej: "POINT(-70.648 33.437)"
+        String coordenadasWKT, // Ej: "POINT(-70.648 33.437)". Solo se usa si no vienen longitud y latitud
         Double altitudMsnm,
         Double velocidadKmh,
-        Double nivelBateriaPorcentaje
+        Double nivelBateriaPorcentaje,
+        Double longitud,
+        Double latitud
 ) {}
\ No newline at end of file
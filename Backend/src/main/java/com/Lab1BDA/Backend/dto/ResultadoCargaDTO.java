@@ -0,0 +1,31 @@
+package com.Lab1BDA.Backend.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Resultado de una corrida del generador de carga de telemetría.
+ * Se guarda una línea JSON por corrida para poder comparar entre commits.
+ */
+public record ResultadoCargaDTO(
+        LocalDateTime fecha,
+        String commit,
+        String etiqueta,
+        String modo,                 // "registrar", "lote" o "stream"
+        int drones,
+        double hz,                   // Puntos por segundo de cada dron
+        int tamanoLote,
+        int segundosMedidos,
+        long semilla,
+        long puntosEnviados,
+        long puntosAceptados,
+        long puntosSaturados,        // Rechazados por buffer lleno (503 / reintentar)
+        long puntosRechazados,       // Rechazados por validación
+        long puntosConError,         // Errores de red o respuestas inesperadas
+        long puntosNoEnviados,       // El generador no alcanzó a enviarlos (límite de solicitudes en vuelo)
+        double puntosPorSegundo,     // Aceptados / segundos medidos
+        double persistidosPorSegundo, // Según /api/telemetria/metricas (-1 si no disponible)
+        double latenciaP50Ms,
+        double latenciaP99Ms,
+        double latenciaMaxMs,
+        double cpuBdPorcentaje       // CPU de los procesos postgres locales, 100 = un núcleo (-1 si no disponible)
+) {}
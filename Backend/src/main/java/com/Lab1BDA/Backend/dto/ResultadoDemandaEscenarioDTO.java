@@ -0,0 +1,15 @@
+package com.Lab1BDA.Backend.dto;
+
+/**
+ * Resultado de un flujo de la demanda en la simulación de un escenario.
+ */
+public record ResultadoDemandaEscenarioDTO(
+        String tipo,
+        long misionesSolicitadas,
+        long misionesCompletadas,
+        long misionesInviables,
+        long misionesPendientesAlFinal,
+        double esperaPromedioMin,
+        double esperaP95Min,
+        double consumoBateriaPromedio
+) {}
@@ -0,0 +1,30 @@
+package com.Lab1BDA.Backend.dto;
+
+import java.util.List;
+
+/**
+ * Resultado de la simulación en memoria de un escenario. Las esperas son desde que la misión
+ * se solicita hasta que se inicia; el consumo de batería, el porcentaje que usa cada misión
+ * (los drones salen siempre con la batería completa, así que al completarla les queda 100 - consumo).
+ */
+public record ResultadoEscenarioDTO(
+        double dias,
+        long misionesSolicitadas,
+        long misionesCompletadas,
+        long misionesInviables,    // Ningún modelo de la flota tiene autonomía para hacerlas
+        long misionesEnCursoAlFinal,
+        long misionesPendientesAlFinal,
+        double utilizacion,        // Fracción del tiempo que la flota pasó volando
+        double esperaPromedioMin,
+        double esperaP50Min,
+        double esperaP95Min,
+        double esperaMaxMin,
+        double consumoBateriaPromedio,
+        double consumoBateriaP95,
+        double consumoBateriaMaximo,
+        List<ResultadoFlotaEscenarioDTO> flota,
+        List<ResultadoDemandaEscenarioDTO> demanda,
+        long eventosProcesados,
+        double duracionMs,
+        double aceleracion         // Tiempo simulado / tiempo real
+) {}
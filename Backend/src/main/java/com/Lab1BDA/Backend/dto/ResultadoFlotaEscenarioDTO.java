@@ -0,0 +1,13 @@
+package com.Lab1BDA.Backend.dto;
+
+/**
+ * Resultado de un grupo de la flota en la simulación de un escenario.
+ */
+public record ResultadoFlotaEscenarioDTO(
+        String nombre,
+        int cantidad,
+        long misionesCompletadas,
+        double utilizacion,
+        double consumoBateriaPromedio,
+        double consumoBateriaMaximo
+) {}
@@ -0,0 +1,19 @@
+package com.Lab1BDA.Backend.dto;
+
+/**
+ * DTO con las métricas del ciclo de la simulación de vuelo.
+ */
+public record SimulacionMetricasDTO(
+        long periodoMs,
+        long ciclos,
+        long ciclosSaltados,          // Ciclos vencidos que no se ejecutaron (su tiempo lo cubrió el siguiente)
+        int misionesUltimoCiclo,
+        double pasoUltimoCicloSegundos, // Tiempo simulado en el último ciclo (el transcurrido de verdad)
+        double duracionPromedioMs,
+        double duracionP50Ms,
+        double duracionP99Ms,
+        double duracionMaxMs,
+        double atrasoPromedioMs,      // Cuánto después de lo planificado empezó cada ciclo
+        double atrasoP99Ms,
+        double atrasoMaxMs
+) {}
@@ -0,0 +1,27 @@
+package com.Lab1BDA.Backend.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Telemetría de una misión agregada por intervalo (respuesta de /api/telemetria/mision/{id}?resolucion=...).
+ * Los promedios de altitud y velocidad son null si ningún punto del intervalo traía ese dato.
+ */
+public record TelemetriaAgregadaDTO(
+        Long idMision,
+        int resolucionSegundos,
+        LocalDateTime inicio,
+        int cantidadPuntos,
+        LocalDateTime timestamp,   // Último punto del intervalo
+        double longitud,
+        double latitud,
+        double altitud,
+        Double altitudMin,
+        Double altitudMax,
+        Double altitudPromedio,
+        Double velocidadMin,
+        Double velocidadMax,
+        Double velocidadPromedio,
+        double bateriaMin,
+        double bateriaMax,
+        double bateriaPromedio
+) {}
@@ -0,0 +1,19 @@
+package com.Lab1BDA.Backend.dto;
+
+/**
+ * DTO con las métricas del buffer de escritura diferida de telemetría.
+ */
+public record TelemetriaMetricasDTO(
+        int capacidad,
+        int pendientes,              // Puntos en el buffer esperando ser escritos
+        long aceptados,
+        long persistidos,
+        long descartadosPorSaturacion, // Rechazados con 503 por buffer lleno
+        long descartadosPorError,      // Perdidos porque falló la escritura del lote
+        long descartadosPorDuplicado,  // (id_mision, timestamp) ya registrado
+        long lotesEscritos,
+        double latenciaFlushPromedioMs,
+        double latenciaFlushP50Ms,
+        double latenciaFlushP99Ms,
+        double latenciaFlushMaxMs
+) {}
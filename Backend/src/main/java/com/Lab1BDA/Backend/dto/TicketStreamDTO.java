@@ -0,0 +1,8 @@
+package com.Lab1BDA.Backend.dto;
+
+/**
+ * DTO con el ticket para abrir el monitoreo en vivo desde el navegador.
+ * Se envía como ?ticket=... en GET /api/telemetria/monitoreo/stream y vence en 'expiraEnMs'.
+ */
+public record TicketStreamDTO(String ticket, long expiraEnMs) {
+}
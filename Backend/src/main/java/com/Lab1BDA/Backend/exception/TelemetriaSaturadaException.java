@@ -0,0 +1,23 @@
+package com.Lab1BDA.Backend.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Excepción lanzada cuando el buffer de telemetría está lleno y no puede aceptar más puntos.
+ * Se responde con HTTP 503 (SERVICE_UNAVAILABLE) e indicando en cuántos segundos reintentar.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class TelemetriaSaturadaException extends RuntimeException {
+
+    private final long reintentarEnSegundos;
+
+    public TelemetriaSaturadaException(String message, long reintentarEnSegundos) {
+        super(message);
+        this.reintentarEnSegundos = reintentarEnSegundos;
+    }
+
+    public long getReintentarEnSegundos() {
+        return reintentarEnSegundos;
+    }
+}
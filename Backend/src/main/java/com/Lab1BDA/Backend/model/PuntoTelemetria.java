@@ -0,0 +1,25 @@
+package com.Lab1BDA.Backend.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Punto de telemetría tal como llega en la ingesta: solo números, sin geometrías JTS.
+ * Es lo que viaja por el buffer de escritura y se enlaza directo a ST_MakePoint al insertar,
+ * evitando el paso WKT -> Point -> WKB por cada punto.
+ */
+public record PuntoTelemetria(
+        long idMision,
+        LocalDateTime timestamp,
+        double longitud,
+        double latitud,
+        Double altitudMsnm,
+        Double velocidadKmh,
+        double nivelBateriaPorcentaje
+) {
+    /**
+     * Coordenada Z del punto (la altitud, o 0.0 si no viene).
+     */
+    public double altitudZ() {
+        return altitudMsnm != null ? altitudMsnm : 0.0;
+    }
+}
@@ -0,0 +1,79 @@
+package com.Lab1BDA.Backend.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Agregado de la telemetría de una misión en un intervalo fijo (tabla registro_vuelo_rollup).
+ * Guarda sumas y cantidades en vez de promedios para poder combinar agregados parciales
+ * a medida que llegan los puntos.
+ */
+@Data
+@NoArgsConstructor
+public class RollupTelemetria {
+    private Long idMision;
+    private int resolucionSegundos;
+    private LocalDateTime inicio;
+    private int cantidad;
+
+    // Último punto del intervalo
+    private LocalDateTime ultimoTimestamp;
+    private double ultimaLongitud;
+    private double ultimaLatitud;
+    private double ultimaAltitud;
+
+    private Double altitudMin;
+    private Double altitudMax;
+    private double altitudSuma;
+    private int cantidadAltitud;
+
+    private Double velocidadMin;
+    private Double velocidadMax;
+    private double velocidadSuma;
+    private int cantidadVelocidad;
+
+    private double bateriaMin;
+    private double bateriaMax;
+    private double bateriaSuma;
+
+    public RollupTelemetria(Long idMision, int resolucionSegundos, LocalDateTime inicio) {
+        this.idMision = idMision;
+        this.resolucionSegundos = resolucionSegundos;
+        this.inicio = inicio;
+    }
+
+    /**
+     * Suma un punto al agregado.
+     */
+    public void agregar(PuntoTelemetria punto) {
+        if (cantidad == 0 || !punto.timestamp().isBefore(ultimoTimestamp)) {
+            ultimoTimestamp = punto.timestamp();
+            ultimaLongitud = punto.longitud();
+            ultimaLatitud = punto.latitud();
+            ultimaAltitud = punto.altitudZ();
+        }
+
+        if (punto.altitudMsnm() != null) {
+            double altitud = punto.altitudMsnm();
+            altitudMin = altitudMin == null ? altitud : Math.min(altitudMin, altitud);
+            altitudMax = altitudMax == null ? altitud : Math.max(altitudMax, altitud);
+            altitudSuma += altitud;
+            cantidadAltitud++;
+        }
+        if (punto.velocidadKmh() != null) {
+            double velocidad = punto.velocidadKmh();
+            velocidadMin = velocidadMin == null ? velocidad : Math.min(velocidadMin, velocidad);
+            velocidadMax = velocidadMax == null ? velocidad : Math.max(velocidadMax, velocidad);
+            velocidadSuma += velocidad;
+            cantidadVelocidad++;
+        }
+
+        double bateria = punto.nivelBateriaPorcentaje();
+        bateriaMin = cantidad == 0 ? bateria : Math.min(bateriaMin, bateria);
+        bateriaMax = cantidad == 0 ? bateria : Math.max(bateriaMax, bateria);
+        bateriaSuma += bateria;
+        cantidad++;
+    }
+}
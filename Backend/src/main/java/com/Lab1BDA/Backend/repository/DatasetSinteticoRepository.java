@@ -0,0 +1,96 @@
+package com.Lab1BDA.Backend.repository;
+
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Carga masiva del dataset sintético (ver GeneracionDatasetService): reserva de ids y COPY
+ * de drones, misiones y telemetría.
+ */
+@Repository
+public class DatasetSinteticoRepository {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Reserva un bloque de ids consecutivos de la secuencia de una columna SERIAL, así las filas
+     * se pueden copiar con su id ya conocido (y la telemetría apuntar a sus misiones).
+     *
+     * Entre el nextval y el setval otra sesión podría tomar un id del bloque. La tabla queda
+     * bloqueada en modo EXCLUSIVE hasta el fin de la transacción: un INSERT toma su lock antes de
+     * evaluar el id por defecto, así que espera a que el bloque esté reservado (las lecturas siguen).
+     * @return El primer id del bloque.
+     */
+    @Transactional
+    public long reservarIds(String tabla, String columna, int cantidad) {
+        jdbcTemplate.execute("LOCK TABLE " + tabla + " IN EXCLUSIVE MODE");
+        Long primero = jdbcTemplate.queryForObject("SELECT nextval(pg_get_serial_sequence(?, ?))",
+                Long.class, tabla, columna);
+        if (primero == null) {
+            throw new IllegalStateException("La columna " + tabla + "." + columna + " no tiene secuencia");
+        }
+        jdbcTemplate.queryForObject("SELECT setval(pg_get_serial_sequence(?, ?), ?)",
+                Long.class, tabla, columna, primero + cantidad - 1);
+        return primero;
+    }
+
+    public List<Long> findIdsOperadores() {
+        return jdbcTemplate.queryForList("SELECT id_usuario FROM usuarios ORDER BY id_usuario", Long.class);
+    }
+
+    /**
+     * Columnas: id_dron, id_modelo, estado.
+     */
+    public long copiarDrones(Reader datosCsv) {
+        return copiar("COPY drones (id_dron, id_modelo, estado) FROM STDIN WITH (FORMAT csv)", datosCsv);
+    }
+
+    /**
+     * Columnas: id_mision, id_dron_asignado, id_tipo_mision, id_operador_creador, fecha_creacion,
+     * fecha_inicio_planificada, fecha_fin_planificada, fecha_inicio_real, fecha_fin_real, estado,
+     * ruta (EWKT, Ej: "SRID=4326;LINESTRING Z (-70.6 -33.4 100, ...)").
+     */
+    public long copiarMisiones(Reader datosCsv) {
+        return copiar("COPY misiones (id_mision, id_dron_asignado, id_tipo_mision, id_operador_creador, " +
+                "fecha_creacion, fecha_inicio_planificada, fecha_fin_planificada, fecha_inicio_real, fecha_fin_real, " +
+                "estado, ruta) FROM STDIN WITH (FORMAT csv)", datosCsv);
+    }
+
+    /**
+     * Deja 'En Vuelo' a los drones del rango que tienen una misión en progreso.
+     */
+    public int marcarDronesEnVuelo(long primerDron, long ultimoDron) {
+        return jdbcTemplate.update("UPDATE drones SET estado = 'En Vuelo' WHERE id_dron BETWEEN ? AND ? " +
+                "AND id_dron IN (SELECT id_dron_asignado FROM misiones WHERE estado = 'En Progreso')",
+                primerDron, ultimoDron);
+    }
+
+    /**
+     * Actualiza las estadísticas del planificador tras la carga (sin esto los planes de los reportes
+     * se arman con las cantidades de antes).
+     */
+    public void analizar() {
+        jdbcTemplate.execute("ANALYZE drones, misiones, registro_vuelo");
+    }
+
+    private long copiar(String sql, Reader datosCsv) {
+        Long copiadas = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql, datosCsv);
+            } catch (IOException e) {
+                throw new SQLException("Error al enviar los datos del COPY", e);
+            }
+        });
+        return copiadas != null ? copiadas : 0L;
+    }
+}
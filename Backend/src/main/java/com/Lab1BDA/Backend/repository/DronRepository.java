@@ -14,6 +14,8 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -207,8 +209,9 @@ public class DronRepository {
                 // 1. Unimos con misiones para saber qué dron hizo el vuelo
                 "JOIN misiones m ON rv.id_mision = m.id_mision " +
                 "WHERE " +
-                // 2. Filtramos por el último mes
-                "    rv.\"timestamp\" >= (CURRENT_DATE - INTERVAL '1 month') " +
+                // 2. Filtramos por el último mes. El límite va como parámetro (y no CURRENT_DATE)
+                //    para que el planificador descarte las particiones antiguas de registro_vuelo
+                "    rv.\"timestamp\" >= ? " +
                 "    AND m.id_dron_asignado IS NOT NULL " +
                 // 3. Agrupamos por dron
                 "GROUP BY m.id_dron_asignado " +
@@ -217,7 +220,8 @@ public class DronRepository {
                 // 5. Limitamos a los 5 más cercanos
                 "LIMIT 5";
 
-        return jdbcTemplate.query(sql, new AnalisisGeograficoRowMapper(), longitud, latitud);
+        LocalDateTime desde = LocalDate.now().minusMonths(1).atStartOfDay();
+        return jdbcTemplate.query(sql, new AnalisisGeograficoRowMapper(), longitud, latitud, desde);
     }
 
     /**
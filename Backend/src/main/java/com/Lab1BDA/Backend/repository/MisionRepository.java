@@ -16,9 +16,13 @@ import org.springframework.stereotype.Repository;
 import java.sql.PreparedStatement;
 import java.sql.Statement;
 import java.sql.Types; // Importamos Types
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Repository
 public class MisionRepository {
@@ -176,6 +180,9 @@ public class MisionRepository {
                 "        AS consumo_bateria " +
                 "    FROM registro_vuelo " +
                 "    GROUP BY id_mision, nivel_bateria_porcentaje, \"timestamp\" " +
+                // Las misiones archivadas guardan su batería inicial y final en registro_vuelo_archivo
+                "    UNION ALL " +
+                "    SELECT id_mision, bateria_inicial - bateria_final FROM registro_vuelo_archivo " +
                 "), " +
                 "ConsumoMisionAgregado AS ( " +
                 "    SELECT id_mision, MAX(consumo_bateria) AS consumo_total " +
@@ -299,6 +306,8 @@ public class MisionRepository {
 
     /**
      * Calcula la matriz de distancias entre misiones usando PostGIS (ST_Distance).
+     * La distancia es simétrica: se devuelve cada par una sola vez (idOrigen < idDestino), y el
+     * centroide de cada ruta se calcula una vez y no por cada par.
      * @param idsMisiones Lista de ID de las misiones a calcular su distancia
      * @return Lista de distancia entre el origen y el destino de una misión
      */
@@ -307,37 +316,23 @@ public class MisionRepository {
             return Collections.emptyList();
         }
 
-        // Generamos los signos de interrogación: "?, ?, ?"
-        String placeholders = String.join(",", Collections.nCopies(idsMisiones.size(), "?"));
-
-        // Construimos el SQL con el mismo estilo que findDesempenoMensual
-        // Usamos String.format para inyectar los placeholders en los dos lugares donde van (%s)
         //language=SQL
-        String sqlPattern = "SELECT " +
-                "    a.id_mision AS id_origen, " +
-                "    b.id_mision AS id_destino, " +
-                "    ST_Distance( " +
-                "        ST_Centroid(a.ruta::geometry)::geography, " +
-                "        ST_Centroid(b.ruta::geometry)::geography " +
-                "    ) AS distancia_metros " +
-                "FROM misiones a " +
-                "CROSS JOIN misiones b " +
-                "WHERE " +
-                "    a.id_mision IN (%s) " +
-                "    AND b.id_mision IN (%s) " +
-                "    AND a.id_mision != b.id_mision";
-
-        // Inyectamos los placeholders
-        String sql = String.format(sqlPattern, placeholders, placeholders);
-
-        // Preparamos los argumentos (la lista duplicada porque aparece 2 veces en la SQL)
-        Object[] args = new Object[idsMisiones.size() * 2];
-        for (int i = 0; i < idsMisiones.size(); i++) {
-            args[i] = idsMisiones.get(i);
-            args[idsMisiones.size() + i] = idsMisiones.get(i);
-        }
-
-        return jdbcTemplate.query(sql, new DistanciaMisionRowMapper(), args);
+        String sql = """
+            WITH centros AS (
+                SELECT id_mision, ST_Centroid(ruta::geometry)::geography AS centro
+                FROM misiones
+                WHERE id_mision = ANY(?::bigint[])
+            )
+            SELECT
+                a.id_mision AS id_origen,
+                b.id_mision AS id_destino,
+                ST_Distance(a.centro, b.centro) AS distancia_metros
+            FROM centros a
+            JOIN centros b ON a.id_mision < b.id_mision
+            """;
+
+        String ids = idsMisiones.stream().map(String::valueOf).collect(Collectors.joining(",", "{", "}"));
+        return jdbcTemplate.query(sql, new DistanciaMisionRowMapper(), ids);
     }
 
     /**
@@ -360,4 +355,77 @@ public class MisionRepository {
         return jdbcTemplate.query(sql, new MisionRowMapper(), ids.toArray());
     }
 
-}
\ No newline at end of file
+    /**
+     * Filtra una colección de IDs dejando solo los que corresponden a misiones existentes.
+     * Se usa en la ingesta por lotes para validar todas las misiones con una sola consulta.
+     * @param ids IDs de misiones a verificar
+     * @return Conjunto con los IDs que sí existen
+     */
+    public Set<Long> findIdsExistentes(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        String sql = "SELECT id_mision FROM misiones WHERE id_mision IN (" + placeholders + ")";
+
+        return new HashSet<>(jdbcTemplate.queryForList(sql, Long.class, ids.toArray()));
+    }
+
+    /**
+     * Obtiene los IDs de las misiones en estado 'En Progreso'.
+     * Se usa para sincronizar el estado de la flota en memoria.
+     */
+    public Set<Long> findIdsEnProgreso() {
+        String sql = "SELECT id_mision FROM misiones WHERE estado = 'En Progreso'::estado_mision";
+        return new HashSet<>(jdbcTemplate.queryForList(sql, Long.class));
+    }
+
+    /**
+     * Obtiene, en una sola consulta, la ruta, el dron y la velocidad del modelo de las misiones
+     * en progreso indicadas. Reemplaza las tres búsquedas por misión de la simulación.
+     * @param ids IDs de las misiones a simular.
+     * @return Una fila por cada misión en progreso con dron asignado y ruta.
+     */
+    public List<MisionSimulacionDTO> findParaSimulacion(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String sql = "SELECT m.id_mision, d.id_dron, md.velocidad_promedio_kmh, ST_AsBinary(m.ruta) AS ruta_bytes " +
+                "FROM misiones m " +
+                "JOIN drones d ON d.id_dron = m.id_dron_asignado " +
+                "JOIN modelos_dron md ON md.id_modelo = d.id_modelo " +
+                "WHERE m.id_mision = ANY(?::bigint[]) AND m.estado = 'En Progreso'::estado_mision " +
+                "AND m.ruta IS NOT NULL";
+        String arreglo = ids.stream().map(String::valueOf).collect(Collectors.joining(",", "{", "}"));
+        return jdbcTemplate.query(sql, new MisionSimulacionRowMapper(), arreglo);
+    }
+
+    /**
+     * Marca las misiones como 'Completada' y deja 'Disponible' a sus drones, en una sola sentencia.
+     * @param ids IDs de las misiones que terminaron su ruta.
+     */
+    public void completarMisiones(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return;
+        }
+        String sql = "WITH completadas AS ( " +
+                "    UPDATE misiones SET estado = 'Completada'::estado_mision " +
+                "    WHERE id_mision = ANY(?::bigint[]) RETURNING id_dron_asignado " +
+                ") " +
+                "UPDATE drones SET estado = 'Disponible'::estado_dron " +
+                "WHERE id_dron IN (SELECT id_dron_asignado FROM completadas)";
+        String arreglo = ids.stream().map(String::valueOf).collect(Collectors.joining(",", "{", "}"));
+        jdbcTemplate.update(sql, arreglo);
+    }
+
+    /**
+     * Obtiene los IDs de todas las misiones. Se usa en la importación masiva para validar
+     * las filas en memoria sin consultar la BD por cada una.
+     * @return Conjunto con los IDs de todas las misiones
+     */
+    public Set<Long> findAllIds() {
+        return new HashSet<>(jdbcTemplate.queryForList("SELECT id_mision FROM misiones", Long.class));
+    }
+
+}
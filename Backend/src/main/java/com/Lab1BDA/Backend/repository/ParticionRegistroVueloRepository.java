@@ -0,0 +1,106 @@
+package com.Lab1BDA.Backend.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Operaciones DDL sobre las particiones mensuales de registro_vuelo.
+ * Los nombres de tabla los arma ParticionRegistroVueloService (nunca vienen del usuario),
+ * por eso se concatenan directamente en el SQL.
+ */
+@Repository
+public class ParticionRegistroVueloRepository {
+
+    public static final String TABLA = "registro_vuelo";
+    public static final String PARTICION_DEFAULT = "registro_vuelo_default";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Indica si registro_vuelo ya fue creada como tabla particionada
+     * (las bases antiguas deben migrarse con Datos_BD/particionar_registro_vuelo.sql).
+     */
+    public boolean esTablaParticionada() {
+        String sql = "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass(?))";
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(sql, Boolean.class, TABLA));
+    }
+
+    /**
+     * Obtiene los nombres de las particiones adjuntas a registro_vuelo.
+     */
+    public List<String> findParticiones() {
+        String sql = "SELECT c.relname FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid " +
+                "WHERE i.inhparent = to_regclass(?) " +
+                "ORDER BY c.relname";
+        return jdbcTemplate.queryForList(sql, String.class, TABLA);
+    }
+
+    /**
+     * Obtiene el primer día de cada mes que tiene filas en la partición por defecto.
+     */
+    public List<LocalDate> findMesesEnParticionDefault() {
+        String sql = "SELECT DISTINCT date_trunc('month', \"timestamp\")::date AS mes " +
+                "FROM " + PARTICION_DEFAULT + " ORDER BY mes";
+        return jdbcTemplate.queryForList(sql, LocalDate.class);
+    }
+
+    /**
+     * Crea la partición [desde, hasta) y la adjunta a registro_vuelo. Si la partición por defecto
+     * tiene filas de ese rango, se mueven primero (PostgreSQL no permite crear la partición mientras
+     * existan). Al adjuntarla, PostgreSQL crea en ella los índices de la tabla padre
+     * ((id_mision, "timestamp") y GiST sobre coordenadas).
+     *
+     * La partición por defecto queda bloqueada durante toda la transacción: así ninguna fila llega
+     * a ella entre el movimiento y el ATTACH, y si otra réplica está creando la misma partición se
+     * espera a que termine y no se hace nada.
+     * @return Cantidad de filas movidas desde la partición por defecto, o -1 si la partición ya existía.
+     */
+    @Transactional
+    public int crearParticion(String nombre, LocalDate desde, LocalDate hasta) {
+        String rango = "\"timestamp\" >= '" + desde + "' AND \"timestamp\" < '" + hasta + "'";
+
+        // El ATTACH igual toma este lock al validar la partición por defecto; tomarlo antes cubre el movimiento
+        jdbcTemplate.execute("LOCK TABLE " + PARTICION_DEFAULT + " IN ACCESS EXCLUSIVE MODE");
+        if (jdbcTemplate.queryForObject("SELECT to_regclass(?)", String.class, nombre) != null) {
+            return -1;
+        }
+
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + nombre + " (LIKE " + TABLA + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        // El CHECK evita que ATTACH tenga que recorrer la tabla para validar el rango
+        jdbcTemplate.execute("ALTER TABLE " + nombre + " ADD CONSTRAINT " + nombre + "_rango CHECK (" + rango + ")");
+
+        // Las filas se borran y se insertan en la misma sentencia: las que se mueven son exactamente las borradas
+        int movidas = jdbcTemplate.update("WITH movidas AS (DELETE FROM " + PARTICION_DEFAULT + " WHERE " + rango +
+                " RETURNING *) INSERT INTO " + nombre + " SELECT * FROM movidas");
+
+        jdbcTemplate.execute("ALTER TABLE " + TABLA + " ATTACH PARTITION " + nombre +
+                " FOR VALUES FROM ('" + desde + "') TO ('" + hasta + "')");
+        jdbcTemplate.execute("ALTER TABLE " + nombre + " DROP CONSTRAINT " + nombre + "_rango");
+        return movidas;
+    }
+
+    /**
+     * Desprende una partición de registro_vuelo y la mueve al esquema de archivo,
+     * donde sigue consultable pero ya no participa en las consultas de la aplicación.
+     * @return false si ya no era una partición de registro_vuelo (Ej: la archivó otra réplica).
+     */
+    @Transactional
+    public boolean archivarParticion(String nombre, String esquemaArchivo) {
+        // Este modo choca consigo mismo: si otra réplica está archivando, se espera a que termine
+        jdbcTemplate.execute("LOCK TABLE " + TABLA + " IN SHARE UPDATE EXCLUSIVE MODE");
+        if (!findParticiones().contains(nombre)) {
+            return false;
+        }
+        jdbcTemplate.execute("CREATE SCHEMA IF NOT EXISTS " + esquemaArchivo);
+        jdbcTemplate.execute("ALTER TABLE " + TABLA + " DETACH PARTITION " + nombre);
+        jdbcTemplate.execute("ALTER TABLE " + nombre + " SET SCHEMA " + esquemaArchivo);
+        return true;
+    }
+}
@@ -1,7 +1,9 @@
 package com.Lab1BDA.Backend.repository;
 
 import com.Lab1BDA.Backend.model.PuntoInteres;
+import com.Lab1BDA.Backend.model.RegistroVuelo;
 import com.Lab1BDA.Backend.repository.mappers.PuntoInteresRowMapper;
+import com.Lab1BDA.Backend.util.MetricasTrayectoria;
 import org.locationtech.jts.io.WKBWriter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -20,6 +22,9 @@ public class PuntoInteresRepository {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private TrayectoriaArchivoRepository trayectoriaArchivoRepository;
+
     // '3' indica que soportamos X, Y, Z (Lat, Lon, Alt). 'true' incluye el SRID (4326).
     private final WKBWriter wkbWriter = new WKBWriter(3, true);
 
@@ -28,7 +33,7 @@ public class PuntoInteresRepository {
      * Obtiene todos los puntos de interés.
      */
     public List<PuntoInteres> findAll() {
-        String sql= "SELECT poi_id, nombre, descripcion, ST_AsText(ubicacion) as ubicacion_wkt FROM puntos_interes";
+        String sql= "SELECT poi_id, nombre, descripcion, ST_AsBinary(ubicacion) as ubicacion_wkb FROM puntos_interes";
         return jdbcTemplate.query(sql, new PuntoInteresRowMapper());
     }
 
@@ -36,7 +41,7 @@ public class PuntoInteresRepository {
      * Busca un POI por su ID.
      */
     public Optional<PuntoInteres> findById(Long id) {
-        String sql = "SELECT poi_id, nombre, descripcion, ST_AsText(ubicacion) as ubicacion_wkt FROM puntos_interes" + " WHERE poi_id = ?";
+        String sql = "SELECT poi_id, nombre, descripcion, ST_AsBinary(ubicacion) as ubicacion_wkb FROM puntos_interes" + " WHERE poi_id = ?";
         List<PuntoInteres> results = jdbcTemplate.query(sql, new PuntoInteresRowMapper(), id);
         return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
     }
@@ -98,6 +103,14 @@ public class PuntoInteresRepository {
      * y un punto de interés.
      */
     public Double calcularDistanciaMinima3D(Long misionId, Long poiId) {
+        // Una misión archivada se mide sobre sus puntos ya decodificados
+        Optional<List<RegistroVuelo>> archivada = trayectoriaArchivoRepository.findTrayectoriaArchivada(misionId);
+        if (archivada.isPresent()) {
+            return findById(poiId)
+                    .map(poi -> MetricasTrayectoria.distanciaMinima3D(archivada.get(), poi.getUbicacion()))
+                    .orElse(null);
+        }
+
         String sql = """
         SELECT MIN(ST_3DDistance(
             ST_Transform(rv.coordenadas::geometry, 3857), 
@@ -1,23 +1,42 @@
 package com.Lab1BDA.Backend.repository;
 
 import com.Lab1BDA.Backend.dto.VelocidadCalculadaDTO;
+import com.Lab1BDA.Backend.model.PuntoTelemetria;
 import com.Lab1BDA.Backend.model.RegistroVuelo;
 import com.Lab1BDA.Backend.repository.mappers.RegistroVueloRowMapper;
-import org.locationtech.jts.io.WKBWriter;
+import com.Lab1BDA.Backend.util.MetricasTrayectoria;
+import org.locationtech.jts.geom.Point;
+import org.postgresql.PGConnection;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.jdbc.core.RowMapper;
 
 
-
+import java.io.IOException;
+import java.io.Reader;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Types;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.Set;
 
 @Repository
 public class RegistroVueloRepository {
@@ -25,14 +44,22 @@ public class RegistroVueloRepository {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
-    // Consulta base para LEER registros (usando ST_AsWKT como en MisionRowMapper)
+    @Autowired
+    private TrayectoriaArchivoRepository trayectoriaArchivoRepository;
+
+    // Consulta base para LEER registros (coordenadas en WKB, como en MisionRowMapper)
     private final String BASE_SELECT = "SELECT id_registro_vuelo, id_mision, \"timestamp\", " +
             "altitud_msnm, velocidad_kmh, nivel_bateria_porcentaje, " +
-            "ST_AsText(coordenadas) AS coordenadas_wkt " +
+            "ST_AsBinary(coordenadas) AS coordenadas_wkb " +
             "FROM registro_vuelo";
 
-    // WKBWriter para convertir geometrías al guardar. '3' indica 3 dimensiones (X, Y, Z). 'true' incluye el SRID.
-    private final WKBWriter wkbWriter = new WKBWriter(3, true);
+    // Las coordenadas se envían como 3 doubles y PostGIS arma el punto, sin pasar por WKT/WKB en Java
+    private static final String VALORES_FILA = "(?, ?, ST_SetSRID(ST_MakePoint(?, ?, ?), 4326)::geography, ?, ?, ?)";
+
+    // Cantidad máxima de filas por INSERT en saveAll
+    // Puntos por INSERT multi-fila; cada bloque es una sentencia y se confirma por separado
+    public static final int TAMANO_BLOQUE = 500;
+    private static final String INSERT_BLOQUE_COMPLETO = construirInsertMultiFila(TAMANO_BLOQUE);
 
     /**
      * Guarda un nuevo registro de telemetría en la base de datos.
@@ -40,10 +67,9 @@ public class RegistroVueloRepository {
      * @return El objeto RegistroVuelo guardado (con su ID).
      */
     public RegistroVuelo save(RegistroVuelo registro) {
-        // La consulta SQL usa ST_GeogFromWKB para interpretar los bytes que enviamos
         String sql = "INSERT INTO registro_vuelo (id_mision, \"timestamp\", coordenadas, " +
                 "altitud_msnm, velocidad_kmh, nivel_bateria_porcentaje) " +
-                "VALUES (?, ?, ST_GeogFromWKB(?), ?, ?, ?)";
+                "VALUES " + VALORES_FILA;
 
         KeyHolder keyHolder = new GeneratedKeyHolder();
 
@@ -52,16 +78,25 @@ public class RegistroVueloRepository {
             ps.setLong(1, registro.getIdMision());
             ps.setObject(2, registro.getTimestamp());
 
-            // Convertimos el objeto Point (que ya debe tener Z) a bytes
-            if (registro.getCoordenadas() != null) {
-                ps.setBytes(3, wkbWriter.write(registro.getCoordenadas()));
+            // Pasamos X, Y, Z del Point directamente
+            Point punto = registro.getCoordenadas();
+            if (punto != null) {
+                double z = punto.getCoordinate().getZ();
+                if (Double.isNaN(z)) {
+                    z = registro.getAltitudMsnm() != null ? registro.getAltitudMsnm() : 0.0;
+                }
+                ps.setDouble(3, punto.getX());
+                ps.setDouble(4, punto.getY());
+                ps.setDouble(5, z);
             } else {
-                ps.setNull(3, Types.BINARY);
+                ps.setNull(3, Types.DOUBLE);
+                ps.setNull(4, Types.DOUBLE);
+                ps.setNull(5, Types.DOUBLE);
             }
 
-            ps.setObject(4, registro.getAltitudMsnm());
-            ps.setObject(5, registro.getVelocidadKmh());
-            ps.setDouble(6, registro.getNivelBateriaPorcentaje());
+            ps.setObject(6, registro.getAltitudMsnm());
+            ps.setObject(7, registro.getVelocidadKmh());
+            ps.setDouble(8, registro.getNivelBateriaPorcentaje());
             return ps;
         }, keyHolder);
 
@@ -71,23 +106,175 @@ public class RegistroVueloRepository {
         return registro;
     }
 
+    /**
+     * Guarda varios puntos de telemetría usando un INSERT multi-fila por cada bloque
+     * de {@link #TAMANO_BLOQUE} puntos. No se recuperan los IDs generados, por lo que
+     * una ingesta de N puntos cuesta N / TAMANO_BLOQUE viajes a la base de datos.
+     * Dentro de una transacción abierta usa un savepoint: si falla, sólo se deshacen sus bloques.
+     * @param puntos Puntos a guardar.
+     * @return Cantidad de filas insertadas.
+     */
+    @Transactional(propagation = Propagation.NESTED)
+    public int saveAll(List<PuntoTelemetria> puntos) {
+        int insertados = 0;
+        for (int inicio = 0; inicio < puntos.size(); inicio += TAMANO_BLOQUE) {
+            List<PuntoTelemetria> bloque = puntos.subList(inicio, Math.min(inicio + TAMANO_BLOQUE, puntos.size()));
+            String sql = bloque.size() == TAMANO_BLOQUE ? INSERT_BLOQUE_COMPLETO : construirInsertMultiFila(bloque.size());
+
+            insertados += jdbcTemplate.update(sql, ps -> {
+                int i = 1;
+                for (PuntoTelemetria punto : bloque) {
+                    ps.setLong(i++, punto.idMision());
+                    ps.setObject(i++, punto.timestamp());
+                    ps.setDouble(i++, punto.longitud());
+                    ps.setDouble(i++, punto.latitud());
+                    ps.setDouble(i++, punto.altitudZ());
+                    ps.setObject(i++, punto.altitudMsnm());
+                    ps.setObject(i++, punto.velocidadKmh());
+                    ps.setDouble(i++, punto.nivelBateriaPorcentaje());
+                }
+            });
+        }
+        return insertados;
+    }
+
+    /**
+     * Igual que {@link #saveAll}, pero los puntos cuyo (id_mision, timestamp) ya existe se omiten
+     * gracias a la restricción única uq_registro_vuelo_mision_timestamp (ON CONFLICT DO NOTHING).
+     * Se usa sólo para los puntos que el filtro de duplicados marcó como probables repetidos.
+     * @param puntos Puntos a guardar.
+     * @return Los puntos que efectivamente se insertaron.
+     */
+    public List<PuntoTelemetria> saveAllIgnorandoDuplicados(List<PuntoTelemetria> puntos) {
+        List<PuntoTelemetria> insertados = new ArrayList<>();
+        for (int inicio = 0; inicio < puntos.size(); inicio += TAMANO_BLOQUE) {
+            List<PuntoTelemetria> bloque = puntos.subList(inicio, Math.min(inicio + TAMANO_BLOQUE, puntos.size()));
+            String sql = construirInsertMultiFila(bloque.size()) +
+                    " ON CONFLICT (id_mision, \"timestamp\") DO NOTHING RETURNING id_mision, \"timestamp\"";
+
+            Set<String> claves = new HashSet<>(jdbcTemplate.query(sql, ps -> {
+                int i = 1;
+                for (PuntoTelemetria punto : bloque) {
+                    ps.setLong(i++, punto.idMision());
+                    ps.setObject(i++, punto.timestamp());
+                    ps.setDouble(i++, punto.longitud());
+                    ps.setDouble(i++, punto.latitud());
+                    ps.setDouble(i++, punto.altitudZ());
+                    ps.setObject(i++, punto.altitudMsnm());
+                    ps.setObject(i++, punto.velocidadKmh());
+                    ps.setDouble(i++, punto.nivelBateriaPorcentaje());
+                }
+            }, (rs, rowNum) -> rs.getLong("id_mision") + "@" + rs.getObject("timestamp", LocalDateTime.class)));
+
+            // Si el bloque traía la misma clave dos veces, sólo la primera quedó insertada
+            for (PuntoTelemetria punto : bloque) {
+                if (claves.remove(punto.idMision() + "@" + punto.timestamp())) {
+                    insertados.add(punto);
+                }
+            }
+        }
+        return insertados;
+    }
+
+    /**
+     * Carga registros de telemetría usando COPY ... FROM STDIN (CopyManager de PgJDBC).
+     * Cada línea debe venir en formato CSV con las columnas:
+     * id_mision, timestamp, coordenadas (EWKT, Ej: "SRID=4326;POINT Z (-70.6 -33.4 550)"),
+     * altitud_msnm, velocidad_kmh, nivel_bateria_porcentaje. Un campo vacío se guarda como NULL.
+     * @param datosCsv Reader con las filas a cargar (sin encabezado).
+     * @return Cantidad de filas copiadas.
+     */
+    public long copiarDesdeCsv(Reader datosCsv) {
+        String sql = "COPY registro_vuelo (id_mision, \"timestamp\", coordenadas, " +
+                "altitud_msnm, velocidad_kmh, nivel_bateria_porcentaje) FROM STDIN WITH (FORMAT csv)";
+
+        Long copiadas = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql, datosCsv);
+            } catch (IOException e) {
+                throw new SQLException("Error al enviar los datos del COPY", e);
+            }
+        });
+        return copiadas != null ? copiadas : 0L;
+    }
+
+    /**
+     * Arma un INSERT con 'filas' grupos de VALUES. 8 parámetros por fila, por lo que
+     * TAMANO_BLOQUE debe mantenerse bajo el límite de 32767 parámetros de PostgreSQL.
+     */
+    private static String construirInsertMultiFila(int filas) {
+        return "INSERT INTO registro_vuelo (id_mision, \"timestamp\", coordenadas, " +
+                "altitud_msnm, velocidad_kmh, nivel_bateria_porcentaje) VALUES " +
+                String.join(", ", Collections.nCopies(filas, VALORES_FILA));
+    }
+
     /**
      * Busca todos los registros de telemetría para una misión específica.
+     * Si la misión fue archivada, sus puntos se leen del bloque comprimido.
      * @param idMision El ID de la misión.
      * @return Una lista de registros de vuelo, ordenados por timestamp.
      */
     public List<RegistroVuelo> findByMisionId(Long idMision) {
         String sql = BASE_SELECT + " WHERE id_mision = ? ORDER BY \"timestamp\" ASC";
-        return jdbcTemplate.query(sql, new RegistroVueloRowMapper(), idMision);
+        List<RegistroVuelo> registros = jdbcTemplate.query(sql, new RegistroVueloRowMapper(), idMision);
+
+        Optional<List<RegistroVuelo>> archivados = trayectoriaArchivoRepository.findByMisionId(idMision);
+        if (archivados.isEmpty()) {
+            return registros;
+        }
+        // Puntos que llegaron después de archivar la misión (se combinan en el siguiente ciclo)
+        List<RegistroVuelo> trayectoria = archivados.get();
+        if (!registros.isEmpty()) {
+            trayectoria.addAll(registros);
+            trayectoria.sort(Comparator.comparing(RegistroVuelo::getTimestamp));
+        }
+        return trayectoria;
     }
 
     /**
-     * Busca todos los registros de telemetría con cierto timestamp.
-     * @param timestamp
-     * @return
+     * Recorre los registros de una misión en orden de timestamp sin cargarlos todos en memoria.
+     * La consulta usa un cursor del servidor (fetchSize dentro de una transacción, ya que
+     * PostgreSQL sólo lo respeta con autocommit desactivado), así que se leen
+     * 'tamanoBloque' filas por viaje a la base. Los puntos archivados se expanden de a uno desde
+     * el bloque comprimido y se intercalan por timestamp.
+     * @param idMision El ID de la misión.
+     * @param tamanoBloque Filas por viaje a la base.
+     * @param consumidor Recibe cada registro a medida que llega.
+     */
+    @Transactional(readOnly = true)
+    public void recorrerPorMisionId(Long idMision, int tamanoBloque, Consumer<RegistroVuelo> consumidor) {
+        Iterator<RegistroVuelo> archivados = trayectoriaArchivoRepository.recorrerPorMisionId(idMision);
+        RegistroVuelo[] siguienteArchivado = {archivados.hasNext() ? archivados.next() : null};
+        RegistroVueloRowMapper rowMapper = new RegistroVueloRowMapper();
+
+        String sql = BASE_SELECT + " WHERE id_mision = ? ORDER BY \"timestamp\" ASC";
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(tamanoBloque);
+            ps.setLong(1, idMision);
+            return ps;
+        }, (ResultSet rs) -> {
+            RegistroVuelo registro = rowMapper.mapRow(rs, 0);
+            while (siguienteArchivado[0] != null && !siguienteArchivado[0].getTimestamp().isAfter(registro.getTimestamp())) {
+                consumidor.accept(siguienteArchivado[0]);
+                siguienteArchivado[0] = archivados.hasNext() ? archivados.next() : null;
+            }
+            consumidor.accept(registro);
+        });
+        if (siguienteArchivado[0] != null) {
+            consumidor.accept(siguienteArchivado[0]);
+            archivados.forEachRemaining(consumidor);
+        }
+    }
+
+    /**
+     * Busca todos los registros de telemetría entre timestamp y timestamp + 5 segundos.
+     * El rango se compara directo contra la columna para que sólo se lea la partición del mes.
+     * @param timestamp Inicio del intervalo.
+     * @return Los registros del intervalo.
      */
     public List<RegistroVuelo> findByTimestampInterval(LocalDateTime timestamp) {
-        String sql = BASE_SELECT + " WHERE timestamp BETWEEN ? AND ?";
+        String sql = BASE_SELECT + " WHERE \"timestamp\" BETWEEN ? AND ?";
         LocalDateTime finIntervalo = timestamp.plusSeconds(5);
         return jdbcTemplate.query(sql, new RegistroVueloRowMapper(), timestamp, finIntervalo);
     }
@@ -100,14 +287,40 @@ public class RegistroVueloRepository {
         String sql = "SELECT DISTINCT ON (rv.id_mision) " +
                 "rv.id_registro_vuelo, rv.id_mision, rv.\"timestamp\", " +
                 "rv.altitud_msnm, rv.velocidad_kmh, rv.nivel_bateria_porcentaje, " +
-                "ST_AsText(rv.coordenadas) AS coordenadas_wkt " +
+                "ST_AsBinary(rv.coordenadas) AS coordenadas_wkb " +
                 "FROM registro_vuelo rv " +
                 "INNER JOIN misiones m ON rv.id_mision = m.id_mision " +
                 "WHERE m.estado = 'En Progreso' " +
                 "ORDER BY rv.id_mision, rv.\"timestamp\" DESC";
         return jdbcTemplate.query(sql, new RegistroVueloRowMapper());
     }
+
+    /**
+     * Obtiene el registro más reciente de cada una de las misiones indicadas.
+     * Cada misión se resuelve con una búsqueda en el índice (id_mision, timestamp), sin ordenar su telemetría.
+     * @param ids IDs de las misiones.
+     * @return Un registro por cada misión que tenga telemetría.
+     */
+    public List<RegistroVuelo> findLatestByMisionIds(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String sql = "SELECT rv.id_registro_vuelo, rv.id_mision, rv.\"timestamp\", " +
+                "rv.altitud_msnm, rv.velocidad_kmh, rv.nivel_bateria_porcentaje, " +
+                "ST_AsBinary(rv.coordenadas) AS coordenadas_wkb " +
+                "FROM unnest(?::bigint[]) AS m(id_mision) " +
+                "CROSS JOIN LATERAL (SELECT * FROM registro_vuelo r WHERE r.id_mision = m.id_mision " +
+                "ORDER BY r.\"timestamp\" DESC LIMIT 1) rv";
+        String arreglo = ids.stream().map(String::valueOf).collect(Collectors.joining(",", "{", "}"));
+        return jdbcTemplate.query(sql, new RegistroVueloRowMapper(), arreglo);
+    }
     public Double calcularLongitudTrayectoria(Long misionId) {
+        // Una misión archivada se mide sobre sus puntos ya decodificados
+        Optional<List<RegistroVuelo>> archivada = trayectoriaArchivoRepository.findTrayectoriaArchivada(misionId);
+        if (archivada.isPresent()) {
+            return MetricasTrayectoria.longitudMercator(archivada.get());
+        }
+
         // Usamos ST_Transform para que la longitud se calcule en metros
         // y ST_MakeLine para unir los puntos cronológicamente
         String sql = """
@@ -131,6 +344,12 @@ public class RegistroVueloRepository {
 
 
     public List<VelocidadCalculadaDTO> obtenerVelocidadesCalculadas(Long idMision) {
+        // Una misión archivada se calcula sobre sus puntos ya decodificados
+        Optional<List<RegistroVuelo>> archivada = trayectoriaArchivoRepository.findTrayectoriaArchivada(idMision);
+        if (archivada.isPresent()) {
+            return MetricasTrayectoria.velocidades(archivada.get());
+        }
+
         // SQL NATIVO POSTGRESQL (PostGIS)
         String sql = """
             SELECT 
@@ -0,0 +1,196 @@
+package com.Lab1BDA.Backend.repository;
+
+import com.Lab1BDA.Backend.dto.TelemetriaAgregadaDTO;
+import com.Lab1BDA.Backend.model.RollupTelemetria;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Acceso a registro_vuelo_rollup: agregados de telemetría por misión e intervalo.
+ */
+@Repository
+public class RollupTelemetriaRepository {
+
+    private static final String COLUMNAS = "id_mision, resolucion_segundos, inicio, cantidad, " +
+            "ultimo_timestamp, ultima_longitud, ultima_latitud, ultima_altitud, " +
+            "altitud_min, altitud_max, altitud_suma, cantidad_altitud, " +
+            "velocidad_min, velocidad_max, velocidad_suma, cantidad_velocidad, " +
+            "bateria_min, bateria_max, bateria_suma";
+    private static final String VALORES_FILA = "(" + String.join(", ", Collections.nCopies(19, "?")) + ")";
+
+    // Combina el agregado nuevo con el existente: sumas y cantidades se acumulan, el último punto
+    // se reemplaza sólo si es más reciente. LEAST/GREATEST ignoran los NULL.
+    private static final String COMBINAR = " ON CONFLICT (id_mision, resolucion_segundos, inicio) DO UPDATE SET " +
+            "cantidad = r.cantidad + EXCLUDED.cantidad, " +
+            "ultimo_timestamp = GREATEST(r.ultimo_timestamp, EXCLUDED.ultimo_timestamp), " +
+            "ultima_longitud = CASE WHEN EXCLUDED.ultimo_timestamp >= r.ultimo_timestamp THEN EXCLUDED.ultima_longitud ELSE r.ultima_longitud END, " +
+            "ultima_latitud = CASE WHEN EXCLUDED.ultimo_timestamp >= r.ultimo_timestamp THEN EXCLUDED.ultima_latitud ELSE r.ultima_latitud END, " +
+            "ultima_altitud = CASE WHEN EXCLUDED.ultimo_timestamp >= r.ultimo_timestamp THEN EXCLUDED.ultima_altitud ELSE r.ultima_altitud END, " +
+            "altitud_min = LEAST(r.altitud_min, EXCLUDED.altitud_min), " +
+            "altitud_max = GREATEST(r.altitud_max, EXCLUDED.altitud_max), " +
+            "altitud_suma = r.altitud_suma + EXCLUDED.altitud_suma, " +
+            "cantidad_altitud = r.cantidad_altitud + EXCLUDED.cantidad_altitud, " +
+            "velocidad_min = LEAST(r.velocidad_min, EXCLUDED.velocidad_min), " +
+            "velocidad_max = GREATEST(r.velocidad_max, EXCLUDED.velocidad_max), " +
+            "velocidad_suma = r.velocidad_suma + EXCLUDED.velocidad_suma, " +
+            "cantidad_velocidad = r.cantidad_velocidad + EXCLUDED.cantidad_velocidad, " +
+            "bateria_min = LEAST(r.bateria_min, EXCLUDED.bateria_min), " +
+            "bateria_max = GREATEST(r.bateria_max, EXCLUDED.bateria_max), " +
+            "bateria_suma = r.bateria_suma + EXCLUDED.bateria_suma";
+
+    // 19 parámetros por fila
+    private static final int TAMANO_BLOQUE = 500;
+
+    // Primer entero de los advisory locks por misión: las sumas toman el lock compartido y las
+    // reconstrucciones el exclusivo, así una reconstrucción nunca se intercala con una suma
+    private static final int CLAVE_ROLLUP = 0x524F4C;
+
+    private static final RowMapper<TelemetriaAgregadaDTO> MAPPER = (rs, rowNum) -> {
+        int cantidad = rs.getInt("cantidad");
+        int cantidadAltitud = rs.getInt("cantidad_altitud");
+        int cantidadVelocidad = rs.getInt("cantidad_velocidad");
+        return new TelemetriaAgregadaDTO(
+                rs.getLong("id_mision"),
+                rs.getInt("resolucion_segundos"),
+                rs.getTimestamp("inicio").toLocalDateTime(),
+                cantidad,
+                rs.getTimestamp("ultimo_timestamp").toLocalDateTime(),
+                rs.getDouble("ultima_longitud"),
+                rs.getDouble("ultima_latitud"),
+                rs.getDouble("ultima_altitud"),
+                rs.getObject("altitud_min", Double.class),
+                rs.getObject("altitud_max", Double.class),
+                cantidadAltitud > 0 ? rs.getDouble("altitud_suma") / cantidadAltitud : null,
+                rs.getObject("velocidad_min", Double.class),
+                rs.getObject("velocidad_max", Double.class),
+                cantidadVelocidad > 0 ? rs.getDouble("velocidad_suma") / cantidadVelocidad : null,
+                rs.getDouble("bateria_min"),
+                rs.getDouble("bateria_max"),
+                cantidad > 0 ? rs.getDouble("bateria_suma") / cantidad : 0.0
+        );
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Suma los agregados parciales a los existentes (un INSERT ... ON CONFLICT por bloque).
+     * No debe haber dos agregados con la misma clave en la lista.
+     */
+    @Transactional
+    public void combinar(List<RollupTelemetria> rollups) {
+        if (rollups.isEmpty()) {
+            return;
+        }
+        String misiones = rollups.stream().mapToInt(r -> Long.hashCode(r.getIdMision()))
+                .distinct().sorted().mapToObj(String::valueOf).collect(Collectors.joining(",", "{", "}"));
+        jdbcTemplate.queryForObject("SELECT count(pg_advisory_xact_lock_shared(?, m)) FROM unnest(?::int[]) AS m",
+                Long.class, CLAVE_ROLLUP, misiones);
+
+        for (int desde = 0; desde < rollups.size(); desde += TAMANO_BLOQUE) {
+            List<RollupTelemetria> bloque = rollups.subList(desde, Math.min(desde + TAMANO_BLOQUE, rollups.size()));
+            String sql = "INSERT INTO registro_vuelo_rollup AS r (" + COLUMNAS + ") VALUES " +
+                    String.join(", ", Collections.nCopies(bloque.size(), VALORES_FILA)) + COMBINAR;
+
+            jdbcTemplate.update(sql, ps -> {
+                int i = 1;
+                for (RollupTelemetria r : bloque) {
+                    ps.setLong(i++, r.getIdMision());
+                    ps.setInt(i++, r.getResolucionSegundos());
+                    ps.setObject(i++, r.getInicio());
+                    ps.setInt(i++, r.getCantidad());
+                    ps.setObject(i++, r.getUltimoTimestamp());
+                    ps.setDouble(i++, r.getUltimaLongitud());
+                    ps.setDouble(i++, r.getUltimaLatitud());
+                    ps.setDouble(i++, r.getUltimaAltitud());
+                    ps.setObject(i++, r.getAltitudMin());
+                    ps.setObject(i++, r.getAltitudMax());
+                    ps.setDouble(i++, r.getAltitudSuma());
+                    ps.setInt(i++, r.getCantidadAltitud());
+                    ps.setObject(i++, r.getVelocidadMin());
+                    ps.setObject(i++, r.getVelocidadMax());
+                    ps.setDouble(i++, r.getVelocidadSuma());
+                    ps.setInt(i++, r.getCantidadVelocidad());
+                    ps.setDouble(i++, r.getBateriaMin());
+                    ps.setDouble(i++, r.getBateriaMax());
+                    ps.setDouble(i++, r.getBateriaSuma());
+                }
+            });
+        }
+    }
+
+    /**
+     * Recalcula desde cero los agregados de una misión a partir de su telemetría en registro_vuelo.
+     * Se usa tras importaciones masivas y en el mantenimiento de los agregados
+     * (las misiones archivadas se agregan en memoria y se guardan con {@link #reemplazar}).
+     */
+    @Transactional
+    public int reconstruir(Long idMision, int resolucionSegundos) {
+        bloquearMision(idMision);
+        jdbcTemplate.update("DELETE FROM registro_vuelo_rollup WHERE id_mision = ? AND resolucion_segundos = ?",
+                idMision, resolucionSegundos);
+
+        String sql = """
+            INSERT INTO registro_vuelo_rollup (%1$s)
+            SELECT id_mision, %2$d, inicio, COUNT(*),
+                   MAX("timestamp"),
+                   (ARRAY_AGG(ST_X(coordenadas::geometry) ORDER BY "timestamp" DESC))[1],
+                   (ARRAY_AGG(ST_Y(coordenadas::geometry) ORDER BY "timestamp" DESC))[1],
+                   (ARRAY_AGG(COALESCE(ST_Z(coordenadas::geometry), 0) ORDER BY "timestamp" DESC))[1],
+                   MIN(altitud_msnm), MAX(altitud_msnm), COALESCE(SUM(altitud_msnm), 0), COUNT(altitud_msnm),
+                   MIN(velocidad_kmh), MAX(velocidad_kmh), COALESCE(SUM(velocidad_kmh), 0), COUNT(velocidad_kmh),
+                   MIN(nivel_bateria_porcentaje), MAX(nivel_bateria_porcentaje), SUM(nivel_bateria_porcentaje)
+            FROM (
+                SELECT rv.*, to_timestamp(floor(extract(epoch FROM rv."timestamp") / %2$d) * %2$d) AT TIME ZONE 'UTC' AS inicio
+                FROM registro_vuelo rv
+                WHERE rv.id_mision = ?
+            ) t
+            GROUP BY id_mision, inicio
+            """.formatted(COLUMNAS, resolucionSegundos);
+        return jdbcTemplate.update(sql, idMision);
+    }
+
+    /**
+     * Reemplaza los agregados de una misión en una resolución por los indicados.
+     */
+    @Transactional
+    public int reemplazar(Long idMision, int resolucionSegundos, List<RollupTelemetria> rollups) {
+        bloquearMision(idMision);
+        jdbcTemplate.update("DELETE FROM registro_vuelo_rollup WHERE id_mision = ? AND resolucion_segundos = ?",
+                idMision, resolucionSegundos);
+        combinar(rollups);
+        return rollups.size();
+    }
+
+    /**
+     * Obtiene las misiones con telemetría (en la tabla o archivada) o con agregados.
+     * Recorre toda la tabla: sólo para tareas de mantenimiento.
+     */
+    public List<Long> findMisionesConTelemetria() {
+        String sql = "SELECT id_mision FROM registro_vuelo " +
+                "UNION SELECT id_mision FROM registro_vuelo_archivo " +
+                "UNION SELECT id_mision FROM registro_vuelo_rollup ORDER BY id_mision";
+        return jdbcTemplate.queryForList(sql, Long.class);
+    }
+
+    /**
+     * Obtiene los agregados de una misión en una resolución, ordenados por intervalo.
+     */
+    public List<TelemetriaAgregadaDTO> findByMisionId(Long idMision, int resolucionSegundos) {
+        String sql = "SELECT " + COLUMNAS + " FROM registro_vuelo_rollup " +
+                "WHERE id_mision = ? AND resolucion_segundos = ? ORDER BY inicio";
+        return jdbcTemplate.query(sql, MAPPER, idMision, resolucionSegundos);
+    }
+
+    private void bloquearMision(Long idMision) {
+        jdbcTemplate.queryForObject("SELECT count(pg_advisory_xact_lock(?, ?))", Long.class,
+                CLAVE_ROLLUP, Long.hashCode(idMision));
+    }
+}
@@ -0,0 +1,150 @@
+package com.Lab1BDA.Backend.repository;
+
+import com.Lab1BDA.Backend.model.RegistroVuelo;
+import com.Lab1BDA.Backend.util.CodecTrayectoria;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Archivo comprimido de trayectorias (tabla registro_vuelo_archivo): una fila por misión
+ * con toda su telemetría empaquetada por {@link CodecTrayectoria}.
+ */
+@Repository
+public class TrayectoriaArchivoRepository {
+
+    private static final String TABLA = "registro_vuelo_archivo";
+    private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+
+    // Lee las coordenadas como doubles (y no como WKT) para que el archivo no pierda precisión
+    private static final RowMapper<RegistroVuelo> MAPPER_EXACTO = (rs, rowNum) -> {
+        RegistroVuelo registro = new RegistroVuelo();
+        registro.setIdRegistroVuelo(rs.getLong("id_registro_vuelo"));
+        registro.setIdMision(rs.getLong("id_mision"));
+        registro.setTimestamp(rs.getObject("timestamp", LocalDateTime.class));
+        registro.setCoordenadas(GEOMETRY_FACTORY.createPoint(
+                new Coordinate(rs.getDouble("x"), rs.getDouble("y"), rs.getDouble("z"))));
+        Object altitudObj = rs.getObject("altitud_msnm");
+        registro.setAltitudMsnm(altitudObj != null ? ((Number) altitudObj).doubleValue() : null);
+        Object velocidadObj = rs.getObject("velocidad_kmh");
+        registro.setVelocidadKmh(velocidadObj != null ? ((Number) velocidadObj).doubleValue() : null);
+        registro.setNivelBateriaPorcentaje(rs.getDouble("nivel_bateria_porcentaje"));
+        return registro;
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public boolean existeTabla() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, TABLA));
+    }
+
+    /**
+     * Obtiene los puntos archivados de una misión, ordenados por timestamp.
+     * @return Los puntos, o vacío si la misión no está archivada.
+     */
+    public Optional<List<RegistroVuelo>> findByMisionId(Long idMision) {
+        List<byte[]> datos = jdbcTemplate.queryForList(
+                "SELECT datos FROM " + TABLA + " WHERE id_mision = ?", byte[].class, idMision);
+        return datos.isEmpty() ? Optional.empty() : Optional.of(CodecTrayectoria.decodificar(idMision, datos.get(0)));
+    }
+
+    /**
+     * Recorre los puntos archivados de una misión en orden de timestamp, expandiéndolos de a uno
+     * desde el bloque comprimido (ver {@link CodecTrayectoria#recorrer}).
+     * @return Los puntos, o un iterador vacío si la misión no está archivada.
+     */
+    public Iterator<RegistroVuelo> recorrerPorMisionId(Long idMision) {
+        List<byte[]> datos = jdbcTemplate.queryForList(
+                "SELECT datos FROM " + TABLA + " WHERE id_mision = ?", byte[].class, idMision);
+        return datos.isEmpty() ? Collections.emptyIterator() : CodecTrayectoria.recorrer(idMision, datos.get(0));
+    }
+
+    /**
+     * Obtiene la trayectoria completa de una misión archivada: los puntos del bloque comprimido
+     * más los que hayan llegado a registro_vuelo después de archivarla, ordenados por timestamp.
+     * Los cálculos sobre una misión archivada se hacen en memoria con estos puntos
+     * (ver {@link com.Lab1BDA.Backend.util.MetricasTrayectoria}), sin devolverlos a la base.
+     * @return Los puntos, o vacío si la misión no está archivada (se consulta registro_vuelo directamente).
+     */
+    public Optional<List<RegistroVuelo>> findTrayectoriaArchivada(Long idMision) {
+        Optional<List<RegistroVuelo>> archivados = findByMisionId(idMision);
+        if (archivados.isEmpty()) {
+            return archivados;
+        }
+        List<RegistroVuelo> puntos = archivados.get();
+        List<RegistroVuelo> tardios = jdbcTemplate.query("SELECT id_registro_vuelo, id_mision, \"timestamp\", " +
+                "ST_X(coordenadas::geometry) AS x, ST_Y(coordenadas::geometry) AS y, ST_Z(coordenadas::geometry) AS z, " +
+                "altitud_msnm, velocidad_kmh, nivel_bateria_porcentaje FROM registro_vuelo WHERE id_mision = ?",
+                MAPPER_EXACTO, idMision);
+        if (!tardios.isEmpty()) {
+            puntos.addAll(tardios);
+            puntos.sort(Comparator.comparing(RegistroVuelo::getTimestamp));
+        }
+        return Optional.of(puntos);
+    }
+
+    /**
+     * Busca misiones completadas que aún tienen filas en registro_vuelo y cuya telemetría
+     * más reciente es anterior a 'antesDe'.
+     */
+    public List<Long> findMisionesParaArchivar(LocalDateTime antesDe, int limite) {
+        String sql = "SELECT m.id_mision FROM misiones m " +
+                "WHERE m.estado = 'Completada'::estado_mision " +
+                "AND EXISTS (SELECT 1 FROM registro_vuelo rv WHERE rv.id_mision = m.id_mision) " +
+                "AND NOT EXISTS (SELECT 1 FROM registro_vuelo rv WHERE rv.id_mision = m.id_mision AND rv.\"timestamp\" >= ?) " +
+                "ORDER BY m.id_mision LIMIT ?";
+        return jdbcTemplate.queryForList(sql, Long.class, antesDe, limite);
+    }
+
+    /**
+     * Mueve la telemetría de una misión desde registro_vuelo a su bloque comprimido.
+     * Si la misión ya tenía un bloque (llegaron puntos tarde), se combinan ambos.
+     * Todo ocurre en una transacción: las filas se borran con DELETE ... RETURNING,
+     * así que un punto que llegue mientras tanto queda en la tabla para el siguiente ciclo.
+     * @return Cantidad de puntos movidos desde registro_vuelo.
+     */
+    @Transactional
+    public int archivarMision(Long idMision) {
+        String sql = "DELETE FROM registro_vuelo WHERE id_mision = ? RETURNING id_registro_vuelo, id_mision, \"timestamp\", " +
+                "ST_X(coordenadas::geometry) AS x, ST_Y(coordenadas::geometry) AS y, ST_Z(coordenadas::geometry) AS z, " +
+                "altitud_msnm, velocidad_kmh, nivel_bateria_porcentaje";
+        List<RegistroVuelo> movidos = jdbcTemplate.query(sql, MAPPER_EXACTO, idMision);
+        if (movidos.isEmpty()) {
+            return 0;
+        }
+
+        List<byte[]> previos = jdbcTemplate.queryForList(
+                "SELECT datos FROM " + TABLA + " WHERE id_mision = ? FOR UPDATE", byte[].class, idMision);
+        List<RegistroVuelo> puntos = new ArrayList<>(movidos);
+        if (!previos.isEmpty()) {
+            puntos.addAll(CodecTrayectoria.decodificar(idMision, previos.get(0)));
+        }
+        puntos.sort(Comparator.comparing(RegistroVuelo::getTimestamp).thenComparing(RegistroVuelo::getIdRegistroVuelo));
+
+        RegistroVuelo primero = puntos.get(0);
+        RegistroVuelo ultimo = puntos.get(puntos.size() - 1);
+        jdbcTemplate.update("INSERT INTO " + TABLA + " (id_mision, cantidad_puntos, timestamp_inicio, timestamp_fin, " +
+                        "bateria_inicial, bateria_final, datos) VALUES (?, ?, ?, ?, ?, ?, ?) " +
+                        "ON CONFLICT (id_mision) DO UPDATE SET cantidad_puntos = EXCLUDED.cantidad_puntos, " +
+                        "timestamp_inicio = EXCLUDED.timestamp_inicio, timestamp_fin = EXCLUDED.timestamp_fin, " +
+                        "bateria_inicial = EXCLUDED.bateria_inicial, bateria_final = EXCLUDED.bateria_final, " +
+                        "datos = EXCLUDED.datos, fecha_archivado = CURRENT_TIMESTAMP",
+                idMision, puntos.size(), primero.getTimestamp(), ultimo.getTimestamp(),
+                primero.getNivelBateriaPorcentaje(), ultimo.getNivelBateriaPorcentaje(),
+                CodecTrayectoria.codificar(puntos));
+        return movidos.size();
+    }
+}
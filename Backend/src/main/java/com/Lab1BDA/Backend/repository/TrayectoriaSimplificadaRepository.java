@@ -0,0 +1,154 @@
+package com.Lab1BDA.Backend.repository;
+
+import com.Lab1BDA.Backend.util.CodecGeometria;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.io.WKBWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Acceso a trayectoria_simplificada: versiones simplificadas de la ruta ('ruta') y de la
+ * trayectoria volada ('vuelo') de cada misión, una fila por tolerancia.
+ */
+@Repository
+public class TrayectoriaSimplificadaRepository {
+
+    public static final String ORIGEN_RUTA = "ruta";
+    public static final String ORIGEN_VUELO = "vuelo";
+
+    private static final String TABLA = "trayectoria_simplificada";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final WKBWriter wkbWriter = new WKBWriter(3, true);
+
+    public boolean existeTabla() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, TABLA));
+    }
+
+    /**
+     * Misiones completadas con ruta que aún no tienen versiones simplificadas (o cuya ruta cambió),
+     * o cuya trayectoria volada no las tiene (o se invalidaron porque llegó telemetría después de
+     * completarse) y tiene al menos dos puntos.
+     */
+    public List<Long> findMisionesSinSimplificar(int limite) {
+        String sql = """
+            SELECT m.id_mision FROM misiones m
+            WHERE m.estado = 'Completada'::estado_mision AND m.ruta IS NOT NULL
+            AND (
+                NOT EXISTS (SELECT 1 FROM trayectoria_simplificada t WHERE t.id_mision = m.id_mision AND t.origen = 'ruta')
+                OR (
+                    NOT EXISTS (SELECT 1 FROM trayectoria_simplificada t WHERE t.id_mision = m.id_mision AND t.origen = 'vuelo')
+                    AND (SELECT count(*) FROM (SELECT 1 FROM registro_vuelo rv WHERE rv.id_mision = m.id_mision LIMIT 2) p)
+                        + COALESCE((SELECT a.cantidad_puntos FROM registro_vuelo_archivo a WHERE a.id_mision = m.id_mision), 0) >= 2
+                )
+            )
+            ORDER BY m.id_mision LIMIT ?
+            """;
+        return jdbcTemplate.queryForList(sql, Long.class, limite);
+    }
+
+    /**
+     * Reemplaza todas las versiones simplificadas de una misión y origen.
+     * @param niveles Tolerancia en metros -> trayectoria simplificada.
+     * @param puntosOrigen Puntos de telemetría simplificados (sólo para 'vuelo'; null para 'ruta').
+     */
+    @Transactional
+    public void guardarNiveles(Long idMision, String origen, Map<Double, LineString> niveles, Integer puntosOrigen) {
+        jdbcTemplate.update("DELETE FROM trayectoria_simplificada WHERE id_mision = ? AND origen = ?", idMision, origen);
+
+        List<Object[]> filas = new ArrayList<>(niveles.size());
+        niveles.forEach((tolerancia, geometria) -> filas.add(new Object[]{
+                idMision, origen, tolerancia, geometria.getNumPoints(), puntosOrigen, wkbWriter.write(geometria)}));
+        jdbcTemplate.batchUpdate("INSERT INTO trayectoria_simplificada " +
+                "(id_mision, origen, tolerancia_metros, cantidad_puntos, puntos_origen, geometria) " +
+                "VALUES (?, ?, ?, ?, ?, ST_GeomFromEWKB(?)::geography)", filas);
+    }
+
+    /**
+     * Reemplaza las versiones simplificadas de la trayectoria volada, sólo si la misión sigue
+     * teniendo los mismos puntos que se simplificaron (en la tabla más los archivados).
+     * @return false si llegó telemetría mientras se simplificaba (los niveles no se guardan).
+     */
+    @Transactional
+    public boolean guardarNivelesVuelo(Long idMision, int puntosOrigen, Map<Double, LineString> niveles) {
+        Integer actuales = jdbcTemplate.queryForObject("SELECT (SELECT count(*) FROM registro_vuelo WHERE id_mision = ?) + " +
+                "COALESCE((SELECT cantidad_puntos FROM registro_vuelo_archivo WHERE id_mision = ?), 0)",
+                Integer.class, idMision, idMision);
+        if (actuales == null || actuales != puntosOrigen) {
+            return false;
+        }
+        guardarNiveles(idMision, ORIGEN_VUELO, niveles, puntosOrigen);
+        return true;
+    }
+
+    /**
+     * Borra las versiones simplificadas de la trayectoria volada de las misiones indicadas.
+     * Se llama al registrar telemetría, en la misma transacción: si la misión ya estaba
+     * completada y simplificada, el barrido vuelve a generar sus niveles con los puntos nuevos.
+     */
+    public void invalidarVuelo(Collection<Long> misiones) {
+        if (misiones.isEmpty()) {
+            return;
+        }
+        String arreglo = misiones.stream().map(String::valueOf).collect(Collectors.joining(",", "{", "}"));
+        jdbcTemplate.update("DELETE FROM trayectoria_simplificada WHERE origen = 'vuelo' AND id_mision = ANY(?::bigint[])", arreglo);
+    }
+
+    /**
+     * Reemplaza las versiones simplificadas de la ruta de una misión, sólo si la ruta guardada
+     * sigue siendo la que se simplificó. La fila de la misión se lee con FOR SHARE: si se está
+     * editando, se espera a que termine la edición y se compara con la ruta nueva.
+     * @return false si la ruta cambió mientras se simplificaba (los niveles no se guardan).
+     */
+    @Transactional
+    public boolean guardarNivelesRuta(Long idMision, LineString ruta, Map<Double, LineString> niveles) {
+        CodecGeometria codecGeometria = new CodecGeometria();
+        List<LineString> actual = jdbcTemplate.query(
+                "SELECT ST_AsBinary(ruta) AS ruta_wkb FROM misiones WHERE id_mision = ? FOR SHARE",
+                (rs, rowNum) -> codecGeometria.leer(rs, "ruta_wkb", LineString.class), idMision);
+        if (actual.isEmpty() || actual.get(0) == null || !actual.get(0).equalsExact(ruta)) {
+            return false;
+        }
+        guardarNiveles(idMision, ORIGEN_RUTA, niveles, null);
+        return true;
+    }
+
+    /**
+     * Busca la versión más simplificada cuya tolerancia no supere la pedida.
+     * @return La trayectoria, o vacío si no hay un nivel suficientemente detallado (se deben leer los datos completos).
+     */
+    public Optional<LineString> findNivel(Long idMision, String origen, double toleranciaMaxima) {
+        String sql = "SELECT ST_AsBinary(geometria) AS geometria_wkb FROM trayectoria_simplificada " +
+                "WHERE id_mision = ? AND origen = ? AND tolerancia_metros <= ? " +
+                "ORDER BY tolerancia_metros DESC LIMIT 1";
+        CodecGeometria codecGeometria = new CodecGeometria();
+        List<LineString> resultado = jdbcTemplate.query(sql,
+                (rs, rowNum) -> codecGeometria.leer(rs, "geometria_wkb", LineString.class),
+                idMision, origen, toleranciaMaxima);
+        return resultado.stream().findFirst();
+    }
+
+    /**
+     * Indica si la misión tiene versiones simplificadas de ese origen.
+     */
+    public boolean existenNiveles(Long idMision, String origen) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM trayectoria_simplificada WHERE id_mision = ? AND origen = ?)",
+                Boolean.class, idMision, origen));
+    }
+
+    public void deleteByMision(Long idMision, String origen) {
+        jdbcTemplate.update("DELETE FROM trayectoria_simplificada WHERE id_mision = ? AND origen = ?", idMision, origen);
+    }
+}
@@ -2,9 +2,9 @@ package com.Lab1BDA.Backend.repository;
 
 import com.Lab1BDA.Backend.dto.ZonaProhibidaDTO;
 import com.Lab1BDA.Backend.model.ZonaProhibida;
+import com.Lab1BDA.Backend.util.CodecGeometria;
 import org.locationtech.jts.geom.Polygon;
 import org.locationtech.jts.io.WKBWriter;
-import org.locationtech.jts.io.WKTReader;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -22,7 +22,6 @@ public class ZonaProhibidaRepository {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
-    private final WKTReader wktReader = new WKTReader();
     // Las zonas suelen ser áreas 2D en el suelo (SRID 4326)
     private final WKBWriter wkbWriter = new WKBWriter(2, true);
 
@@ -44,22 +43,13 @@ public class ZonaProhibidaRepository {
     }
 
     public List<ZonaProhibida> findAll() {
-        String sql = "SELECT zona_id, nombre, ST_AsText(area) AS area_wkt FROM zonas_prohibidas";
+        String sql = "SELECT zona_id, nombre, ST_AsBinary(area) AS area_wkb FROM zonas_prohibidas";
+        CodecGeometria codecGeometria = new CodecGeometria();
 
-        return jdbcTemplate.query(sql, (rs, rowNum) -> {
-            Long id = rs.getLong("zona_id");
-            String nombre = rs.getString("nombre");
-            String areaWkt = rs.getString("area_wkt");
-            Polygon area = null;
-
-            try {
-                area = (Polygon) wktReader.read(areaWkt);
-            } catch (Exception e) {
-                throw new RuntimeException("Error al convertir WKT a Polygon para la zona: " + nombre, e);
-            }
-
-            return new ZonaProhibida(id, nombre, area);
-        });
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new ZonaProhibida(
+                rs.getLong("zona_id"),
+                rs.getString("nombre"),
+                codecGeometria.leer(rs, "area_wkb", Polygon.class)));
     }
 
     public List<ZonaProhibidaDTO> findAllAsString() {
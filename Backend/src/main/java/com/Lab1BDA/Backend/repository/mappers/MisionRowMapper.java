@@ -1,13 +1,8 @@
 package com.Lab1BDA.Backend.repository.mappers;
 
 import com.Lab1BDA.Backend.model.Mision;
-// Importamos las clases de JTS
-import org.locationtech.jts.geom.Geometry;
+import com.Lab1BDA.Backend.util.CodecGeometria;
 import org.locationtech.jts.geom.LineString;
-import org.locationtech.jts.io.ParseException;
-import org.locationtech.jts.io.WKBReader;
-import org.locationtech.jts.io.WKTReader;
-// Ya no necesitamos org.postgis.PGgeometry aquí
 import org.springframework.jdbc.core.RowMapper;
 
 import java.sql.ResultSet;
@@ -16,8 +11,8 @@ import java.time.LocalDateTime;
 
 public class MisionRowMapper implements RowMapper<Mision> {
 
-    // Creamos un WKTReader para parsear el String que viene de la BD
-    private final WKBReader wkbReader = new WKBReader();
+    // La ruta llega en binario (ST_AsBinary) y se decodifica con el codec compartido
+    private final CodecGeometria codecGeometria = new CodecGeometria();
 
     @Override
     public Mision mapRow(ResultSet rs, int rowNum) throws SQLException {
@@ -39,24 +34,8 @@ public class MisionRowMapper implements RowMapper<Mision> {
 
         mision.setEstado(rs.getString("estado"));
 
-        // --- Mapeo Corregido de GEOGRAPHY ---
-        // 1. Leemos el String WKT de la columna 'ruta_wkt'
-        byte[] rutaBytes = rs.getBytes("ruta_bytes");
-
-        if (rutaBytes != null && rutaBytes.length > 0) {
-            try {
-                Geometry geom = wkbReader.read(rutaBytes);
-                if (geom instanceof LineString) {
-                    mision.setRuta((LineString) geom);
-                    // Opcional: Asegurar SRID 4326 si JTS no lo infiere
-                    if (mision.getRuta().getSRID() == 0) {
-                        mision.getRuta().setSRID(4326);
-                    }
-                }
-            } catch (ParseException e) {
-                throw new SQLException("Error al parsear geometría WKB", e);
-            }
-        }
+        // --- Mapeo de GEOGRAPHY (WKB) a LineString (JTS) ---
+        mision.setRuta(codecGeometria.leer(rs, "ruta_bytes", LineString.class));
 
         return mision;
     }
@@ -0,0 +1,24 @@
+package com.Lab1BDA.Backend.repository.mappers;
+
+import com.Lab1BDA.Backend.dto.MisionSimulacionDTO;
+import com.Lab1BDA.Backend.util.CodecGeometria;
+import org.locationtech.jts.geom.LineString;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+public class MisionSimulacionRowMapper implements RowMapper<MisionSimulacionDTO> {
+
+    private final CodecGeometria codecGeometria = new CodecGeometria();
+
+    @Override
+    public MisionSimulacionDTO mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new MisionSimulacionDTO(
+                rs.getLong("id_mision"),
+                rs.getLong("id_dron"),
+                rs.getDouble("velocidad_promedio_kmh"),
+                codecGeometria.leer(rs, "ruta_bytes", LineString.class)
+        );
+    }
+}
@@ -1,9 +1,8 @@
 package com.Lab1BDA.Backend.repository.mappers;
 
 import com.Lab1BDA.Backend.model.PuntoInteres;
+import com.Lab1BDA.Backend.util.CodecGeometria;
 import org.locationtech.jts.geom.Point;
-import org.locationtech.jts.io.ParseException;
-import org.locationtech.jts.io.WKTReader;
 import org.springframework.jdbc.core.RowMapper;
 
 import java.sql.ResultSet;
@@ -11,8 +10,8 @@ import java.sql.SQLException;
 
 public class PuntoInteresRowMapper implements RowMapper<PuntoInteres> {
 
-    // El WKTReader nos permite convertir el String de PostGIS a un objeto Point de JTS
-    private final WKTReader wktReader = new WKTReader();
+    // El codec convierte el WKB de PostGIS a un objeto Point de JTS
+    private final CodecGeometria codecGeometria = new CodecGeometria();
 
     @Override
     public PuntoInteres mapRow(ResultSet rs, int rowNum) throws SQLException {
@@ -21,16 +20,8 @@ public class PuntoInteresRowMapper implements RowMapper<PuntoInteres> {
         poi.setNombre(rs.getString("nombre"));
         poi.setDescripcion(rs.getString("descripcion"));
 
-        // Extraemos la geometría que viene como WKT desde la consulta SQL
-        String wkt = rs.getString("ubicacion_wkt");
-        if (wkt != null) {
-            try {
-                poi.setUbicacion((Point) wktReader.read(wkt));
-            } catch (ParseException e) {
-                // Manejo de error si el formato WKT es inválido
-                throw new SQLException("Error al parsear la ubicación del POI: " + wkt, e);
-            }
-        }
+        // Extraemos la geometría que viene como WKB desde la consulta SQL
+        poi.setUbicacion(codecGeometria.leer(rs, "ubicacion_wkb", Point.class));
 
         return poi;
     }
@@ -1,10 +1,8 @@
 package com.Lab1BDA.Backend.repository.mappers;
 
 import com.Lab1BDA.Backend.model.RegistroVuelo;
-import org.locationtech.jts.geom.Geometry;
+import com.Lab1BDA.Backend.util.CodecGeometria;
 import org.locationtech.jts.geom.Point;
-import org.locationtech.jts.io.ParseException;
-import org.locationtech.jts.io.WKTReader;
 import org.springframework.jdbc.core.RowMapper;
 
 import java.sql.ResultSet;
@@ -13,8 +11,8 @@ import java.time.LocalDateTime;
 
 public class RegistroVueloRowMapper implements RowMapper<RegistroVuelo> {
 
-    // Usamos un WKTReader para convertir el String de la BD a un objeto Point
-    private final WKTReader wktReader = new WKTReader();
+    // Las coordenadas llegan en binario (ST_AsBinary) y se decodifican sin pasar por texto
+    private final CodecGeometria codecGeometria = new CodecGeometria();
 
     @Override
     public RegistroVuelo mapRow(ResultSet rs, int rowNum) throws SQLException {
@@ -33,19 +31,8 @@ public class RegistroVueloRowMapper implements RowMapper<RegistroVuelo> {
         registro.setNivelBateriaPorcentaje(rs.getDouble("nivel_bateria_porcentaje"));
 
         // --- Mapeo de GEOGRAPHY (PostGIS) a Point (JTS) ---
-        // Leemos la columna 'coordenadas_wkt' que pedimos en el SQL
-        String coordenadasWkt = rs.getString("coordenadas_wkt");
-
-        if (coordenadasWkt != null && !coordenadasWkt.isEmpty()) {
-            try {
-                Geometry geom = wktReader.read(coordenadasWkt);
-                if (geom instanceof Point) {
-                    registro.setCoordenadas((Point) geom);
-                }
-            } catch (ParseException e) {
-                throw new SQLException("Error al parsear WKT de coordenadas: " + coordenadasWkt, e);
-            }
-        }
+        // Leemos la columna 'coordenadas_wkb' que pedimos en el SQL
+        registro.setCoordenadas(codecGeometria.leer(rs, "coordenadas_wkb", Point.class));
 
         return registro;
     }
@@ -0,0 +1,48 @@
+package com.Lab1BDA.Backend.runner;
+
+import com.Lab1BDA.Backend.service.GeneradorCargaService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Lanza el generador de carga de telemetría contra un backend ya levantado.
+ * Solo actúa si se pasa la opción --carga; al terminar cierra la aplicación. En este modo no
+ * corren las tareas programadas (ver TareasProgramadasConfig), para que el cliente no cargue la
+ * base medida con trabajo propio.
+ *
+ * Ej: java -jar Backend.jar --spring.main.web-application-type=none --carga
+ *         --carga.drones=500 --carga.hz=2 --carga.modo=stream --carga.token=...
+ */
+@Component
+@Slf4j
+public class CargaTelemetriaRunner implements ApplicationRunner {
+
+    @Autowired
+    private GeneradorCargaService generadorCargaService;
+
+    @Autowired
+    private ConfigurableApplicationContext contexto;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!args.containsOption("carga")) {
+            return;
+        }
+
+        int codigoSalida = 0;
+        try {
+            generadorCargaService.ejecutar();
+        } catch (Exception e) {
+            log.error("Error al ejecutar la carga de telemetría", e);
+            codigoSalida = 1;
+        }
+
+        int codigo = codigoSalida;
+        System.exit(SpringApplication.exit(contexto, () -> codigo));
+    }
+}
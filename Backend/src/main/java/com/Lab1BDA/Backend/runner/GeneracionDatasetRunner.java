@@ -0,0 +1,49 @@
+package com.Lab1BDA.Backend.runner;
+
+import com.Lab1BDA.Backend.service.GeneracionDatasetService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Genera un dataset sintético grande en la base configurada, para pruebas de escala de los reportes.
+ * Solo actúa si se pasa la opción --generar-dataset; al terminar cierra la aplicación. En este
+ * modo no corren las tareas programadas (ver TareasProgramadasConfig), y la simulación tampoco
+ * arranca: la aplicación termina antes de quedar lista.
+ *
+ * Ej: java -jar Backend.jar --spring.main.web-application-type=none
+ *         --generar-dataset --dataset.semilla=7 --dataset.drones=5000 --dataset.misiones=500000
+ *         --dataset.fin=2025-06-30T12:00
+ */
+@Component
+@Slf4j
+public class GeneracionDatasetRunner implements ApplicationRunner {
+
+    @Autowired
+    private GeneracionDatasetService generacionDatasetService;
+
+    @Autowired
+    private ConfigurableApplicationContext contexto;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!args.containsOption("generar-dataset")) {
+            return;
+        }
+
+        int codigoSalida = 0;
+        try {
+            generacionDatasetService.ejecutar();
+        } catch (Exception e) {
+            log.error("Error al generar el dataset sintético", e);
+            codigoSalida = 1;
+        }
+
+        int codigo = codigoSalida;
+        System.exit(SpringApplication.exit(contexto, () -> codigo));
+    }
+}
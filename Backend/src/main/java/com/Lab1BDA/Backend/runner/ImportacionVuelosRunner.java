@@ -0,0 +1,62 @@
+package com.Lab1BDA.Backend.runner;
+
+import com.Lab1BDA.Backend.dto.ImportacionResultadoDTO;
+import com.Lab1BDA.Backend.service.ImportacionVuelosService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Permite importar registros de vuelo desde la línea de comandos, sin levantar el frontend.
+ * Solo actúa si se pasa la opción --importar; al terminar cierra la aplicación. En este modo no
+ * corren las tareas programadas (ver TareasProgramadasConfig).
+ *
+ * Ej: java -jar Backend.jar --spring.main.web-application-type=none --importar=vuelos.csv
+ *     java -jar Backend.jar --spring.main.web-application-type=none --importar=vuelo.gpx --mision=12
+ */
+@Component
+@Slf4j
+public class ImportacionVuelosRunner implements ApplicationRunner {
+
+    @Autowired
+    private ImportacionVuelosService importacionVuelosService;
+
+    @Autowired
+    private ConfigurableApplicationContext contexto;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!args.containsOption("importar")) {
+            return;
+        }
+
+        Long idMision = args.containsOption("mision") ? Long.valueOf(args.getOptionValues("mision").get(0)) : null;
+        int codigoSalida = 0;
+
+        for (String ruta : args.getOptionValues("importar")) {
+            Path archivo = Path.of(ruta);
+            try (InputStream entrada = new BufferedInputStream(Files.newInputStream(archivo), 1 << 16)) {
+                ImportacionResultadoDTO resultado = importacionVuelosService.importar(entrada, archivo.getFileName().toString(), idMision);
+                resultado.errores().forEach(error -> log.warn("{}: {}", archivo.getFileName(), error));
+                if (resultado.filasRechazadas() > 0) {
+                    codigoSalida = 2;
+                }
+            } catch (Exception e) {
+                log.error("Error al importar {}", archivo, e);
+                codigoSalida = 1;
+            }
+        }
+
+        int codigo = codigoSalida;
+        System.exit(SpringApplication.exit(contexto, () -> codigo));
+    }
+}
@@ -0,0 +1,63 @@
+package com.Lab1BDA.Backend.runner;
+
+import com.Lab1BDA.Backend.service.RollupTelemetriaService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Recalcula los agregados de telemetría desde los datos crudos. Las ingestas los mantienen al día
+ * en su misma transacción, así que sólo hace falta para datos anteriores a los agregados o
+ * cargados por fuera del backend. Solo actúa si se pasa la opción --reconstruir-agregados;
+ * al terminar cierra la aplicación. En este modo no corren las tareas programadas
+ * (ver TareasProgramadasConfig).
+ *
+ * Ej: java -jar Backend.jar --spring.main.web-application-type=none --reconstruir-agregados
+ *     java -jar Backend.jar --spring.main.web-application-type=none --reconstruir-agregados=12,15
+ */
+@Component
+@Slf4j
+public class ReconstruccionAgregadosRunner implements ApplicationRunner {
+
+    @Autowired
+    private RollupTelemetriaService rollupTelemetriaService;
+
+    @Autowired
+    private ConfigurableApplicationContext contexto;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!args.containsOption("reconstruir-agregados")) {
+            return;
+        }
+
+        int codigoSalida = 0;
+        try {
+            List<Long> misiones = args.getOptionValues("reconstruir-agregados").stream()
+                    .flatMap(valor -> Arrays.stream(valor.split(",")))
+                    .map(String::trim)
+                    .filter(valor -> !valor.isEmpty())
+                    .map(Long::valueOf)
+                    .toList();
+            if (misiones.isEmpty()) {
+                log.info("Agregados recalculados para {} misiones", rollupTelemetriaService.reconstruirTodas());
+            } else {
+                rollupTelemetriaService.reconstruir(misiones);
+                log.info("Agregados recalculados para {} misiones", misiones.size());
+            }
+        } catch (Exception e) {
+            log.error("Error al recalcular los agregados de telemetría", e);
+            codigoSalida = 1;
+        }
+
+        int codigo = codigoSalida;
+        System.exit(SpringApplication.exit(contexto, () -> codigo));
+    }
+}
@@ -25,6 +25,9 @@ public class JwtRequestFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
 
+    // Única ruta que acepta un ticket en la URL en vez de la cabecera Authorization
+    private static final String RUTA_STREAM = "/api/telemetria/monitoreo/stream";
+
     @Override
     protected void doFilterInternal(
             HttpServletRequest request,
@@ -34,9 +37,16 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 
         try {
             String jwt = getJwtFromRequest(request);
+            String ticket = getTicketFromRequest(request);
 
+            String email = null;
             if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                String email = tokenProvider.getEmailFromToken(jwt);
+                email = tokenProvider.getEmailFromToken(jwt);
+            } else if (StringUtils.hasText(ticket) && tokenProvider.validateTicketStream(ticket)) {
+                email = tokenProvider.getEmailFromToken(ticket);
+            }
+
+            if (email != null) {
 
                 // Cargamos el usuario desde la BD (usando nuestro UserDetailsServiceImpl)
                 UserDetails userDetails = userDetailsService.loadUserByUsername(email);
@@ -72,4 +82,13 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         }
         return null;
     }
+
+    // Extrae el ticket del monitoreo en vivo (?ticket=...), sólo en GET /api/telemetria/monitoreo/stream
+    private String getTicketFromRequest(HttpServletRequest request) {
+        String ruta = request.getRequestURI().substring(request.getContextPath().length());
+        if ("GET".equals(request.getMethod()) && RUTA_STREAM.equals(ruta)) {
+            return request.getParameter("ticket");
+        }
+        return null;
+    }
 }
@@ -23,6 +23,14 @@ public class JwtTokenProvider {
     @Value("${jwt.expiration.ms}")
     private long jwtExpirationInMs;
 
+    // Vigencia de los tickets para abrir el monitoreo en vivo (sólo hay que alcanzar a conectarse)
+    @Value("${jwt.ticket-stream.ms:30000}")
+    private long ticketStreamInMs;
+
+    // Claim que marca un token de uso restringido (los tickets): no sirve como token de sesión
+    private static final String CLAIM_USO = "uso";
+    private static final String USO_STREAM = "monitoreo-stream";
+
     private SecretKey secretKey;
 
     @PostConstruct
@@ -53,20 +61,54 @@ public class JwtTokenProvider {
                 .compact();
     }
 
-    // Valida un token
+    // Genera un ticket de vida corta para abrir el monitoreo en vivo con EventSource,
+    // que no puede enviar la cabecera Authorization y lo manda como parámetro de la URL
+    public String generateTicketStream(String email) {
+        Date now = new Date();
+        Date expiryDate = new Date(now.getTime() + ticketStreamInMs);
+
+        return Jwts.builder()
+                .subject(email)
+                .claim(CLAIM_USO, USO_STREAM)
+                .issuedAt(now)
+                .expiration(expiryDate)
+                .signWith(secretKey)
+                .compact();
+    }
+
+    public long getTicketStreamInMs() {
+        return ticketStreamInMs;
+    }
+
+    // Valida un token de sesión (un ticket no sirve como token)
     public boolean validateToken(String token) {
         try {
-            Jwts.parser()
+            Claims claims = Jwts.parser()
                     .verifyWith(secretKey)
                     .build()
-                    .parseSignedClaims(token);
-            return true;
+                    .parseSignedClaims(token)
+                    .getPayload();
+            return claims.get(CLAIM_USO) == null;
         } catch (Exception ex) {
             // Token inválido (expirado, malformado, etc.)
             return false;
         }
     }
 
+    // Valida un ticket del monitoreo en vivo
+    public boolean validateTicketStream(String ticket) {
+        try {
+            Claims claims = Jwts.parser()
+                    .verifyWith(secretKey)
+                    .build()
+                    .parseSignedClaims(ticket)
+                    .getPayload();
+            return USO_STREAM.equals(claims.get(CLAIM_USO));
+        } catch (Exception ex) {
+            return false;
+        }
+    }
+
     // Obtiene el email (subject) desde el token
     public String getEmailFromToken(String token) {
         Claims claims = Jwts.parser()
@@ -0,0 +1,55 @@
+package com.Lab1BDA.Backend.service;
+
+import com.Lab1BDA.Backend.repository.TrayectoriaArchivoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Etapa de archivo: mueve la telemetría de las misiones completadas desde registro_vuelo
+ * a un bloque comprimido por misión (ver CodecTrayectoria). Las lecturas de trayectoria
+ * de RegistroVueloRepository combinan ambos orígenes, así que el cambio es transparente.
+ */
+@Service
+@Slf4j
+public class ArchivoTrayectoriaService {
+
+    @Autowired
+    private TrayectoriaArchivoRepository trayectoriaArchivoRepository;
+
+    // Con varias réplicas, sólo la líder archiva
+    @Autowired
+    private CoordinacionReplicasService coordinacionReplicasService;
+
+    // Días desde el último punto antes de archivar. Por defecto supera el mes que revisa
+    // findDronesCercanosPunto, que consulta registro_vuelo directamente.
+    @Value("${archivo.dias-gracia:35}")
+    private int diasGracia;
+
+    @Value("${archivo.misiones-por-ciclo:20}")
+    private int misionesPorCiclo;
+
+    @Scheduled(fixedDelayString = "${archivo.intervalo-ms:60000}")
+    public void archivarMisionesCompletadas() {
+        try {
+            if (!coordinacionReplicasService.esLider() || !trayectoriaArchivoRepository.existeTabla()) {
+                return;
+            }
+
+            List<Long> misiones = trayectoriaArchivoRepository.findMisionesParaArchivar(
+                    LocalDateTime.now().minusDays(diasGracia), misionesPorCiclo);
+            for (Long idMision : misiones) {
+                int puntos = trayectoriaArchivoRepository.archivarMision(idMision);
+                log.info("Misión {} archivada ({} puntos comprimidos)", idMision, puntos);
+            }
+        } catch (DataAccessException e) {
+            log.warn("No se pudo archivar la telemetría de misiones completadas: {}", e.getMessage());
+        }
+    }
+}
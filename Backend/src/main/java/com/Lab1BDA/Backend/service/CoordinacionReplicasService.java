@@ -0,0 +1,298 @@
+package com.Lab1BDA.Backend.service;
+
+import com.Lab1BDA.Backend.config.TareasProgramadasConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reparto del trabajo entre réplicas del backend con advisory locks de PostgreSQL.
+ *
+ * Las misiones se dividen en 'slots' (por su id) y cada slot es un advisory lock de sesión:
+ * sólo la réplica que lo tiene simula esas misiones, así dos réplicas nunca avanzan el mismo
+ * dron y la simulación escala con las réplicas en vez de duplicarse. Cada réplica tiene además
+ * un lock de "miembro" para contar cuántas hay; en cada renovación toma slots libres hasta su
+ * parte (slots / réplicas) y suelta los que le sobran, primero dejando de usarlos y recién en
+ * la renovación siguiente liberándolos (para que un ciclo en curso no se cruce con el nuevo dueño).
+ *
+ * Los locks viven en una conexión dedicada: si la réplica cae o pierde la conexión, PostgreSQL
+ * los libera y las demás los toman en su próxima renovación. La réplica con el slot 0 es la
+ * líder, y es la única que corre las tareas de mantenimiento (archivo, simplificación).
+ *
+ * Los slots funcionan como un lease: la sesión de coordinación tiene idle_session_timeout, así
+ * que si la réplica deja de renovar (colgada, sin red) PostgreSQL la cierra y suelta sus locks
+ * en 'sesion-inactiva-ms' en vez de esperar al keepalive de TCP. Antes de eso, pasados
+ * 'vigencia-ms' desde la última renovación exitosa, la réplica deja de usar sus slots por su
+ * cuenta. Si la simulación deja de completar ciclos, la réplica suelta todos sus slots.
+ *
+ * Al tomar un slot, sus misiones se recargan desde la base antes de simularlas: el dueño
+ * anterior las siguió avanzando y la posición en memoria de esta réplica puede ser vieja. Las
+ * misiones de los slots ajenos se refrescan desde la base cada 'refresco-ajenas-ms', para que el
+ * monitoreo de esta réplica no las muestre congeladas.
+ *
+ * En los modos de línea de comandos (Ej: --carga) el proceso no es una réplica: no se suma
+ * como miembro ni toma slots, y no simula ni mantiene nada.
+ */
+@Service
+@Slf4j
+public class CoordinacionReplicasService {
+
+    // Primer entero de los advisory locks: slots de la simulación y miembros vivos
+    private static final int CLAVE_SLOTS = 0x53494D;
+    private static final int CLAVE_MIEMBROS = 0x53494E;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private EstadoFlotaService estadoFlotaService;
+
+    @Autowired
+    private Environment environment;
+
+    // Con la coordinación deshabilitada (una sola réplica) esta réplica hace todo
+    @Value("${coordinacion.habilitada:true}")
+    private boolean habilitada;
+
+    @Value("${coordinacion.slots:16}")
+    private int slots;
+
+    @Value("${coordinacion.renovacion-ms:5000}")
+    private long renovacionMs;
+
+    // Debe ser mayor que renovacion-ms y menor que sesion-inactiva-ms
+    @Value("${coordinacion.vigencia-ms:15000}")
+    private long vigenciaMs;
+
+    @Value("${coordinacion.sesion-inactiva-ms:20000}")
+    private long sesionInactivaMs;
+
+    @Value("${coordinacion.refresco-ajenas-ms:2000}")
+    private long refrescoAjenasMs;
+
+    // Sin un ciclo de simulación completo en este tiempo, se considera colgada
+    @Value("${coordinacion.max-ciclo-ms:60000}")
+    private long maxCicloMs;
+
+    // Proceso de línea de comandos: no participa de la coordinación ni hace trabajo de réplica
+    private boolean cliente;
+
+    // Conexión (del pool, retenida) que mantiene los locks de sesión
+    private Connection conexion;
+    private JdbcTemplate sesion;
+
+    // Slots que esta réplica simula ahora, y los que dejó de usar y libera en la próxima renovación
+    private volatile Set<Integer> propios = Set.of();
+    private final Set<Integer> porLiberar = new TreeSet<>();
+
+    // System.nanoTime() de la última renovación exitosa y del último ciclo de simulación (0: ninguno)
+    private volatile long ultimaRenovacion;
+    private volatile long ultimoCiclo;
+
+    // Planificador propio (renovaciones y refresco de misiones ajenas): no esperan detrás de las demás tareas @Scheduled
+    private ScheduledExecutorService renovador;
+
+    @PostConstruct
+    public void init() {
+        cliente = !TareasProgramadasConfig.esModoServidor(environment);
+        if (habilitada && !cliente) {
+            renovador = Executors.newScheduledThreadPool(2, tarea -> {
+                Thread hilo = new Thread(tarea, "coordinacion-replicas");
+                hilo.setDaemon(true);
+                return hilo;
+            });
+            renovador.scheduleWithFixedDelay(this::renovar, 0, renovacionMs, TimeUnit.MILLISECONDS);
+            renovador.scheduleWithFixedDelay(this::refrescarAjenas, refrescoAjenasMs, refrescoAjenasMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Toma o suelta slots según cuántas réplicas hay. Si se pierde la conexión, se deja de
+     * simular de inmediato (los locks ya no están garantizados).
+     */
+    public synchronized void renovar() {
+        if (!habilitada || cliente) {
+            return;
+        }
+        if (ultimoCiclo != 0 && System.nanoTime() - ultimoCiclo > TimeUnit.MILLISECONDS.toNanos(maxCicloMs)) {
+            // Cerrar la sesión suelta los slots y el lock de miembro: las demás réplicas se reparten
+            // sus misiones. Se vuelve a sumar cuando la simulación complete un ciclo
+            if (sesion != null) {
+                log.warn("La simulación no completa un ciclo hace más de {} ms: se sueltan los slots {}", maxCicloMs, propios);
+            }
+            propios = Set.of();
+            cerrarSesion();
+            return;
+        }
+        try {
+            if (sesion == null || !conexion.isValid(2)) {
+                abrirSesion();
+            }
+            for (Integer slot : porLiberar) {
+                sesion.queryForObject("SELECT pg_advisory_unlock(?, ?)", Boolean.class, CLAVE_SLOTS, slot);
+            }
+            porLiberar.clear();
+
+            Integer miembros = sesion.queryForObject("SELECT count(*) FROM pg_locks " +
+                    "WHERE locktype = 'advisory' AND granted AND classid = ?::oid AND objsubid = 2 " +
+                    "AND database = (SELECT oid FROM pg_database WHERE datname = current_database())",
+                    Integer.class, CLAVE_MIEMBROS);
+            int parte = (slots + Math.max(1, miembros) - 1) / Math.max(1, miembros);
+
+            TreeSet<Integer> nuevos = new TreeSet<>(propios);
+            // Se sueltan los de número más alto, así el slot 0 (la líder) no cambia de dueño
+            while (nuevos.size() > parte) {
+                porLiberar.add(nuevos.pollLast());
+            }
+            for (int slot = 0; slot < slots && nuevos.size() < parte; slot++) {
+                if (!nuevos.contains(slot) && !porLiberar.contains(slot) && Boolean.TRUE.equals(
+                        sesion.queryForObject("SELECT pg_try_advisory_lock(?, ?)", Boolean.class, CLAVE_SLOTS, slot))) {
+                    nuevos.add(slot);
+                }
+            }
+            if (!nuevos.equals(propios)) {
+                log.info("Coordinación de réplicas: {} réplicas, esta simula los slots {}", miembros, nuevos);
+            }
+            Set<Integer> tomados = new TreeSet<>(nuevos);
+            tomados.removeAll(propios);
+            if (!tomados.isEmpty()) {
+                // Antes de publicar los slots, así ningún ciclo simula sus misiones con la posición vieja
+                estadoFlotaService.refrescar(idMision -> tomados.contains(slot(idMision)));
+            }
+            propios = Set.copyOf(nuevos);
+            ultimaRenovacion = System.nanoTime();
+        } catch (SQLException | RuntimeException e) {
+            // Cualquier error se atrapa: si escapara, el planificador no volvería a renovar
+            log.warn("No se pudo renovar la coordinación de réplicas: {}", e.getMessage());
+            propios = Set.of();
+            cerrarSesion();
+        }
+    }
+
+    /**
+     * Recarga desde la base la posición de las misiones que simulan las demás réplicas
+     * (una búsqueda en el índice por misión). Con una sola réplica no hace nada.
+     */
+    private void refrescarAjenas() {
+        Set<Integer> slotsPropios = getSlotsPropios();
+        if (slotsPropios.size() == slots) {
+            return;
+        }
+        try {
+            estadoFlotaService.refrescar(idMision -> !slotsPropios.contains(slot(idMision)));
+        } catch (RuntimeException e) {
+            log.debug("No se pudieron refrescar las misiones de otras réplicas: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Indica si esta réplica debe simular la misión.
+     */
+    public boolean simula(long idMision) {
+        return simula(idMision, getSlotsPropios());
+    }
+
+    /**
+     * Como simula(idMision), con los slots leídos antes con getSlotsPropios(). Quien lee los slots
+     * antes que las posiciones ve ya refrescadas las misiones de los slots recién tomados.
+     */
+    public boolean simula(long idMision, Set<Integer> slotsPropios) {
+        if (cliente) {
+            return false;
+        }
+        return !habilitada || slotsPropios.contains(slot(idMision));
+    }
+
+    /**
+     * Indica si esta réplica es la líder (tiene el slot 0). Las tareas de mantenimiento que
+     * no deben correr en paralelo en varias réplicas se ejecutan sólo en la líder.
+     */
+    public boolean esLider() {
+        if (cliente) {
+            return false;
+        }
+        return !habilitada || getSlotsPropios().contains(0);
+    }
+
+    /**
+     * Slots de esta réplica, o ninguno si su lease venció (sin renovar hace más de 'vigencia-ms':
+     * PostgreSQL puede estar por soltar sus locks).
+     */
+    public Set<Integer> getSlotsPropios() {
+        if (habilitada && System.nanoTime() - ultimaRenovacion > TimeUnit.MILLISECONDS.toNanos(vigenciaMs)) {
+            return Set.of();
+        }
+        return propios;
+    }
+
+    /**
+     * Lo llama la simulación al terminar cada ciclo; si deja de llamarse, la réplica suelta sus slots.
+     */
+    public void registrarCiclo() {
+        ultimoCiclo = System.nanoTime();
+    }
+
+    private int slot(long idMision) {
+        return Math.floorMod(Long.hashCode(idMision), slots);
+    }
+
+    private void abrirSesion() throws SQLException {
+        cerrarSesion();
+        conexion = dataSource.getConnection();
+        conexion.setAutoCommit(true);
+        // Una consulta colgada (Ej: sin red) no debe bloquear las renovaciones más allá del lease
+        conexion.setNetworkTimeout(Runnable::run, (int) vigenciaMs);
+        sesion = new JdbcTemplate(new SingleConnectionDataSource(conexion, true));
+        sesion.execute("SET idle_session_timeout = " + sesionInactivaMs);
+        sesion.queryForObject("SELECT pg_try_advisory_lock(?, pg_backend_pid())", Boolean.class, CLAVE_MIEMBROS);
+        propios = Set.of();
+        porLiberar.clear();
+    }
+
+    private void cerrarSesion() {
+        if (conexion != null) {
+            // Al devolver la conexión al pool hay que soltar los locks de sesión y el timeout
+            try (Statement sentencia = conexion.createStatement()) {
+                sentencia.execute("SELECT pg_advisory_unlock_all()");
+                sentencia.execute("RESET idle_session_timeout");
+            } catch (SQLException e) {
+                // La conexión ya está rota: PostgreSQL libera los locks al cerrar la sesión
+            }
+            try {
+                conexion.close();
+            } catch (SQLException e) {
+                log.debug("No se pudo cerrar la conexión de coordinación: {}", e.getMessage());
+            }
+        }
+        conexion = null;
+        sesion = null;
+    }
+
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        if (renovador != null) {
+            renovador.shutdown();
+            renovador.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        synchronized (this) {
+            propios = Set.of();
+            cerrarSesion();
+        }
+    }
+}
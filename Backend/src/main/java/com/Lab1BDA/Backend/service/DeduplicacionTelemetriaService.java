@@ -0,0 +1,144 @@
+package com.Lab1BDA.Backend.service;
+
+import com.Lab1BDA.Backend.model.PuntoTelemetria;
+import com.Lab1BDA.Backend.repository.RegistroVueloRepository;
+import com.Lab1BDA.Backend.repository.TrayectoriaSimplificadaRepository;
+import com.Lab1BDA.Backend.util.FiltroBloom;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Etapa de eliminación de duplicados de la ingesta. Los drones retransmiten cuando el enlace
+ * falla, y un (id_mision, timestamp) repetido infla las consultas de ventana.
+ *
+ * Cada misión tiene un filtro de Bloom rotativo con los timestamps ya vistos. Los puntos que
+ * el filtro da por nuevos se insertan normalmente; sólo los probables repetidos pasan por
+ * INSERT ... ON CONFLICT DO NOTHING contra la restricción única, así que no se agrega
+ * ningún SELECT por punto.
+ *
+ * Cada llamada es una sola transacción: si falla, no queda guardado ningún punto del grupo.
+ * Los filtros igual conservan sus claves, así que un reenvío de esos puntos pasa por
+ * ON CONFLICT DO NOTHING y se inserta normalmente.
+ */
+@Service
+public class DeduplicacionTelemetriaService {
+
+    @Autowired
+    private RegistroVueloRepository registroVueloRepository;
+
+    @Autowired
+    private RollupTelemetriaService rollupTelemetriaService;
+
+    @Autowired
+    private TrayectoriaSimplificadaRepository trayectoriaSimplificadaRepository;
+
+    // Puntos por generación del filtro; al llenarse, la generación actual pasa a ser la anterior
+    @Value("${telemetria.dedup.puntos-por-filtro:4096}")
+    private int puntosPorFiltro;
+
+    @Value("${telemetria.dedup.tasa-falsos-positivos:0.01}")
+    private double tasaFalsosPositivos;
+
+    @Value("${telemetria.dedup.inactividad-minutos:30}")
+    private long inactividadMinutos;
+
+    private final ConcurrentHashMap<Long, FiltroMision> filtros = new ConcurrentHashMap<>();
+    private final LongAdder duplicadosDescartados = new LongAdder();
+
+    /**
+     * Guarda los puntos omitiendo los que ya estaban registrados, todos o ninguno, y suma los
+     * insertados a los agregados en la misma transacción. También invalida la trayectoria
+     * simplificada de sus misiones (sólo existe si la misión ya estaba completada).
+     * @return Los puntos efectivamente insertados.
+     */
+    @Transactional
+    public List<PuntoTelemetria> guardarSinDuplicados(List<PuntoTelemetria> puntos) {
+        List<PuntoTelemetria> nuevos = new ArrayList<>(puntos.size());
+        List<PuntoTelemetria> probables = new ArrayList<>();
+        for (PuntoTelemetria punto : puntos) {
+            FiltroMision filtro = filtros.computeIfAbsent(punto.idMision(), id -> new FiltroMision());
+            if (filtro.probableDuplicado(clave(punto))) {
+                probables.add(punto);
+            } else {
+                nuevos.add(punto);
+            }
+        }
+
+        List<PuntoTelemetria> insertados = new ArrayList<>(puntos.size());
+        for (int inicio = 0; inicio < nuevos.size(); inicio += RegistroVueloRepository.TAMANO_BLOQUE) {
+            List<PuntoTelemetria> bloque = nuevos.subList(inicio, Math.min(inicio + RegistroVueloRepository.TAMANO_BLOQUE, nuevos.size()));
+            try {
+                registroVueloRepository.saveAll(bloque);
+                insertados.addAll(bloque);
+            } catch (DuplicateKeyException e) {
+                // El filtro no conocía el punto (reinicio o generación ya descartada). saveAll sólo
+                // deshizo este bloque (savepoint): se repiten este y los siguientes, dejando que
+                // la restricción única descarte los repetidos
+                insertados.addAll(registroVueloRepository.saveAllIgnorandoDuplicados(nuevos.subList(inicio, nuevos.size())));
+                break;
+            }
+        }
+        if (!probables.isEmpty()) {
+            insertados.addAll(registroVueloRepository.saveAllIgnorandoDuplicados(probables));
+        }
+        rollupTelemetriaService.acumular(insertados);
+        if (!insertados.isEmpty()) {
+            Set<Long> misiones = new HashSet<>();
+            insertados.forEach(punto -> misiones.add(punto.idMision()));
+            trayectoriaSimplificadaRepository.invalidarVuelo(misiones);
+        }
+        duplicadosDescartados.add(puntos.size() - insertados.size());
+        return insertados;
+    }
+
+    public long getDuplicadosDescartados() {
+        return duplicadosDescartados.sum();
+    }
+
+    /**
+     * Libera los filtros de misiones que dejaron de enviar telemetría.
+     */
+    @Scheduled(fixedRate = 60_000)
+    public void liberarFiltrosInactivos() {
+        long limite = System.nanoTime() - TimeUnit.MINUTES.toNanos(inactividadMinutos);
+        filtros.values().removeIf(filtro -> filtro.ultimoUso - limite < 0);
+    }
+
+    private static long clave(PuntoTelemetria punto) {
+        return punto.timestamp().toEpochSecond(ZoneOffset.UTC) * 1_000_000L + punto.timestamp().getNano() / 1_000;
+    }
+
+    /**
+     * Dos generaciones de filtro por misión: se consulta en ambas y se agrega en la actual.
+     * Así la memoria por misión queda acotada y los puntos recientes nunca se olvidan de golpe.
+     */
+    private final class FiltroMision {
+        private FiltroBloom actual = new FiltroBloom(puntosPorFiltro, tasaFalsosPositivos);
+        private FiltroBloom anterior;
+        private volatile long ultimoUso = System.nanoTime();
+
+        synchronized boolean probableDuplicado(long clave) {
+            ultimoUso = System.nanoTime();
+            boolean enAnterior = anterior != null && anterior.contiene(clave);
+            boolean enActual = actual.agregar(clave);
+            if (actual.elementos() >= puntosPorFiltro) {
+                anterior = actual;
+                actual = new FiltroBloom(puntosPorFiltro, tasaFalsosPositivos);
+            }
+            return enAnterior || enActual;
+        }
+    }
+}
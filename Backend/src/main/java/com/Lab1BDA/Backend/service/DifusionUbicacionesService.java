@@ -0,0 +1,288 @@
+package com.Lab1BDA.Backend.service;
+
+import com.Lab1BDA.Backend.dto.MonitoreoCambiosDTO;
+import com.Lab1BDA.Backend.exception.ResourceNotFoundException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Difusión de las ubicaciones de la flota por Server-Sent Events.
+ *
+ * En cada ciclo se piden los cambios del estado de la flota desde la versión difundida en el
+ * ciclo anterior (una sola vez), se serializan a JSON una sola vez y el mismo texto se envía
+ * a todos los suscriptores de la flota completa: N pestañas abiertas cuestan un cálculo, no N
+ * consultas. Los suscriptores con un área (lo visible en su mapa) reciben sólo lo que está
+ * dentro, consultado en el índice espacial del estado de la flota. Eventos:
+ * - "suscripcion": id de la suscripción (para cambiarle el área).
+ * - "flota": arreglo de UbicacionDTO con la flota (o el área) completa; reemplaza lo que tenga el cliente.
+ * - "ubicaciones": arreglo de UbicacionDTO, sólo las misiones que se movieron (o entraron al área).
+ * - "eliminadas": arreglo de idMision que dejaron de estar en progreso (o salieron del área).
+ *
+ * Los ciclos los dispara un planificador propio (como la simulación), no el de las tareas
+ * @Scheduled: un archivo o una simplificación larga no atrasan la difusión.
+ *
+ * Cada envío se hace en su propio hilo virtual, así un cliente lento no atrasa al resto;
+ * si un cliente todavía no terminó el envío anterior, se salta y en su próximo turno recibe
+ * la flota completa para no quedar desfasado.
+ */
+@Service
+@Slf4j
+public class DifusionUbicacionesService {
+
+    @Autowired
+    private EstadoFlotaService estadoFlotaService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${monitoreo.sse.intervalo-ms:1000}")
+    private long intervaloMs;
+
+    private final Map<String, Suscriptor> suscriptores = new ConcurrentHashMap<>();
+    private final ExecutorService envios = Executors.newVirtualThreadPerTaskExecutor();
+    private ScheduledExecutorService planificador;
+
+    // Cada cuántos ciclos se envía un comentario a los suscriptores sin cambios, para mantener viva la conexión
+    private static final int CICLOS_LATIDO = 15;
+    private int ciclos;
+    // Versión de la flota ya enviada a los suscriptores de la flota completa
+    private long version;
+
+    @PostConstruct
+    public void iniciar() {
+        planificador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "difusion-ubicaciones");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        planificador.scheduleWithFixedDelay(this::difundir, intervaloMs, intervaloMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Rectángulo visible de un mapa, en grados.
+     */
+    public record Area(double minLongitud, double minLatitud, double maxLongitud, double maxLatitud) {
+
+        /**
+         * Lee un área con el formato "minLongitud,minLatitud,maxLongitud,maxLatitud".
+         * @throws IllegalArgumentException si el formato o los valores no son válidos.
+         */
+        public static Area parsear(String bbox) {
+            String[] partes = bbox.split(",");
+            if (partes.length != 4) {
+                throw new IllegalArgumentException("El área debe tener el formato minLongitud,minLatitud,maxLongitud,maxLatitud");
+            }
+            try {
+                Area area = new Area(Double.parseDouble(partes[0].trim()), Double.parseDouble(partes[1].trim()),
+                        Double.parseDouble(partes[2].trim()), Double.parseDouble(partes[3].trim()));
+                if (!(area.minLongitud <= area.maxLongitud && area.minLatitud <= area.maxLatitud)) {
+                    throw new IllegalArgumentException("El mínimo del área no puede superar al máximo");
+                }
+                return area;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Coordenadas del área inválidas: " + bbox, e);
+            }
+        }
+    }
+
+    /**
+     * Registra un nuevo suscriptor y le envía la flota completa (o lo que hay en su área).
+     * @param area Área visible, o null para toda la flota.
+     */
+    public SseEmitter suscribir(Area area) {
+        Suscriptor suscriptor = new Suscriptor(new SseEmitter(), area);
+        suscriptor.emitter.onCompletion(() -> suscriptores.remove(suscriptor.id));
+        suscriptor.emitter.onTimeout(() -> suscriptores.remove(suscriptor.id));
+        suscriptor.emitter.onError(error -> suscriptores.remove(suscriptor.id));
+        try {
+            suscriptor.emitter.send(SseEmitter.event().name("suscripcion").data(suscriptor.id));
+        } catch (IOException e) {
+            suscriptor.emitter.completeWithError(e);
+            return suscriptor.emitter;
+        }
+        suscriptores.put(suscriptor.id, suscriptor);
+        enviar(suscriptor, null, null, false);
+        return suscriptor.emitter;
+    }
+
+    /**
+     * Cambia el área de una suscripción (Ej: al mover el mapa) y le envía lo que hay en la nueva.
+     * @param area Nueva área, o null para toda la flota.
+     */
+    public void cambiarArea(String idSuscripcion, Area area) {
+        Suscriptor suscriptor = suscriptores.get(idSuscripcion);
+        if (suscriptor == null) {
+            throw new ResourceNotFoundException("Suscripción no encontrada con id: " + idSuscripcion);
+        }
+        suscriptor.area = area;
+        suscriptor.requiereCompleta = true;
+        enviar(suscriptor, null, null, false);
+    }
+
+    public int getCantidadSuscriptores() {
+        return suscriptores.size();
+    }
+
+    /**
+     * Un ciclo de la difusión. Un error no debe escapar: el planificador no volvería a ejecutarlo.
+     */
+    private void difundir() {
+        try {
+            difundirCambios();
+        } catch (RuntimeException e) {
+            log.warn("Falló un ciclo de la difusión de ubicaciones: {}", e.getMessage());
+        }
+    }
+
+    private void difundirCambios() {
+        if (suscriptores.isEmpty() || !estadoFlotaService.isCargado()) {
+            return;
+        }
+        boolean latido = ++ciclos % CICLOS_LATIDO == 0;
+        String ubicaciones = null;
+        String eliminadas = null;
+        boolean completo = false;
+        if (suscriptores.values().stream().anyMatch(suscriptor -> suscriptor.area == null)) {
+            MonitoreoCambiosDTO cambios = estadoFlotaService.getCambios(version);
+            version = cambios.version();
+            // Si se perdió el rastro de algunas eliminaciones, todos reciben la flota completa
+            completo = cambios.completo();
+            try {
+                if (!completo && !cambios.ubicaciones().isEmpty()) {
+                    ubicaciones = objectMapper.writeValueAsString(cambios.ubicaciones());
+                }
+                if (!completo && !cambios.eliminadas().isEmpty()) {
+                    eliminadas = objectMapper.writeValueAsString(cambios.eliminadas());
+                }
+            } catch (JsonProcessingException e) {
+                log.error("No se pudieron serializar las ubicaciones de la flota", e);
+                return;
+            }
+        }
+        for (Suscriptor suscriptor : suscriptores.values()) {
+            if (suscriptor.area == null && completo) {
+                suscriptor.requiereCompleta = true;
+            }
+            if (suscriptor.area != null || suscriptor.requiereCompleta || ubicaciones != null || eliminadas != null || latido) {
+                enviar(suscriptor, ubicaciones, eliminadas, latido);
+            }
+        }
+    }
+
+    /**
+     * Envía los cambios a un suscriptor (o la flota completa si la necesita). Los suscriptores
+     * con área calculan sus propios cambios, a partir de las misiones que ya tienen.
+     * @param latido Si no hay nada que enviar, se envía un comentario para mantener viva la conexión.
+     */
+    private void enviar(Suscriptor suscriptor, String ubicaciones, String eliminadas, boolean latido) {
+        if (!suscriptor.ocupado.compareAndSet(false, true)) {
+            suscriptor.requiereCompleta = true;
+            return;
+        }
+        envios.execute(() -> {
+            try {
+                Area area = suscriptor.area;
+                boolean enviado;
+                if (area != null) {
+                    enviado = enviarArea(suscriptor, area);
+                } else if (suscriptor.requiereCompleta) {
+                    suscriptor.requiereCompleta = false;
+                    String completa = objectMapper.writeValueAsString(estadoFlotaService.getUbicaciones());
+                    suscriptor.emitter.send(SseEmitter.event().name("flota").data(completa));
+                    enviado = true;
+                } else {
+                    if (ubicaciones != null) {
+                        suscriptor.emitter.send(SseEmitter.event().name("ubicaciones").data(ubicaciones));
+                    }
+                    if (eliminadas != null) {
+                        suscriptor.emitter.send(SseEmitter.event().name("eliminadas").data(eliminadas));
+                    }
+                    enviado = ubicaciones != null || eliminadas != null;
+                }
+                if (!enviado && latido) {
+                    suscriptor.emitter.send(SseEmitter.event().comment("latido"));
+                }
+            } catch (IOException | IllegalStateException e) {
+                // El cliente se desconectó
+                suscriptores.remove(suscriptor.id);
+                suscriptor.emitter.completeWithError(e);
+            } catch (RuntimeException e) {
+                log.warn("No se pudo enviar la flota a un suscriptor: {}", e.getMessage());
+                suscriptor.requiereCompleta = true;
+            } finally {
+                suscriptor.ocupado.set(false);
+            }
+        });
+    }
+
+    /**
+     * Envío a un suscriptor con área: sólo lo que entró, se movió o salió de su área.
+     * @return true si se envió algo.
+     */
+    private boolean enviarArea(Suscriptor suscriptor, Area area) throws IOException {
+        boolean completa = suscriptor.requiereCompleta;
+        if (completa) {
+            suscriptor.requiereCompleta = false;
+            suscriptor.visibles.clear();
+        }
+        MonitoreoCambiosDTO cambios = estadoFlotaService.getCambiosEnArea(area.minLongitud(), area.minLatitud(),
+                area.maxLongitud(), area.maxLatitud(), suscriptor.version, suscriptor.visibles);
+        suscriptor.version = cambios.version();
+        if (completa) {
+            suscriptor.emitter.send(SseEmitter.event().name("flota").data(objectMapper.writeValueAsString(cambios.ubicaciones())));
+            return true;
+        }
+        if (!cambios.ubicaciones().isEmpty()) {
+            suscriptor.emitter.send(SseEmitter.event().name("ubicaciones").data(objectMapper.writeValueAsString(cambios.ubicaciones())));
+        }
+        if (!cambios.eliminadas().isEmpty()) {
+            suscriptor.emitter.send(SseEmitter.event().name("eliminadas").data(objectMapper.writeValueAsString(cambios.eliminadas())));
+        }
+        return !cambios.ubicaciones().isEmpty() || !cambios.eliminadas().isEmpty();
+    }
+
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        planificador.shutdown();
+        planificador.awaitTermination(5, TimeUnit.SECONDS);
+        suscriptores.values().forEach(suscriptor -> suscriptor.emitter.complete());
+        envios.shutdown();
+        envios.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private static final class Suscriptor {
+        private final String id = UUID.randomUUID().toString();
+        private final SseEmitter emitter;
+        private final AtomicBoolean ocupado = new AtomicBoolean();
+        // El primer envío (y el siguiente a uno saltado) lleva la flota completa
+        private volatile boolean requiereCompleta = true;
+        private volatile Area area;
+        // Sólo con área: misiones que ya tiene el cliente y versión del último envío (los usa un envío a la vez)
+        private final Set<Long> visibles = new HashSet<>();
+        private long version;
+
+        private Suscriptor(SseEmitter emitter, Area area) {
+            this.emitter = emitter;
+            this.area = area;
+        }
+    }
+}
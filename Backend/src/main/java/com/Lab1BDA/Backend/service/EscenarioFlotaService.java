@@ -0,0 +1,482 @@
+package com.Lab1BDA.Backend.service;
+
+import com.Lab1BDA.Backend.dto.DemandaEscenarioDTO;
+import com.Lab1BDA.Backend.dto.EscenarioSimulacionDTO;
+import com.Lab1BDA.Backend.dto.FlotaEscenarioDTO;
+import com.Lab1BDA.Backend.dto.ResultadoDemandaEscenarioDTO;
+import com.Lab1BDA.Backend.dto.ResultadoEscenarioDTO;
+import com.Lab1BDA.Backend.dto.ResultadoFlotaEscenarioDTO;
+import com.Lab1BDA.Backend.exception.ResourceNotFoundException;
+import com.Lab1BDA.Backend.model.ModeloDron;
+import com.Lab1BDA.Backend.repository.ModeloDronRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+
+/**
+ * Simulación "qué pasaría si" de una flota hipotética, para planificar capacidad antes de
+ * comprar drones. Corre el mismo ciclo de vida de una misión que la aplicación (solicitud,
+ * iniciarMision, vuelo, completarMision) pero completamente en memoria y sin tocar la base
+ * (sólo se leen las especificaciones de los modelos indicados).
+ *
+ * Es una simulación de eventos discretos: una cola de prioridad de eventos (llegada de una
+ * misión, fin de una misión, fin de una recarga) ordenada por su minuto simulado, y el reloj
+ * salta de un evento al siguiente. El vuelo no necesita pasos intermedios: su duración es el
+ * largo de la ruta a la velocidad del modelo (como en la simulación de vuelo) más el tiempo de
+ * operación, y la batería se consume en proporción a la autonomía. Así una semana de operación
+ * se simula en milisegundos.
+ *
+ * Tras cada misión el dron se recarga hasta el 100% (en minutosRecargaCompleta proporcionales a
+ * lo consumido; 0 es instantáneo), así que siempre sale con la batería completa y el consumo de
+ * cada misión sólo depende de su duración.
+ *
+ * Las misiones esperan en orden de llegada y se asignan al primer dron disponible (en el orden
+ * de la flota) al que le alcance la batería con la reserva pedida. Cada grupo tiene su cola de
+ * las misiones que puede volar, así despachar sólo mira el frente de las colas de los grupos con
+ * drones libres, sin recorrer las misiones que ninguno de ellos puede hacer.
+ */
+@Service
+public class EscenarioFlotaService {
+
+    private static final int LLEGADA = 0;
+    private static final int FIN_MISION = 1;
+    private static final int FIN_RECARGA = 2;
+
+    @Autowired
+    private ModeloDronRepository modeloDronRepository;
+
+    // Tope de misiones esperadas por escenario, para que uno mal escrito no agote la memoria
+    @Value("${escenario.max-misiones:2000000}")
+    private long maxMisiones;
+
+    @Value("${escenario.max-drones:100000}")
+    private int maxDrones;
+
+    /**
+     * Simula un escenario.
+     * @throws IllegalArgumentException si el escenario no es válido.
+     * @throws ResourceNotFoundException si se indica un modelo que no existe.
+     */
+    public ResultadoEscenarioDTO simular(EscenarioSimulacionDTO escenario) {
+        if (escenario == null || escenario.flota() == null || escenario.flota().isEmpty()
+                || escenario.demanda() == null || escenario.demanda().isEmpty()) {
+            throw new IllegalArgumentException("El escenario debe indicar la flota y la demanda");
+        }
+        double dias = valor(escenario.dias(), 7.0);
+        double reserva = valor(escenario.reservaBateriaPorcentaje(), 20.0);
+        double recarga = valor(escenario.minutosRecargaCompleta(), 0.0);
+        if (!(dias > 0 && dias <= 366) || !(reserva >= 0 && reserva < 100) || !(recarga >= 0)) {
+            throw new IllegalArgumentException("dias debe estar entre 0 y 366, la reserva entre 0 y 100 y la recarga no puede ser negativa");
+        }
+
+        List<Grupo> grupos = new ArrayList<>();
+        int totalDrones = 0;
+        for (FlotaEscenarioDTO flota : escenario.flota()) {
+            Grupo grupo = crearGrupo(flota, reserva, grupos.size() + 1);
+            totalDrones += grupo.cantidad;
+            grupos.add(grupo);
+        }
+        if (totalDrones > maxDrones) {
+            throw new IllegalArgumentException("La flota no puede superar " + maxDrones + " drones");
+        }
+
+        List<Flujo> flujos = new ArrayList<>();
+        double misionesEsperadas = 0;
+        for (DemandaEscenarioDTO demanda : escenario.demanda()) {
+            Flujo flujo = crearFlujo(demanda, flujos.size() + 1);
+            misionesEsperadas += flujo.porMinuto * dias * 1440;
+            flujos.add(flujo);
+        }
+        if (misionesEsperadas > maxMisiones) {
+            throw new IllegalArgumentException("El escenario genera unas " + Math.round(misionesEsperadas)
+                    + " misiones; el máximo es " + maxMisiones);
+        }
+
+        return new Simulacion(grupos, flujos, dias * 1440, recarga, valor(escenario.semilla(), 42L)).ejecutar();
+    }
+
+    private Grupo crearGrupo(FlotaEscenarioDTO flota, double reserva, int numero) {
+        String nombre = flota.nombre();
+        Double velocidad = flota.velocidadKmh();
+        Integer autonomia = flota.autonomiaMinutos();
+        if (flota.idModelo() != null) {
+            ModeloDron modelo = modeloDronRepository.findById(flota.idModelo())
+                    .orElseThrow(() -> new ResourceNotFoundException("Modelo no encontrado con id: " + flota.idModelo()));
+            nombre = nombre != null ? nombre : modelo.getNombreModelo();
+            velocidad = velocidad != null ? velocidad : modelo.getVelocidadPromedioKmh();
+            autonomia = autonomia != null ? autonomia : modelo.getAutonomiaMinutos();
+        }
+        if (flota.cantidad() == null || flota.cantidad() <= 0 || velocidad == null || !(velocidad > 0)
+                || autonomia == null || autonomia <= 0) {
+            throw new IllegalArgumentException("Cada grupo de la flota necesita cantidad, velocidadKmh y autonomiaMinutos positivos "
+                    + "(o un idModelo que los tenga)");
+        }
+        return new Grupo(nombre != null ? nombre : "Grupo " + numero, flota.cantidad(),
+                velocidad * 1000.0 / 60.0, autonomia, autonomia * (1 - reserva / 100.0));
+    }
+
+    private static Flujo crearFlujo(DemandaEscenarioDTO demanda, int numero) {
+        if (demanda.misionesPorHora() == null || !(demanda.misionesPorHora() > 0)
+                || demanda.distanciaMediaKm() == null || !(demanda.distanciaMediaKm() > 0)
+                || (demanda.minutosOperacion() != null && demanda.minutosOperacion() < 0)) {
+            throw new IllegalArgumentException("Cada demanda necesita misionesPorHora y distanciaMediaKm positivos");
+        }
+        return new Flujo(demanda.tipo() != null ? demanda.tipo() : "Demanda " + numero,
+                demanda.misionesPorHora() / 60.0, demanda.distanciaMediaKm() * 1000.0,
+                valor(demanda.minutosOperacion(), 0.0));
+    }
+
+    private static <T> T valor(T valor, T porDefecto) {
+        return valor != null ? valor : porDefecto;
+    }
+
+    /**
+     * Una corrida: el estado de la flota, la cola de misiones y la de eventos. Los tiempos van en minutos.
+     */
+    private static final class Simulacion {
+        private final Grupo[] grupos;
+        private final Flujo[] flujos;
+        private final double horizonte;
+        private final double minutosRecarga;
+        private final SplittableRandom random;
+
+        private final PriorityQueue<Evento> eventos = new PriorityQueue<>();
+        // Misiones pendientes (están en la cola de cada grupo que puede volarlas)
+        private long pendientes;
+        // Por dron: su grupo, la misión que vuela (o null) y cuándo la inició
+        private final int[] grupoDe;
+        private final MisionSimulada[] enVuelo;
+        private final double[] inicioVuelo;
+        private int libres;
+        private long orden;
+
+        private long solicitadas;
+        private long completadas;
+        private long inviables;
+        private long procesados;
+        private final Muestras esperas = new Muestras();
+        private final Muestras consumos = new Muestras();
+
+        private Simulacion(List<Grupo> grupos, List<Flujo> flujos, double horizonte, double minutosRecarga, long semilla) {
+            this.grupos = grupos.toArray(Grupo[]::new);
+            this.flujos = flujos.toArray(Flujo[]::new);
+            this.horizonte = horizonte;
+            this.minutosRecarga = minutosRecarga;
+            this.random = new SplittableRandom(semilla);
+            int total = grupos.stream().mapToInt(g -> g.cantidad).sum();
+            grupoDe = new int[total];
+            enVuelo = new MisionSimulada[total];
+            inicioVuelo = new double[total];
+            int dron = 0;
+            for (int g = 0; g < this.grupos.length; g++) {
+                for (int i = 0; i < this.grupos[g].cantidad; i++, dron++) {
+                    grupoDe[dron] = g;
+                    this.grupos[g].disponibles.add(dron);
+                }
+            }
+            libres = total;
+        }
+
+        private ResultadoEscenarioDTO ejecutar() {
+            long inicio = System.nanoTime();
+            for (int f = 0; f < flujos.length; f++) {
+                planificarLlegada(0, f);
+            }
+            while (!eventos.isEmpty() && eventos.peek().minuto <= horizonte) {
+                Evento evento = eventos.poll();
+                procesados++;
+                switch (evento.tipo) {
+                    case LLEGADA -> llegada(evento.minuto, evento.indice);
+                    case FIN_MISION -> completarMision(evento.minuto, evento.indice);
+                    case FIN_RECARGA -> liberar(evento.indice);
+                    default -> throw new IllegalStateException("Evento desconocido: " + evento.tipo);
+                }
+                despachar(evento.minuto);
+            }
+
+            // Los vuelos en curso al final cuentan su tiempo hasta el horizonte
+            long enCurso = 0;
+            for (int dron = 0; dron < enVuelo.length; dron++) {
+                if (enVuelo[dron] != null) {
+                    grupos[grupoDe[dron]].minutosVuelo += horizonte - inicioVuelo[dron];
+                    enCurso++;
+                }
+            }
+            double duracionMs = (System.nanoTime() - inicio) / 1e6;
+            return resultado(enCurso, duracionMs);
+        }
+
+        private void planificarLlegada(double desde, int flujo) {
+            // Llegadas de Poisson: el tiempo entre dos es exponencial
+            double minuto = desde - Math.log(1 - random.nextDouble()) / flujos[flujo].porMinuto;
+            if (minuto <= horizonte) {
+                eventos.add(new Evento(minuto, orden++, LLEGADA, flujo));
+            }
+        }
+
+        /**
+         * Se solicita una misión: queda Pendiente (o se descarta si ningún modelo puede hacerla).
+         */
+        private void llegada(double ahora, int indiceFlujo) {
+            Flujo flujo = flujos[indiceFlujo];
+            planificarLlegada(ahora, indiceFlujo);
+            solicitadas++;
+            flujo.solicitadas++;
+            MisionSimulada mision = new MisionSimulada(solicitadas, indiceFlujo, ahora,
+                    flujo.distanciaMediaMetros * random.nextDouble(0.5, 1.5), flujo.minutosOperacion);
+            boolean viable = false;
+            for (Grupo grupo : grupos) {
+                if (grupo.puede(mision)) {
+                    grupo.pendientes.add(mision);
+                    viable = true;
+                }
+            }
+            if (viable) {
+                pendientes++;
+            } else {
+                inviables++;
+                flujo.inviables++;
+            }
+        }
+
+        /**
+         * Asigna las misiones pendientes, en orden de llegada, a los drones disponibles.
+         * La siguiente en salir es la más antigua entre los frentes de las colas de los grupos
+         * con drones libres: las anteriores a ella no las puede volar ningún dron libre.
+         */
+        private void despachar(double ahora) {
+            while (libres > 0) {
+                MisionSimulada siguiente = null;
+                for (Grupo grupo : grupos) {
+                    MisionSimulada primera = grupo.disponibles.isEmpty() ? null : grupo.primeraPendiente();
+                    if (primera != null && (siguiente == null || primera.numero < siguiente.numero)) {
+                        siguiente = primera;
+                    }
+                }
+                if (siguiente == null) {
+                    return;
+                }
+                for (Grupo grupo : grupos) {
+                    if (!grupo.disponibles.isEmpty() && grupo.puede(siguiente)) {
+                        siguiente.asignada = true;
+                        pendientes--;
+                        iniciarMision(ahora, grupo.disponibles.poll(), siguiente);
+                        break;
+                    }
+                }
+            }
+        }
+
+        /**
+         * El dron sale con la batería completa y la misión termina tras el vuelo y la operación.
+         */
+        private void iniciarMision(double ahora, int dron, MisionSimulada mision) {
+            libres--;
+            enVuelo[dron] = mision;
+            inicioVuelo[dron] = ahora;
+            esperas.agregar(ahora - mision.solicitud);
+            flujos[mision.flujo].iniciadas++;
+            flujos[mision.flujo].esperas.agregar(ahora - mision.solicitud);
+            eventos.add(new Evento(ahora + grupos[grupoDe[dron]].duracion(mision), orden++, FIN_MISION, dron));
+        }
+
+        /**
+         * Termina la misión: se registra la batería consumida y el dron queda disponible
+         * (o recargando, si el escenario tiene recarga).
+         */
+        private void completarMision(double ahora, int dron) {
+            Grupo grupo = grupos[grupoDe[dron]];
+            Flujo flujo = flujos[enVuelo[dron].flujo];
+            double minutos = ahora - inicioVuelo[dron];
+            double consumido = 100.0 * minutos / grupo.autonomiaMinutos;
+            enVuelo[dron] = null;
+            completadas++;
+            grupo.completadas++;
+            flujo.completadas++;
+            grupo.minutosVuelo += minutos;
+            grupo.consumos.agregar(consumido);
+            flujo.consumos.agregar(consumido);
+            consumos.agregar(consumido);
+            if (minutosRecarga > 0) {
+                eventos.add(new Evento(ahora + minutosRecarga * consumido / 100.0, orden++, FIN_RECARGA, dron));
+            } else {
+                liberar(dron);
+            }
+        }
+
+        private void liberar(int dron) {
+            grupos[grupoDe[dron]].disponibles.add(dron);
+            libres++;
+        }
+
+        private ResultadoEscenarioDTO resultado(long enCurso, double duracionMs) {
+            List<ResultadoFlotaEscenarioDTO> flota = new ArrayList<>(grupos.length);
+            double minutosVuelo = 0;
+            int drones = 0;
+            for (Grupo grupo : grupos) {
+                flota.add(new ResultadoFlotaEscenarioDTO(grupo.nombre, grupo.cantidad, grupo.completadas,
+                        grupo.minutosVuelo / (grupo.cantidad * horizonte),
+                        grupo.consumos.promedio(), grupo.consumos.maximo()));
+                minutosVuelo += grupo.minutosVuelo;
+                drones += grupo.cantidad;
+            }
+            List<ResultadoDemandaEscenarioDTO> demanda = new ArrayList<>(flujos.length);
+            for (Flujo flujo : flujos) {
+                demanda.add(new ResultadoDemandaEscenarioDTO(flujo.tipo, flujo.solicitadas, flujo.completadas,
+                        flujo.inviables, flujo.solicitadas - flujo.inviables - flujo.iniciadas,
+                        flujo.esperas.promedio(), flujo.esperas.percentil(95), flujo.consumos.promedio()));
+            }
+            return new ResultadoEscenarioDTO(
+                    horizonte / 1440, solicitadas, completadas, inviables, enCurso, pendientes,
+                    minutosVuelo / (drones * horizonte),
+                    esperas.promedio(), esperas.percentil(50), esperas.percentil(95), esperas.maximo(),
+                    consumos.promedio(), consumos.percentil(95), consumos.maximo(),
+                    flota, demanda, procesados, duracionMs,
+                    duracionMs > 0 ? horizonte * 60_000 / duracionMs : 0);
+        }
+    }
+
+    /**
+     * Drones iguales de la flota. 'disponibles' tiene los índices de los que están libres y
+     * 'pendientes' las misiones que pueden volar, en orden de llegada. Una misión asignada a
+     * otro grupo queda en la cola hasta llegar al frente, donde se descarta.
+     */
+    private static final class Grupo {
+        private final String nombre;
+        private final int cantidad;
+        private final double metrosPorMinuto;
+        private final double autonomiaMinutos;
+        // Minutos que puede durar una misión sin bajar de la reserva de batería
+        private final double minutosUtiles;
+        private final ArrayDeque<Integer> disponibles = new ArrayDeque<>();
+        private final ArrayDeque<MisionSimulada> pendientes = new ArrayDeque<>();
+        private final Muestras consumos = new Muestras();
+        private long completadas;
+        private double minutosVuelo;
+
+        private Grupo(String nombre, int cantidad, double metrosPorMinuto, double autonomiaMinutos, double minutosUtiles) {
+            this.nombre = nombre;
+            this.cantidad = cantidad;
+            this.metrosPorMinuto = metrosPorMinuto;
+            this.autonomiaMinutos = autonomiaMinutos;
+            this.minutosUtiles = minutosUtiles;
+        }
+
+        private double duracion(MisionSimulada mision) {
+            return mision.distanciaMetros / metrosPorMinuto + mision.minutosOperacion;
+        }
+
+        private boolean puede(MisionSimulada mision) {
+            return duracion(mision) <= minutosUtiles;
+        }
+
+        private MisionSimulada primeraPendiente() {
+            while (!pendientes.isEmpty() && pendientes.peek().asignada) {
+                pendientes.poll();
+            }
+            return pendientes.peek();
+        }
+    }
+
+    /**
+     * Flujo de la demanda y sus contadores. Las misiones pendientes al final son las
+     * solicitadas que no fueron inviables ni se iniciaron.
+     */
+    private static final class Flujo {
+        private final String tipo;
+        private final double porMinuto;
+        private final double distanciaMediaMetros;
+        private final double minutosOperacion;
+        private final Muestras esperas = new Muestras();
+        private final Muestras consumos = new Muestras();
+        private long solicitadas;
+        private long inviables;
+        private long iniciadas;
+        private long completadas;
+
+        private Flujo(String tipo, double porMinuto, double distanciaMediaMetros, double minutosOperacion) {
+            this.tipo = tipo;
+            this.porMinuto = porMinuto;
+            this.distanciaMediaMetros = distanciaMediaMetros;
+            this.minutosOperacion = minutosOperacion;
+        }
+    }
+
+    /**
+     * Misión solicitada. 'numero' es su orden de llegada y 'flujo' el índice de su flujo de demanda.
+     */
+    private static final class MisionSimulada {
+        private final long numero;
+        private final int flujo;
+        private final double solicitud;
+        private final double distanciaMetros;
+        private final double minutosOperacion;
+        private boolean asignada;
+
+        private MisionSimulada(long numero, int flujo, double solicitud, double distanciaMetros, double minutosOperacion) {
+            this.numero = numero;
+            this.flujo = flujo;
+            this.solicitud = solicitud;
+            this.distanciaMetros = distanciaMetros;
+            this.minutosOperacion = minutosOperacion;
+        }
+    }
+
+    /**
+     * Evento de la cola. A igual minuto se procesan en el orden en que se crearon, así el
+     * resultado sólo depende de la semilla.
+     */
+    private record Evento(double minuto, long orden, int tipo, int indice) implements Comparable<Evento> {
+        @Override
+        public int compareTo(Evento otro) {
+            int porMinuto = Double.compare(minuto, otro.minuto);
+            return porMinuto != 0 ? porMinuto : Long.compare(orden, otro.orden);
+        }
+    }
+
+    /**
+     * Valores para promedios y percentiles exactos (se ordenan al consultar).
+     */
+    private static final class Muestras {
+        private double[] valores = new double[64];
+        private int cantidad;
+        private boolean ordenado = true;
+
+        private void agregar(double valor) {
+            if (cantidad == valores.length) {
+                valores = Arrays.copyOf(valores, cantidad * 2);
+            }
+            valores[cantidad++] = valor;
+            ordenado = false;
+        }
+
+        private double promedio() {
+            double suma = 0;
+            for (int i = 0; i < cantidad; i++) {
+                suma += valores[i];
+            }
+            return cantidad == 0 ? 0.0 : suma / cantidad;
+        }
+
+        private double percentil(double percentil) {
+            if (cantidad == 0) return 0.0;
+            if (!ordenado) {
+                Arrays.sort(valores, 0, cantidad);
+                ordenado = true;
+            }
+            int indice = (int) Math.ceil(cantidad * percentil / 100.0) - 1;
+            return valores[Math.max(0, Math.min(cantidad - 1, indice))];
+        }
+
+        private double maximo() {
+            return percentil(100);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.Lab1BDA.Backend.service;
+
+import com.Lab1BDA.Backend.dto.MonitoreoCambiosDTO;
+import com.Lab1BDA.Backend.dto.UbicacionDTO;
+import com.Lab1BDA.Backend.model.PuntoTelemetria;
+import com.Lab1BDA.Backend.model.RegistroVuelo;
+import com.Lab1BDA.Backend.repository.MisionRepository;
+import com.Lab1BDA.Backend.repository.RegistroVueloRepository;
+import com.Lab1BDA.Backend.util.EstadoFlota;
+import lombok.extern.slf4j.Slf4j;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.PrecisionModel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongPredicate;
+
+/**
+ * Posición más reciente de cada misión 'En Progreso', en memoria. La actualiza la ingesta
+ * (cada punto persistido) y la simulación, así el monitoreo se responde sin consultar la base.
+ *
+ * La base sólo se lee al arrancar y, cada cierto tiempo, para reconciliar: se compara la lista
+ * de misiones en progreso (las que cambiaron de estado por fuera del backend) y se refrescan las
+ * posiciones. Con varias réplicas cada una sólo avanza en memoria las misiones que simula; las
+ * de las demás se refrescan desde la base cada 'coordinacion.refresco-ajenas-ms'
+ * (ver CoordinacionReplicasService).
+ */
+@Service
+@Slf4j
+public class EstadoFlotaService {
+
+    private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory(new PrecisionModel(), 4326);
+
+    @Autowired
+    private RegistroVueloRepository registroVueloRepository;
+
+    @Autowired
+    private MisionRepository misionRepository;
+
+    // Celdas de 0.01° (~1 km) para el índice espacial de las consultas por área
+    private final EstadoFlota estado = new EstadoFlota(256, 4096, 0.01);
+
+    // Hasta la primera carga completa el monitoreo se lee de la base
+    private volatile boolean cargado;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargar() {
+        try {
+            for (RegistroVuelo registro : registroVueloRepository.findLatestByMisionWithActiveStatus()) {
+                actualizar(registro, true);
+            }
+            cargado = true;
+            log.info("Estado de la flota cargado: {} misiones en progreso", estado.cantidad());
+        } catch (DataAccessException e) {
+            log.warn("No se pudo cargar el estado de la flota: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Sincroniza la lista de misiones con las que están 'En Progreso' en la base y refresca sus
+     * posiciones con el último registro persistido (una posición en memoria más nueva se mantiene).
+     */
+    @Scheduled(fixedDelayString = "${monitoreo.reconciliar-ms:60000}", initialDelayString = "${monitoreo.reconciliar-ms:60000}")
+    public void reconciliar() {
+        if (!cargado) {
+            cargar();
+            return;
+        }
+        try {
+            Set<Long> enProgreso = misionRepository.findIdsEnProgreso();
+            Set<Long> enMemoria = estado.misiones();
+            for (Long idMision : enMemoria) {
+                if (!enProgreso.contains(idMision)) {
+                    desactivar(idMision);
+                }
+            }
+            // Las que ya estaban sólo se refrescan: si terminaron mientras tanto no se vuelven a agregar
+            for (RegistroVuelo registro : registroVueloRepository.findLatestByMisionIds(enProgreso)) {
+                actualizar(registro, !enMemoria.contains(registro.getIdMision()));
+            }
+        } catch (DataAccessException e) {
+            log.warn("No se pudo sincronizar el estado de la flota: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Agrega (o refresca desde la base) las misiones indicadas si están en progreso.
+     * Se usa tras una importación masiva, que no pasa por la ingesta punto a punto.
+     */
+    public void recargar(Collection<Long> misiones) {
+        Set<Long> enProgreso = misionRepository.findIdsEnProgreso();
+        enProgreso.retainAll(misiones);
+        cargarMisiones(enProgreso);
+    }
+
+    /**
+     * Recarga desde la base la posición de las misiones en memoria que cumplen el filtro.
+     * Se usa al tomar los slots de otra réplica, que siguió avanzando esas misiones.
+     */
+    public void refrescar(LongPredicate filtro) {
+        List<Long> misiones = new ArrayList<>();
+        for (Long idMision : estado.misiones()) {
+            if (filtro.test(idMision)) {
+                misiones.add(idMision);
+            }
+        }
+        for (RegistroVuelo registro : registroVueloRepository.findLatestByMisionIds(misiones)) {
+            actualizar(registro, false);
+        }
+    }
+
+    private void cargarMisiones(Collection<Long> misiones) {
+        for (RegistroVuelo registro : registroVueloRepository.findLatestByMisionIds(misiones)) {
+            actualizar(registro, true);
+        }
+    }
+
+    /**
+     * Registra puntos recién persistidos. Sólo se actualizan las misiones en progreso.
+     */
+    public void actualizar(List<PuntoTelemetria> puntos) {
+        for (PuntoTelemetria punto : puntos) {
+            estado.actualizar(punto.idMision(), micros(punto.timestamp()), punto.longitud(), punto.latitud(),
+                    punto.altitudZ(), valor(punto.velocidadKmh()), punto.nivelBateriaPorcentaje(), false);
+        }
+    }
+
+    /**
+     * Registra la posición de una misión.
+     * @param activar true si la misión acaba de pasar a 'En Progreso' (se agrega si no estaba).
+     */
+    public void actualizar(RegistroVuelo registro, boolean activar) {
+        Coordinate coordenada = registro.getCoordenadas().getCoordinate();
+        double altitud = registro.getAltitudMsnm() != null ? registro.getAltitudMsnm()
+                : Double.isNaN(coordenada.getZ()) ? 0.0 : coordenada.getZ();
+        estado.actualizar(registro.getIdMision(), micros(registro.getTimestamp()), coordenada.getX(), coordenada.getY(),
+                altitud, valor(registro.getVelocidadKmh()), valor(registro.getNivelBateriaPorcentaje()), activar);
+    }
+
+    /**
+     * Quita una misión que dejó de estar en progreso.
+     */
+    public void desactivar(Long idMision) {
+        estado.eliminar(idMision);
+    }
+
+    /**
+     * Misiones que cambiaron o se quitaron después de una versión.
+     * @param desde Versión recibida en la consulta anterior (0 para la flota completa).
+     */
+    public MonitoreoCambiosDTO getCambios(long desde) {
+        if (!cargado) {
+            return new MonitoreoCambiosDTO(0, true, getUbicaciones(), List.of());
+        }
+        List<UbicacionDTO> ubicaciones = new ArrayList<>();
+        List<Long> eliminadas = new ArrayList<>();
+        EstadoFlota.Cambios cambios = estado.cambiosDesde(desde,
+                (idMision, timestampMicros, longitud, latitud, altitud, velocidad, bateria) ->
+                        ubicaciones.add(ubicacion(idMision, timestampMicros, longitud, latitud, altitud, bateria)),
+                eliminadas::add);
+        return new MonitoreoCambiosDTO(cambios.version(), cambios.completo(), ubicaciones, eliminadas);
+    }
+
+    /**
+     * Cambios dentro de un rectángulo para un cliente que ya tiene las misiones de 'visibles'.
+     * Las 'eliminadas' incluyen las que salieron del área. Actualiza 'visibles'.
+     */
+    public MonitoreoCambiosDTO getCambiosEnArea(double minLongitud, double minLatitud, double maxLongitud,
+                                                double maxLatitud, long desde, Set<Long> visibles) {
+        List<UbicacionDTO> ubicaciones = new ArrayList<>();
+        List<Long> salidas = new ArrayList<>();
+        long version = estado.cambiosEnArea(minLongitud, minLatitud, maxLongitud, maxLatitud, desde, visibles,
+                (idMision, timestampMicros, longitud, latitud, altitud, velocidad, bateria) ->
+                        ubicaciones.add(ubicacion(idMision, timestampMicros, longitud, latitud, altitud, bateria)),
+                salidas::add);
+        return new MonitoreoCambiosDTO(version, false, ubicaciones, salidas);
+    }
+
+    public boolean isCargado() {
+        return cargado;
+    }
+
+    /**
+     * Ubicación actual de cada misión en progreso.
+     */
+    public List<UbicacionDTO> getUbicaciones() {
+        if (!cargado) {
+            return registroVueloRepository.findLatestByMisionWithActiveStatus().stream()
+                    .map(registro -> new UbicacionDTO(registro.getIdMision(), registro.getTimestamp(),
+                            registro.getCoordenadas().getY(), registro.getCoordenadas().getX(),
+                            registro.getAltitudMsnm(), registro.getNivelBateriaPorcentaje()))
+                    .toList();
+        }
+        List<UbicacionDTO> ubicaciones = new ArrayList<>(estado.cantidad());
+        estado.recorrer((idMision, timestampMicros, longitud, latitud, altitud, velocidad, bateria) ->
+                ubicaciones.add(ubicacion(idMision, timestampMicros, longitud, latitud, altitud, bateria)));
+        return ubicaciones;
+    }
+
+    /**
+     * Último registro de cada misión en progreso (sin ID), para la simulación.
+     */
+    public List<RegistroVuelo> getRegistros() {
+        if (!cargado) {
+            return registroVueloRepository.findLatestByMisionWithActiveStatus();
+        }
+        List<RegistroVuelo> registros = new ArrayList<>(estado.cantidad());
+        estado.recorrer((idMision, timestampMicros, longitud, latitud, altitud, velocidad, bateria) -> {
+            RegistroVuelo registro = new RegistroVuelo();
+            registro.setIdMision(idMision);
+            registro.setTimestamp(fecha(timestampMicros));
+            registro.setCoordenadas(GEOMETRY_FACTORY.createPoint(new Coordinate(longitud, latitud, altitud)));
+            registro.setAltitudMsnm(altitud);
+            registro.setVelocidadKmh(Double.isNaN(velocidad) ? null : velocidad);
+            registro.setNivelBateriaPorcentaje(Double.isNaN(bateria) ? null : bateria);
+            registros.add(registro);
+        });
+        return registros;
+    }
+
+    private static UbicacionDTO ubicacion(long idMision, long timestampMicros, double longitud, double latitud,
+                                          double altitud, double bateria) {
+        return new UbicacionDTO(idMision, fecha(timestampMicros), latitud, longitud, altitud,
+                Double.isNaN(bateria) ? null : bateria);
+    }
+
+    private static long micros(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + timestamp.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fecha(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    private static double valor(Double valor) {
+        return valor != null ? valor : Double.NaN;
+    }
+}
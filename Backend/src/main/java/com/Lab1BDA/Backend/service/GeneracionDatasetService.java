@@ -0,0 +1,407 @@
+package com.Lab1BDA.Backend.service;
+
+import com.Lab1BDA.Backend.model.ModeloDron;
+import com.Lab1BDA.Backend.model.TipoMision;
+import com.Lab1BDA.Backend.repository.DatasetSinteticoRepository;
+import com.Lab1BDA.Backend.repository.ModeloDronRepository;
+import com.Lab1BDA.Backend.repository.RegistroVueloRepository;
+import com.Lab1BDA.Backend.repository.TipoMisionRepository;
+import com.Lab1BDA.Backend.util.CinematicaRuta;
+import lombok.extern.slf4j.Slf4j;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.StringReader;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Generador de un dataset sintético grande y reproducible, para probar las consultas de reportes
+ * con volúmenes de producción (miles de drones, cientos de miles de misiones, cientos de
+ * millones de puntos de telemetría).
+ *
+ * Cada dron hace sus misiones una tras otra en la ventana [fin - dias, fin]: cada misión ocupa un
+ * turno de la ventana (desfasados al azar por dron), con una ruta aleatoria dentro de la región y una hora de inicio aleatoria
+ * dentro del turno. La telemetría sale de la misma cinemática que la simulación de vuelo
+ * ({@link CinematicaRuta#posicionVuelo}), pero con el reloj acelerado: cada punto avanza
+ * 'intervalo-segundos' sin esperar, y las filas se cargan con COPY en bloques. Según su horario
+ * la misión queda Completada (o Fallida, cortada a mitad de camino), En Progreso (con telemetría
+ * hasta 'fin') o Pendiente (sin telemetría).
+ *
+ * Todo lo aleatorio de un dron sale de un generador sembrado con la semilla y el índice del dron:
+ * con la misma semilla, parámetros y 'fin' el dataset es el mismo, sin importar cuántos hilos lo
+ * generen. Los ids los da la base (se reservan en bloque), así que en una base vacía también coinciden.
+ */
+@Service
+@Slf4j
+public class GeneracionDatasetService {
+
+    private static final double METROS_POR_GRADO = 111_320.0;
+
+    @Autowired
+    private DatasetSinteticoRepository datasetRepository;
+
+    @Autowired
+    private ModeloDronRepository modeloDronRepository;
+
+    @Autowired
+    private TipoMisionRepository tipoMisionRepository;
+
+    @Autowired
+    private RegistroVueloRepository registroVueloRepository;
+
+    @Autowired
+    private ParticionRegistroVueloService particionService;
+
+    @Autowired
+    private RollupTelemetriaService rollupTelemetriaService;
+
+    @Value("${dataset.semilla:42}")
+    private long semilla;
+
+    @Value("${dataset.drones:2000}")
+    private int cantidadDrones;
+
+    @Value("${dataset.misiones:200000}")
+    private int cantidadMisiones;
+
+    @Value("${dataset.dias:180}")
+    private int dias;
+
+    // Fin de la ventana (Ej: 2025-06-30T12:00); vacío = ahora. Fijarlo hace el dataset reproducible
+    @Value("${dataset.fin:}")
+    private String fin;
+
+    // Segundos simulados entre dos puntos de telemetría de un dron
+    @Value("${dataset.intervalo-segundos:5}")
+    private int intervaloSegundos;
+
+    // minLongitud,minLatitud,maxLongitud,maxLatitud (por defecto, Santiago)
+    @Value("${dataset.region:-70.80,-33.60,-70.50,-33.30}")
+    private String region;
+
+    @Value("${dataset.probabilidad-falla:0.03}")
+    private double probabilidadFalla;
+
+    @Value("${dataset.probabilidad-mantenimiento:0.02}")
+    private double probabilidadMantenimiento;
+
+    // Cada hilo usa una conexión para sus COPY
+    @Value("${dataset.hilos:4}")
+    private int hilos;
+
+    @Value("${dataset.filas-por-copy:50000}")
+    private int filasPorCopy;
+
+    // Recalcular los agregados de telemetría de las misiones generadas (lo más lento de la carga)
+    @Value("${dataset.rollups:true}")
+    private boolean rollups;
+
+    /**
+     * Genera y carga el dataset completo.
+     */
+    public void ejecutar() throws InterruptedException {
+        if (cantidadDrones <= 0 || cantidadMisiones < 0 || dias <= 0 || intervaloSegundos <= 0 || hilos <= 0 || filasPorCopy <= 0) {
+            throw new IllegalArgumentException("dataset.drones, dias, intervalo-segundos, hilos y filas-por-copy deben ser positivos");
+        }
+        double[] limites = parsearRegion(region);
+        List<ModeloDron> modelos = modeloDronRepository.findAll().stream()
+                .filter(m -> m.getVelocidadPromedioKmh() != null && m.getVelocidadPromedioKmh() > 0
+                        && m.getAutonomiaMinutos() != null && m.getAutonomiaMinutos() > 0)
+                .toList();
+        List<TipoMision> tipos = tipoMisionRepository.findAll();
+        List<Long> operadores = datasetRepository.findIdsOperadores();
+        if (modelos.isEmpty() || tipos.isEmpty() || operadores.isEmpty()) {
+            throw new IllegalStateException("Faltan modelos de dron (con velocidad y autonomía), tipos de misión u operadores; "
+                    + "cargue primero Datos_BD/Datos_prueba.sql");
+        }
+
+        LocalDateTime hasta = fin.isBlank() ? LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS) : LocalDateTime.parse(fin);
+        LocalDateTime desde = hasta.minusDays(dias);
+        // Las particiones se crean antes, así la telemetría no pasa por la partición por defecto
+        if (!particionService.asegurarMeses(YearMonth.from(desde), YearMonth.from(hasta))) {
+            log.info("registro_vuelo no está particionada: la telemetría se carga en la tabla única");
+        }
+
+        long primerDron = datasetRepository.reservarIds("drones", "id_dron", cantidadDrones);
+        long primeraMision = cantidadMisiones > 0 ? datasetRepository.reservarIds("misiones", "id_mision", cantidadMisiones) : 0;
+        Generacion generacion = new Generacion(limites, modelos, tipos, operadores, desde, hasta, primerDron, primeraMision);
+
+        log.info("Generando dataset (semilla {}): {} drones, {} misiones entre {} y {}, un punto cada {} s, {} hilos",
+                semilla, cantidadDrones, cantidadMisiones, desde, hasta, intervaloSegundos, hilos);
+        long inicio = System.nanoTime();
+
+        // 1. Drones (las misiones los referencian)
+        StringBuilder drones = new StringBuilder(cantidadDrones * 24);
+        for (int indice = 0; indice < cantidadDrones; indice++) {
+            SplittableRandom random = random(indice, 0);
+            ModeloDron modelo = modelos.get(random.nextInt(modelos.size()));
+            String estado = random.nextDouble() < probabilidadMantenimiento ? "En Mantenimiento" : "Disponible";
+            drones.append(primerDron + indice).append(',').append(modelo.getIdModelo()).append(',').append(estado).append('\n');
+        }
+        datasetRepository.copiarDrones(new StringReader(drones.toString()));
+
+        // 2. Misiones y telemetría, repartiendo los drones entre los hilos
+        try (ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> tareas = new ArrayList<>(hilos);
+            for (int hilo = 0; hilo < hilos; hilo++) {
+                int primero = hilo;
+                tareas.add(ejecutor.submit(() -> generarDrones(generacion, primero)));
+            }
+            for (Future<?> tarea : tareas) {
+                try {
+                    tarea.get();
+                } catch (ExecutionException e) {
+                    // Las filas ya copiadas quedan: el dataset parcial se descarta borrando desde primerDron / primeraMision
+                    ejecutor.shutdownNow();
+                    throw new IllegalStateException("Falló la generación del dataset: " + e.getCause().getMessage(), e.getCause());
+                }
+            }
+        }
+
+        // 3. Estado de los drones con una misión en curso, y estadísticas para el planificador
+        datasetRepository.marcarDronesEnVuelo(primerDron, primerDron + cantidadDrones - 1);
+        datasetRepository.analizar();
+
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        long puntos = generacion.puntos.sum();
+        log.info("Dataset generado en {} s: {} drones ({} a {}), {} misiones, {} puntos de telemetría ({} puntos/s)",
+                Math.round(segundos), cantidadDrones, primerDron, primerDron + cantidadDrones - 1,
+                generacion.misiones.sum(), puntos, Math.round(puntos / Math.max(segundos, 1e-3)));
+    }
+
+    /**
+     * Trabajo de un hilo: los drones primero, primero + hilos, primero + 2 * hilos, ...
+     * Las misiones de un bloque se copian siempre antes que su telemetría.
+     */
+    private void generarDrones(Generacion generacion, int primero) {
+        Bloque bloque = new Bloque();
+        for (int indice = primero; indice < cantidadDrones; indice += hilos) {
+            generarDron(generacion, indice, bloque);
+            if (bloque.filasTelemetria >= filasPorCopy) {
+                copiar(bloque);
+            }
+            int listos = generacion.dronesListos.incrementAndGet();
+            if (listos % Math.max(1, cantidadDrones / 20) == 0) {
+                log.info("Dataset: {}% ({} misiones, {} puntos)", listos * 100L / cantidadDrones,
+                        generacion.misiones.sum(), generacion.puntos.sum());
+            }
+        }
+        copiar(bloque);
+    }
+
+    /**
+     * Misiones de un dron, una por turno, con su telemetría.
+     */
+    private void generarDron(Generacion generacion, int indice, Bloque bloque) {
+        int base = cantidadMisiones / cantidadDrones;
+        int resto = cantidadMisiones % cantidadDrones;
+        int misionesDron = base + (indice < resto ? 1 : 0);
+        if (misionesDron == 0) {
+            return;
+        }
+        long primeraMision = generacion.primeraMision + (long) indice * base + Math.min(indice, resto);
+        long idDron = generacion.primerDron + indice;
+
+        // El modelo sale del mismo generador que al copiar los drones
+        ModeloDron modelo = generacion.modelos.get(random(indice, 0).nextInt(generacion.modelos.size()));
+        SplittableRandom random = random(indice, 1);
+        double velocidad = modelo.getVelocidadPromedioKmh() / 3.6;
+        double autonomiaSegundos = modelo.getAutonomiaMinutos() * 60.0;
+        long ventana = Duration.between(generacion.desde, generacion.hasta).toSeconds();
+        long turno = ventana / misionesDron;
+        // Desfase del dron: su última misión puede quedar en curso o todavía pendiente al final de la ventana
+        long fase = random.nextLong(0, Math.max(1, turno));
+
+        for (int k = 0; k < misionesDron; k++) {
+            long idMision = primeraMision + k;
+            // Un vuelo usa hasta el 90% del turno y el 80% de la autonomía
+            double duracionMaxima = Math.max(60, Math.min(turno * 0.9, autonomiaSegundos * 0.8));
+            double largoObjetivo = Math.max(300, Math.min(20_000, random.nextDouble(0.2, 1.0) * duracionMaxima * velocidad));
+            LineString ruta = generarRuta(generacion.limites, largoObjetivo, random);
+            CinematicaRuta cinematica = new CinematicaRuta(ruta);
+            long duracion = Math.max(1, (long) Math.ceil(cinematica.longitudTotal() / velocidad));
+
+            LocalDateTime inicio = generacion.desde.plusSeconds(fase + (long) k * turno
+                    + (long) (random.nextDouble() * Math.max(0, turno - duracion)));
+            LocalDateTime inicioPlanificado = inicio.minusSeconds(random.nextLong(0, 600));
+            LocalDateTime creacion = inicioPlanificado.minusSeconds(random.nextLong(3600, 3 * 86_400));
+            TipoMision tipo = generacion.tipos.get(random.nextInt(generacion.tipos.size()));
+            Long operador = generacion.operadores.get(random.nextInt(generacion.operadores.size()));
+            boolean falla = random.nextDouble() < probabilidadFalla;
+            double corte = random.nextDouble(0.1, 0.9);
+            double bateriaInicial = random.nextDouble(90, 100);
+            double variacionVelocidad = random.nextDouble(-0.03, 0.03);
+
+            String estado;
+            long limite; // Segundos de vuelo con telemetría
+            LocalDateTime finReal = null;
+            if (inicio.isAfter(generacion.hasta)) {
+                estado = "Pendiente";
+                limite = -1;
+            } else if (inicio.plusSeconds(duracion).isAfter(generacion.hasta)) {
+                estado = "En Progreso";
+                limite = Duration.between(inicio, generacion.hasta).toSeconds();
+            } else if (falla) {
+                estado = "Fallida";
+                limite = (long) (duracion * corte);
+                finReal = inicio.plusSeconds(limite);
+            } else {
+                estado = "Completada";
+                limite = duracion;
+                finReal = inicio.plusSeconds(duracion);
+            }
+
+            bloque.misiones.append(idMision).append(',').append(idDron).append(',')
+                    .append(tipo.getIdTipoMision()).append(',').append(operador).append(',')
+                    .append(creacion).append(',').append(inicioPlanificado).append(',')
+                    .append(inicioPlanificado.plusSeconds(duracion)).append(',')
+                    .append(limite >= 0 ? inicio : "").append(',').append(finReal != null ? finReal : "").append(',')
+                    .append(estado).append(',');
+            agregarRuta(bloque.misiones, ruta);
+            generacion.misiones.increment();
+
+            // Telemetría con el reloj acelerado; el último punto cae justo en el límite
+            double velocidadKmh = Math.round(modelo.getVelocidadPromedioKmh() * (1 + variacionVelocidad) * 100) / 100.0;
+            long puntos = 0;
+            for (long t = 0; limite >= 0; t += intervaloSegundos) {
+                long segundo = Math.min(t, limite);
+                Coordinate posicion = cinematica.posicionVuelo(velocidad * segundo);
+                double bateria = Math.max(5, bateriaInicial - 100.0 * segundo / autonomiaSegundos);
+                double altitud = Math.round(posicion.getZ() * 100) / 100.0;
+                bloque.telemetria.append(idMision).append(',').append(inicio.plusSeconds(segundo)).append(',')
+                        .append("SRID=4326;POINT Z (").append(posicion.getX()).append(' ').append(posicion.getY())
+                        .append(' ').append(posicion.getZ()).append("),")
+                        .append(altitud).append(',').append(velocidadKmh).append(',')
+                        .append(Math.round(bateria * 100) / 100.0).append('\n');
+                puntos++;
+                if (segundo >= limite) {
+                    break;
+                }
+            }
+            if (puntos > 0) {
+                bloque.filasTelemetria += puntos;
+                bloque.misionesConTelemetria.add(idMision);
+                generacion.puntos.add(puntos);
+            }
+        }
+    }
+
+    /**
+     * Ruta aleatoria de 1 a 5 tramos que parte de un punto de la región y gira hasta 45° en cada
+     * vértice. Los vértices se acotan a la región, por lo que puede quedar más corta que lo pedido.
+     */
+    private static LineString generarRuta(double[] limites, double largo, SplittableRandom random) {
+        int tramos = random.nextInt(1, 6);
+        Coordinate[] vertices = new Coordinate[tramos + 1];
+        double lon = random.nextDouble(limites[0], limites[2]);
+        double lat = random.nextDouble(limites[1], limites[3]);
+        double rumbo = random.nextDouble(0, 2 * Math.PI);
+        vertices[0] = new Coordinate(lon, lat, random.nextDouble(100, 120));
+        for (int i = 1; i <= tramos; i++) {
+            double metros = largo / tramos;
+            lon += metros * Math.sin(rumbo) / (METROS_POR_GRADO * Math.cos(Math.toRadians(lat)));
+            lat += metros * Math.cos(rumbo) / METROS_POR_GRADO;
+            lon = Math.max(limites[0], Math.min(limites[2], lon));
+            lat = Math.max(limites[1], Math.min(limites[3], lat));
+            vertices[i] = new Coordinate(lon, lat, random.nextDouble(100, 120));
+            rumbo += Math.toRadians(random.nextDouble(-45, 45));
+        }
+        return new GeometryFactory().createLineString(vertices);
+    }
+
+    /**
+     * Agrega la ruta en EWKT (entre comillas, por las comas de sus vértices) y el fin de línea.
+     */
+    private static void agregarRuta(StringBuilder salida, LineString ruta) {
+        salida.append("\"SRID=4326;LINESTRING Z (");
+        Coordinate[] vertices = ruta.getCoordinates();
+        for (int i = 0; i < vertices.length; i++) {
+            if (i > 0) {
+                salida.append(", ");
+            }
+            salida.append(vertices[i].getX()).append(' ').append(vertices[i].getY()).append(' ').append(vertices[i].getZ());
+        }
+        salida.append(")\"\n");
+    }
+
+    /**
+     * Copia las misiones pendientes del bloque y luego su telemetría, y lo vacía.
+     */
+    private void copiar(Bloque bloque) {
+        if (!bloque.misiones.isEmpty()) {
+            datasetRepository.copiarMisiones(new StringReader(bloque.misiones.toString()));
+            bloque.misiones.setLength(0);
+        }
+        if (!bloque.telemetria.isEmpty()) {
+            registroVueloRepository.copiarDesdeCsv(new StringReader(bloque.telemetria.toString()));
+            bloque.telemetria.setLength(0);
+            bloque.filasTelemetria = 0;
+        }
+        if (rollups && !bloque.misionesConTelemetria.isEmpty()) {
+            // Una misión repartida en dos bloques se recalcula dos veces; la segunda la deja completa
+            rollupTelemetriaService.reconstruir(bloque.misionesConTelemetria);
+        }
+        bloque.misionesConTelemetria.clear();
+    }
+
+    private SplittableRandom random(int indiceDron, int flujo) {
+        return new SplittableRandom(semilla * 0x9E3779B97F4A7C15L + indiceDron * 2L + flujo);
+    }
+
+    private static double[] parsearRegion(String region) {
+        String[] partes = region.split(",");
+        if (partes.length != 4) {
+            throw new IllegalArgumentException("dataset.region debe tener el formato minLongitud,minLatitud,maxLongitud,maxLatitud");
+        }
+        double[] limites = new double[4];
+        for (int i = 0; i < 4; i++) {
+            limites[i] = Double.parseDouble(partes[i].trim());
+        }
+        if (!(limites[0] < limites[2] && limites[1] < limites[3])) {
+            throw new IllegalArgumentException("dataset.region: el mínimo debe ser menor que el máximo");
+        }
+        return limites;
+    }
+
+    /**
+     * Parámetros comunes de una generación y sus contadores.
+     */
+    private record Generacion(double[] limites, List<ModeloDron> modelos, List<TipoMision> tipos, List<Long> operadores,
+                              LocalDateTime desde, LocalDateTime hasta, long primerDron, long primeraMision,
+                              AtomicInteger dronesListos, LongAdder misiones, LongAdder puntos) {
+
+        private Generacion(double[] limites, List<ModeloDron> modelos, List<TipoMision> tipos, List<Long> operadores,
+                           LocalDateTime desde, LocalDateTime hasta, long primerDron, long primeraMision) {
+            this(limites, modelos, tipos, operadores, desde, hasta, primerDron, primeraMision,
+                    new AtomicInteger(), new LongAdder(), new LongAdder());
+        }
+    }
+
+    /**
+     * Filas acumuladas por un hilo hasta el próximo COPY.
+     */
+    private static final class Bloque {
+        private final StringBuilder misiones = new StringBuilder();
+        private final StringBuilder telemetria = new StringBuilder();
+        private final Set<Long> misionesConTelemetria = new HashSet<>();
+        private long filasTelemetria;
+    }
+}
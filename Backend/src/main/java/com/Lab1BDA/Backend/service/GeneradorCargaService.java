@@ -0,0 +1,596 @@
+package com.Lab1BDA.Backend.service;
+
+import com.Lab1BDA.Backend.controller.TelemetriaStreamHandler;
+import com.Lab1BDA.Backend.dto.ResultadoCargaDTO;
+import com.Lab1BDA.Backend.model.Mision;
+import com.Lab1BDA.Backend.repository.MisionRepository;
+import com.Lab1BDA.Backend.util.Histograma;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.LineString;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Generador de carga para la ingesta de telemetría. Simula N drones que recorren las rutas
+ * guardadas en misiones.ruta y envían sus posiciones a un backend ya levantado, por uno de
+ * los canales de ingesta:
+ * - registrar: un POST /api/telemetria/registrar por punto.
+ * - lote: cada dron junta 'tamano-lote' puntos y los envía a /api/telemetria/registrar-lote.
+ * - stream: una conexión WebSocket binaria por dron (/api/telemetria/stream).
+ *
+ * La carga es de lazo abierto: cada dron envía a su ritmo aunque el servidor se atrase, y la
+ * latencia se mide desde el instante en que el punto debía enviarse (no desde que se envió),
+ * para no esconder las esperas. Con la misma semilla y parámetros, los drones, sus posiciones
+ * y sus timestamps son los mismos en cada corrida.
+ */
+@Service
+@Slf4j
+public class GeneradorCargaService {
+
+    private static final double METROS_POR_GRADO = 111_320.0;
+    private static final long JIFFIES_POR_SEGUNDO = 100; // USER_HZ de Linux
+    private static final ZoneId ZONA = ZoneId.systemDefault();
+
+    @Autowired
+    private MisionRepository misionRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${carga.url:http://localhost:8080}")
+    private String url;
+
+    // Token JWT; si no se indica, se inicia sesión con carga.email / carga.password
+    @Value("${carga.token:}")
+    private String token;
+
+    @Value("${carga.email:}")
+    private String email;
+
+    @Value("${carga.password:}")
+    private String password;
+
+    @Value("${carga.modo:registrar}")
+    private String modo;
+
+    @Value("${carga.drones:100}")
+    private int cantidadDrones;
+
+    @Value("${carga.hz:1}")
+    private double hz;
+
+    @Value("${carga.tamano-lote:10}")
+    private int tamanoLote;
+
+    @Value("${carga.segundos:60}")
+    private int segundos;
+
+    @Value("${carga.calentamiento:10}")
+    private int calentamiento;
+
+    @Value("${carga.velocidad-kmh:40}")
+    private double velocidadKmh;
+
+    @Value("${carga.max-en-vuelo:2000}")
+    private int maxEnVuelo;
+
+    @Value("${carga.semilla:42}")
+    private long semilla;
+
+    @Value("${carga.etiqueta:}")
+    private String etiqueta;
+
+    @Value("${carga.salida:resultados-carga.jsonl}")
+    private String salida;
+
+    /**
+     * Ejecuta una corrida completa (calentamiento + medición) y agrega su resultado al archivo de salida.
+     */
+    public ResultadoCargaDTO ejecutar() throws IOException, InterruptedException {
+        if (!List.of("registrar", "lote", "stream").contains(modo)) {
+            throw new IllegalArgumentException("carga.modo debe ser registrar, lote o stream");
+        }
+        long periodoMs = Math.round(1000 / hz);
+        if (periodoMs < 1) {
+            throw new IllegalArgumentException("carga.hz no puede superar 1000");
+        }
+
+        List<Mision> misiones = misionRepository.findAll().stream()
+                .filter(m -> m.getRuta() != null && m.getRuta().getNumPoints() >= 2)
+                .sorted(Comparator.comparing(Mision::getIdMision))
+                .toList();
+        if (misiones.isEmpty()) {
+            throw new IllegalStateException("No hay misiones con ruta para simular");
+        }
+        if (cantidadDrones > misiones.size() * periodoMs) {
+            // Los drones que comparten misión se distinguen por un desfase de 1 ms en el timestamp
+            throw new IllegalArgumentException("Demasiados drones para " + misiones.size() + " misiones a " + hz + " Hz");
+        }
+
+        HttpClient http = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        String jwt = token.isBlank() ? iniciarSesion(http) : token;
+
+        Corrida corrida = new Corrida(http, jwt, periodoMs);
+        Random random = new Random(semilla);
+        List<DronSimulado> flota = new ArrayList<>(cantidadDrones);
+        for (int i = 0; i < cantidadDrones; i++) {
+            Mision mision = misiones.get(i % misiones.size());
+            flota.add(new DronSimulado(corrida, mision, i / misiones.size(), random));
+        }
+        if (modo.equals("stream")) {
+            for (DronSimulado dron : flota) {
+                dron.conectar();
+            }
+        }
+
+        log.info("Generador de carga: {} drones, {} Hz, modo {}, {} s de calentamiento y {} s de medición",
+                cantidadDrones, hz, modo, calentamiento, segundos);
+
+        // La base de tiempo se fija recién con todas las conexiones abiertas, para que el tiempo de
+        // conexión no quede dentro del calentamiento ni de las latencias medidas
+        corrida.iniciar();
+
+        // Cada dron envía con un desfase aleatorio dentro del período, como drones no sincronizados.
+        // El retraso se calcula contra la base de tiempo, no contra el momento de planificar
+        ScheduledExecutorService planificador = Executors.newScheduledThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors() / 2));
+        for (DronSimulado dron : flota) {
+            long fase = (long) (random.nextDouble() * TimeUnit.MILLISECONDS.toNanos(periodoMs));
+            dron.planificarDesde(corrida.inicioNanos + fase);
+            planificador.scheduleAtFixedRate(dron::tick, corrida.inicioNanos + fase - System.nanoTime(),
+                    TimeUnit.MILLISECONDS.toNanos(periodoMs), TimeUnit.NANOSECONDS);
+        }
+
+        dormirHasta(corrida.medicionDesde);
+        long cpuInicio = jiffiesPostgres();
+        long persistidosInicio = persistidosServidor(corrida);
+
+        dormirHasta(corrida.medicionHasta);
+        long cpuFin = jiffiesPostgres();
+        long persistidosFin = persistidosServidor(corrida);
+        planificador.shutdownNow();
+
+        // Se esperan las respuestas pendientes (máximo 10 s)
+        if (corrida.enVuelo.tryAcquire(maxEnVuelo, 10, TimeUnit.SECONDS)) {
+            corrida.enVuelo.release(maxEnVuelo);
+        }
+        flota.forEach(DronSimulado::cerrar);
+
+        ResultadoCargaDTO resultado = corrida.resultado(
+                cpuInicio >= 0 && cpuFin >= 0 ? (cpuFin - cpuInicio) * 100.0 / JIFFIES_POR_SEGUNDO / segundos : -1,
+                persistidosInicio >= 0 && persistidosFin >= 0 ? (persistidosFin - persistidosInicio) / (double) segundos : -1);
+        Files.writeString(Path.of(salida), objectMapper.writeValueAsString(resultado) + System.lineSeparator(),
+                StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+
+        log.info("Resultado: {} puntos/s aceptados (enviados {}, saturados {}, rechazados {}, con error {}, no enviados {}), "
+                        + "latencia p50 {} ms, p99 {} ms, máx {} ms, CPU BD {}%",
+                String.format("%.1f", resultado.puntosPorSegundo()), resultado.puntosEnviados(), resultado.puntosSaturados(),
+                resultado.puntosRechazados(), resultado.puntosConError(), resultado.puntosNoEnviados(),
+                resultado.latenciaP50Ms(), resultado.latenciaP99Ms(), resultado.latenciaMaxMs(),
+                String.format("%.1f", resultado.cpuBdPorcentaje()));
+        return resultado;
+    }
+
+    private String iniciarSesion(HttpClient http) throws IOException, InterruptedException {
+        String cuerpo = objectMapper.writeValueAsString(Map.of("email", email, "password", password));
+        HttpResponse<String> respuesta = http.send(HttpRequest.newBuilder(URI.create(url + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(cuerpo))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (respuesta.statusCode() != 200) {
+            throw new IllegalStateException("No se pudo iniciar sesión (HTTP " + respuesta.statusCode()
+                    + "); indique carga.token o carga.email y carga.password");
+        }
+        return objectMapper.readTree(respuesta.body()).path("token").asText();
+    }
+
+    /**
+     * Lee el contador 'persistidos' de /api/telemetria/metricas del servidor.
+     * @return El contador, o -1 si no está disponible.
+     */
+    private long persistidosServidor(Corrida corrida) {
+        try {
+            HttpResponse<String> respuesta = corrida.http.send(corrida.solicitud("/api/telemetria/metricas").GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            return respuesta.statusCode() == 200 ? objectMapper.readTree(respuesta.body()).path("persistidos").asLong(-1) : -1;
+        } catch (IOException e) {
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    /**
+     * Suma el tiempo de CPU (usuario + sistema) de los procesos 'postgres' de esta máquina.
+     * Sólo sirve si la base de datos corre localmente en Linux.
+     * @return Jiffies acumulados, o -1 si no se pudo medir.
+     */
+    private static long jiffiesPostgres() {
+        Path proc = Path.of("/proc");
+        if (!Files.isDirectory(proc)) {
+            return -1;
+        }
+        long total = 0;
+        boolean encontrado = false;
+        try (var procesos = Files.newDirectoryStream(proc, p -> p.getFileName().toString().chars().allMatch(Character::isDigit))) {
+            for (Path proceso : procesos) {
+                try {
+                    String stat = Files.readString(proceso.resolve("stat"));
+                    int finNombre = stat.lastIndexOf(')');
+                    if (!stat.substring(stat.indexOf('(') + 1, finNombre).equals("postgres")) {
+                        continue;
+                    }
+                    // Tras el nombre: estado(3) ... utime(14) stime(15)
+                    String[] campos = stat.substring(finNombre + 2).split(" ");
+                    total += Long.parseLong(campos[11]) + Long.parseLong(campos[12]);
+                    encontrado = true;
+                } catch (IOException | RuntimeException e) {
+                    // El proceso terminó mientras se leía
+                }
+            }
+        } catch (IOException e) {
+            return -1;
+        }
+        return encontrado ? total : -1;
+    }
+
+    private static void dormirHasta(long nanos) throws InterruptedException {
+        long espera = nanos - System.nanoTime();
+        if (espera > 0) {
+            TimeUnit.NANOSECONDS.sleep(espera);
+        }
+    }
+
+    private static String commitActual() {
+        try {
+            Process git = new ProcessBuilder("git", "rev-parse", "--short", "HEAD").redirectErrorStream(true).start();
+            String salida = new String(git.getInputStream().readAllBytes(), StandardCharsets.UTF_8).strip();
+            return git.waitFor(5, TimeUnit.SECONDS) && git.exitValue() == 0 ? salida : "desconocido";
+        } catch (IOException e) {
+            return "desconocido";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "desconocido";
+        }
+    }
+
+    /**
+     * Estado compartido de una corrida: tiempos, cliente HTTP y contadores.
+     * Sólo se cuentan los puntos cuyo envío estaba planificado dentro de la ventana de medición.
+     */
+    private final class Corrida {
+        final HttpClient http;
+        final String jwt;
+        final long periodoMs;
+        long inicioNanos;
+        long inicioEpochMs;
+        long medicionDesde;
+        long medicionHasta;
+        final Semaphore enVuelo = new Semaphore(maxEnVuelo);
+
+        final Histograma latencia = new Histograma();
+        final LongAdder enviados = new LongAdder();
+        final LongAdder aceptados = new LongAdder();
+        final LongAdder saturados = new LongAdder();
+        final LongAdder rechazados = new LongAdder();
+        final LongAdder conError = new LongAdder();
+        final LongAdder noEnviados = new LongAdder();
+
+        Corrida(HttpClient http, String jwt, long periodoMs) {
+            this.http = http;
+            this.jwt = jwt;
+            this.periodoMs = periodoMs;
+        }
+
+        /**
+         * Fija la base de tiempo: el primer envío planificado es dentro de 1 s.
+         */
+        void iniciar() {
+            inicioNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+            inicioEpochMs = System.currentTimeMillis() + 1000;
+            medicionDesde = inicioNanos + TimeUnit.SECONDS.toNanos(calentamiento);
+            medicionHasta = medicionDesde + TimeUnit.SECONDS.toNanos(segundos);
+        }
+
+                boolean enMedicion(long planificadoNanos) {
+            return planificadoNanos >= medicionDesde && planificadoNanos < medicionHasta;
+        }
+
+        HttpRequest.Builder solicitud(String ruta) {
+            return HttpRequest.newBuilder(URI.create(url + ruta))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Authorization", "Bearer " + jwt);
+        }
+
+        /**
+         * Registra la respuesta a un envío de 'puntos' puntos planificado en 'planificadoNanos'.
+         */
+        void registrar(long planificadoNanos, int puntos, int aceptadosEnvio, int saturadosEnvio, int rechazadosEnvio) {
+            if (!enMedicion(planificadoNanos)) {
+                return;
+            }
+            latencia.registrar(System.nanoTime() - planificadoNanos);
+            aceptados.add(aceptadosEnvio);
+            saturados.add(saturadosEnvio);
+            rechazados.add(rechazadosEnvio);
+            conError.add(puntos - aceptadosEnvio - saturadosEnvio - rechazadosEnvio);
+        }
+
+        ResultadoCargaDTO resultado(double cpuBdPorcentaje, double persistidosPorSegundo) {
+            return new ResultadoCargaDTO(
+                    LocalDateTime.now(), commitActual(), etiqueta, modo, cantidadDrones, hz,
+                    modo.equals("lote") ? tamanoLote : 1, segundos, semilla,
+                    enviados.sum(), aceptados.sum(), saturados.sum(), rechazados.sum(), conError.sum(), noEnviados.sum(),
+                    aceptados.sum() / (double) segundos, persistidosPorSegundo,
+                    latencia.percentilMs(50), latencia.percentilMs(99), latencia.maxMs(),
+                    cpuBdPorcentaje);
+        }
+    }
+
+    /**
+     * Un dron que recorre en circuito la ruta de su misión a velocidad constante.
+     */
+    private final class DronSimulado implements WebSocket.Listener {
+        private final Corrida corrida;
+        private final long idMision;
+        private final long desfaseMs;
+        private final double[] longitudes;
+        private final double[] latitudes;
+        private final double[] altitudes;
+        private final double[] distanciaAcumulada;
+        private final double distanciaInicial;
+        private final double bateriaInicial;
+
+        private long inicioPlanificado;
+        private long tick;
+
+        // Modo lote
+        private final List<Map<String, Object>> pendientes = new ArrayList<>();
+
+        // Modo stream
+        private WebSocket webSocket;
+        private CompletableFuture<WebSocket> ultimoEnvio;
+        private final Map<Integer, long[]> enEspera = new ConcurrentHashMap<>(); // secuencia -> {planificado, puntos}
+        private ByteBuffer ack = ByteBuffer.allocate(TelemetriaStreamHandler.BYTES_ACK);
+
+        DronSimulado(Corrida corrida, Mision mision, long desfaseMs, Random random) {
+            this.corrida = corrida;
+            this.idMision = mision.getIdMision();
+            this.desfaseMs = desfaseMs;
+
+            LineString ruta = mision.getRuta();
+            int n = ruta.getNumPoints();
+            longitudes = new double[n];
+            latitudes = new double[n];
+            altitudes = new double[n];
+            distanciaAcumulada = new double[n];
+            for (int i = 0; i < n; i++) {
+                Coordinate c = ruta.getCoordinateN(i);
+                longitudes[i] = c.getX();
+                latitudes[i] = c.getY();
+                altitudes[i] = Double.isNaN(c.getZ()) ? 0.0 : c.getZ();
+                if (i > 0) {
+                    double dx = (longitudes[i] - longitudes[i - 1]) * METROS_POR_GRADO * Math.cos(Math.toRadians(latitudes[i]));
+                    double dy = (latitudes[i] - latitudes[i - 1]) * METROS_POR_GRADO;
+                    distanciaAcumulada[i] = distanciaAcumulada[i - 1] + Math.sqrt(dx * dx + dy * dy);
+                }
+            }
+            this.distanciaInicial = random.nextDouble() * distanciaAcumulada[n - 1];
+            this.bateriaInicial = 80 + random.nextDouble() * 20;
+        }
+
+        void planificarDesde(long inicioPlanificado) {
+            this.inicioPlanificado = inicioPlanificado;
+        }
+
+        void tick() {
+            long k = tick++;
+            long planificado = inicioPlanificado + TimeUnit.MILLISECONDS.toNanos(k * corrida.periodoMs);
+            if (planificado >= corrida.medicionHasta) {
+                return;
+            }
+            try {
+                Map<String, Object> punto = punto(k);
+                switch (modo) {
+                    case "registrar" -> enviarRegistro(planificado, punto);
+                    case "lote" -> {
+                        pendientes.add(punto);
+                        if (pendientes.size() >= tamanoLote) {
+                            enviarLote(planificado, new ArrayList<>(pendientes));
+                            pendientes.clear();
+                        }
+                    }
+                    default -> enviarStream(planificado, (int) k, punto);
+                }
+            } catch (RuntimeException | IOException e) {
+                corrida.conError.increment();
+            }
+        }
+
+        /**
+         * Punto k de la trayectoria. El timestamp no depende del reloj sino del tick, para que
+         * las corridas sean reproducibles y los drones que comparten misión no choquen.
+         */
+        private Map<String, Object> punto(long k) {
+            double segundosVuelo = k * corrida.periodoMs / 1000.0;
+            double total = distanciaAcumulada[distanciaAcumulada.length - 1];
+            double distancia = total > 0 ? (distanciaInicial + velocidadKmh / 3.6 * segundosVuelo) % total : 0;
+
+            int i = 1;
+            while (i < distanciaAcumulada.length - 1 && distanciaAcumulada[i] < distancia) {
+                i++;
+            }
+            double tramo = distanciaAcumulada[i] - distanciaAcumulada[i - 1];
+            double f = tramo > 0 ? (distancia - distanciaAcumulada[i - 1]) / tramo : 0;
+
+            long epochMs = corrida.inicioEpochMs + k * corrida.periodoMs + desfaseMs;
+            Map<String, Object> punto = new LinkedHashMap<>();
+            punto.put("idMision", idMision);
+            punto.put("timestamp", LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMs), ZONA));
+            punto.put("longitud", longitudes[i - 1] + (longitudes[i] - longitudes[i - 1]) * f);
+            punto.put("latitud", latitudes[i - 1] + (latitudes[i] - latitudes[i - 1]) * f);
+            punto.put("altitudMsnm", Math.round((altitudes[i - 1] + (altitudes[i] - altitudes[i - 1]) * f) * 100) / 100.0);
+            punto.put("velocidadKmh", velocidadKmh);
+            punto.put("nivelBateriaPorcentaje", Math.max(5.0, Math.round((bateriaInicial - segundosVuelo / 60.0) * 100) / 100.0));
+            return punto;
+        }
+
+        private boolean reservar(long planificado, int puntos) {
+            boolean medido = corrida.enMedicion(planificado);
+            if (!corrida.enVuelo.tryAcquire()) {
+                if (medido) corrida.noEnviados.add(puntos);
+                return false;
+            }
+            if (medido) corrida.enviados.add(puntos);
+            return true;
+        }
+
+        private void enviarRegistro(long planificado, Map<String, Object> punto) throws IOException {
+            if (!reservar(planificado, 1)) return;
+            HttpRequest solicitud = corrida.solicitud("/api/telemetria/registrar")
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(punto)))
+                    .build();
+            corrida.http.sendAsync(solicitud, HttpResponse.BodyHandlers.discarding()).whenComplete((respuesta, error) -> {
+                corrida.enVuelo.release();
+                int estado = error == null ? respuesta.statusCode() : -1;
+                corrida.registrar(planificado, 1,
+                        estado == 202 || estado == 200 ? 1 : 0,
+                        estado == 503 ? 1 : 0,
+                        estado >= 400 && estado < 500 ? 1 : 0);
+            });
+        }
+
+        private void enviarLote(long planificado, List<Map<String, Object>> lote) throws IOException {
+            if (!reservar(planificado, lote.size())) return;
+            HttpRequest solicitud = corrida.solicitud("/api/telemetria/registrar-lote")
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(lote)))
+                    .build();
+            corrida.http.sendAsync(solicitud, HttpResponse.BodyHandlers.ofString()).whenComplete((respuesta, error) -> {
+                corrida.enVuelo.release();
+                if (error != null || respuesta.statusCode() != 200) {
+                    int estado = error == null ? respuesta.statusCode() : -1;
+                    corrida.registrar(planificado, lote.size(), 0,
+                            estado == 503 ? lote.size() : 0,
+                            estado >= 400 && estado < 500 ? lote.size() : 0);
+                    return;
+                }
+                try {
+                    JsonNode cuerpo = objectMapper.readTree(respuesta.body());
+                    int aceptadosLote = cuerpo.path("aceptados").asInt() + cuerpo.path("duplicados").asInt();
+                    corrida.registrar(planificado, lote.size(), aceptadosLote, 0, cuerpo.path("rechazados").asInt());
+                } catch (IOException e) {
+                    corrida.registrar(planificado, lote.size(), 0, 0, 0);
+                }
+            });
+        }
+
+        // --- Modo stream ---
+
+        void conectar() {
+            URI uri = URI.create(url.replaceFirst("^http", "ws") + "/api/telemetria/stream");
+            webSocket = corrida.http.newWebSocketBuilder()
+                    .header("Authorization", "Bearer " + corrida.jwt)
+                    .buildAsync(uri, this)
+                    .join();
+            ultimoEnvio = CompletableFuture.completedFuture(webSocket);
+        }
+
+        private void enviarStream(long planificado, int secuencia, Map<String, Object> punto) {
+            if (!reservar(planificado, 1)) return;
+            LocalDateTime timestamp = (LocalDateTime) punto.get("timestamp");
+            ByteBuffer mensaje = ByteBuffer.allocate(TelemetriaStreamHandler.BYTES_ENCABEZADO + TelemetriaStreamHandler.BYTES_TRAMA)
+                    .putInt(secuencia)
+                    .putLong(idMision)
+                    .putLong(timestamp.atZone(ZONA).toInstant().toEpochMilli())
+                    .putDouble((double) punto.get("longitud"))
+                    .putDouble((double) punto.get("latitud"))
+                    .putDouble((double) punto.get("altitudMsnm"))
+                    .putFloat(((Double) punto.get("velocidadKmh")).floatValue())
+                    .putFloat(((Double) punto.get("nivelBateriaPorcentaje")).floatValue())
+                    .flip();
+            enEspera.put(secuencia, new long[]{planificado, 1});
+            // WebSocket no admite dos envíos simultáneos: se encadenan
+            synchronized (this) {
+                ultimoEnvio = ultimoEnvio.thenCompose(ws -> ws.sendBinary(mensaje, true));
+                ultimoEnvio.exceptionally(error -> {
+                    if (enEspera.remove(secuencia) != null) {
+                        corrida.enVuelo.release();
+                        corrida.registrar(planificado, 1, 0, 0, 0);
+                    }
+                    return null;
+                });
+            }
+        }
+
+        @Override
+        public CompletionStage<?> onBinary(WebSocket ws, ByteBuffer datos, boolean ultimo) {
+            ack.put(datos);
+            if (ultimo) {
+                ack.flip();
+                int secuencia = ack.getInt();
+                int aceptadosAck = ack.getInt();
+                int rechazadosAck = ack.getInt();
+                int reintentarEnMs = ack.getInt();
+                ack.clear();
+                long[] envio = enEspera.remove(secuencia);
+                if (envio != null) {
+                    corrida.enVuelo.release();
+                    int saturadosAck = reintentarEnMs > 0 ? rechazadosAck : 0;
+                    corrida.registrar(envio[0], (int) envio[1], aceptadosAck, saturadosAck, rechazadosAck - saturadosAck);
+                }
+            }
+            ws.request(1);
+            return null;
+        }
+
+        @Override
+        public void onError(WebSocket ws, Throwable error) {
+            log.warn("Conexión del dron de la misión {} cerrada: {}", idMision, error.getMessage());
+        }
+
+        void cerrar() {
+            if (webSocket != null) {
+                webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "fin de la carga");
+            }
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package com.Lab1BDA.Backend.service;
+
+import com.Lab1BDA.Backend.dto.ImportacionResultadoDTO;
+import com.Lab1BDA.Backend.repository.MisionRepository;
+import com.Lab1BDA.Backend.repository.RegistroVueloRepository;
+import com.Lab1BDA.Backend.repository.TrayectoriaSimplificadaRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Servicio para la importación masiva de registros de vuelo históricos (CSV o GPX).
+ * El archivo se lee en streaming y se divide en bloques; cada bloque se valida y convierte
+ * en paralelo y se carga en registro_vuelo mediante COPY, sin pasar por INSERTs fila a fila.
+ *
+ * Formato CSV esperado (el encabezado es opcional):
+ * id_mision,timestamp,longitud,latitud,altitud_msnm,velocidad_kmh,nivel_bateria_porcentaje
+ */
+@Service
+@Slf4j
+public class ImportacionVuelosService {
+
+    private static final int MAX_ERRORES_REPORTADOS = 100;
+
+    @Autowired
+    private RegistroVueloRepository registroVueloRepository;
+
+    @Autowired
+    private MisionRepository misionRepository;
+
+    @Autowired
+    private RollupTelemetriaService rollupTelemetriaService;
+
+    @Autowired
+    private EstadoFlotaService estadoFlotaService;
+
+    @Autowired
+    private TrayectoriaSimplificadaRepository trayectoriaSimplificadaRepository;
+
+    @Value("${importacion.hilos:4}")
+    private int hilos;
+
+    @Value("${importacion.tamano-bloque:20000}")
+    private int tamanoBloque;
+
+    /**
+     * Importa un archivo de registros de vuelo.
+     * @param entrada Contenido del archivo.
+     * @param nombreArchivo Nombre del archivo; si termina en .gpx se interpreta como GPX, si no como CSV.
+     * @param idMisionGpx Misión a la que pertenecen los puntos (obligatorio solo para GPX).
+     * @return Resumen con filas importadas, rechazadas y throughput.
+     */
+    public ImportacionResultadoDTO importar(InputStream entrada, String nombreArchivo, Long idMisionGpx) throws IOException {
+        boolean esGpx = nombreArchivo != null && nombreArchivo.toLowerCase().endsWith(".gpx");
+        if (esGpx && idMisionGpx == null) {
+            throw new IllegalArgumentException("Para importar un archivo GPX se debe indicar el idMision");
+        }
+
+        long inicio = System.nanoTime();
+        Importacion importacion = new Importacion(misionRepository.findAllIds());
+        ExecutorService pool = Executors.newFixedThreadPool(hilos);
+
+        try {
+            if (esGpx) {
+                leerGpx(entrada, idMisionGpx, importacion, pool);
+            } else {
+                leerCsv(entrada, importacion, pool);
+            }
+            importacion.esperarBloques();
+        } finally {
+            pool.shutdown();
+        }
+        try {
+            rollupTelemetriaService.reconstruir(importacion.misionesImportadas);
+            estadoFlotaService.recargar(importacion.misionesImportadas);
+            // Si alguna ya estaba completada, su trayectoria simplificada no incluye los puntos importados
+            trayectoriaSimplificadaRepository.invalidarVuelo(importacion.misionesImportadas);
+        } catch (DataAccessException e) {
+            log.warn("No se pudieron recalcular los agregados, el estado y las trayectorias de las misiones importadas: {}", e.getMessage());
+        }
+
+        double segundos = (System.nanoTime() - inicio) / 1_000_000_000.0;
+        long importadas = importacion.importadas.sum();
+        ImportacionResultadoDTO resultado = new ImportacionResultadoDTO(
+                nombreArchivo,
+                importacion.filasLeidas,
+                importadas,
+                importacion.rechazadas.sum(),
+                segundos,
+                segundos > 0 ? importadas / segundos : importadas,
+                importacion.errores
+        );
+        log.info("Importación de {} finalizada: {} filas importadas, {} rechazadas en {} s ({} filas/s)",
+                nombreArchivo, resultado.filasImportadas(), resultado.filasRechazadas(),
+                String.format("%.2f", segundos), String.format("%.0f", resultado.filasPorSegundo()));
+        return resultado;
+    }
+
+    /**
+     * Lee el CSV línea a línea y envía bloques de líneas crudas al pool.
+     */
+    private void leerCsv(InputStream entrada, Importacion importacion, ExecutorService pool) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8), 1 << 16);
+        List<String> bloque = new ArrayList<>(tamanoBloque);
+        boolean primeraLinea = true;
+        String linea;
+
+        while ((linea = reader.readLine()) != null) {
+            if (linea.isBlank()) continue;
+            // Saltamos el encabezado, si viene
+            if (primeraLinea && !Character.isDigit(linea.strip().charAt(0))) {
+                primeraLinea = false;
+                continue;
+            }
+            primeraLinea = false;
+            importacion.filasLeidas++;
+            bloque.add(linea);
+            if (bloque.size() == tamanoBloque) {
+                importacion.enviarBloque(pool, importacion.filasLeidas - bloque.size() + 1, bloque);
+                bloque = new ArrayList<>(tamanoBloque);
+            }
+        }
+        if (!bloque.isEmpty()) {
+            importacion.enviarBloque(pool, importacion.filasLeidas - bloque.size() + 1, bloque);
+        }
+    }
+
+    /**
+     * Lee el GPX con StAX (sin cargar el documento completo) y convierte cada trkpt en una
+     * línea con el mismo formato del CSV, para reutilizar el resto del proceso.
+     * Velocidad y batería se leen desde las extensiones 'speed' (m/s), 'velocidad_kmh' y 'bateria'.
+     */
+    private void leerGpx(InputStream entrada, Long idMision, Importacion importacion, ExecutorService pool) throws IOException {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        List<String> bloque = new ArrayList<>(tamanoBloque);
+
+        try {
+            XMLStreamReader xml = factory.createXMLStreamReader(entrada);
+            String lat = null, lon = null, ele = "", tiempo = "", velocidad = "", bateria = "";
+            StringBuilder texto = new StringBuilder();
+
+            while (xml.hasNext()) {
+                int evento = xml.next();
+                if (evento == XMLStreamConstants.START_ELEMENT) {
+                    texto.setLength(0);
+                    if ("trkpt".equals(xml.getLocalName())) {
+                        lat = xml.getAttributeValue(null, "lat");
+                        lon = xml.getAttributeValue(null, "lon");
+                        ele = tiempo = velocidad = bateria = "";
+                    }
+                } else if (evento == XMLStreamConstants.CHARACTERS) {
+                    texto.append(xml.getText());
+                } else if (evento == XMLStreamConstants.END_ELEMENT) {
+                    String valor = texto.toString().strip();
+                    switch (xml.getLocalName()) {
+                        case "ele" -> ele = valor;
+                        case "time" -> tiempo = convertirTiempoGpx(valor);
+                        case "speed" -> velocidad = convertirVelocidadGpx(valor);
+                        case "velocidad_kmh" -> velocidad = valor;
+                        case "bateria", "nivel_bateria_porcentaje" -> bateria = valor;
+                        case "trkpt" -> {
+                            importacion.filasLeidas++;
+                            bloque.add(idMision + "," + tiempo + "," + lon + "," + lat + "," + ele + "," + velocidad + "," + bateria);
+                            if (bloque.size() == tamanoBloque) {
+                                importacion.enviarBloque(pool, importacion.filasLeidas - bloque.size() + 1, bloque);
+                                bloque = new ArrayList<>(tamanoBloque);
+                            }
+                        }
+                        default -> { }
+                    }
+                    texto.setLength(0);
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("GPX inválido: " + e.getMessage(), e);
+        }
+        if (!bloque.isEmpty()) {
+            importacion.enviarBloque(pool, importacion.filasLeidas - bloque.size() + 1, bloque);
+        }
+    }
+
+    private String convertirTiempoGpx(String valor) {
+        try {
+            return OffsetDateTime.parse(valor).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime().toString();
+        } catch (DateTimeParseException e) {
+            return valor; // Se rechazará al validar la fila
+        }
+    }
+
+    private String convertirVelocidadGpx(String valor) {
+        try {
+            return Double.toString(Double.parseDouble(valor) * 3.6); // m/s -> km/h
+        } catch (NumberFormatException e) {
+            return valor;
+        }
+    }
+
+    /**
+     * Valida y convierte un bloque de líneas al formato del COPY y lo carga en la BD.
+     * Se ejecuta en los hilos del pool.
+     */
+    private void procesarBloque(Importacion importacion, long primeraFila, List<String> lineas) {
+        StringBuilder csv = new StringBuilder(lineas.size() * 96);
+        Set<Long> misionesDelBloque = new HashSet<>();
+        int validas = 0;
+
+        for (int i = 0; i < lineas.size(); i++) {
+            String error = convertirLinea(lineas.get(i), importacion.misiones, csv, misionesDelBloque);
+            if (error != null) {
+                importacion.rechazar(1, "Fila " + (primeraFila + i) + ": " + error);
+            } else {
+                validas++;
+            }
+        }
+        if (validas == 0) return;
+
+        try {
+            importacion.importadas.add(registroVueloRepository.copiarDesdeCsv(new StringReader(csv.toString())));
+            importacion.misionesImportadas.addAll(misionesDelBloque);
+        } catch (DataAccessException e) {
+            // COPY es atómico: si falla, se pierde el bloque completo
+            importacion.rechazar(validas, "Filas " + primeraFila + "-" + (primeraFila + lineas.size() - 1)
+                    + ": " + e.getMostSpecificCause().getMessage());
+        }
+    }
+
+    /**
+     * Convierte una línea del CSV de entrada a una fila del COPY y la agrega a 'salida'.
+     * @return null si la línea es válida, o el motivo del rechazo.
+     */
+    private String convertirLinea(String linea, Set<Long> misiones, StringBuilder salida, Set<Long> misionesValidas) {
+        String[] campos = linea.split(",", -1);
+        if (campos.length != 7) {
+            return "se esperaban 7 columnas y hay " + campos.length;
+        }
+        try {
+            long idMision = Long.parseLong(campos[0].strip());
+            if (!misiones.contains(idMision)) {
+                return "misión " + idMision + " no encontrada";
+            }
+            LocalDateTime timestamp = LocalDateTime.parse(campos[1].strip().replace(' ', 'T'));
+            double lon = Double.parseDouble(campos[2].strip());
+            double lat = Double.parseDouble(campos[3].strip());
+            if (lon < -180 || lon > 180 || lat < -90 || lat > 90) {
+                return "coordenadas fuera de rango";
+            }
+            String altitud = campos[4].strip();
+            double z = altitud.isEmpty() ? 0.0 : Double.parseDouble(altitud);
+            String velocidad = campos[5].strip();
+            if (!velocidad.isEmpty()) Double.parseDouble(velocidad);
+            String bateria = campos[6].strip();
+            if (bateria.isEmpty()) {
+                return "falta nivel_bateria_porcentaje";
+            }
+            Double.parseDouble(bateria);
+
+            salida.append(idMision).append(',')
+                    .append(timestamp).append(',')
+                    .append("SRID=4326;POINT Z (").append(lon).append(' ').append(lat).append(' ').append(z).append("),")
+                    .append(altitud).append(',')
+                    .append(velocidad).append(',')
+                    .append(bateria).append('\n');
+            misionesValidas.add(idMision);
+            return null;
+        } catch (NumberFormatException | DateTimeParseException e) {
+            return "valor inválido (" + e.getMessage() + ")";
+        }
+    }
+
+    /**
+     * Estado de una importación en curso. 'filasLeidas' solo lo modifica el hilo lector;
+     * los contadores de resultado los actualizan los hilos del pool.
+     */
+    private class Importacion {
+        private final Set<Long> misiones;
+        // Misiones con filas cargadas, para recalcular sus agregados al terminar
+        private final Set<Long> misionesImportadas = ConcurrentHashMap.newKeySet();
+        private final LongAdder importadas = new LongAdder();
+        private final LongAdder rechazadas = new LongAdder();
+        private final List<String> errores = Collections.synchronizedList(new ArrayList<>());
+        private final List<Future<?>> bloques = new ArrayList<>();
+        // Limita los bloques en memoria a la espera de un hilo libre
+        private final Semaphore bloquesPendientes = new Semaphore(hilos * 2);
+        private long filasLeidas;
+
+        private Importacion(Set<Long> misiones) {
+            this.misiones = misiones;
+        }
+
+        private void enviarBloque(ExecutorService pool, long primeraFila, List<String> lineas) throws IOException {
+            try {
+                bloquesPendientes.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Importación interrumpida", e);
+            }
+            bloques.add(pool.submit(() -> {
+                try {
+                    procesarBloque(this, primeraFila, lineas);
+                } finally {
+                    bloquesPendientes.release();
+                }
+            }));
+        }
+
+        private void esperarBloques() throws IOException {
+            for (Future<?> bloque : bloques) {
+                try {
+                    bloque.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Importación interrumpida", e);
+                } catch (ExecutionException e) {
+                    throw new IOException("Error al procesar un bloque de la importación", e.getCause());
+                }
+            }
+        }
+
+        private void rechazar(int filas, String error) {
+            rechazadas.add(filas);
+            if (errores.size() < MAX_ERRORES_REPORTADOS) {
+                errores.add(error);
+            }
+        }
+    }
+}
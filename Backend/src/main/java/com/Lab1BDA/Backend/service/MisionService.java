@@ -11,14 +11,17 @@ import org.locationtech.jts.geom.LineString;
 import org.locationtech.jts.io.ParseException;
 import org.locationtech.jts.io.WKTReader;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 
 @Service
 public class MisionService {
@@ -48,6 +51,15 @@ public class MisionService {
     private ResumenMisionesService resumenMisionesService;
     @Autowired
     private ZonaProhibidaService zonaProhibidaService;
+    @Autowired
+    private SimplificacionTrayectoriaService simplificacionTrayectoriaService;
+    @Autowired
+    private EstadoFlotaService estadoFlotaService;
+
+    // Tope de misiones por optimización: la matriz de distancias crece con el cuadrado
+    // (2000 misiones son 32 MB y unos 2 millones de pares calculados por PostGIS)
+    @Value("${rutas.optimizacion.max-misiones:2000}")
+    private int maxMisionesOptimizacion;
 
     public List<Mision> getTodasLasMisiones() {
         return misionRepository.findAll();
@@ -88,6 +100,7 @@ public class MisionService {
         return misionRepository.save(mision);
     }
 
+    @Transactional
     public Mision actualizarMision(Long id, MisionRequestDTO dto) {
         // 1. Verificar que la misión existe
         Mision misionExistente = getMisionPorId(id);
@@ -111,7 +124,14 @@ public class MisionService {
         }
 
         // 4. Pasa la Mision (con el LineString) al repositorio
-        return misionRepository.update(misionExistente);
+        Mision actualizada = misionRepository.update(misionExistente);
+
+        // La ruta pudo cambiar: sus versiones simplificadas se regeneran
+        simplificacionTrayectoriaService.invalidarRuta(id);
+        if (!"En Progreso".equals(dto.estado())) {
+            estadoFlotaService.desactivar(id);
+        }
+        return actualizada;
     }
 
     public void iniciarMision(long id){
@@ -135,6 +155,7 @@ public class MisionService {
         dronRepository.update(dron);
         misionRepository.update(mision);
         registroVueloRepository.save(registroVuelo);
+        estadoFlotaService.actualizar(registroVuelo, true);
     }
 
     /**
@@ -158,6 +179,7 @@ public class MisionService {
         }
 
         misionRepository.update(mision);
+        estadoFlotaService.desactivar(id);
 
         // Refrescar la vista materializada de misiones completadas
         resumenMisionesService.refreshResumenMisiones();
@@ -166,6 +188,7 @@ public class MisionService {
     public void eliminarMision(Long id) {
         getMisionPorId(id); // Verifica que existe
         misionRepository.deleteById(id);
+        estadoFlotaService.desactivar(id);
     }
 
     /**
@@ -232,8 +255,15 @@ public class MisionService {
      * Llama al procedimiento almacenado en la BD.
      * @param idMisiones Lista con los ID de las misiones a optimizar
      * @return DTO con la ruta óptima de los drones
+     * @throws IllegalArgumentException si se piden más misiones que 'rutas.optimizacion.max-misiones'.
      */
     public RutaOptimaResponseDTO generarRutaOptimaMultidron(List<Long> idMisiones) {
+        // Antes de consultar nada: los pares de distancias también crecen con el cuadrado
+        if (idMisiones.size() > maxMisionesOptimizacion) {
+            throw new IllegalArgumentException("Se pueden optimizar hasta " + maxMisionesOptimizacion
+                    + " misiones a la vez; se pidieron " + idMisiones.size());
+        }
+
         // 1. Obtener datos de la BD
         List<DronSpecsDTO> drones = dronRepository.findDronesDisponiblesConSpecs();
 
@@ -255,23 +285,36 @@ public class MisionService {
             return new RutaOptimaResponseDTO(new ArrayList<>(), new ArrayList<>(), "Ninguna misión válida (todas estaban asignadas o no pendientes)");
         }
 
-        List<DistanciaMisionDTO> matrizDistancias = misionRepository.calcularMatrizDistancias(idMisiones);
+        // Las misiones se numeran por su posición en la lista: la matriz, las duraciones y las
+        // asignadas se indexan con ese número
+        MatrizDistancias matrizDistancias = new MatrizDistancias(misiones, misionRepository.calcularMatrizDistancias(idMisiones));
+        double[] duraciones = new double[misiones.size()];
+        for (int i = 0; i < misiones.size(); i++) {
+            duraciones[i] = calcularDuracionMision(misiones.get(i));
+        }
+        // Nombre de cada tipo de misión, leído una sola vez
+        Map<Long, String> nombresTipo = new HashMap<>();
+        for (TipoMision tipo : tipoMisionRepository.findAll()) {
+            nombresTipo.put(tipo.getIdTipoMision(), tipo.getNombreTipo());
+        }
 
         // 2. Estructuras para guardar el progreso global
         List<RutaAsignadaDTO> rutasFinales = new ArrayList<>();
-        Set<Long> misionesAsignadasIds = new HashSet<>();
+        boolean[] asignadas = new boolean[misiones.size()];
 
         // 3. Procesar cada dron uno por uno
         for (DronSpecsDTO dron : drones) {
-            RutaAsignadaDTO ruta = planificarVueloDron(dron, misiones, matrizDistancias, misionesAsignadasIds);
+            RutaAsignadaDTO ruta = planificarVueloDron(dron, misiones, matrizDistancias, duraciones, asignadas, nombresTipo);
             rutasFinales.add(ruta);
         }
 
         // 4. Identificar misiones que sobraron (Huérfanas)
-        List<Long> huerfanas = misiones.stream()
-                .map(Mision::getIdMision)
-                .filter(id -> !misionesAsignadasIds.contains(id))
-                .toList();
+        List<Long> huerfanas = new ArrayList<>();
+        for (int i = 0; i < misiones.size(); i++) {
+            if (!asignadas[i]) {
+                huerfanas.add(misiones.get(i).getIdMision());
+            }
+        }
 
         return new RutaOptimaResponseDTO(rutasFinales, huerfanas, "Optimización finalizada.");
     }
@@ -312,13 +355,15 @@ public class MisionService {
     /**
      * Intenta llenar la agenda de un solo dron hasta que se quede sin batería o carga.
      * @param dron DTO con las especificaciones de un dron
-     * @param todasLasMisiones Lista de todas las misiones aún no asignadas
+     * @param todasLasMisiones Lista de todas las misiones de la optimización
      * @param matriz Matriz de la distancia entre misiones
-     * @param yaAsignadas ID de las misiones ya asignadas
+     * @param duraciones Duración en minutos de cada misión
+     * @param yaAsignadas Misiones ya asignadas (por su posición en la lista)
+     * @param nombresTipo Nombre de cada tipo de misión
      * @return DTO con la ruta asignada a un dron
      */
-     private RutaAsignadaDTO planificarVueloDron(DronSpecsDTO dron, List<Mision> todasLasMisiones,
-                                                List<DistanciaMisionDTO> matriz, Set<Long> yaAsignadas) {
+     private RutaAsignadaDTO planificarVueloDron(DronSpecsDTO dron, List<Mision> todasLasMisiones, MatrizDistancias matriz,
+                                                double[] duraciones, boolean[] yaAsignadas, Map<Long, String> nombresTipo) {
         List<MisionOrdenadaDTO> pasos = new ArrayList<>();
 
         // Datos del Dron
@@ -329,7 +374,7 @@ public class MisionService {
 
         double distTotal = 0.0;
         double tiempoTotal = 0.0;
-        Long ubicacionActual = null; // null = Base
+        int ubicacionActual = MatrizDistancias.BASE;
 
         boolean puedeSeguir = true;
 
@@ -341,24 +386,25 @@ public class MisionService {
 
         while (puedeSeguir) {
             // Pasamos la velocidad convertida al buscador
-            Mision candidata = buscarSiguienteMision(ubicacionActual, todasLasMisiones, matriz, yaAsignadas, bateria, VELOCIDAD_METROS_MIN);
+            int indice = buscarSiguienteMision(ubicacionActual, matriz, duraciones, yaAsignadas, bateria, VELOCIDAD_METROS_MIN);
 
-            if (candidata != null) {
-                yaAsignadas.add(candidata.getIdMision());
-                ubicacionActual = candidata.getIdMision();
+            if (indice != MatrizDistancias.BASE) {
+                Mision candidata = todasLasMisiones.get(indice);
+                yaAsignadas[indice] = true;
 
-                double dist = obtenerDistancia(matriz, ubicacionActual, candidata.getIdMision());
+                // Distancia desde donde está el dron, antes de moverlo a la candidata
+                double dist = matriz.distancia(ubicacionActual, indice);
+                ubicacionActual = indice;
 
                 // Usamos la velocidad convertida para calcular el tiempo de viaje
-                double costoTiempo = calcularCostoTiempo(candidata, dist, VELOCIDAD_METROS_MIN);
+                double costoTiempo = calcularCostoTiempo(duraciones[indice], dist, VELOCIDAD_METROS_MIN);
 
                 bateria -= costoTiempo;
                 distTotal += dist;
                 tiempoTotal += costoTiempo;
 
                 // Agregar paso
-                String nombreTipo = tipoMisionRepository.findById(candidata.getIdTipoMision())
-                        .map(t -> t.getNombreTipo()).orElse("Misión");
+                String nombreTipo = nombresTipo.getOrDefault(candidata.getIdTipoMision(), "Misión");
 
                 pasos.add(new MisionOrdenadaDTO(pasos.size() + 1, candidata.getIdMision(), nombreTipo, candidata.getRuta()));
             } else {
@@ -371,25 +417,25 @@ public class MisionService {
 
     /**
      * Busca la misión no asignada más cercana que cumpla con las restricciones de batería y carga.
-     * @param origen misión de origen
-     * @param misiones Lista de las misiones aún no asignadas
+     * @param origen misión de origen (su posición en la lista), o MatrizDistancias.BASE
      * @param matriz Matriz de la distancia entre misiones
-     * @param asignadas Set con el id de las misiones ya asignadas al dron
+     * @param duraciones Duración en minutos de cada misión
+     * @param asignadas Misiones ya asignadas (por su posición en la lista)
      * @param bateriaRestante cantidad de batería restante del dron
      * @param velocidadMetrosMin velocidad del dron en metros por minuto
-     * @return Mision no asignada más cercana
+     * @return Posición de la misión no asignada más cercana, o MatrizDistancias.BASE si no queda ninguna
      */
-    private Mision buscarSiguienteMision(Long origen, List<Mision> misiones, List<DistanciaMisionDTO> matriz,
-                                         Set<Long> asignadas, double bateriaRestante, double velocidadMetrosMin) {
-        Mision mejor = null;
+    private int buscarSiguienteMision(int origen, MatrizDistancias matriz, double[] duraciones,
+                                      boolean[] asignadas, double bateriaRestante, double velocidadMetrosMin) {
+        int mejor = MatrizDistancias.BASE;
         double menorDistancia = Double.MAX_VALUE;
 
-        for (Mision m : misiones) {
-            if (asignadas.contains(m.getIdMision())) continue;
+        for (int m = 0; m < asignadas.length; m++) {
+            if (asignadas[m]) continue;
 
-            double dist = obtenerDistancia(matriz, origen, m.getIdMision());
+            double dist = matriz.distancia(origen, m);
 
-            double costoTiempo = calcularCostoTiempo(m, dist, velocidadMetrosMin);
+            double costoTiempo = calcularCostoTiempo(duraciones[m], dist, velocidadMetrosMin);
 
             if (costoTiempo <= bateriaRestante) {
                 if (dist < menorDistancia) {
@@ -402,23 +448,6 @@ public class MisionService {
     }
 
     // Helpers Matemáticos
-    /**
-     * Obtiene la distancia entre dos misiones en metros
-     * @param matriz Matriz de la distancia entre misiones
-     * @param origen Misión de origen
-     * @param destino Misión de destino
-     * @return Distancia entre dos misiones
-     */
-    private double obtenerDistancia(List<DistanciaMisionDTO> matriz, Long origen, Long destino) {
-        if (origen == null) return 0.0;
-
-        return matriz.stream()
-                .filter(d -> (d.idOrigen().equals(origen) && d.idDestino().equals(destino)) ||
-                        (d.idOrigen().equals(destino) && d.idDestino().equals(origen)))
-                .mapToDouble(DistanciaMisionDTO::distanciaMetros)
-                .findFirst().orElse(100000.0);
-    }
-
     /**
      * Busca la misión no asignada más cercana que cumpla con las restricciones de batería y carga.
      * @param m mision a la que se le calcula la duración
@@ -434,14 +463,63 @@ public class MisionService {
 
     /**
      * Calcula el costo total en minutos (Viaje + Ejecución).
-     * @param m Misión a la que se le calcula
+     * @param duracionMision Duración de la misión en minutos (ver calcularDuracionMision)
      * @param distancia distancia entre misiones
      * @param velocidadMetrosMin velocidad del dron
      * @return costo de la misión
      */
-    private double calcularCostoTiempo(Mision m, double distancia, double velocidadMetrosMin) {
+    private double calcularCostoTiempo(double duracionMision, double distancia, double velocidadMetrosMin) {
         double tiempoViaje = distancia / velocidadMetrosMin;
-        return tiempoViaje + calcularDuracionMision(m);
+        return tiempoViaje + duracionMision;
+    }
+
+    /**
+     * Matriz de distancias (en metros) entre las misiones de una optimización, densa y simétrica:
+     * las misiones se numeran por su posición en la lista y la distancia entre i y j está en
+     * distancias[i * n + j]. Se arma una vez por optimización, así cada consulta es O(1) y sin
+     * boxing, y el buscador recorre la fila del origen en orden.
+     * Ocupa 8 * n² bytes, por eso la optimización limita n (rutas.optimizacion.max-misiones).
+     */
+    private static final class MatrizDistancias {
+        // Posición del dron antes de su primera misión
+        private static final int BASE = -1;
+        // Distancia para los pares que PostGIS no devolvió (Ej: misión sin ruta)
+        private static final double SIN_DISTANCIA = 100000.0;
+
+        private final int n;
+        private final double[] distancias;
+
+        private MatrizDistancias(List<Mision> misiones, List<DistanciaMisionDTO> pares) {
+            n = misiones.size();
+            // Un arreglo de Java no pasa de Integer.MAX_VALUE elementos (unas 46.000 misiones)
+            if ((long) n * n > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Demasiadas misiones para la matriz de distancias: " + n);
+            }
+            Map<Long, Integer> indices = new HashMap<>(n * 2);
+            for (int i = 0; i < n; i++) {
+                indices.put(misiones.get(i).getIdMision(), i);
+            }
+            distancias = new double[n * n];
+            Arrays.fill(distancias, SIN_DISTANCIA);
+            for (int i = 0; i < n; i++) {
+                distancias[i * n + i] = 0.0;
+            }
+            for (DistanciaMisionDTO par : pares) {
+                Integer i = indices.get(par.idOrigen());
+                Integer j = indices.get(par.idDestino());
+                if (i != null && j != null && par.distanciaMetros() != null) {
+                    distancias[i * n + j] = par.distanciaMetros();
+                    distancias[j * n + i] = par.distanciaMetros();
+                }
+            }
+        }
+
+        /**
+         * Distancia entre dos misiones; desde la base es 0.
+         */
+        private double distancia(int origen, int destino) {
+            return origen == BASE ? 0.0 : distancias[origen * n + destino];
+        }
     }
 
     /**
@@ -484,25 +562,15 @@ public class MisionService {
         return Math.round(longitudMetros * 100.0) / 100.0;
     }
 
-    public List<CoordenadaDTO> obtenerRutaDeVuelo(Long misionId) {
+    /**
+     * Obtiene los puntos de la ruta planificada para dibujarla en el mapa.
+     * Con zoom o tolerancia (metros) se devuelve una versión simplificada.
+     */
+    public List<CoordenadaDTO> obtenerRutaDeVuelo(Long misionId, Integer zoom, Double toleranciaMetros) {
         Mision mision = misionRepository.findById(misionId)
                 .orElseThrow(() -> new RuntimeException("Misión no encontrada"));
 
-        // Asumimos que el campo en tu entidad se llama 'ruta' o 'sentencia'
-        // y es de tipo Geometry o LineString
-        Geometry geom = mision.getRuta(); // O mision.getRuta(), revisa tu entidad
-
-        List<CoordenadaDTO> listaPuntos = new ArrayList<>();
-
-        if (geom != null) {
-            // Recorremos las coordenadas internas de la geometría
-            for (Coordinate coord : geom.getCoordinates()) {
-                // OJO: JTS suele guardar (X,Y) -> (Longitud, Latitud)
-                // Leaflet necesita (Latitud, Longitud). Invertimos aquí.
-                listaPuntos.add(new CoordenadaDTO(coord.y, coord.x));
-            }
-        }
-        return listaPuntos;
+        return simplificacionTrayectoriaService.getRuta(misionId, mision.getRuta(), zoom, toleranciaMetros);
     }
 
 }
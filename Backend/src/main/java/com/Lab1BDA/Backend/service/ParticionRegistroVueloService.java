@@ -0,0 +1,150 @@
+package com.Lab1BDA.Backend.service;
+
+import com.Lab1BDA.Backend.repository.ParticionRegistroVueloRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Mantiene las particiones mensuales de registro_vuelo (registro_vuelo_pAAAAMM):
+ * - Crea por adelantado las particiones de los próximos meses, para que la telemetría
+ *   nunca termine en la partición por defecto.
+ * - Mueve a su partición las filas que hayan caído en la partición por defecto
+ *   (datos de prueba, importaciones de vuelos antiguos).
+ * - Si se configura una retención, desprende las particiones vencidas y las deja
+ *   en un esquema de archivo.
+ */
+@Service
+@Slf4j
+public class ParticionRegistroVueloService {
+
+    private static final String PREFIJO = ParticionRegistroVueloRepository.TABLA + "_p";
+    private static final DateTimeFormatter FORMATO_MES = DateTimeFormatter.ofPattern("yyyyMM");
+
+    @Autowired
+    private ParticionRegistroVueloRepository particionRepository;
+
+    @Value("${particiones.meses-adelante:3}")
+    private int mesesAdelante;
+
+    // 0 = conservar todas las particiones
+    @Value("${particiones.retencion-meses:0}")
+    private int retencionMeses;
+
+    @Value("${particiones.esquema-archivo:archivo}")
+    private String esquemaArchivo;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        mantenerParticiones();
+    }
+
+    /**
+     * Revisa las particiones una vez al día (por defecto a las 03:00).
+     */
+    @Scheduled(cron = "${particiones.cron:0 0 3 * * *}")
+    public void mantenerParticiones() {
+        try {
+            if (!particionRepository.esTablaParticionada()) {
+                log.info("registro_vuelo no está particionada; ejecute Datos_BD/particionar_registro_vuelo.sql para habilitarlo");
+                return;
+            }
+
+            Set<YearMonth> existentes = new HashSet<>();
+            for (String nombre : particionRepository.findParticiones()) {
+                YearMonth mes = mesDeParticion(nombre);
+                if (mes != null) {
+                    existentes.add(mes);
+                }
+            }
+
+            // 1. Meses con filas en la partición por defecto
+            for (LocalDate inicio : particionRepository.findMesesEnParticionDefault()) {
+                asegurarParticion(YearMonth.from(inicio), existentes);
+            }
+
+            // 2. Mes actual y los siguientes
+            YearMonth actual = YearMonth.now();
+            for (int i = 0; i <= mesesAdelante; i++) {
+                asegurarParticion(actual.plusMonths(i), existentes);
+            }
+
+            // 3. Retención
+            if (retencionMeses > 0) {
+                YearMonth limite = actual.minusMonths(retencionMeses);
+                for (YearMonth mes : existentes) {
+                    if (mes.isBefore(limite) && particionRepository.archivarParticion(nombreParticion(mes), esquemaArchivo)) {
+                        log.info("Partición {} archivada en el esquema {}", nombreParticion(mes), esquemaArchivo);
+                    }
+                }
+            }
+        } catch (DataAccessException e) {
+            log.warn("No se pudieron mantener las particiones de registro_vuelo: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Crea las particiones que falten entre dos meses (inclusive), Ej: antes de una carga masiva
+     * de telemetría antigua, para que no pase por la partición por defecto.
+     * @return false si registro_vuelo no está particionada.
+     */
+    public boolean asegurarMeses(YearMonth desde, YearMonth hasta) {
+        if (!particionRepository.esTablaParticionada()) {
+            return false;
+        }
+        Set<YearMonth> existentes = new HashSet<>();
+        for (String nombre : particionRepository.findParticiones()) {
+            YearMonth mes = mesDeParticion(nombre);
+            if (mes != null) {
+                existentes.add(mes);
+            }
+        }
+        for (YearMonth mes = desde; !mes.isAfter(hasta); mes = mes.plusMonths(1)) {
+            asegurarParticion(mes, existentes);
+        }
+        return true;
+    }
+
+    private void asegurarParticion(YearMonth mes, Set<YearMonth> existentes) {
+        if (existentes.contains(mes)) {
+            return;
+        }
+        String nombre = nombreParticion(mes);
+        int movidas = particionRepository.crearParticion(nombre, mes.atDay(1), mes.plusMonths(1).atDay(1));
+        existentes.add(mes);
+        if (movidas >= 0) {
+            log.info("Partición {} creada ({} filas movidas desde la partición por defecto)", nombre, movidas);
+        }
+    }
+
+    private static String nombreParticion(YearMonth mes) {
+        return PREFIJO + mes.format(FORMATO_MES);
+    }
+
+    /**
+     * @return El mes que cubre la partición, o null si el nombre no sigue la convención (Ej: la partición por defecto).
+     */
+    private static YearMonth mesDeParticion(String nombre) {
+        if (!nombre.startsWith(PREFIJO)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(nombre.substring(PREFIJO.length()), FORMATO_MES);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -1,30 +1,52 @@
 package com.Lab1BDA.Backend.service;
 
+import com.Lab1BDA.Backend.dto.EstadoRegistroDTO;
+import com.Lab1BDA.Backend.dto.MisionSimulacionDTO;
+import com.Lab1BDA.Backend.dto.MonitoreoCambiosDTO;
+import com.Lab1BDA.Backend.dto.RegistroVueloLoteResponseDTO;
 import com.Lab1BDA.Backend.dto.RegistroVueloRequestDTO;
 import com.Lab1BDA.Backend.dto.UbicacionDTO;
 import com.Lab1BDA.Backend.dto.VelocidadCalculadaDTO;
-import com.Lab1BDA.Backend.model.Dron;
-import com.Lab1BDA.Backend.model.Mision;
-import com.Lab1BDA.Backend.model.ModeloDron;
+import com.Lab1BDA.Backend.exception.TelemetriaSaturadaException;
+import com.Lab1BDA.Backend.model.PuntoTelemetria;
 import com.Lab1BDA.Backend.model.RegistroVuelo;
-import com.Lab1BDA.Backend.repository.DronRepository;
 import com.Lab1BDA.Backend.repository.MisionRepository;
-import com.Lab1BDA.Backend.repository.ModeloDronRepository;
 import com.Lab1BDA.Backend.repository.RegistroVueloRepository;
+import com.Lab1BDA.Backend.util.CinematicaRuta;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.Geometry;
 import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.geom.Point;
 import org.locationtech.jts.io.ParseException;
 import org.locationtech.jts.io.WKTReader;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class RegistroVueloService {
@@ -36,51 +58,161 @@ public class RegistroVueloService {
     @Autowired
     private MisionRepository misionRepository;
     @Autowired
-    private DronRepository dronRepository;
+    private TelemetriaWriteBehindService telemetriaWriteBehindService;
+    @Autowired
+    private RollupTelemetriaService rollupTelemetriaService;
+    @Autowired
+    private DeduplicacionTelemetriaService deduplicacionTelemetriaService;
     @Autowired
-    private ModeloDronRepository modeloDronRepository;
+    private EstadoFlotaService estadoFlotaService;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Rutas precalculadas de las misiones en simulación
+    private final Map<Long, ProgresoRuta> rutas = new ConcurrentHashMap<>();
+
+    // Filas leídas por viaje a la base al exportar la telemetría de una misión
+    @Value("${telemetria.exportacion.tamano-bloque:1000}")
+    private int tamanoBloqueExportacion;
 
 
     /**
-     * Registra un nuevo punto de telemetría.
+     * Registra un nuevo punto de telemetría. El punto queda en el buffer de escritura
+     * diferida y se guarda en segundo plano, por lo que se devuelve sin ID.
      * @param dto El DTO con los datos de telemetría.
-     * @return El registro de vuelo guardado.
+     * @return El punto de telemetría aceptado.
+     * @throws TelemetriaSaturadaException si el buffer está lleno.
      */
-    public RegistroVuelo registrarTelemetria(RegistroVueloRequestDTO dto) {
-        RegistroVuelo registro = new RegistroVuelo();
-        registro.setIdMision(dto.idMision());
-        registro.setAltitudMsnm(dto.altitudMsnm());
-        registro.setVelocidadKmh(dto.velocidadKmh());
-        registro.setNivelBateriaPorcentaje(dto.nivelBateriaPorcentaje());
-        registro.setTimestamp(dto.timestamp() != null ? dto.timestamp() : LocalDateTime.now());
+    public PuntoTelemetria registrarTelemetria(RegistroVueloRequestDTO dto) {
+        PuntoTelemetria punto = construirPunto(dto);
+        if (!aceptarPunto(punto)) {
+            throw new TelemetriaSaturadaException("Buffer de telemetría lleno, reintente más tarde",
+                    telemetriaWriteBehindService.getReintentarEnSegundos());
+        }
+        return punto;
+    }
 
-        try {
-            // 1. Leemos el WKT (Ej: "POINT(-70.6 33.4)") que suele ser 2D
-            Geometry geom = wktReader.read(dto.coordenadasWKT());
+    /**
+     * Punto de entrada común de la ingesta asíncrona (REST y WebSocket):
+     * deja el punto en el buffer de escritura diferida.
+     * @param punto Punto de telemetría ya validado.
+     * @return false si el buffer está lleno y el punto no fue aceptado.
+     */
+    public boolean aceptarPunto(PuntoTelemetria punto) {
+        return telemetriaWriteBehindService.encolar(punto);
+    }
 
-            if (geom instanceof Point) {
-                Point p2d = (Point) geom;
+    /**
+     * Segundos sugeridos al cliente para reintentar cuando la ingesta está saturada.
+     */
+    public long getReintentarEnSegundos() {
+        return telemetriaWriteBehindService.getReintentarEnSegundos();
+    }
 
-                // 2. CREAMOS EL PUNTO 3D REAL
-                // Obtenemos Z del DTO, o asumimos 0.0 si es nulo
-                double z = dto.altitudMsnm() != null ? dto.altitudMsnm() : 0.0;
+    /**
+     * Registra un lote de puntos de telemetría (de una o varias misiones).
+     * Los puntos inválidos o de misiones inexistentes se rechazan individualmente;
+     * el resto se guarda con INSERTs multi-fila, sin recuperar los IDs generados.
+     * @param dtos Lista de puntos de telemetría.
+     * @return Resumen con el estado de cada punto, en el mismo orden recibido.
+     */
+    public RegistroVueloLoteResponseDTO registrarTelemetriaLote(List<RegistroVueloRequestDTO> dtos) {
+        EstadoRegistroDTO[] resultados = new EstadoRegistroDTO[dtos.size()];
+        PuntoTelemetria[] puntos = new PuntoTelemetria[dtos.size()];
+
+        // 1. Validación y conversión de cada punto
+        Set<Long> idsMision = new HashSet<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            RegistroVueloRequestDTO dto = dtos.get(i);
+            try {
+                puntos[i] = construirPunto(dto);
+                idsMision.add(dto.idMision());
+            } catch (IllegalArgumentException e) {
+                resultados[i] = rechazado(i, dto != null ? dto.idMision() : null, e.getMessage());
+            }
+        }
 
-                // Coordinate soporta (x, y, z)
-                Coordinate coord3d = new Coordinate(p2d.getX(), p2d.getY(), z);
+        // 2. Una sola consulta para verificar todas las misiones del lote
+        Set<Long> misionesExistentes = misionRepository.findIdsExistentes(idsMision);
 
-                GeometryFactory factory = new GeometryFactory();
-                Point p3d = factory.createPoint(coord3d);
-                p3d.setSRID(4326); // Importante para PostGIS
+        List<PuntoTelemetria> aGuardar = new ArrayList<>();
+        for (int i = 0; i < puntos.length; i++) {
+            if (puntos[i] == null) continue;
+            if (!misionesExistentes.contains(puntos[i].idMision())) {
+                resultados[i] = rechazado(i, puntos[i].idMision(), "Misión no encontrada");
+                continue;
+            }
+            aGuardar.add(puntos[i]);
+            resultados[i] = new EstadoRegistroDTO(i, puntos[i].idMision(), "ACEPTADO", null);
+        }
 
-                registro.setCoordenadas(p3d);
-            } else {
-                throw new IllegalArgumentException("El WKT no es un POINT");
+        // 3. Inserción por bloques, omitiendo los puntos ya registrados
+        List<PuntoTelemetria> insertados = deduplicacionTelemetriaService.guardarSinDuplicados(aGuardar);
+        estadoFlotaService.actualizar(insertados);
+
+        if (insertados.size() < aGuardar.size()) {
+            Set<PuntoTelemetria> guardados = Collections.newSetFromMap(new IdentityHashMap<>());
+            guardados.addAll(insertados);
+            for (int i = 0; i < puntos.length; i++) {
+                if (puntos[i] != null && resultados[i].estado().equals("ACEPTADO") && !guardados.contains(puntos[i])) {
+                    resultados[i] = new EstadoRegistroDTO(i, puntos[i].idMision(), "DUPLICADO", "El punto ya estaba registrado");
+                }
+            }
+        }
+
+        int duplicados = aGuardar.size() - insertados.size();
+        return new RegistroVueloLoteResponseDTO(dtos.size(), insertados.size(),
+                dtos.size() - aGuardar.size(), duplicados, Arrays.asList(resultados));
+    }
+
+    private EstadoRegistroDTO rechazado(int indice, Long idMision, String mensaje) {
+        return new EstadoRegistroDTO(indice, idMision, "RECHAZADO", mensaje);
+    }
+
+    /**
+     * Convierte el DTO recibido en un PuntoTelemetria.
+     * Si vienen 'longitud' y 'latitud' se usan directamente; si no, se lee 'coordenadasWKT'
+     * (Ej: "POINT(-70.6 33.4)") como alternativa. La Z siempre es la altitud del DTO.
+     * @throws IllegalArgumentException si faltan campos o las coordenadas no son válidas.
+     */
+    private PuntoTelemetria construirPunto(RegistroVueloRequestDTO dto) {
+        if (dto == null || dto.idMision() == null || dto.nivelBateriaPorcentaje() == null) {
+            throw new IllegalArgumentException("Faltan campos obligatorios (idMision, nivelBateriaPorcentaje)");
+        }
+
+        double longitud;
+        double latitud;
+        if (dto.longitud() != null && dto.latitud() != null) {
+            longitud = dto.longitud();
+            latitud = dto.latitud();
+        } else if (dto.coordenadasWKT() != null) {
+            try {
+                Geometry geom = wktReader.read(dto.coordenadasWKT());
+                if (!(geom instanceof Point p2d)) {
+                    throw new IllegalArgumentException("El WKT no es un POINT");
+                }
+                longitud = p2d.getX();
+                latitud = p2d.getY();
+            } catch (ParseException e) {
+                throw new IllegalArgumentException("Error al leer coordenadas", e);
             }
-        } catch (ParseException e) {
-            throw new IllegalArgumentException("Error al leer coordenadas", e);
+        } else {
+            throw new IllegalArgumentException("Faltan las coordenadas (longitud/latitud o coordenadasWKT)");
+        }
+
+        if (!(longitud >= -180 && longitud <= 180 && latitud >= -90 && latitud <= 90)) {
+            throw new IllegalArgumentException("Coordenadas fuera de rango");
         }
 
-        return registroVueloRepository.save(registro);
+        return new PuntoTelemetria(
+                dto.idMision(),
+                dto.timestamp() != null ? dto.timestamp() : LocalDateTime.now(),
+                longitud,
+                latitud,
+                dto.altitudMsnm(),
+                dto.velocidadKmh(),
+                dto.nivelBateriaPorcentaje()
+        );
     }
 
     /**
@@ -92,6 +224,77 @@ public class RegistroVueloService {
         return registroVueloRepository.findByMisionId(idMision);
     }
 
+    /**
+     * Escribe la telemetría de una misión a medida que se lee de la base, sin armar la lista
+     * completa: la memoria usada no depende del largo de la misión.
+     * @param idMision El ID de la misión.
+     * @param formato "ndjson" (un RegistroVuelo JSON por línea) o "csv".
+     * @param salida Destino (la respuesta HTTP); no se cierra.
+     */
+    public void exportarTelemetria(Long idMision, String formato, OutputStream salida) throws IOException {
+        try {
+            if (formato.equals("csv")) {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8), 1 << 16);
+                writer.write("id_registro_vuelo,id_mision,timestamp,longitud,latitud,altitud_msnm,velocidad_kmh,nivel_bateria_porcentaje\n");
+                registroVueloRepository.recorrerPorMisionId(idMision, tamanoBloqueExportacion, registro -> {
+                    try {
+                        writer.write(filaCsv(registro));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                writer.flush();
+            } else {
+                JsonGenerator generador = objectMapper.getFactory().createGenerator(salida);
+                generador.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                // Sin el espacio que Jackson pone entre valores raíz: cada registro va en su línea
+                generador.setRootValueSeparator(null);
+                // Sin flush por registro: la respuesta se envía en bloques del buffer del generador
+                ObjectWriter escritor = objectMapper.writerFor(RegistroVuelo.class)
+                        .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+                registroVueloRepository.recorrerPorMisionId(idMision, tamanoBloqueExportacion, registro -> {
+                    try {
+                        escritor.writeValue(generador, registro);
+                        generador.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generador.close();
+            }
+        } catch (UncheckedIOException e) {
+            // Normalmente el cliente cerró la conexión: se corta la lectura y se libera el cursor
+            throw e.getCause();
+        }
+    }
+
+    private static String filaCsv(RegistroVuelo registro) {
+        Point punto = registro.getCoordenadas();
+        return registro.getIdRegistroVuelo() + "," + registro.getIdMision() + "," + registro.getTimestamp() + ","
+                + (punto != null ? punto.getX() : "") + "," + (punto != null ? punto.getY() : "") + ","
+                + valorCsv(registro.getAltitudMsnm()) + "," + valorCsv(registro.getVelocidadKmh()) + ","
+                + valorCsv(registro.getNivelBateriaPorcentaje()) + "\n";
+    }
+
+    private static String valorCsv(Double valor) {
+        return valor != null ? valor.toString() : "";
+    }
+
+    /**
+     * Obtiene la telemetría de una misión con la resolución pedida, usando el nivel de
+     * agregación más barato que la cumpla.
+     * @param idMision El ID de la misión.
+     * @param resolucionSegundos Separación aceptable entre muestras; null = datos crudos.
+     * @return Registros crudos (RegistroVuelo) o agregados (TelemetriaAgregadaDTO).
+     */
+    public List<?> getTelemetriaPorMision(Long idMision, Integer resolucionSegundos) {
+        int resolucion = rollupTelemetriaService.elegirResolucion(resolucionSegundos);
+        if (resolucion == 0) {
+            return getTelemetriaPorMision(idMision);
+        }
+        return rollupTelemetriaService.getTelemetriaAgregada(idMision, resolucion);
+    }
+
 
     /**
      * Pasa un registro de vuelo a UbicacionDTO, para mostrarlo en el mapa.
@@ -115,137 +318,142 @@ public class RegistroVueloService {
     }
 
     /**
-     * Obtiene las ubicaciones de todos los drones activos en un determinado momento.
-     * Se ejecuta automáticamente cada 5 segundos.
+     * Ubicación actual de cada dron en vuelo. Se responde desde el estado de la flota en
+     * memoria, que mantienen la ingesta y la simulación.
      */
-    @Scheduled(fixedRate = 5000)
-    public void autoMonitoreo(){
-        // Obtener el registro más reciente de cada misión en estado "En Progreso"
-        List<RegistroVuelo> registros = registroVueloRepository.findLatestByMisionWithActiveStatus();
-        actualizarMonitoreo(registros, 5);
+    public List<UbicacionDTO> getMonitoreo(){
+        return estadoFlotaService.getUbicaciones();
     }
 
-    public List<UbicacionDTO> getMonitoreo(){
-        // Obtener el registro más reciente de cada misión en estado "En Progreso"
-        List<RegistroVuelo> registros = registroVueloRepository.findLatestByMisionWithActiveStatus();
-        List<UbicacionDTO> ubicaciones = new ArrayList<>();
-        for (RegistroVuelo registro : registros) {
-            ubicaciones.add(registroToUbicacion(registro));
-        }
-        return ubicaciones;
+    /**
+     * Cambios de la flota desde la versión que ya tiene el cliente.
+     */
+    public MonitoreoCambiosDTO getMonitoreoDesde(long version) {
+        return estadoFlotaService.getCambios(version);
     }
 
     /**
-     * Hace avanzar a los drones activos en el espacio y el tiempo
+     * Hace avanzar a los drones activos en el espacio y el tiempo (un shard de la simulación,
+     * ver SimulacionVueloService). Cada dron sigue su ruta vértice a vértice.
+     * La misión, el dron y el modelo de todos los registros se leen en una sola consulta, y las
+     * nuevas posiciones y las misiones completadas se guardan en lote al final del ciclo, en una
+     * sola transacción junto con sus agregados.
      * @param registros Registros que se quieren avanzar.
      * @param segundos  Cuántos segundos se quiere avanzar.
      * @return Registros de los drones tras avanzar.
      */
-    public List<RegistroVuelo> actualizarMonitoreo(List<RegistroVuelo> registros, long segundos) {
+    @Transactional
+    public List<RegistroVuelo> actualizarMonitoreo(List<RegistroVuelo> registros, double segundos) {
         List<RegistroVuelo> registrosActualizados = new ArrayList<>();
+        if (registros.isEmpty()) {
+            return registrosActualizados;
+        }
+        Map<Long, MisionSimulacionDTO> misiones = new HashMap<>();
+        for (MisionSimulacionDTO mision : misionRepository.findParaSimulacion(
+                registros.stream().map(RegistroVuelo::getIdMision).toList())) {
+            misiones.put(mision.idMision(), mision);
+        }
+        List<PuntoTelemetria> puntos = new ArrayList<>(registros.size());
+        Set<Long> completadas = new HashSet<>();
+        GeometryFactory geometryFactory = new GeometryFactory();
+        LocalDateTime ahora = LocalDateTime.now();
+
         // Para cada mision en proceso se obtiene su ultimo punto de telemetria
         for (RegistroVuelo registro : registros) {
-            RegistroVuelo nuevoRegistro = registro;
-            Mision mision = misionRepository.findById(registro.getIdMision())
-                    .orElseThrow(() -> new IllegalStateException("Misión no encontrada"));
-            Dron dron = dronRepository.findById(mision.getIdDronAsignado())
-                    .orElseThrow(() -> new IllegalStateException("Dron no encontrado"));
-            ModeloDron modelo = modeloDronRepository.findById(dron.getIdModelo())
-                    .orElseThrow(() -> new IllegalStateException("Modelo de dron no encontrado"));
-            double velocidad = modelo.getVelocidadPromedioKmh();
-            Point destino = mision.getRuta().getEndPoint();
-
-            double lon = registro.getCoordenadas().getX();
-            double lat = registro.getCoordenadas().getY();
-
-            // Obtener la altitud actual del registro
-            double alt = registro.getCoordenadas().getCoordinate().getZ();
-            if (Double.isNaN(alt)) {
-                alt = registro.getAltitudMsnm() != null ? registro.getAltitudMsnm() : 0.0;
-            }
-
-            // Cálculo de la nueva posición del dron en X e Y
-            // X->Longitud | Y->Latitud
-            double dx = destino.getX() - lon;
-            double dy = destino.getY() - lat;
-            double metrosPorGradoLat = 111_320.0;
-            double metrosPorGradoLon = 111_320.0 * Math.cos(Math.toRadians(lat));
-            double distanciaRestante = Math.sqrt(
-                    Math.pow(dx * metrosPorGradoLon, 2) +
-                            Math.pow(dy * metrosPorGradoLat, 2)
-            );
-            double distanciaAvance = (velocidad / 3.6) * segundos;
-
-            double nuevaLat;
-            double nuevaLon;
-            double nuevaAlt;
-
-            // Obtener altitudes de inicio y fin de la ruta
-            double altitudInicio = mision.getRuta().getStartPoint().getCoordinate().getZ();
-            double altitudFin = mision.getRuta().getEndPoint().getCoordinate().getZ();
-
-            // Manejar casos donde Z sea NaN
-            if (Double.isNaN(altitudInicio)) altitudInicio = 0.0;
-            if (Double.isNaN(altitudFin)) altitudFin = 0.0;
-
-            // Calcular la distancia total de la ruta para normalizar
-            double dxTotal = mision.getRuta().getEndPoint().getX() - mision.getRuta().getStartPoint().getX();
-            double dyTotal = mision.getRuta().getEndPoint().getY() - mision.getRuta().getStartPoint().getY();
-            double distanciaTotal = Math.sqrt(
-                    Math.pow(dxTotal * metrosPorGradoLon, 2) +
-                    Math.pow(dyTotal * metrosPorGradoLat, 2)
-            );
-
-            // Normalizar x entre 0 y 1 (progreso del vuelo)
-            double progreso = distanciaTotal > 0 ? 1.0 - (distanciaRestante / distanciaTotal) : 1.0;
-            progreso = Math.max(0.0, Math.min(1.0, progreso)); // Clamp entre 0 y 1
-
-            // Interpolación lineal entre altitud inicio y fin, con una curva parabólica para simular ascenso/descenso
-            // f(x) = altInicio + (altFin - altInicio) * x + 4 * altMax * x * (1 - x)
-            // donde altMax es la altitud máxima adicional en el punto medio del vuelo
-            double altitudMaxAdicional = 100.0; // Metros adicionales en el punto más alto
-            nuevaAlt = altitudInicio + (altitudFin - altitudInicio) * progreso + 4 * altitudMaxAdicional * progreso * (1 - progreso);
-
-            // Asegurar que nuevaAlt esté dentro de límites razonables
-            if (nuevaAlt < 0) {
-                nuevaAlt = 0;
+            MisionSimulacionDTO mision = misiones.get(registro.getIdMision());
+            if (mision == null) {
+                // Ya no está en progreso (o no tiene dron o ruta): la sincronización de la flota la quita
+                continue;
             }
-            if (nuevaAlt > 800) {
-                nuevaAlt = 800;
-            }
-
-            // Verificar que el dron no se pasó de su destino en X e Y
-            if (distanciaAvance >= distanciaRestante) {
-                // Llegó o se pasó
-                nuevaLat = destino.getY();
-                nuevaLon = destino.getX();
-                mision.setEstado("Completada");
-                dron.setEstado("Disponible");
-                dronRepository.update(dron);
-                misionRepository.update(mision);
+            RegistroVuelo nuevoRegistro = registro;
+            ProgresoRuta progreso = progresoRuta(mision, registro);
+            CinematicaRuta cinematica = progreso.cinematica;
+
+            // El dron sigue la ruta por todos sus vértices: se avanza la distancia recorrida
+            // y se ubica el punto con una búsqueda binaria en las distancias acumuladas
+            double distanciaAvance = (mision.velocidadPromedioKmh() / 3.6) * segundos;
+            double recorrido = Math.min(progreso.recorrido + distanciaAvance, cinematica.longitudTotal());
+            // Altitud de la ruta con la curva de ascenso/descenso
+            Coordinate coord3d = cinematica.posicionVuelo(recorrido);
+            double nuevaAlt = coord3d.getZ();
+            double nuevaLon = coord3d.getX();
+            double nuevaLat = coord3d.getY();
+
+            if (recorrido >= cinematica.longitudTotal()) {
+                // Llegó al final de la ruta: la misión se completa y el dron queda disponible (al final, en lote)
+                completadas.add(mision.idMision());
+                rutas.remove(mision.idMision());
             } else {
-                double modulo = Math.sqrt(dx*dx + dy*dy);
-                double dirX = dx / modulo;
-                double dirY = dy / modulo;
-                double deltaLat = (dirY * distanciaAvance) / metrosPorGradoLat;
-                double deltaLon = (dirX * distanciaAvance) / metrosPorGradoLon;
-                nuevaLat = lat + deltaLat;
-                nuevaLon = lon + deltaLon;
+                progreso.recorrido = recorrido;
+                progreso.longitud = nuevaLon;
+                progreso.latitud = nuevaLat;
             }
             // Pasar las coordenadas a Point 3D y agregar tiempo
-            GeometryFactory geometryFactory = new GeometryFactory();
-            Coordinate coord3d = new Coordinate(nuevaLon, nuevaLat, nuevaAlt);
             Point nuevasCoordenadas = geometryFactory.createPoint(coord3d);
             nuevasCoordenadas.setSRID(4326); // Importante para PostGIS
             nuevoRegistro.setCoordenadas(nuevasCoordenadas);
             nuevoRegistro.setAltitudMsnm(nuevaAlt);
-            nuevoRegistro.setTimestamp(LocalDateTime.now());
-            registroVueloRepository.save(nuevoRegistro);
+            nuevoRegistro.setTimestamp(ahora);
+            puntos.add(new PuntoTelemetria(nuevoRegistro.getIdMision(), ahora, nuevaLon, nuevaLat, nuevaAlt,
+                    nuevoRegistro.getVelocidadKmh(), nuevoRegistro.getNivelBateriaPorcentaje()));
             registrosActualizados.add(nuevoRegistro);
         }
+
+        // Persistencia del ciclo: un INSERT multi-fila por bloque y una sola sentencia para las completadas
+        registroVueloRepository.saveAll(puntos);
+        misionRepository.completarMisiones(completadas);
+        rollupTelemetriaService.acumular(puntos);
+        for (RegistroVuelo registro : registrosActualizados) {
+            if (completadas.contains(registro.getIdMision())) {
+                estadoFlotaService.desactivar(registro.getIdMision());
+            } else {
+                estadoFlotaService.actualizar(registro, false);
+            }
+        }
         return registrosActualizados;
     }
 
+    /**
+     * Posición sobre la ruta de una misión, desde el caché. Las tablas de la ruta se calculan
+     * una vez por misión (o de nuevo si la ruta cambió). Si el dron no está donde lo dejó la
+     * simulación (primera vez, o telemetría real), se proyecta su posición sobre la ruta.
+     */
+    private ProgresoRuta progresoRuta(MisionSimulacionDTO mision, RegistroVuelo registro) {
+        ProgresoRuta progreso = rutas.get(mision.idMision());
+        if (progreso == null || !progreso.cinematica.corresponde(mision.ruta())) {
+            progreso = new ProgresoRuta(new CinematicaRuta(mision.ruta()));
+            rutas.put(mision.idMision(), progreso);
+        }
+        double lon = registro.getCoordenadas().getX();
+        double lat = registro.getCoordenadas().getY();
+        if (Double.isNaN(progreso.recorrido) || lon != progreso.longitud || lat != progreso.latitud) {
+            progreso.recorrido = progreso.cinematica.proyectar(lon, lat);
+        }
+        return progreso;
+    }
+
+    /**
+     * Descarta del caché de rutas las misiones que ya no se simulan.
+     */
+    public void retenerRutas(Set<Long> misionesActivas) {
+        rutas.keySet().retainAll(misionesActivas);
+    }
+
+    /**
+     * Ruta de una misión en simulación y hasta dónde la recorrió el dron. Cada misión la avanza
+     * un solo hilo a la vez (ver SimulacionVueloService), por eso los campos no se sincronizan.
+     */
+    private static final class ProgresoRuta {
+        private final CinematicaRuta cinematica;
+        private double recorrido = Double.NaN;
+        private double longitud;
+        private double latitud;
+
+        private ProgresoRuta(CinematicaRuta cinematica) {
+            this.cinematica = cinematica;
+        }
+    }
+
     public List<VelocidadCalculadaDTO> obtenerVelocidades(Long idMision) {
         // 1. Llamamos al repositorio que ya funciona
         List<VelocidadCalculadaDTO> reporte = registroVueloRepository.obtenerVelocidadesCalculadas(idMision);
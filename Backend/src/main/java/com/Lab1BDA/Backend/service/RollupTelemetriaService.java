@@ -0,0 +1,153 @@
+package com.Lab1BDA.Backend.service;
+
+import com.Lab1BDA.Backend.dto.TelemetriaAgregadaDTO;
+import com.Lab1BDA.Backend.model.PuntoTelemetria;
+import com.Lab1BDA.Backend.model.RegistroVuelo;
+import com.Lab1BDA.Backend.model.RollupTelemetria;
+import com.Lab1BDA.Backend.repository.RollupTelemetriaRepository;
+import com.Lab1BDA.Backend.repository.TrayectoriaArchivoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Mantiene los niveles de agregación de la telemetría (10 segundos y 1 minuto por misión)
+ * y elige el nivel más barato que cumple la resolución pedida en las lecturas.
+ */
+@Service
+@Slf4j
+public class RollupTelemetriaService {
+
+    // Resoluciones mantenidas, de la más fina a la más gruesa
+    public static final int[] RESOLUCIONES = {10, 60};
+
+    private static final Comparator<RollupTelemetria> ORDEN_CLAVE = Comparator
+            .comparing(RollupTelemetria::getIdMision)
+            .thenComparingInt(RollupTelemetria::getResolucionSegundos)
+            .thenComparing(RollupTelemetria::getInicio);
+
+    @Autowired
+    private RollupTelemetriaRepository rollupTelemetriaRepository;
+
+    @Autowired
+    private TrayectoriaArchivoRepository trayectoriaArchivoRepository;
+
+    /**
+     * Suma a los agregados un grupo de puntos recién insertados. Primero se agrupan en memoria,
+     * así cada intervalo tocado cuesta una sola fila del upsert. Debe llamarse dentro de la
+     * transacción que insertó los puntos: si la suma falla se deshace también la inserción, y los
+     * agregados nunca quedan atrasados respecto de los datos crudos.
+     */
+    public void acumular(List<PuntoTelemetria> puntos) {
+        if (puntos.isEmpty()) {
+            return;
+        }
+        rollupTelemetriaRepository.combinar(agrupar(puntos, RESOLUCIONES));
+    }
+
+    /**
+     * Recalcula todos los niveles de agregación de las misiones indicadas.
+     * Se usa tras las cargas con COPY, que no pasan por {@link #acumular}.
+     */
+    public void reconstruir(Collection<Long> misiones) {
+        for (Long idMision : misiones) {
+            reconstruir(idMision, RESOLUCIONES);
+        }
+    }
+
+    /**
+     * Recalcula los agregados de todas las misiones con telemetría (Ej: datos cargados antes de
+     * existir los agregados). Es una tarea de mantenimiento; ver ReconstruccionAgregadosRunner.
+     * @return Cantidad de misiones recalculadas.
+     */
+    public int reconstruirTodas() {
+        List<Long> misiones = rollupTelemetriaRepository.findMisionesConTelemetria();
+        for (Long idMision : misiones) {
+            reconstruir(idMision, RESOLUCIONES);
+            log.info("Agregados recalculados para la misión {}", idMision);
+        }
+        return misiones.size();
+    }
+
+    /**
+     * Recalcula los niveles indicados de una misión. Si la misión está archivada sus puntos se
+     * agregan en memoria (ya vienen decodificados); si no, la agregación la hace la base.
+     * @return Cantidad de agregados creados.
+     */
+    private int reconstruir(Long idMision, int... resoluciones) {
+        Optional<List<RegistroVuelo>> archivada = trayectoriaArchivoRepository.findTrayectoriaArchivada(idMision);
+        int creados = 0;
+        if (archivada.isPresent()) {
+            List<PuntoTelemetria> puntos = archivada.get().stream().map(RollupTelemetriaService::aPunto).toList();
+            for (int resolucion : resoluciones) {
+                creados += rollupTelemetriaRepository.reemplazar(idMision, resolucion, agrupar(puntos, resolucion));
+            }
+        } else {
+            for (int resolucion : resoluciones) {
+                creados += rollupTelemetriaRepository.reconstruir(idMision, resolucion);
+            }
+        }
+        return creados;
+    }
+
+    /**
+     * Indica el nivel que sirve una resolución pedida: el más grueso que no supere la resolución.
+     * @return La resolución del nivel en segundos, o 0 si se deben leer los datos crudos.
+     */
+    public int elegirResolucion(Integer resolucionSegundos) {
+        int elegida = 0;
+        if (resolucionSegundos != null) {
+            for (int resolucion : RESOLUCIONES) {
+                if (resolucion <= resolucionSegundos) {
+                    elegida = resolucion;
+                }
+            }
+        }
+        return elegida;
+    }
+
+    /**
+     * Obtiene la telemetría agregada de una misión. Los agregados se mantienen en la misma
+     * transacción que la inserción de los puntos, así que se leen tal cual.
+     */
+    public List<TelemetriaAgregadaDTO> getTelemetriaAgregada(Long idMision, int resolucion) {
+        return rollupTelemetriaRepository.findByMisionId(idMision, resolucion);
+    }
+
+    /**
+     * Agrupa puntos en agregados por misión e intervalo, en orden fijo de claves para que dos
+     * escrituras concurrentes no se bloqueen mutuamente.
+     */
+    private static List<RollupTelemetria> agrupar(List<PuntoTelemetria> puntos, int... resoluciones) {
+        Map<String, RollupTelemetria> parciales = new HashMap<>();
+        for (PuntoTelemetria punto : puntos) {
+            long segundos = punto.timestamp().toEpochSecond(ZoneOffset.UTC);
+            for (int resolucion : resoluciones) {
+                long inicio = Math.floorDiv(segundos, resolucion) * resolucion;
+                parciales.computeIfAbsent(punto.idMision() + ":" + resolucion + ":" + inicio,
+                        clave -> new RollupTelemetria(punto.idMision(), resolucion,
+                                LocalDateTime.ofEpochSecond(inicio, 0, ZoneOffset.UTC)))
+                        .agregar(punto);
+            }
+        }
+        List<RollupTelemetria> ordenados = new ArrayList<>(parciales.values());
+        ordenados.sort(ORDEN_CLAVE);
+        return ordenados;
+    }
+
+    private static PuntoTelemetria aPunto(RegistroVuelo registro) {
+        return new PuntoTelemetria(registro.getIdMision(), registro.getTimestamp(),
+                registro.getCoordenadas().getX(), registro.getCoordenadas().getY(),
+                registro.getAltitudMsnm(), registro.getVelocidadKmh(), registro.getNivelBateriaPorcentaje());
+    }
+}
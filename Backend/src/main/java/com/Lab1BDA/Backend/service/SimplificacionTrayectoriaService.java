@@ -0,0 +1,222 @@
+package com.Lab1BDA.Backend.service;
+
+import com.Lab1BDA.Backend.dto.CoordenadaDTO;
+import com.Lab1BDA.Backend.model.Mision;
+import com.Lab1BDA.Backend.repository.MisionRepository;
+import com.Lab1BDA.Backend.repository.RegistroVueloRepository;
+import com.Lab1BDA.Backend.repository.TrayectoriaSimplificadaRepository;
+import com.Lab1BDA.Backend.util.SimplificadorTrayectoria;
+import lombok.extern.slf4j.Slf4j;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.PrecisionModel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Pirámide de trayectorias simplificadas para el mapa. Al completarse una misión se guardan
+ * versiones Douglas-Peucker de su ruta y de su trayectoria volada en varias tolerancias, y las
+ * lecturas con ?zoom= o ?tolerancia= sirven la más simplificada que respete la tolerancia.
+ * Las misiones en curso se simplifican en cada consulta, con un costo acotado.
+ */
+@Service
+@Slf4j
+public class SimplificacionTrayectoriaService {
+
+    private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory(new PrecisionModel(), 4326);
+
+    @Autowired
+    private TrayectoriaSimplificadaRepository trayectoriaSimplificadaRepository;
+
+    // Con varias réplicas, sólo la líder genera los niveles
+    @Autowired
+    private CoordinacionReplicasService coordinacionReplicasService;
+
+    @Autowired
+    private MisionRepository misionRepository;
+
+    @Autowired
+    private RegistroVueloRepository registroVueloRepository;
+
+    // Tolerancias guardadas, en metros (de la más fina a la más gruesa)
+    @Value("${trayectorias.niveles-metros:2,8,32,128,512}")
+    private double[] nivelesMetros;
+
+    @Value("${trayectorias.misiones-por-ciclo:20}")
+    private int misionesPorCiclo;
+
+    // Límites para simplificar en cada consulta (misiones en curso)
+    @Value("${trayectorias.en-vivo.max-puntos:20000}")
+    private int maxPuntosEnVivo;
+
+    @Value("${trayectorias.en-vivo.max-evaluaciones:2000000}")
+    private long maxEvaluacionesEnVivo;
+
+    /**
+     * Genera las versiones simplificadas de las misiones completadas que aún no las tienen.
+     */
+    @Scheduled(fixedDelayString = "${trayectorias.intervalo-ms:30000}")
+    public void simplificarMisionesCompletadas() {
+        try {
+            if (!coordinacionReplicasService.esLider() || !trayectoriaSimplificadaRepository.existeTabla()) {
+                return;
+            }
+            for (Long idMision : trayectoriaSimplificadaRepository.findMisionesSinSimplificar(misionesPorCiclo)) {
+                generarNiveles(idMision);
+            }
+        } catch (DataAccessException e) {
+            log.warn("No se pudieron simplificar las trayectorias de misiones completadas: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Calcula y guarda todos los niveles de la ruta y de la trayectoria volada de una misión.
+     * Los niveles de la trayectoria volada se invalidan cada vez que llega telemetría de la
+     * misión (ver TrayectoriaSimplificadaRepository.invalidarVuelo), así que se regeneran aunque
+     * los puntos lleguen después de completarla.
+     */
+    public void generarNiveles(Long idMision) {
+        Optional<Mision> mision = misionRepository.findById(idMision);
+        if (mision.isEmpty() || mision.get().getRuta() == null) {
+            return;
+        }
+        List<Coordinate> ruta = Arrays.asList(mision.get().getRuta().getCoordinates());
+        if (!trayectoriaSimplificadaRepository.guardarNivelesRuta(idMision, mision.get().getRuta(), niveles(ruta))) {
+            // La misión se editó mientras tanto: el próximo ciclo simplifica la ruta nueva
+            log.debug("Misión {}: la ruta cambió mientras se simplificaba", idMision);
+            return;
+        }
+
+        List<Coordinate> vuelo = trayectoriaVolada(idMision);
+        if (vuelo.size() >= 2 && !trayectoriaSimplificadaRepository.guardarNivelesVuelo(idMision, vuelo.size(), niveles(vuelo))) {
+            // Llegó telemetría mientras tanto: el próximo ciclo simplifica la trayectoria completa
+            log.debug("Misión {}: la trayectoria volada cambió mientras se simplificaba", idMision);
+            return;
+        }
+        log.info("Misión {}: trayectorias simplificadas ({} puntos de ruta, {} de vuelo)", idMision, ruta.size(), vuelo.size());
+    }
+
+    /**
+     * Invalida los niveles guardados de la ruta (Ej: al editar la misión). Se debe llamar después
+     * de guardar la ruta nueva y en la misma transacción, así el barrido no puede regenerar los
+     * niveles desde la ruta anterior entre el borrado y la actualización.
+     */
+    public void invalidarRuta(Long idMision) {
+        trayectoriaSimplificadaRepository.deleteByMision(idMision, TrayectoriaSimplificadaRepository.ORIGEN_RUTA);
+    }
+
+    /**
+     * Ruta planificada de una misión, simplificada según el zoom o la tolerancia pedida.
+     * @param ruta La ruta completa (ya cargada con la misión).
+     * @param zoom Nivel de zoom del mapa (opcional).
+     * @param toleranciaMetros Tolerancia en metros (opcional; tiene prioridad sobre el zoom).
+     */
+    public List<CoordenadaDTO> getRuta(Long idMision, LineString ruta, Integer zoom, Double toleranciaMetros) {
+        if (ruta == null) {
+            return new ArrayList<>();
+        }
+        List<Coordinate> coordenadas = Arrays.asList(ruta.getCoordinates());
+        Double tolerancia = tolerancia(zoom, toleranciaMetros, ruta);
+        if (tolerancia == null) {
+            return aCoordenadasDTO(coordenadas);
+        }
+        return aCoordenadasDTO(leerNivel(idMision, TrayectoriaSimplificadaRepository.ORIGEN_RUTA, tolerancia,
+                () -> coordenadas));
+    }
+
+    /**
+     * Trayectoria volada de una misión (telemetría registrada), simplificada según el zoom o la tolerancia.
+     */
+    public List<CoordenadaDTO> getTrayectoriaVolada(Long idMision, Integer zoom, Double toleranciaMetros) {
+        Double tolerancia = toleranciaMetros;
+        if (tolerancia == null && zoom != null) {
+            // El zoom se convierte a metros en la latitud de la ruta planificada
+            tolerancia = tolerancia(zoom, null, misionRepository.findById(idMision).map(Mision::getRuta).orElse(null));
+        }
+        if (tolerancia == null) {
+            return aCoordenadasDTO(trayectoriaVolada(idMision));
+        }
+        return aCoordenadasDTO(leerNivel(idMision, TrayectoriaSimplificadaRepository.ORIGEN_VUELO, tolerancia,
+                () -> trayectoriaVolada(idMision)));
+    }
+
+    /**
+     * Usa el nivel guardado más simplificado que respete la tolerancia. Si la misión no tiene
+     * niveles (en curso o recién completada) se simplifica en el momento; si los tiene pero
+     * ninguno es tan detallado, se devuelve la trayectoria completa.
+     */
+    private List<Coordinate> leerNivel(Long idMision, String origen, double tolerancia, Supplier<List<Coordinate>> completa) {
+        Optional<LineString> nivel = trayectoriaSimplificadaRepository.findNivel(idMision, origen, tolerancia);
+        if (nivel.isPresent()) {
+            return Arrays.asList(nivel.get().getCoordinates());
+        }
+        if (trayectoriaSimplificadaRepository.existenNiveles(idMision, origen)) {
+            return completa.get();
+        }
+        return SimplificadorTrayectoria.simplificar(completa.get(), tolerancia, maxPuntosEnVivo, maxEvaluacionesEnVivo);
+    }
+
+    private Map<Double, LineString> niveles(List<Coordinate> coordenadas) {
+        Map<Double, LineString> niveles = new LinkedHashMap<>();
+        for (double tolerancia : nivelesMetros) {
+            List<Coordinate> simplificada = SimplificadorTrayectoria.simplificar(coordenadas, tolerancia);
+            niveles.put(tolerancia, GEOMETRY_FACTORY.createLineString(simplificada.toArray(new Coordinate[0])));
+        }
+        return niveles;
+    }
+
+    /**
+     * Coordenadas de la telemetría de la misión (incluye la archivada), con la altitud como Z.
+     */
+    private List<Coordinate> trayectoriaVolada(Long idMision) {
+        List<Coordinate> coordenadas = new ArrayList<>();
+        registroVueloRepository.recorrerPorMisionId(idMision, 1000, registro -> {
+            Point punto = registro.getCoordenadas();
+            if (punto == null) {
+                return;
+            }
+            double z = registro.getAltitudMsnm() != null ? registro.getAltitudMsnm()
+                    : Double.isNaN(punto.getCoordinate().getZ()) ? 0 : punto.getCoordinate().getZ();
+            coordenadas.add(new Coordinate(punto.getX(), punto.getY(), z));
+        });
+        return coordenadas;
+    }
+
+    /**
+     * Tolerancia pedida en metros: la explícita o la de un pixel con ese zoom.
+     * @param referencia Geometría de la misión, para la latitud de la conversión (puede ser null).
+     * @return La tolerancia, o null si no se pidió simplificar.
+     */
+    private static Double tolerancia(Integer zoom, Double toleranciaMetros, LineString referencia) {
+        if (toleranciaMetros != null) {
+            return toleranciaMetros;
+        }
+        if (zoom == null) {
+            return null;
+        }
+        double latitud = referencia != null && !referencia.isEmpty() ? referencia.getCoordinateN(0).y : 0;
+        return SimplificadorTrayectoria.toleranciaParaZoom(zoom, latitud);
+    }
+
+    private static List<CoordenadaDTO> aCoordenadasDTO(List<Coordinate> coordenadas) {
+        List<CoordenadaDTO> puntos = new ArrayList<>(coordenadas.size());
+        for (Coordinate c : coordenadas) {
+            // Leaflet necesita (Latitud, Longitud)
+            puntos.add(new CoordenadaDTO(c.y, c.x));
+        }
+        return puntos;
+    }
+}
@@ -0,0 +1,253 @@
+package com.Lab1BDA.Backend.service;
+
+import com.Lab1BDA.Backend.dto.SimulacionMetricasDTO;
+import com.Lab1BDA.Backend.model.RegistroVuelo;
+import com.Lab1BDA.Backend.util.Histograma;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Motor de la simulación de vuelo: en cada ciclo avanza a todos los drones en progreso.
+ *
+ * Las misiones se reparten en shards según su id (una misión cae siempre en el mismo shard) y
+ * cada shard se avanza en su propio hilo virtual, con su propia consulta y su propio guardado
+ * en lote ({@link RegistroVueloService#actualizarMonitoreo}). Cada misión se reclama antes de
+ * avanzarla: si un ciclo anterior todavía la está avanzando, se salta en este, así nunca la
+ * avanzan dos hilos a la vez.
+ *
+ * Los ciclos los dispara un planificador propio con paso fijo: cada ciclo se planifica en una
+ * grilla de 'periodo' y avanza a los drones el tiempo que realmente pasó desde el ciclo anterior
+ * (con un máximo), no un valor fijo. Si un ciclo se atrasa más de un periodo, los ciclos vencidos
+ * no se acumulan: se saltan y su tiempo lo cubre el paso del siguiente.
+ *
+ * Con varias réplicas, cada una simula sólo las misiones de sus slots (ver CoordinacionReplicasService).
+ */
+@Service
+@Slf4j
+public class SimulacionVueloService {
+
+    @Autowired
+    private RegistroVueloService registroVueloService;
+
+    @Autowired
+    private EstadoFlotaService estadoFlotaService;
+
+    @Autowired
+    private CoordinacionReplicasService coordinacionReplicasService;
+
+    @Value("${simulacion.habilitada:true}")
+    private boolean habilitada;
+
+    @Value("${simulacion.periodo-ms:5000}")
+    private long periodoMs;
+
+    // Tiempo máximo que se simula en un ciclo (Ej: tras una pausa larga los drones no "saltan")
+    @Value("${simulacion.max-paso-ms:20000}")
+    private long maxPasoMs;
+
+    // Cada shard ocupa una conexión mientras guarda: debe quedar bajo el tamaño del pool
+    @Value("${simulacion.shards:4}")
+    private int shards;
+
+    // Con menos misiones que esto por shard no conviene repartir (el ciclo corre en un solo hilo)
+    @Value("${simulacion.minimo-por-shard:50}")
+    private int minimoPorShard;
+
+    private final ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Misiones que algún hilo está avanzando en este momento
+    private final Set<Long> enAvance = ConcurrentHashMap.newKeySet();
+
+    private ScheduledExecutorService planificador;
+    // Instante planificado del próximo ciclo y de inicio del anterior (System.nanoTime)
+    private long proximoCiclo;
+    private long inicioCicloAnterior;
+
+    private final Histograma duracion = new Histograma();
+    private final Histograma atraso = new Histograma();
+    private final LongAdder ciclosSaltados = new LongAdder();
+    private volatile int misionesUltimoCiclo;
+    private volatile double pasoUltimoCiclo;
+
+    /**
+     * Arranca el planificador de la simulación (una vez cargado el estado de la flota).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        if (!habilitada || planificador != null) {
+            return;
+        }
+        planificador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "simulacion-vuelo");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        long ahora = System.nanoTime();
+        long periodo = TimeUnit.MILLISECONDS.toNanos(periodoMs);
+        inicioCicloAnterior = ahora;
+        proximoCiclo = ahora + periodo;
+        planificador.schedule(this::ciclo, periodo, TimeUnit.NANOSECONDS);
+        log.info("Simulación de vuelo iniciada: un ciclo cada {} ms", periodoMs);
+    }
+
+    /**
+     * Un ciclo: avanza a los drones activos el tiempo transcurrido y planifica el siguiente.
+     */
+    private void ciclo() {
+        long periodo = TimeUnit.MILLISECONDS.toNanos(periodoMs);
+        long inicio = System.nanoTime();
+        atraso.registrar(Math.max(0, inicio - proximoCiclo));
+        long paso = Math.min(inicio - inicioCicloAnterior, TimeUnit.MILLISECONDS.toNanos(maxPasoMs));
+        inicioCicloAnterior = inicio;
+        try {
+            // Último registro de cada misión en estado "En Progreso" (desde memoria),
+            // sólo de las misiones que le tocan a esta réplica. Los slots se leen antes que
+            // los registros: los de un slot recién tomado ya vienen refrescados desde la base
+            Set<Integer> slots = coordinacionReplicasService.getSlotsPropios();
+            List<RegistroVuelo> registros = new ArrayList<>(estadoFlotaService.getRegistros());
+            registros.removeIf(registro -> !coordinacionReplicasService.simula(registro.getIdMision(), slots));
+            misionesUltimoCiclo = registros.size();
+            registroVueloService.retenerRutas(registros.stream().map(RegistroVuelo::getIdMision).collect(Collectors.toSet()));
+            pasoUltimoCiclo = paso / 1e9;
+            avanzar(registros, paso / 1e9);
+        } catch (RuntimeException e) {
+            log.warn("Falló un ciclo de la simulación: {}", e.getMessage());
+        } finally {
+            long fin = System.nanoTime();
+            duracion.registrar(fin - inicio);
+            coordinacionReplicasService.registrarCiclo();
+            proximoCiclo += periodo;
+            if (proximoCiclo <= fin) {
+                long vencidos = (fin - proximoCiclo) / periodo + 1;
+                ciclosSaltados.add(vencidos);
+                proximoCiclo += vencidos * periodo;
+                log.warn("Simulación atrasada: el ciclo tardó {} ms, se saltan {} ciclos",
+                        TimeUnit.NANOSECONDS.toMillis(fin - inicio), vencidos);
+            }
+            if (!planificador.isShutdown()) {
+                planificador.schedule(this::ciclo, proximoCiclo - fin, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    public SimulacionMetricasDTO getMetricas() {
+        return new SimulacionMetricasDTO(
+                periodoMs,
+                duracion.conteo(),
+                ciclosSaltados.sum(),
+                misionesUltimoCiclo,
+                pasoUltimoCiclo,
+                duracion.promedioMs(),
+                duracion.percentilMs(50),
+                duracion.percentilMs(99),
+                duracion.maxMs(),
+                atraso.promedioMs(),
+                atraso.percentilMs(99),
+                atraso.maxMs()
+        );
+    }
+
+    /**
+     * Avanza los registros en paralelo, repartidos en shards.
+     * @param registros Último registro de cada misión a avanzar.
+     * @param segundos Cuántos segundos se quiere avanzar.
+     * @return Los registros que se avanzaron (sin los de shards que fallaron).
+     */
+    public List<RegistroVuelo> avanzar(List<RegistroVuelo> registros, double segundos) {
+        List<RegistroVuelo> reclamados = new ArrayList<>(registros.size());
+        for (RegistroVuelo registro : registros) {
+            if (enAvance.add(registro.getIdMision())) {
+                reclamados.add(registro);
+            }
+        }
+        if (reclamados.size() < registros.size()) {
+            log.debug("Simulación: {} misiones se saltan porque aún se están avanzando", registros.size() - reclamados.size());
+        }
+
+        List<RegistroVuelo> avanzados = new ArrayList<>(reclamados.size());
+        int cantidadShards = Math.max(1, Math.min(shards, (reclamados.size() + minimoPorShard - 1) / minimoPorShard));
+        if (cantidadShards == 1) {
+            avanzados.addAll(avanzarShard(reclamados, segundos));
+            return avanzados;
+        }
+
+        List<List<RegistroVuelo>> particion = new ArrayList<>(cantidadShards);
+        for (int i = 0; i < cantidadShards; i++) {
+            particion.add(new ArrayList<>());
+        }
+        for (RegistroVuelo registro : reclamados) {
+            particion.get(Math.floorMod(Long.hashCode(registro.getIdMision()), cantidadShards)).add(registro);
+        }
+
+        List<Future<List<RegistroVuelo>>> futuros = new ArrayList<>(cantidadShards);
+        for (List<RegistroVuelo> shard : particion) {
+            if (shard.isEmpty()) {
+                continue;
+            }
+            try {
+                futuros.add(hilos.submit(() -> avanzarShard(shard, segundos)));
+            } catch (RejectedExecutionException e) {
+                // La aplicación se está deteniendo
+                liberar(shard);
+            }
+        }
+        // Un shard que falla no detiene a los demás
+        for (Future<List<RegistroVuelo>> futuro : futuros) {
+            try {
+                avanzados.addAll(futuro.get());
+            } catch (ExecutionException e) {
+                log.warn("Falló un shard de la simulación: {}", e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return avanzados;
+    }
+
+    /**
+     * Avanza un shard y libera sus misiones al terminar (aunque falle).
+     */
+    private List<RegistroVuelo> avanzarShard(List<RegistroVuelo> shard, double segundos) {
+        try {
+            return registroVueloService.actualizarMonitoreo(shard, segundos);
+        } finally {
+            liberar(shard);
+        }
+    }
+
+    private void liberar(List<RegistroVuelo> registros) {
+        for (RegistroVuelo registro : registros) {
+            enAvance.remove(registro.getIdMision());
+        }
+    }
+
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        if (planificador != null) {
+            planificador.shutdown();
+            planificador.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        hilos.shutdown();
+        hilos.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,183 @@
+package com.Lab1BDA.Backend.service;
+
+import com.Lab1BDA.Backend.dto.TelemetriaMetricasDTO;
+import com.Lab1BDA.Backend.model.PuntoTelemetria;
+import com.Lab1BDA.Backend.repository.MisionRepository;
+import com.Lab1BDA.Backend.repository.RegistroVueloRepository;
+import com.Lab1BDA.Backend.util.AnilloMpsc;
+import com.Lab1BDA.Backend.util.Histograma;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Escritura diferida (write-behind) de la telemetría.
+ * Los puntos se encolan en un anillo acotado sin locks y el request responde de inmediato;
+ * un hilo dedicado los drena y los escribe por lotes cuando se junta 'tamanoLote' puntos
+ * o cuando pasa 'intervaloFlushMs' desde el primer punto pendiente.
+ */
+@Service
+@Slf4j
+public class TelemetriaWriteBehindService {
+
+    @Autowired
+    private RegistroVueloRepository registroVueloRepository;
+
+    @Autowired
+    private MisionRepository misionRepository;
+
+    @Autowired
+    private EstadoFlotaService estadoFlotaService;
+
+    @Autowired
+    private DeduplicacionTelemetriaService deduplicacionTelemetriaService;
+
+    @Value("${telemetria.buffer.capacidad:65536}")
+    private int capacidad;
+
+    @Value("${telemetria.buffer.tamano-lote:500}")
+    private int tamanoLote;
+
+    @Value("${telemetria.buffer.intervalo-flush-ms:200}")
+    private long intervaloFlushMs;
+
+    @Value("${telemetria.buffer.reintentar-en-segundos:1}")
+    private long reintentarEnSegundos;
+
+    private AnilloMpsc<PuntoTelemetria> anillo;
+    private Thread drenador;
+    private volatile boolean activo;
+
+    private final LongAdder aceptados = new LongAdder();
+    private final LongAdder persistidos = new LongAdder();
+    private final LongAdder descartadosPorSaturacion = new LongAdder();
+    private final LongAdder descartadosPorError = new LongAdder();
+    private final Histograma latenciaFlush = new Histograma();
+
+    @PostConstruct
+    public void iniciar() {
+        anillo = new AnilloMpsc<>(capacidad);
+        activo = true;
+        drenador = new Thread(this::drenar, "telemetria-write-behind");
+        drenador.setDaemon(true);
+        drenador.start();
+    }
+
+    /**
+     * Al apagar la aplicación se escriben los puntos que quedaron en el buffer.
+     */
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        activo = false;
+        LockSupport.unpark(drenador);
+        drenador.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * Encola un punto para ser escrito en segundo plano. No bloquea.
+     * @return false si el buffer está lleno (el punto se descarta).
+     */
+    public boolean encolar(PuntoTelemetria punto) {
+        if (anillo.offer(punto)) {
+            aceptados.increment();
+            return true;
+        }
+        descartadosPorSaturacion.increment();
+        return false;
+    }
+
+    /**
+     * Segundos que se sugiere esperar al cliente antes de reintentar cuando el buffer está lleno.
+     */
+    public long getReintentarEnSegundos() {
+        return reintentarEnSegundos;
+    }
+
+    public TelemetriaMetricasDTO getMetricas() {
+        return new TelemetriaMetricasDTO(
+                anillo.capacidad(),
+                anillo.tamano(),
+                aceptados.sum(),
+                persistidos.sum(),
+                descartadosPorSaturacion.sum(),
+                descartadosPorError.sum(),
+                deduplicacionTelemetriaService.getDuplicadosDescartados(),
+                latenciaFlush.conteo(),
+                latenciaFlush.promedioMs(),
+                latenciaFlush.percentilMs(50),
+                latenciaFlush.percentilMs(99),
+                latenciaFlush.maxMs()
+        );
+    }
+
+    /**
+     * Bucle del hilo drenador.
+     */
+    private void drenar() {
+        List<PuntoTelemetria> lote = new ArrayList<>(tamanoLote);
+        long intervaloNanos = TimeUnit.MILLISECONDS.toNanos(intervaloFlushMs);
+        long primerPendiente = 0;
+
+        while (activo || anillo.tamano() > 0 || !lote.isEmpty()) {
+            boolean estabaVacio = lote.isEmpty();
+            int movidos = anillo.drenar(lote, tamanoLote - lote.size());
+            if (estabaVacio && movidos > 0) {
+                primerPendiente = System.nanoTime();
+            }
+
+            boolean loteCompleto = lote.size() >= tamanoLote;
+            boolean vencido = !lote.isEmpty() && System.nanoTime() - primerPendiente >= intervaloNanos;
+            if (loteCompleto || vencido || (!activo && !lote.isEmpty())) {
+                escribir(lote);
+                lote.clear();
+            } else if (movidos == 0) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+            }
+        }
+    }
+
+    private void escribir(List<PuntoTelemetria> lote) {
+        long inicio = System.nanoTime();
+        try {
+            List<PuntoTelemetria> validos = descartarMisionesInexistentes(lote);
+            List<PuntoTelemetria> insertados = deduplicacionTelemetriaService.guardarSinDuplicados(validos);
+            persistidos.add(insertados.size());
+            estadoFlotaService.actualizar(insertados);
+        } catch (Exception e) {
+            // guardarSinDuplicados es atómico: si falla no quedó ningún punto del lote guardado
+            descartadosPorError.add(lote.size());
+            log.error("No se pudo escribir un lote de {} puntos de telemetría", lote.size(), e);
+        } finally {
+            latenciaFlush.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    /**
+     * Quita del lote los puntos de misiones inexistentes antes de insertar, con una sola consulta.
+     * Así un punto con una misión inválida (FK) no hace fallar al resto del lote.
+     */
+    private List<PuntoTelemetria> descartarMisionesInexistentes(List<PuntoTelemetria> lote) {
+        Set<Long> ids = new HashSet<>();
+        lote.forEach(punto -> ids.add(punto.idMision()));
+        Set<Long> existentes = misionRepository.findIdsExistentes(ids);
+        if (existentes.size() == ids.size()) {
+            return lote;
+        }
+
+        List<PuntoTelemetria> validos = lote.stream().filter(punto -> existentes.contains(punto.idMision())).toList();
+        descartadosPorError.add(lote.size() - validos.size());
+        log.warn("Se descartaron {} puntos de telemetría de misiones inexistentes", lote.size() - validos.size());
+        return validos;
+    }
+}
@@ -0,0 +1,106 @@
+package com.Lab1BDA.Backend.util;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Buffer circular acotado y sin locks para varios productores y un único consumidor
+ * (algoritmo de D. Vyukov). Cada celda tiene un número de secuencia que indica si está
+ * libre para el productor de la vuelta actual o lista para el consumidor.
+ * offer() nunca bloquea: si el anillo está lleno devuelve false.
+ *
+ * @param <E> Tipo de los elementos
+ */
+public final class AnilloMpsc<E> {
+
+    private final AtomicReferenceArray<E> elementos;
+    private final AtomicLongArray secuencias;
+    private final int mascara;
+
+    // Próxima posición a escribir (compartida por los productores)
+    private final AtomicLong cola = new AtomicLong();
+    // Próxima posición a leer (solo la modifica el consumidor)
+    private volatile long cabeza;
+
+    /**
+     * @param capacidadMinima Se redondea a la siguiente potencia de 2.
+     */
+    public AnilloMpsc(int capacidadMinima) {
+        int capacidad = Integer.highestOneBit(Math.max(2, capacidadMinima - 1)) << 1;
+        this.elementos = new AtomicReferenceArray<>(capacidad);
+        this.secuencias = new AtomicLongArray(capacidad);
+        this.mascara = capacidad - 1;
+        for (int i = 0; i < capacidad; i++) {
+            secuencias.set(i, i);
+        }
+    }
+
+    /**
+     * Intenta encolar un elemento. Puede llamarse desde cualquier hilo.
+     * @return false si el anillo está lleno.
+     */
+    public boolean offer(E elemento) {
+        long pos = cola.get();
+        while (true) {
+            int indice = (int) (pos & mascara);
+            long diferencia = secuencias.get(indice) - pos;
+            if (diferencia == 0) {
+                if (cola.compareAndSet(pos, pos + 1)) {
+                    elementos.set(indice, elemento);
+                    secuencias.set(indice, pos + 1); // Publica el elemento al consumidor
+                    return true;
+                }
+                pos = cola.get();
+            } else if (diferencia < 0) {
+                return false; // La celda aún no fue consumida: anillo lleno
+            } else {
+                pos = cola.get(); // Otro productor tomó esta posición
+            }
+        }
+    }
+
+    /**
+     * Saca el siguiente elemento. Solo debe llamarlo el hilo consumidor.
+     * @return El elemento, o null si el anillo está vacío.
+     */
+    public E poll() {
+        long pos = cabeza;
+        int indice = (int) (pos & mascara);
+        if (secuencias.get(indice) != pos + 1) {
+            return null;
+        }
+        E elemento = elementos.get(indice);
+        elementos.set(indice, null);
+        secuencias.set(indice, pos + mascara + 1); // Libera la celda para la siguiente vuelta
+        cabeza = pos + 1;
+        return elemento;
+    }
+
+    /**
+     * Mueve hasta 'maximo' elementos al destino. Solo debe llamarlo el hilo consumidor.
+     * @return Cantidad de elementos movidos.
+     */
+    public int drenar(List<? super E> destino, int maximo) {
+        int movidos = 0;
+        E elemento;
+        while (movidos < maximo && (elemento = poll()) != null) {
+            destino.add(elemento);
+            movidos++;
+        }
+        return movidos;
+    }
+
+    /**
+     * Cantidad aproximada de elementos pendientes (exacta si no hay escrituras en curso).
+     */
+    public int tamano() {
+        long pendientes = cola.get() - cabeza;
+        return (int) Math.max(0, Math.min(pendientes, capacidad()));
+    }
+
+    public int capacidad() {
+        return mascara + 1;
+    }
+}
@@ -0,0 +1,166 @@
+package com.Lab1BDA.Backend.util;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.CoordinateSequence;
+import org.locationtech.jts.geom.LineString;
+
+import java.util.Arrays;
+
+/**
+ * Tablas precalculadas de una ruta para recorrerla a lo largo de todos sus vértices:
+ * distancia acumulada (en metros) hasta cada vértice y, por tramo, el avance en grados por
+ * metro recorrido (su rumbo). Ubicar un punto a cierta distancia del inicio es una búsqueda
+ * binaria sobre las distancias acumuladas y una interpolación: O(log n), sin recorrer la ruta.
+ *
+ * Las distancias usan la misma aproximación plana que la simulación (111.320 m por grado,
+ * corrigiendo la longitud por el coseno de la latitud del tramo). Es inmutable.
+ */
+public final class CinematicaRuta {
+
+    private static final double METROS_POR_GRADO = 111_320.0;
+    // Metros que el dron sube sobre la ruta en la mitad del vuelo, y altitud máxima permitida
+    private static final double ALTITUD_MAX_ADICIONAL = 100.0;
+    private static final double ALTITUD_MAXIMA = 800.0;
+
+    private final double[] longitud;
+    private final double[] latitud;
+    private final double[] altitud;
+    // acumulada[i]: metros desde el inicio hasta el vértice i
+    private final double[] acumulada;
+    // Grados de longitud / latitud por metro recorrido en el tramo i (vértice i -> i+1)
+    private final double[] pasoLongitud;
+    private final double[] pasoLatitud;
+
+    public CinematicaRuta(LineString ruta) {
+        CoordinateSequence secuencia = ruta.getCoordinateSequence();
+        int n = secuencia.size();
+        if (n == 0) {
+            throw new IllegalArgumentException("La ruta no tiene puntos");
+        }
+        longitud = new double[n];
+        latitud = new double[n];
+        altitud = new double[n];
+        acumulada = new double[n];
+        pasoLongitud = new double[Math.max(0, n - 1)];
+        pasoLatitud = new double[Math.max(0, n - 1)];
+        for (int i = 0; i < n; i++) {
+            longitud[i] = secuencia.getX(i);
+            latitud[i] = secuencia.getY(i);
+            double z = secuencia.getZ(i);
+            altitud[i] = Double.isNaN(z) ? 0.0 : z;
+        }
+        for (int i = 0; i + 1 < n; i++) {
+            double dx = (longitud[i + 1] - longitud[i]) * metrosPorGradoLongitud((latitud[i] + latitud[i + 1]) / 2);
+            double dy = (latitud[i + 1] - latitud[i]) * METROS_POR_GRADO;
+            double largo = Math.sqrt(dx * dx + dy * dy);
+            acumulada[i + 1] = acumulada[i] + largo;
+            if (largo > 0) {
+                pasoLongitud[i] = (longitud[i + 1] - longitud[i]) / largo;
+                pasoLatitud[i] = (latitud[i + 1] - latitud[i]) / largo;
+            }
+        }
+    }
+
+    /**
+     * Largo total de la ruta, en metros.
+     */
+    public double longitudTotal() {
+        return acumulada[acumulada.length - 1];
+    }
+
+    /**
+     * Punto de la ruta a cierta distancia del inicio (acotada a [0, longitudTotal]),
+     * con la altitud interpolada entre los vértices del tramo.
+     */
+    public Coordinate posicion(double recorrido) {
+        int ultimo = acumulada.length - 1;
+        if (recorrido >= acumulada[ultimo]) {
+            return new Coordinate(longitud[ultimo], latitud[ultimo], altitud[ultimo]);
+        }
+        if (recorrido <= 0) {
+            return new Coordinate(longitud[0], latitud[0], altitud[0]);
+        }
+        int tramo = tramo(recorrido);
+        double avance = recorrido - acumulada[tramo];
+        double largo = acumulada[tramo + 1] - acumulada[tramo];
+        double fraccion = largo > 0 ? avance / largo : 0;
+        return new Coordinate(
+                longitud[tramo] + pasoLongitud[tramo] * avance,
+                latitud[tramo] + pasoLatitud[tramo] * avance,
+                altitud[tramo] + (altitud[tramo + 1] - altitud[tramo]) * fraccion);
+    }
+
+    /**
+     * Posición del dron tras recorrer cierta distancia: el punto de la ruta con una curva
+     * parabólica sobre su altitud para simular el ascenso y el descenso,
+     * f(x) = altRuta(x) + 4 * altMax * x * (1 - x), con x el progreso del vuelo (0 a 1),
+     * acotada a [0, 800] metros. La usan la simulación y el generador de datos sintéticos.
+     */
+    public Coordinate posicionVuelo(double recorrido) {
+        Coordinate coordenada = posicion(recorrido);
+        double total = longitudTotal();
+        double fraccion = total > 0 ? Math.max(0, Math.min(1, recorrido / total)) : 1.0;
+        double altitud = coordenada.getZ() + 4 * ALTITUD_MAX_ADICIONAL * fraccion * (1 - fraccion);
+        coordenada.setZ(Math.max(0, Math.min(ALTITUD_MAXIMA, altitud)));
+        return coordenada;
+    }
+
+    /**
+     * Distancia desde el inicio del punto de la ruta más cercano a una posición. Recorre todos
+     * los tramos (O(n)): se usa sólo para ubicar un dron cuya posición no se conoce sobre la ruta.
+     */
+    public double proyectar(double lon, double lat) {
+        double mejorDistancia = Double.MAX_VALUE;
+        double mejorRecorrido = 0;
+        for (int i = 0; i + 1 < longitud.length; i++) {
+            double metrosLon = metrosPorGradoLongitud((latitud[i] + latitud[i + 1]) / 2);
+            double ax = (longitud[i + 1] - longitud[i]) * metrosLon;
+            double ay = (latitud[i + 1] - latitud[i]) * METROS_POR_GRADO;
+            double px = (lon - longitud[i]) * metrosLon;
+            double py = (lat - latitud[i]) * METROS_POR_GRADO;
+            double largo2 = ax * ax + ay * ay;
+            double t = largo2 > 0 ? Math.max(0, Math.min(1, (px * ax + py * ay) / largo2)) : 0;
+            double ex = px - t * ax;
+            double ey = py - t * ay;
+            double distancia = ex * ex + ey * ey;
+            if (distancia < mejorDistancia) {
+                mejorDistancia = distancia;
+                mejorRecorrido = acumulada[i] + t * (acumulada[i + 1] - acumulada[i]);
+            }
+        }
+        return mejorRecorrido;
+    }
+
+    /**
+     * Comprobación barata de que las tablas siguen correspondiendo a la ruta (Ej: si se editó):
+     * misma cantidad de puntos y mismos extremos y vértice central.
+     */
+    public boolean corresponde(LineString ruta) {
+        CoordinateSequence secuencia = ruta.getCoordinateSequence();
+        int n = secuencia.size();
+        if (n != longitud.length) {
+            return false;
+        }
+        return mismoVertice(secuencia, 0) && mismoVertice(secuencia, n / 2) && mismoVertice(secuencia, n - 1);
+    }
+
+    private boolean mismoVertice(CoordinateSequence secuencia, int i) {
+        return secuencia.getX(i) == longitud[i] && secuencia.getY(i) == latitud[i];
+    }
+
+    /**
+     * Tramo que contiene la distancia (0 < recorrido < longitudTotal).
+     */
+    private int tramo(double recorrido) {
+        int indice = Arrays.binarySearch(acumulada, recorrido);
+        if (indice < 0) {
+            // Punto de inserción - 1: el último vértice antes de la distancia
+            indice = -indice - 2;
+        }
+        return Math.min(indice, acumulada.length - 2);
+    }
+
+    private static double metrosPorGradoLongitud(double latitud) {
+        return METROS_POR_GRADO * Math.cos(Math.toRadians(latitud));
+    }
+}
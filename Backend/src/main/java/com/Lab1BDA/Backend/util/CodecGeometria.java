@@ -0,0 +1,99 @@
+package com.Lab1BDA.Backend.util;
+
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.PrecisionModel;
+import org.locationtech.jts.io.ParseException;
+import org.locationtech.jts.io.WKBReader;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Lectura de geometrías en formato binario (WKB) para los RowMappers.
+ *
+ * Las consultas piden la geometría con ST_AsBinary(columna) en vez de ST_AsText: la base no
+ * formatea cada coordenada como texto y Java no la vuelve a parsear. Los puntos, que son la
+ * mayoría de las filas (registro_vuelo), se decodifican directamente (21 o 29 bytes); el
+ * resto de las geometrías pasa por el WKBReader de JTS.
+ *
+ * No es seguro para varios hilos (WKBReader no lo es): cada RowMapper crea el suyo.
+ */
+public final class CodecGeometria {
+
+    public static final int SRID_WGS84 = 4326;
+
+    // Tipos WKB; ISO suma 1000 por Z y EWKB (PostGIS) usa banderas en los bits altos
+    private static final int TIPO_PUNTO = 1;
+    private static final int BANDERA_EWKB_Z = 0x80000000;
+    private static final int BANDERA_EWKB_M = 0x40000000;
+    private static final int BANDERA_EWKB_SRID = 0x20000000;
+
+    private static final GeometryFactory FABRICA = new GeometryFactory(new PrecisionModel(), SRID_WGS84);
+
+    private final WKBReader wkbReader = new WKBReader(FABRICA);
+
+    /**
+     * Lee la columna binaria indicada y la convierte al tipo esperado.
+     * @return La geometría, o null si la columna es NULL o no es del tipo esperado.
+     */
+    public <T extends Geometry> T leer(ResultSet rs, String columna, Class<T> tipo) throws SQLException {
+        byte[] wkb = rs.getBytes(columna);
+        if (wkb == null || wkb.length == 0) {
+            return null;
+        }
+        try {
+            Geometry geometria = tipo == Point.class ? leerPunto(wkb) : null;
+            if (geometria == null) {
+                geometria = wkbReader.read(wkb);
+                geometria.setSRID(SRID_WGS84);
+            }
+            return tipo.isInstance(geometria) ? tipo.cast(geometria) : null;
+        } catch (ParseException | RuntimeException e) {
+            throw new SQLException("Error al parsear geometría WKB de la columna " + columna, e);
+        }
+    }
+
+    /**
+     * Decodifica un punto WKB / EWKB (2D, Z, M o ZM) sin pasar por WKBReader.
+     * @return El punto, o null si el WKB no es un punto.
+     */
+    private static Point leerPunto(byte[] wkb) {
+        ByteBuffer buffer = ByteBuffer.wrap(wkb)
+                .order(wkb[0] == 0 ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+        buffer.position(1);
+        int tipo = buffer.getInt();
+
+        boolean tieneZ = (tipo & BANDERA_EWKB_Z) != 0;
+        boolean tieneM = (tipo & BANDERA_EWKB_M) != 0;
+        if ((tipo & BANDERA_EWKB_SRID) != 0) {
+            buffer.getInt();
+        }
+        int tipoBase = tipo & 0x0FFFFFFF;
+        switch (tipoBase / 1000) {
+            case 1 -> tieneZ = true;
+            case 2 -> tieneM = true;
+            case 3 -> { tieneZ = true; tieneM = true; }
+            default -> { }
+        }
+        if (tipoBase % 1000 != TIPO_PUNTO) {
+            return null;
+        }
+
+        double x = buffer.getDouble();
+        double y = buffer.getDouble();
+        double z = tieneZ ? buffer.getDouble() : Double.NaN;
+        if (tieneM) {
+            buffer.getDouble();
+        }
+        // POINT EMPTY se codifica con coordenadas NaN
+        if (Double.isNaN(x) && Double.isNaN(y)) {
+            return FABRICA.createPoint();
+        }
+        return FABRICA.createPoint(new Coordinate(x, y, z));
+    }
+}
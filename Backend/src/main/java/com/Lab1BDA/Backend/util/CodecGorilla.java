@@ -0,0 +1,223 @@
+package com.Lab1BDA.Backend.util;
+
+import java.util.Arrays;
+
+/**
+ * Primitivas de compresión de series temporales al estilo Gorilla (Facebook, VLDB 2015):
+ * - {@link DeltaDelta}: enteros que avanzan a paso casi constante (timestamps, IDs, valores escalados).
+ * - {@link Xor}: doubles que cambian poco entre muestras (coordenadas).
+ * Cada codificador guarda el estado de la serie, por lo que se usa uno por columna,
+ * tanto al escribir como al leer.
+ */
+public final class CodecGorilla {
+
+    private CodecGorilla() {
+    }
+
+    /**
+     * Escribe bits (MSB primero) en un arreglo de bytes que crece según se necesita.
+     */
+    public static final class EscritorBits {
+
+        private byte[] datos;
+        private long bits;
+
+        public EscritorBits(int capacidadInicialBytes) {
+            this.datos = new byte[Math.max(16, capacidadInicialBytes)];
+        }
+
+        /**
+         * Escribe los 'cantidad' bits menos significativos de 'valor' (1..64).
+         */
+        public void escribir(long valor, int cantidad) {
+            asegurarCapacidad(cantidad);
+            for (int i = cantidad - 1; i >= 0; i--) {
+                if (((valor >>> i) & 1L) != 0) {
+                    datos[(int) (bits >>> 3)] |= (byte) (0x80 >>> (bits & 7));
+                }
+                bits++;
+            }
+        }
+
+        public void escribirBit(boolean bit) {
+            escribir(bit ? 1 : 0, 1);
+        }
+
+        public byte[] toByteArray() {
+            return Arrays.copyOf(datos, (int) ((bits + 7) >>> 3));
+        }
+
+        private void asegurarCapacidad(int cantidad) {
+            long necesarios = (bits + cantidad + 7) >>> 3;
+            if (necesarios > datos.length) {
+                datos = Arrays.copyOf(datos, (int) Math.max(necesarios, datos.length * 2L));
+            }
+        }
+    }
+
+    /**
+     * Lee bits escritos con {@link EscritorBits}.
+     */
+    public static final class LectorBits {
+
+        private final byte[] datos;
+        private long bits;
+
+        public LectorBits(byte[] datos) {
+            this.datos = datos;
+        }
+
+        public long leer(int cantidad) {
+            if (bits + cantidad > (long) datos.length * 8) {
+                throw new IllegalArgumentException("Datos comprimidos truncados");
+            }
+            long valor = 0;
+            for (int i = 0; i < cantidad; i++) {
+                int bit = (datos[(int) (bits >>> 3)] >>> (7 - (bits & 7))) & 1;
+                valor = (valor << 1) | bit;
+                bits++;
+            }
+            return valor;
+        }
+
+        public boolean leerBit() {
+            return leer(1) != 0;
+        }
+    }
+
+    /**
+     * Codifica enteros guardando la diferencia entre deltas consecutivos.
+     * Un valor que avanza a paso constante cuesta 1 bit; variaciones pequeñas, 9 a 17 bits.
+     */
+    public static final class DeltaDelta {
+
+        // {bits del prefijo, valor del prefijo, bits del valor}
+        private static final int[][] CUBETAS = {
+                {2, 0b10, 7},
+                {3, 0b110, 9},
+                {4, 0b1110, 12},
+                {5, 0b11110, 32},
+        };
+
+        private boolean primero = true;
+        private long anterior;
+        private long deltaAnterior;
+
+        public void escribir(EscritorBits salida, long valor) {
+            if (primero) {
+                salida.escribir(valor, 64);
+                primero = false;
+                anterior = valor;
+                return;
+            }
+            long delta = valor - anterior;
+            long dod = delta - deltaAnterior;
+            anterior = valor;
+            deltaAnterior = delta;
+
+            if (dod == 0) {
+                salida.escribirBit(false);
+                return;
+            }
+            for (int[] cubeta : CUBETAS) {
+                long limite = 1L << (cubeta[2] - 1);
+                if (dod >= -limite && dod < limite) {
+                    salida.escribir(cubeta[1], cubeta[0]);
+                    salida.escribir(dod, cubeta[2]);
+                    return;
+                }
+            }
+            salida.escribir(0b11111, 5);
+            salida.escribir(dod, 64);
+        }
+
+        public long leer(LectorBits entrada) {
+            if (primero) {
+                primero = false;
+                anterior = entrada.leer(64);
+                return anterior;
+            }
+            long dod;
+            int unos = 0;
+            while (unos < 5 && entrada.leerBit()) {
+                unos++;
+            }
+            if (unos == 0) {
+                dod = 0;
+            } else if (unos == 5) {
+                dod = entrada.leer(64);
+            } else {
+                int ancho = CUBETAS[unos - 1][2];
+                // Extensión de signo del valor de 'ancho' bits
+                dod = (entrada.leer(ancho) << (64 - ancho)) >> (64 - ancho);
+            }
+            deltaAnterior += dod;
+            anterior += deltaAnterior;
+            return anterior;
+        }
+    }
+
+    /**
+     * Codifica doubles guardando el XOR con el valor anterior y sólo sus bits significativos.
+     * Un valor repetido cuesta 1 bit.
+     */
+    public static final class Xor {
+
+        private boolean primero = true;
+        private long anterior;
+        private int cerosIzquierda = -1;
+        private int cerosDerecha;
+
+        public void escribir(EscritorBits salida, double valor) {
+            long bits = Double.doubleToRawLongBits(valor);
+            if (primero) {
+                salida.escribir(bits, 64);
+                primero = false;
+                anterior = bits;
+                return;
+            }
+            long xor = bits ^ anterior;
+            anterior = bits;
+
+            if (xor == 0) {
+                salida.escribirBit(false);
+                return;
+            }
+            salida.escribirBit(true);
+
+            int izquierda = Math.min(31, Long.numberOfLeadingZeros(xor));
+            int derecha = Long.numberOfTrailingZeros(xor);
+            if (cerosIzquierda >= 0 && izquierda >= cerosIzquierda && derecha >= cerosDerecha) {
+                // Cabe en la ventana de bits significativos del valor anterior
+                salida.escribirBit(false);
+                salida.escribir(xor >>> cerosDerecha, 64 - cerosIzquierda - cerosDerecha);
+            } else {
+                int significativos = 64 - izquierda - derecha;
+                salida.escribirBit(true);
+                salida.escribir(izquierda, 5);
+                salida.escribir(significativos - 1, 6);
+                salida.escribir(xor >>> derecha, significativos);
+                cerosIzquierda = izquierda;
+                cerosDerecha = derecha;
+            }
+        }
+
+        public double leer(LectorBits entrada) {
+            if (primero) {
+                primero = false;
+                anterior = entrada.leer(64);
+                return Double.longBitsToDouble(anterior);
+            }
+            if (entrada.leerBit()) {
+                if (entrada.leerBit()) {
+                    cerosIzquierda = (int) entrada.leer(5);
+                    int significativos = (int) entrada.leer(6) + 1;
+                    cerosDerecha = 64 - cerosIzquierda - significativos;
+                }
+                long xor = entrada.leer(64 - cerosIzquierda - cerosDerecha) << cerosDerecha;
+                anterior ^= xor;
+            }
+            return Double.longBitsToDouble(anterior);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.Lab1BDA.Backend.util;
+
+import com.Lab1BDA.Backend.model.RegistroVuelo;
+import com.Lab1BDA.Backend.util.CodecGorilla.DeltaDelta;
+import com.Lab1BDA.Backend.util.CodecGorilla.EscritorBits;
+import com.Lab1BDA.Backend.util.CodecGorilla.LectorBits;
+import com.Lab1BDA.Backend.util.CodecGorilla.Xor;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Empaqueta la telemetría de una misión en un bloque comprimido y lo vuelve a expandir sin pérdida.
+ *
+ * Formato (v1): versión (8 bits), cantidad de puntos (32 bits) y luego, punto a punto:
+ * - id_registro_vuelo y "timestamp" (microsegundos): delta de deltas.
+ * - longitud, latitud, Z de coordenadas: XOR de doubles.
+ * - altitud_msnm, velocidad_kmh (nulables: 1 bit de presencia) y nivel_bateria_porcentaje:
+ *   son NUMERIC con 2 decimales, así que se guardan escalados x100 como enteros con delta de deltas.
+ * Los puntos deben venir ordenados por timestamp.
+ */
+public final class CodecTrayectoria {
+
+    private static final int VERSION = 1;
+    private static final double ESCALA = 100.0;
+    private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+
+    private CodecTrayectoria() {
+    }
+
+    public static byte[] codificar(List<RegistroVuelo> registros) {
+        EscritorBits salida = new EscritorBits(registros.size() * 16);
+        salida.escribir(VERSION, 8);
+        salida.escribir(registros.size(), 32);
+
+        Columnas columnas = new Columnas();
+        for (RegistroVuelo registro : registros) {
+            Coordinate c = registro.getCoordenadas().getCoordinate();
+            columnas.id.escribir(salida, registro.getIdRegistroVuelo());
+            columnas.timestamp.escribir(salida, aMicros(registro.getTimestamp()));
+            columnas.longitud.escribir(salida, c.getX());
+            columnas.latitud.escribir(salida, c.getY());
+            columnas.z.escribir(salida, c.getZ());
+            escribirNulable(salida, columnas.altitud, registro.getAltitudMsnm());
+            escribirNulable(salida, columnas.velocidad, registro.getVelocidadKmh());
+            columnas.bateria.escribir(salida, Math.round(registro.getNivelBateriaPorcentaje() * ESCALA));
+        }
+        return salida.toByteArray();
+    }
+
+    public static List<RegistroVuelo> decodificar(Long idMision, byte[] datos) {
+        Lector lector = new Lector(idMision, datos);
+        List<RegistroVuelo> registros = new ArrayList<>(lector.cantidad);
+        lector.forEachRemaining(registros::add);
+        return registros;
+    }
+
+    /**
+     * Recorre el bloque expandiendo un punto por vez, sin armar la lista completa: en memoria
+     * sólo quedan los bytes comprimidos y el estado de las columnas.
+     */
+    public static Iterator<RegistroVuelo> recorrer(Long idMision, byte[] datos) {
+        return new Lector(idMision, datos);
+    }
+
+    private static void escribirNulable(EscritorBits salida, DeltaDelta columna, Double valor) {
+        salida.escribirBit(valor != null);
+        if (valor != null) {
+            columna.escribir(salida, Math.round(valor * ESCALA));
+        }
+    }
+
+    private static Double leerNulable(LectorBits entrada, DeltaDelta columna) {
+        return entrada.leerBit() ? columna.leer(entrada) / ESCALA : null;
+    }
+
+    // TIMESTAMP sin zona horaria: se usa UTC sólo como referencia para obtener un número
+    private static long aMicros(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + timestamp.getNano() / 1_000;
+    }
+
+    private static LocalDateTime deMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    private static final class Lector implements Iterator<RegistroVuelo> {
+        private final Long idMision;
+        private final LectorBits entrada;
+        private final Columnas columnas = new Columnas();
+        private final int cantidad;
+        private int leidos;
+
+        Lector(Long idMision, byte[] datos) {
+            this.idMision = idMision;
+            this.entrada = new LectorBits(datos);
+            int version = (int) entrada.leer(8);
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Versión de trayectoria comprimida no soportada: " + version);
+            }
+            this.cantidad = (int) entrada.leer(32);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return leidos < cantidad;
+        }
+
+        @Override
+        public RegistroVuelo next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            leidos++;
+            RegistroVuelo registro = new RegistroVuelo();
+            registro.setIdMision(idMision);
+            registro.setIdRegistroVuelo(columnas.id.leer(entrada));
+            registro.setTimestamp(deMicros(columnas.timestamp.leer(entrada)));
+            double x = columnas.longitud.leer(entrada);
+            double y = columnas.latitud.leer(entrada);
+            double z = columnas.z.leer(entrada);
+            registro.setCoordenadas(GEOMETRY_FACTORY.createPoint(new Coordinate(x, y, z)));
+            registro.setAltitudMsnm(leerNulable(entrada, columnas.altitud));
+            registro.setVelocidadKmh(leerNulable(entrada, columnas.velocidad));
+            registro.setNivelBateriaPorcentaje(columnas.bateria.leer(entrada) / ESCALA);
+            return registro;
+        }
+    }
+
+    private static final class Columnas {
+        final DeltaDelta id = new DeltaDelta();
+        final DeltaDelta timestamp = new DeltaDelta();
+        final Xor longitud = new Xor();
+        final Xor latitud = new Xor();
+        final Xor z = new Xor();
+        final DeltaDelta altitud = new DeltaDelta();
+        final DeltaDelta velocidad = new DeltaDelta();
+        final DeltaDelta bateria = new DeltaDelta();
+    }
+}
@@ -0,0 +1,295 @@
+package com.Lab1BDA.Backend.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongConsumer;
+
+/**
+ * Último estado conocido de cada misión activa, en arreglos primitivos paralelos
+ * (una "columna" por campo) en vez de un objeto por misión: recorrer la flota completa
+ * es leer unos pocos arreglos contiguos, sin punteros ni objetos que recolectar.
+ *
+ * Las filas ocupadas están siempre al inicio (0..cantidad-1): al eliminar una misión su
+ * fila se rellena con la última. Es seguro para varios hilos (lock de lectura/escritura).
+ *
+ * Cada cambio incrementa una versión global y la guarda en la fila; las eliminaciones se
+ * recuerdan (las últimas N) con su versión. Así se pueden pedir sólo los cambios desde una
+ * versión conocida.
+ *
+ * Las posiciones se indexan además en una grilla ({@link GrillaEspacial}) para consultar
+ * sólo las misiones dentro de un rectángulo (lo visible en un mapa).
+ */
+public final class EstadoFlota {
+
+    /**
+     * Recibe cada fila del estado. Los campos opcionales vienen como NaN si no se conocen.
+     */
+    @FunctionalInterface
+    public interface Visitante {
+        void visitar(long idMision, long timestampMicros, double longitud, double latitud,
+                     double altitud, double velocidad, double bateria);
+    }
+
+    /**
+     * Resultado de {@link #cambiosDesde}.
+     * @param version Versión actual (la que debe usar el cliente en la próxima consulta).
+     * @param completo true si se recorrió la flota completa porque la versión pedida es
+     *                 demasiado antigua (el cliente debe reemplazar todo lo que tiene).
+     */
+    public record Cambios(long version, boolean completo) {
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> filaPorMision = new HashMap<>();
+    private final GrillaEspacial grilla;
+
+    private long[] idMision;
+    private long[] timestampMicros;
+    private double[] longitud;
+    private double[] latitud;
+    private double[] altitud;
+    private double[] velocidad;
+    private double[] bateria;
+    private long[] versionFila;
+    private int cantidad;
+    private long version;
+
+    // Últimas eliminaciones (anillo): misión y versión en que se quitó
+    private final long[] eliminadaMision;
+    private final long[] eliminadaVersion;
+    private int inicioEliminadas;
+    private int cantidadEliminadas;
+    // Versión de la eliminación más reciente que se olvidó: pedir cambios desde antes exige la flota completa
+    private long versionOlvidada;
+
+    /**
+     * @param eliminacionesRecordadas Cuántas eliminaciones se recuerdan para los cambios desde una versión.
+     * @param tamanoCeldaGrados Lado de las celdas del índice espacial, en grados.
+     */
+    public EstadoFlota(int capacidadInicial, int eliminacionesRecordadas, double tamanoCeldaGrados) {
+        grilla = new GrillaEspacial(tamanoCeldaGrados);
+        eliminadaMision = new long[Math.max(1, eliminacionesRecordadas)];
+        eliminadaVersion = new long[eliminadaMision.length];
+        int capacidad = Math.max(16, capacidadInicial);
+        idMision = new long[capacidad];
+        timestampMicros = new long[capacidad];
+        longitud = new double[capacidad];
+        latitud = new double[capacidad];
+        altitud = new double[capacidad];
+        velocidad = new double[capacidad];
+        bateria = new double[capacidad];
+        versionFila = new long[capacidad];
+        // Las versiones parten del instante de creación: un cursor de antes de un reinicio
+        // queda por debajo y recibe la flota completa en vez de cambios que no corresponden
+        version = System.currentTimeMillis() * 1_000L;
+        versionOlvidada = version;
+    }
+
+    /**
+     * Registra una posición de una misión si es más reciente que la conocida.
+     * @param crear Si la misión no está en la flota: true la agrega, false ignora el punto.
+     * @return true si el estado cambió.
+     */
+    public boolean actualizar(long mision, long tsMicros, double lon, double lat, double alt,
+                              double vel, double bat, boolean crear) {
+        lock.writeLock().lock();
+        try {
+            Integer fila = filaPorMision.get(mision);
+            if (fila == null) {
+                if (!crear) {
+                    return false;
+                }
+                fila = agregarFila(mision);
+            } else if (tsMicros < timestampMicros[fila]) {
+                return false;
+            }
+            timestampMicros[fila] = tsMicros;
+            longitud[fila] = lon;
+            latitud[fila] = lat;
+            altitud[fila] = alt;
+            velocidad[fila] = vel;
+            bateria[fila] = bat;
+            versionFila[fila] = ++version;
+            grilla.mover(mision, lon, lat);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Quita una misión de la flota.
+     * @return true si estaba.
+     */
+    public boolean eliminar(long mision) {
+        lock.writeLock().lock();
+        try {
+            Integer fila = filaPorMision.remove(mision);
+            if (fila == null) {
+                return false;
+            }
+            grilla.quitar(mision);
+            int ultima = --cantidad;
+            if (fila != ultima) {
+                copiarFila(ultima, fila);
+                filaPorMision.put(idMision[fila], fila);
+            }
+            recordarEliminada(mision, ++version);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void recorrer(Visitante visitante) {
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < cantidad; i++) {
+                visitante.visitar(idMision[i], timestampMicros[i], longitud[i], latitud[i],
+                        altitud[i], velocidad[i], bateria[i]);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Recorre las filas que cambiaron después de una versión e informa las misiones quitadas desde entonces.
+     * Una misión quitada y vuelta a agregar sólo se informa como fila.
+     * @param desde Versión conocida por el cliente (0 para la flota completa).
+     */
+    public Cambios cambiosDesde(long desde, Visitante visitante, LongConsumer eliminada) {
+        lock.readLock().lock();
+        try {
+            boolean completo = desde < versionOlvidada || desde > version;
+            for (int i = 0; i < cantidad; i++) {
+                if (completo || versionFila[i] > desde) {
+                    visitante.visitar(idMision[i], timestampMicros[i], longitud[i], latitud[i],
+                            altitud[i], velocidad[i], bateria[i]);
+                }
+            }
+            if (!completo) {
+                for (int i = 0; i < cantidadEliminadas; i++) {
+                    int posicion = (inicioEliminadas + i) % eliminadaMision.length;
+                    if (eliminadaVersion[posicion] > desde && !filaPorMision.containsKey(eliminadaMision[posicion])) {
+                        eliminada.accept(eliminadaMision[posicion]);
+                    }
+                }
+            }
+            return new Cambios(version, completo);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Cambios dentro de un rectángulo para un cliente que ya tiene las misiones de 'visibles'
+     * (las que quedaron dentro en su consulta anterior). Visita las que entraron al área o
+     * cambiaron después de 'desde', informa las que salieron del área o de la flota, y deja
+     * en 'visibles' las que están dentro ahora. El costo depende de lo que hay en el área.
+     * @return La versión actual (el 'desde' de la próxima consulta).
+     */
+    public long cambiosEnArea(double minLongitud, double minLatitud, double maxLongitud, double maxLatitud,
+                              long desde, Set<Long> visibles, Visitante visitante, LongConsumer salida) {
+        lock.readLock().lock();
+        try {
+            Set<Long> dentro = new HashSet<>();
+            grilla.buscar(minLongitud, minLatitud, maxLongitud, maxLatitud, mision -> {
+                int i = filaPorMision.get(mision);
+                if (longitud[i] < minLongitud || longitud[i] > maxLongitud
+                        || latitud[i] < minLatitud || latitud[i] > maxLatitud) {
+                    return;
+                }
+                dentro.add(mision);
+                if (versionFila[i] > desde || !visibles.contains(mision)) {
+                    visitante.visitar(idMision[i], timestampMicros[i], longitud[i], latitud[i],
+                            altitud[i], velocidad[i], bateria[i]);
+                }
+            });
+            for (Long mision : visibles) {
+                if (!dentro.contains(mision)) {
+                    salida.accept(mision);
+                }
+            }
+            visibles.clear();
+            visibles.addAll(dentro);
+            return version;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long version() {
+        lock.readLock().lock();
+        try {
+            return version;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Set<Long> misiones() {
+        lock.readLock().lock();
+        try {
+            return new HashSet<>(filaPorMision.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int cantidad() {
+        lock.readLock().lock();
+        try {
+            return cantidad;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int agregarFila(long mision) {
+        if (cantidad == idMision.length) {
+            int capacidad = idMision.length * 2;
+            idMision = Arrays.copyOf(idMision, capacidad);
+            timestampMicros = Arrays.copyOf(timestampMicros, capacidad);
+            longitud = Arrays.copyOf(longitud, capacidad);
+            latitud = Arrays.copyOf(latitud, capacidad);
+            altitud = Arrays.copyOf(altitud, capacidad);
+            velocidad = Arrays.copyOf(velocidad, capacidad);
+            bateria = Arrays.copyOf(bateria, capacidad);
+            versionFila = Arrays.copyOf(versionFila, capacidad);
+        }
+        int fila = cantidad++;
+        idMision[fila] = mision;
+        timestampMicros[fila] = Long.MIN_VALUE;
+        filaPorMision.put(mision, fila);
+        return fila;
+    }
+
+    private void copiarFila(int desde, int hacia) {
+        idMision[hacia] = idMision[desde];
+        timestampMicros[hacia] = timestampMicros[desde];
+        longitud[hacia] = longitud[desde];
+        latitud[hacia] = latitud[desde];
+        altitud[hacia] = altitud[desde];
+        velocidad[hacia] = velocidad[desde];
+        bateria[hacia] = bateria[desde];
+        versionFila[hacia] = versionFila[desde];
+    }
+
+    private void recordarEliminada(long mision, long versionEliminacion) {
+        int posicion;
+        if (cantidadEliminadas == eliminadaMision.length) {
+            posicion = inicioEliminadas;
+            versionOlvidada = eliminadaVersion[posicion];
+            inicioEliminadas = (inicioEliminadas + 1) % eliminadaMision.length;
+        } else {
+            posicion = (inicioEliminadas + cantidadEliminadas++) % eliminadaMision.length;
+        }
+        eliminadaMision[posicion] = mision;
+        eliminadaVersion[posicion] = versionEliminacion;
+    }
+}
@@ -0,0 +1,76 @@
+package com.Lab1BDA.Backend.util;
+
+/**
+ * Filtro de Bloom sobre claves long. Responde "seguro que no está" o "probablemente está"
+ * (con la tasa de falsos positivos pedida mientras no se supere la capacidad esperada).
+ * No es seguro para varios hilos: quien lo use debe sincronizar.
+ */
+public final class FiltroBloom {
+
+    private final long[] bits;
+    private final int cantidadBits;
+    private final int funciones;
+    private int elementos;
+
+    /**
+     * @param capacidadEsperada Elementos que se planea agregar.
+     * @param tasaFalsosPositivos Tasa de falsos positivos aceptable con esa cantidad (Ej: 0.01).
+     */
+    public FiltroBloom(int capacidadEsperada, double tasaFalsosPositivos) {
+        // m = -n ln(p) / ln(2)^2  y  k = (m / n) ln(2)
+        double m = -capacidadEsperada * Math.log(tasaFalsosPositivos) / (Math.log(2) * Math.log(2));
+        this.cantidadBits = (int) Math.max(64, Math.ceil(m));
+        this.funciones = (int) Math.max(1, Math.round(m / capacidadEsperada * Math.log(2)));
+        this.bits = new long[(cantidadBits + 63) >>> 6];
+    }
+
+    /**
+     * Agrega una clave.
+     * @return true si la clave probablemente ya estaba (todos sus bits ya estaban en 1).
+     */
+    public boolean agregar(long clave) {
+        long hash = mezclar(clave);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        boolean presente = true;
+        for (int i = 0; i < funciones; i++) {
+            int bit = Math.floorMod(h1 + i * h2, cantidadBits);
+            long mascara = 1L << bit;
+            if ((bits[bit >>> 6] & mascara) == 0) {
+                presente = false;
+                bits[bit >>> 6] |= mascara;
+            }
+        }
+        if (!presente) {
+            elementos++;
+        }
+        return presente;
+    }
+
+    public boolean contiene(long clave) {
+        long hash = mezclar(clave);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < funciones; i++) {
+            int bit = Math.floorMod(h1 + i * h2, cantidadBits);
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Cantidad de claves distintas agregadas (aproximada: no cuenta los falsos positivos).
+     */
+    public int elementos() {
+        return elementos;
+    }
+
+    // Finalizador de SplitMix64: reparte bien claves consecutivas como los timestamps
+    private static long mezclar(long x) {
+        x = (x ^ (x >>> 30)) * 0xbf58476d1ce4e5b9L;
+        x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+        return x ^ (x >>> 31);
+    }
+}
@@ -0,0 +1,105 @@
+package com.Lab1BDA.Backend.util;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongConsumer;
+
+/**
+ * Índice espacial de grilla uniforme (lon/lat en grados) para puntos que se mueven.
+ * Cada misión está en una sola celda; mover un punto dentro de su celda no cuesta nada
+ * y cambiarlo de celda es sacarlo de un conjunto y ponerlo en otro.
+ *
+ * Una búsqueda por rectángulo recorre sólo las celdas que lo tocan, así su costo depende
+ * de lo que hay en el área y no del tamaño de la flota. No es seguro para varios hilos:
+ * lo protege quien lo contiene.
+ */
+public final class GrillaEspacial {
+
+    private final double tamanoCelda;
+    private final Map<Long, Set<Long>> celdas = new HashMap<>();
+    private final Map<Long, Long> celdaPorMision = new HashMap<>();
+
+    /**
+     * @param tamanoCelda Lado de cada celda, en grados.
+     */
+    public GrillaEspacial(double tamanoCelda) {
+        if (!(tamanoCelda > 0)) {
+            throw new IllegalArgumentException("El tamaño de celda debe ser positivo");
+        }
+        this.tamanoCelda = tamanoCelda;
+    }
+
+    /**
+     * Ubica (o reubica) una misión en la celda de su posición.
+     */
+    public void mover(long idMision, double longitud, double latitud) {
+        long celda = clave(columna(longitud), fila(latitud));
+        Long anterior = celdaPorMision.put(idMision, celda);
+        if (anterior != null) {
+            if (anterior == celda) {
+                return;
+            }
+            quitarDeCelda(anterior, idMision);
+        }
+        celdas.computeIfAbsent(celda, c -> new HashSet<>()).add(idMision);
+    }
+
+    public void quitar(long idMision) {
+        Long celda = celdaPorMision.remove(idMision);
+        if (celda != null) {
+            quitarDeCelda(celda, idMision);
+        }
+    }
+
+    /**
+     * Entrega las misiones de las celdas que tocan el rectángulo. Son candidatas: las de los
+     * bordes pueden quedar fuera, quien llama debe comprobar la posición exacta.
+     */
+    public void buscar(double minLongitud, double minLatitud, double maxLongitud, double maxLatitud, LongConsumer candidata) {
+        int columnaMin = columna(minLongitud);
+        int columnaMax = columna(maxLongitud);
+        int filaMin = fila(minLatitud);
+        int filaMax = fila(maxLatitud);
+        long celdasArea = (long) (columnaMax - columnaMin + 1) * (filaMax - filaMin + 1);
+        if (celdasArea > celdas.size()) {
+            // Área más grande que lo ocupado (Ej: todo el mundo): se recorren las celdas ocupadas
+            celdas.forEach((celda, misiones) -> {
+                int columna = (int) (celda >> 32);
+                int fila = (int) (long) celda;
+                if (columna >= columnaMin && columna <= columnaMax && fila >= filaMin && fila <= filaMax) {
+                    misiones.forEach(candidata::accept);
+                }
+            });
+            return;
+        }
+        for (int columna = columnaMin; columna <= columnaMax; columna++) {
+            for (int fila = filaMin; fila <= filaMax; fila++) {
+                Set<Long> misiones = celdas.get(clave(columna, fila));
+                if (misiones != null) {
+                    misiones.forEach(candidata::accept);
+                }
+            }
+        }
+    }
+
+    private void quitarDeCelda(long celda, long idMision) {
+        Set<Long> misiones = celdas.get(celda);
+        if (misiones != null && misiones.remove(idMision) && misiones.isEmpty()) {
+            celdas.remove(celda);
+        }
+    }
+
+    private int columna(double longitud) {
+        return (int) Math.floor(longitud / tamanoCelda);
+    }
+
+    private int fila(double latitud) {
+        return (int) Math.floor(latitud / tamanoCelda);
+    }
+
+    private static long clave(int columna, int fila) {
+        return ((long) columna << 32) | (fila & 0xffffffffL);
+    }
+}
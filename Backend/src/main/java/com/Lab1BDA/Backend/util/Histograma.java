@@ -0,0 +1,86 @@
+package com.Lab1BDA.Backend.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de duraciones, seguro para varios hilos y sin locks.
+ * Las muestras (en microsegundos) se agrupan por potencia de 2 y cada potencia se divide
+ * en 8 sub-cubetas lineales, por lo que los percentiles son aproximados
+ * (cota superior de la cubeta, error máximo 12,5%).
+ */
+public final class Histograma {
+
+    private static final int SUB_CUBETAS = 8;
+    private static final int MAX_EXPONENTE = 39; // 2^40 us ~ 12 días
+    private static final int CUBETAS = (MAX_EXPONENTE - 2) * SUB_CUBETAS + SUB_CUBETAS;
+
+    private final AtomicLongArray cubetas = new AtomicLongArray(CUBETAS);
+    private final LongAdder conteo = new LongAdder();
+    private final LongAdder sumaMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * Registra una muestra.
+     * @param nanos Duración en nanosegundos.
+     */
+    public void registrar(long nanos) {
+        long micros = Math.max(0, nanos / 1_000);
+        cubetas.incrementAndGet(indice(Math.min(micros, (1L << (MAX_EXPONENTE + 1)) - 1)));
+        conteo.increment();
+        sumaMicros.add(micros);
+        maxMicros.accumulateAndGet(micros, Math::max);
+    }
+
+    public long conteo() {
+        return conteo.sum();
+    }
+
+    public double promedioMs() {
+        long n = conteo.sum();
+        return n == 0 ? 0.0 : sumaMicros.sum() / (n * 1_000.0);
+    }
+
+    public double maxMs() {
+        return maxMicros.get() / 1_000.0;
+    }
+
+    /**
+     * @param percentil Valor entre 0 y 100 (Ej: 99 para p99).
+     * @return Cota superior aproximada en milisegundos.
+     */
+    public double percentilMs(double percentil) {
+        long total = conteo.sum();
+        if (total == 0) return 0.0;
+
+        long objetivo = (long) Math.ceil(total * percentil / 100.0);
+        long acumulado = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            acumulado += cubetas.get(i);
+            if (acumulado >= objetivo) {
+                return Math.min(cotaSuperiorMicros(i) / 1_000.0, maxMs());
+            }
+        }
+        return maxMs();
+    }
+
+    // Valores menores que 8 us tienen su propia cubeta; desde ahí, 8 cubetas por potencia de 2
+    private static int indice(long micros) {
+        if (micros < SUB_CUBETAS) {
+            return (int) micros;
+        }
+        int exponente = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) ((micros >>> (exponente - 3)) & (SUB_CUBETAS - 1));
+        return (exponente - 2) * SUB_CUBETAS + sub;
+    }
+
+    private static long cotaSuperiorMicros(int indice) {
+        if (indice < SUB_CUBETAS) {
+            return indice + 1;
+        }
+        int exponente = indice / SUB_CUBETAS + 2;
+        int sub = indice % SUB_CUBETAS;
+        return (SUB_CUBETAS + sub + 1L) << (exponente - 3);
+    }
+}
@@ -0,0 +1,157 @@
+package com.Lab1BDA.Backend.util;
+
+import com.Lab1BDA.Backend.dto.VelocidadCalculadaDTO;
+import com.Lab1BDA.Backend.model.RegistroVuelo;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Point;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cálculos de trayectoria sobre puntos ya decodificados en memoria (Ej: los de una misión
+ * archivada), equivalentes a las consultas PostGIS que se usan sobre registro_vuelo:
+ * así una misión archivada no tiene que devolver sus puntos a la base para analizarlos.
+ *
+ * - Largo de la trayectoria: ST_Length(ST_Transform(ST_MakeLine(...), 3857)), en Web Mercator.
+ * - Distancia entre puntos: ST_Distance sobre geography, en el elipsoide WGS84 (fórmula de Vincenty).
+ * - Distancia 3D a un punto: ST_3DDistance en Web Mercator (la Z no se proyecta).
+ *
+ * Los puntos deben venir ordenados por timestamp.
+ */
+public final class MetricasTrayectoria {
+
+    // Elipsoide WGS84 (el de geography y el de EPSG:3857)
+    private static final double SEMIEJE_MAYOR = 6_378_137.0;
+    private static final double ACHATAMIENTO = 1 / 298.257223563;
+    private static final double SEMIEJE_MENOR = SEMIEJE_MAYOR * (1 - ACHATAMIENTO);
+    private static final int MAX_ITERACIONES = 200;
+
+    private MetricasTrayectoria() {
+    }
+
+    /**
+     * Largo en metros de la línea que une los puntos, medido en Web Mercator (EPSG:3857).
+     */
+    public static double longitudMercator(List<RegistroVuelo> puntos) {
+        double total = 0;
+        for (int i = 1; i < puntos.size(); i++) {
+            Coordinate a = puntos.get(i - 1).getCoordenadas().getCoordinate();
+            Coordinate b = puntos.get(i).getCoordenadas().getCoordinate();
+            total += Math.hypot(mercatorX(b.x) - mercatorX(a.x), mercatorY(b.y) - mercatorY(a.y));
+        }
+        return total;
+    }
+
+    /**
+     * Distancia, tiempo y velocidad de cada punto respecto al anterior (el primero va en null).
+     * Si dos puntos tienen el mismo timestamp la velocidad queda en null.
+     */
+    public static List<VelocidadCalculadaDTO> velocidades(List<RegistroVuelo> puntos) {
+        List<VelocidadCalculadaDTO> resultado = new ArrayList<>(puntos.size());
+        RegistroVuelo anterior = null;
+        for (RegistroVuelo punto : puntos) {
+            if (anterior == null) {
+                resultado.add(new VelocidadCalculadaDTO(punto.getTimestamp(), null, null, null));
+            } else {
+                Coordinate a = anterior.getCoordenadas().getCoordinate();
+                Coordinate b = punto.getCoordenadas().getCoordinate();
+                double metros = distanciaGeodesica(a.x, a.y, b.x, b.y);
+                double segundos = Duration.between(anterior.getTimestamp(), punto.getTimestamp()).toNanos() / 1e9;
+                resultado.add(new VelocidadCalculadaDTO(punto.getTimestamp(), metros, segundos,
+                        segundos != 0 ? metros / segundos * 3.6 : null));
+            }
+            anterior = punto;
+        }
+        return resultado;
+    }
+
+    /**
+     * Distancia 3D mínima en metros entre los puntos y una ubicación, en Web Mercator.
+     * Una Z ausente cuenta como 0.
+     * @return La distancia, o null si no hay puntos.
+     */
+    public static Double distanciaMinima3D(List<RegistroVuelo> puntos, Point ubicacion) {
+        Coordinate destino = ubicacion.getCoordinate();
+        double x = mercatorX(destino.x);
+        double y = mercatorY(destino.y);
+        double z = zOCero(destino);
+        Double minima = null;
+        for (RegistroVuelo punto : puntos) {
+            Coordinate c = punto.getCoordenadas().getCoordinate();
+            double dx = mercatorX(c.x) - x;
+            double dy = mercatorY(c.y) - y;
+            double dz = zOCero(c) - z;
+            double distancia = Math.sqrt(dx * dx + dy * dy + dz * dz);
+            if (minima == null || distancia < minima) {
+                minima = distancia;
+            }
+        }
+        return minima;
+    }
+
+    /**
+     * Distancia en metros entre dos posiciones (grados) sobre el elipsoide WGS84, con la
+     * fórmula inversa de Vincenty. Para puntos casi antípodas, donde no converge, se usa
+     * la distancia sobre la esfera de radio medio.
+     */
+    public static double distanciaGeodesica(double longitud1, double latitud1, double longitud2, double latitud2) {
+        double l = Math.toRadians(longitud2 - longitud1);
+        double u1 = Math.atan((1 - ACHATAMIENTO) * Math.tan(Math.toRadians(latitud1)));
+        double u2 = Math.atan((1 - ACHATAMIENTO) * Math.tan(Math.toRadians(latitud2)));
+        double sinU1 = Math.sin(u1), cosU1 = Math.cos(u1);
+        double sinU2 = Math.sin(u2), cosU2 = Math.cos(u2);
+
+        double lambda = l;
+        for (int i = 0; i < MAX_ITERACIONES; i++) {
+            double sinLambda = Math.sin(lambda), cosLambda = Math.cos(lambda);
+            double sinSigma = Math.sqrt(Math.pow(cosU2 * sinLambda, 2)
+                    + Math.pow(cosU1 * sinU2 - sinU1 * cosU2 * cosLambda, 2));
+            if (sinSigma == 0) {
+                return 0.0; // Mismo punto
+            }
+            double cosSigma = sinU1 * sinU2 + cosU1 * cosU2 * cosLambda;
+            double sigma = Math.atan2(sinSigma, cosSigma);
+            double sinAlfa = cosU1 * cosU2 * sinLambda / sinSigma;
+            double cos2Alfa = 1 - sinAlfa * sinAlfa;
+            // En el ecuador cos2Alfa es 0
+            double cos2SigmaM = cos2Alfa != 0 ? cosSigma - 2 * sinU1 * sinU2 / cos2Alfa : 0;
+            double c = ACHATAMIENTO / 16 * cos2Alfa * (4 + ACHATAMIENTO * (4 - 3 * cos2Alfa));
+            double lambdaAnterior = lambda;
+            lambda = l + (1 - c) * ACHATAMIENTO * sinAlfa
+                    * (sigma + c * sinSigma * (cos2SigmaM + c * cosSigma * (-1 + 2 * cos2SigmaM * cos2SigmaM)));
+            if (Math.abs(lambda - lambdaAnterior) < 1e-12) {
+                double u2Cuadrado = cos2Alfa * (SEMIEJE_MAYOR * SEMIEJE_MAYOR - SEMIEJE_MENOR * SEMIEJE_MENOR)
+                        / (SEMIEJE_MENOR * SEMIEJE_MENOR);
+                double a = 1 + u2Cuadrado / 16384 * (4096 + u2Cuadrado * (-768 + u2Cuadrado * (320 - 175 * u2Cuadrado)));
+                double b = u2Cuadrado / 1024 * (256 + u2Cuadrado * (-128 + u2Cuadrado * (74 - 47 * u2Cuadrado)));
+                double deltaSigma = b * sinSigma * (cos2SigmaM + b / 4 * (cosSigma * (-1 + 2 * cos2SigmaM * cos2SigmaM)
+                        - b / 6 * cos2SigmaM * (-3 + 4 * sinSigma * sinSigma) * (-3 + 4 * cos2SigmaM * cos2SigmaM)));
+                return SEMIEJE_MENOR * a * (sigma - deltaSigma);
+            }
+        }
+        return distanciaEsferica(longitud1, latitud1, longitud2, latitud2);
+    }
+
+    private static double distanciaEsferica(double longitud1, double latitud1, double longitud2, double latitud2) {
+        double radioMedio = (2 * SEMIEJE_MAYOR + SEMIEJE_MENOR) / 3;
+        double dLat = Math.toRadians(latitud2 - latitud1);
+        double dLon = Math.toRadians(longitud2 - longitud1);
+        double h = Math.pow(Math.sin(dLat / 2), 2)
+                + Math.cos(Math.toRadians(latitud1)) * Math.cos(Math.toRadians(latitud2)) * Math.pow(Math.sin(dLon / 2), 2);
+        return 2 * radioMedio * Math.asin(Math.min(1, Math.sqrt(h)));
+    }
+
+    private static double mercatorX(double longitud) {
+        return SEMIEJE_MAYOR * Math.toRadians(longitud);
+    }
+
+    private static double mercatorY(double latitud) {
+        return SEMIEJE_MAYOR * Math.log(Math.tan(Math.PI / 4 + Math.toRadians(latitud) / 2));
+    }
+
+    private static double zOCero(Coordinate c) {
+        return Double.isNaN(c.getZ()) ? 0.0 : c.getZ();
+    }
+}
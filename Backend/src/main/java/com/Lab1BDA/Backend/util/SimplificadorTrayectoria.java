@@ -0,0 +1,147 @@
+package com.Lab1BDA.Backend.util;
+
+import org.locationtech.jts.geom.Coordinate;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Simplificación de trayectorias con Douglas-Peucker, con la tolerancia en metros.
+ *
+ * Las coordenadas (longitud, latitud) se proyectan a metros con una equirectangular centrada
+ * en la latitud media de la trayectoria, suficiente para las distancias de una misión.
+ * Los puntos conservados son puntos originales (con su altura), no interpolados.
+ */
+public final class SimplificadorTrayectoria {
+
+    private static final double METROS_POR_GRADO = 111_320.0;
+    // Metros por pixel en el ecuador con zoom 0 (mapas web en Web Mercator, teselas de 256 px)
+    private static final double METROS_POR_PIXEL_ZOOM_0 = 156_543.03;
+
+    private SimplificadorTrayectoria() {
+    }
+
+    /**
+     * Tolerancia equivalente a un pixel del mapa con el zoom indicado.
+     */
+    public static double toleranciaParaZoom(int zoom, double latitud) {
+        return METROS_POR_PIXEL_ZOOM_0 * Math.cos(Math.toRadians(latitud)) / Math.pow(2, zoom);
+    }
+
+    /**
+     * Simplifica una trayectoria completa.
+     * @param coordenadas Puntos en orden (x = longitud, y = latitud).
+     * @param toleranciaMetros Distancia máxima entre la trayectoria original y la simplificada.
+     */
+    public static List<Coordinate> simplificar(List<Coordinate> coordenadas, double toleranciaMetros) {
+        return simplificar(coordenadas, toleranciaMetros, Integer.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Simplifica con un costo acotado, para trayectorias en curso que se simplifican en cada consulta.
+     * Si se agotan las 'maxEvaluaciones' de distancia, los tramos pendientes se conservan sin
+     * simplificar: eso sólo deja el resultado más detallado de lo pedido.
+     * Si hay más de 'maxPuntos', en cambio, antes se toma uno de cada k puntos, y los descartados
+     * no se miden: entre dos puntos tomados la trayectoria original puede alejarse del resultado
+     * más que la tolerancia (hasta lo que el dron recorra en k puntos).
+     */
+    public static List<Coordinate> simplificar(List<Coordinate> coordenadas, double toleranciaMetros,
+                                               int maxPuntos, long maxEvaluaciones) {
+        List<Coordinate> entrada = coordenadas;
+        if (coordenadas.size() > maxPuntos) {
+            int paso = (int) Math.ceil(coordenadas.size() / (double) maxPuntos);
+            entrada = new ArrayList<>(coordenadas.size() / paso + 2);
+            for (int i = 0; i < coordenadas.size(); i += paso) {
+                entrada.add(coordenadas.get(i));
+            }
+            if ((coordenadas.size() - 1) % paso != 0) {
+                entrada.add(coordenadas.get(coordenadas.size() - 1));
+            }
+        }
+        int n = entrada.size();
+        if (n <= 2) {
+            return new ArrayList<>(entrada);
+        }
+
+        double latitudMedia = 0;
+        for (Coordinate c : entrada) {
+            latitudMedia += c.y;
+        }
+        double escalaX = METROS_POR_GRADO * Math.cos(Math.toRadians(latitudMedia / n));
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = entrada.get(i).x * escalaX;
+            y[i] = entrada.get(i).y * METROS_POR_GRADO;
+        }
+
+        BitSet conservados = douglasPeucker(x, y, toleranciaMetros, maxEvaluaciones);
+        List<Coordinate> resultado = new ArrayList<>(conservados.cardinality());
+        for (int i = conservados.nextSetBit(0); i >= 0; i = conservados.nextSetBit(i + 1)) {
+            resultado.add(entrada.get(i));
+        }
+        return resultado;
+    }
+
+    /**
+     * Douglas-Peucker iterativo (con pila explícita, sin recursión: las trayectorias pueden
+     * tener decenas de miles de puntos).
+     * @return Índices de los puntos conservados.
+     */
+    private static BitSet douglasPeucker(double[] x, double[] y, double tolerancia, long maxEvaluaciones) {
+        int n = x.length;
+        BitSet conservados = new BitSet(n);
+        conservados.set(0);
+        conservados.set(n - 1);
+
+        double toleranciaCuadrada = tolerancia * tolerancia;
+        long evaluaciones = 0;
+        Deque<int[]> pendientes = new ArrayDeque<>();
+        pendientes.push(new int[]{0, n - 1});
+
+        while (!pendientes.isEmpty()) {
+            int[] tramo = pendientes.pop();
+            int inicio = tramo[0];
+            int fin = tramo[1];
+            if (fin - inicio < 2) {
+                continue;
+            }
+            if (evaluaciones > maxEvaluaciones) {
+                conservados.set(inicio, fin + 1);
+                continue;
+            }
+
+            double maxDistancia = -1;
+            int indiceMax = -1;
+            for (int i = inicio + 1; i < fin; i++) {
+                double distancia = distanciaCuadradaASegmento(x[i], y[i], x[inicio], y[inicio], x[fin], y[fin]);
+                if (distancia > maxDistancia) {
+                    maxDistancia = distancia;
+                    indiceMax = i;
+                }
+            }
+            evaluaciones += fin - inicio - 1;
+
+            if (maxDistancia > toleranciaCuadrada) {
+                conservados.set(indiceMax);
+                pendientes.push(new int[]{inicio, indiceMax});
+                pendientes.push(new int[]{indiceMax, fin});
+            }
+        }
+        return conservados;
+    }
+
+    private static double distanciaCuadradaASegmento(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double largoCuadrado = dx * dx + dy * dy;
+        double t = largoCuadrado > 0 ? ((px - ax) * dx + (py - ay) * dy) / largoCuadrado : 0;
+        t = Math.max(0, Math.min(1, t));
+        double ex = px - (ax + t * dx);
+        double ey = py - (ay + t * dy);
+        return ex * ex + ey * ey;
+    }
+}
@@ -0,0 +1,51 @@
+package com.Lab1BDA.Backend.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtTokenProviderTest {
+
+    private JwtTokenProvider tokenProvider;
+
+    @BeforeEach
+    void configurar() {
+        tokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "jwtSecret", "646173646173646173646173646173646173646173646173");
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpirationInMs", 3_600_000L);
+        ReflectionTestUtils.setField(tokenProvider, "ticketStreamInMs", 30_000L);
+        tokenProvider.init();
+    }
+
+    @Test
+    void elTicketSoloSirveParaElStream() {
+        String ticket = tokenProvider.generateTicketStream("operador@drones.cl");
+
+        assertThat(tokenProvider.validateTicketStream(ticket)).isTrue();
+        assertThat(tokenProvider.validateToken(ticket)).isFalse();
+        assertThat(tokenProvider.getEmailFromToken(ticket)).isEqualTo("operador@drones.cl");
+    }
+
+    @Test
+    void elTokenDeSesionNoSirveComoTicket() {
+        String token = tokenProvider.generateToken(new UsernamePasswordAuthenticationToken(
+                "operador@drones.cl", null, List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+
+        assertThat(tokenProvider.validateToken(token)).isTrue();
+        assertThat(tokenProvider.validateTicketStream(token)).isFalse();
+    }
+
+    @Test
+    void elTicketVencido() {
+        ReflectionTestUtils.setField(tokenProvider, "ticketStreamInMs", -1_000L);
+        String ticket = tokenProvider.generateTicketStream("operador@drones.cl");
+
+        assertThat(tokenProvider.validateTicketStream(ticket)).isFalse();
+    }
+}
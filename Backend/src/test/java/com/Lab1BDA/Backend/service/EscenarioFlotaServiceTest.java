@@ -0,0 +1,91 @@
+package com.Lab1BDA.Backend.service;
+
+import com.Lab1BDA.Backend.dto.DemandaEscenarioDTO;
+import com.Lab1BDA.Backend.dto.EscenarioSimulacionDTO;
+import com.Lab1BDA.Backend.dto.FlotaEscenarioDTO;
+import com.Lab1BDA.Backend.dto.ResultadoDemandaEscenarioDTO;
+import com.Lab1BDA.Backend.dto.ResultadoEscenarioDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class EscenarioFlotaServiceTest {
+
+    private EscenarioFlotaService escenarioFlotaService;
+
+    @BeforeEach
+    void configurar() {
+        escenarioFlotaService = new EscenarioFlotaService();
+        ReflectionTestUtils.setField(escenarioFlotaService, "maxMisiones", 2_000_000L);
+        ReflectionTestUtils.setField(escenarioFlotaService, "maxDrones", 100_000);
+    }
+
+    @Test
+    void mismaSemillaMismoResultado() {
+        EscenarioSimulacionDTO escenario = new EscenarioSimulacionDTO(7.0, 1L, null, 10.0,
+                List.of(new FlotaEscenarioDTO(null, "A", 5, 40.0, 30), new FlotaEscenarioDTO(null, "B", 2, 60.0, 60)),
+                List.of(new DemandaEscenarioDTO("Entrega", 20.0, 8.0, 5.0), new DemandaEscenarioDTO("Largas", 1.0, 30.0, 10.0)));
+
+        ResultadoEscenarioDTO primero = escenarioFlotaService.simular(escenario);
+        ResultadoEscenarioDTO segundo = escenarioFlotaService.simular(escenario);
+
+        assertThat(segundo.misionesSolicitadas()).isEqualTo(primero.misionesSolicitadas());
+        assertThat(segundo.misionesCompletadas()).isEqualTo(primero.misionesCompletadas());
+        assertThat(segundo.misionesPendientesAlFinal()).isEqualTo(primero.misionesPendientesAlFinal());
+        assertThat(segundo.esperaPromedioMin()).isEqualTo(primero.esperaPromedioMin());
+        assertThat(primero.misionesSolicitadas()).isEqualTo(primero.misionesCompletadas() + primero.misionesInviables()
+                + primero.misionesEnCursoAlFinal() + primero.misionesPendientesAlFinal());
+    }
+
+    @Test
+    void reportaCadaFlujoDeLaDemanda() {
+        EscenarioSimulacionDTO escenario = new EscenarioSimulacionDTO(7.0, 3L, null, 10.0,
+                List.of(new FlotaEscenarioDTO(null, "A", 5, 40.0, 30)),
+                List.of(new DemandaEscenarioDTO("Entrega", 10.0, 8.0, 5.0), new DemandaEscenarioDTO(null, 1.0, 30.0, 10.0)));
+
+        ResultadoEscenarioDTO resultado = escenarioFlotaService.simular(escenario);
+
+        assertThat(resultado.demanda()).extracting(ResultadoDemandaEscenarioDTO::tipo).containsExactly("Entrega", "Demanda 2");
+        // Con 30 minutos de autonomía ninguna misión de 30 km a 40 km/h es viable
+        ResultadoDemandaEscenarioDTO largas = resultado.demanda().get(1);
+        assertThat(largas.misionesSolicitadas()).isPositive().isEqualTo(largas.misionesInviables());
+        assertThat(resultado.demanda().stream().mapToLong(ResultadoDemandaEscenarioDTO::misionesSolicitadas).sum())
+                .isEqualTo(resultado.misionesSolicitadas());
+        assertThat(resultado.demanda().get(0).misionesCompletadas()).isEqualTo(resultado.misionesCompletadas());
+        assertThat(resultado.consumoBateriaMaximo()).isLessThanOrEqualTo(100.0);
+    }
+
+    @Test
+    void lasMisionesLargasEnEsperaNoBloqueanALasCortas() {
+        // Sólo el grupo "Largo" puede hacer las misiones largas, y llegan muchas más de las que vuela:
+        // se acumulan cientos de miles en espera mientras el grupo "Corto" sigue con las cortas
+        EscenarioSimulacionDTO escenario = new EscenarioSimulacionDTO(366.0, 7L, 20.0, 0.0,
+                List.of(new FlotaEscenarioDTO(null, "Corto", 20, 40.0, 30), new FlotaEscenarioDTO(null, "Largo", 1, 60.0, 120)),
+                List.of(new DemandaEscenarioDTO("Corta", 60.0, 5.0, 2.0), new DemandaEscenarioDTO("Larga", 30.0, 40.0, 5.0)));
+
+        ResultadoEscenarioDTO resultado = assertTimeoutPreemptively(Duration.ofSeconds(20),
+                () -> escenarioFlotaService.simular(escenario));
+
+        assertThat(resultado.misionesPendientesAlFinal()).isGreaterThan(200_000);
+        long cortasEsperadas = Math.round(60.0 * 24 * 366);
+        assertThat(resultado.flota().get(0).misionesCompletadas()).isBetween(cortasEsperadas * 95 / 100, cortasEsperadas * 105 / 100);
+        assertThat(resultado.esperaP50Min()).isLessThan(1.0);
+    }
+
+    @Test
+    void rechazaEscenariosSobreElMaximoDeMisiones() {
+        EscenarioSimulacionDTO escenario = new EscenarioSimulacionDTO(366.0, null, null, null,
+                List.of(new FlotaEscenarioDTO(null, "A", 5, 40.0, 30)),
+                List.of(new DemandaEscenarioDTO("Entrega", 1000.0, 8.0, 5.0)));
+
+        assertThatThrownBy(() -> escenarioFlotaService.simular(escenario))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,93 @@
+package com.Lab1BDA.Backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AnilloMpscTest {
+
+    @Test
+    void redondeaLaCapacidadAPotenciaDeDos() {
+        assertThat(new AnilloMpsc<Integer>(3).capacidad()).isEqualTo(4);
+        assertThat(new AnilloMpsc<Integer>(8).capacidad()).isEqualTo(8);
+        assertThat(new AnilloMpsc<Integer>(1000).capacidad()).isEqualTo(1024);
+    }
+
+    @Test
+    void rechazaAlEstarLlenoYRecibeTrasConsumir() {
+        AnilloMpsc<Integer> anillo = new AnilloMpsc<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(anillo.offer(i)).isTrue();
+        }
+        assertThat(anillo.offer(4)).isFalse();
+        assertThat(anillo.tamano()).isEqualTo(4);
+
+        assertThat(anillo.poll()).isEqualTo(0);
+        assertThat(anillo.offer(4)).isTrue();
+
+        List<Integer> drenados = new ArrayList<>();
+        assertThat(anillo.drenar(drenados, 10)).isEqualTo(4);
+        assertThat(drenados).containsExactly(1, 2, 3, 4);
+        assertThat(anillo.poll()).isNull();
+        assertThat(anillo.tamano()).isZero();
+    }
+
+    @Test
+    void variosProductoresNoPierdenNiDuplicanElementos() throws InterruptedException {
+        int productores = 4;
+        int porProductor = 20_000;
+        AnilloMpsc<Long> anillo = new AnilloMpsc<>(256);
+        ExecutorService hilos = Executors.newFixedThreadPool(productores);
+        CountDownLatch inicio = new CountDownLatch(1);
+        for (int p = 0; p < productores; p++) {
+            long base = (long) p * porProductor;
+            hilos.execute(() -> {
+                try {
+                    inicio.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (long i = 0; i < porProductor; i++) {
+                    while (!anillo.offer(base + i)) {
+                        Thread.yield();
+                    }
+                }
+            });
+        }
+
+        inicio.countDown();
+        boolean[] recibidos = new boolean[productores * porProductor];
+        long[] ultimoPorProductor = new long[productores];
+        Arrays.fill(ultimoPorProductor, -1);
+        int total = 0;
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (total < recibidos.length && System.nanoTime() < limite) {
+            Long valor = anillo.poll();
+            if (valor == null) {
+                Thread.yield();
+                continue;
+            }
+            // Los elementos de un mismo productor llegan en el orden en que los encoló
+            int productor = (int) (valor / porProductor);
+            if (recibidos[valor.intValue()] || valor <= ultimoPorProductor[productor]) {
+                break;
+            }
+            recibidos[valor.intValue()] = true;
+            ultimoPorProductor[productor] = valor;
+            total++;
+        }
+        hilos.shutdown();
+        assertThat(hilos.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(total).isEqualTo(recibidos.length);
+        assertThat(anillo.poll()).isNull();
+    }
+}
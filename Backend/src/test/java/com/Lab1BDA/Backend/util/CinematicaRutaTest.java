@@ -0,0 +1,102 @@
+package com.Lab1BDA.Backend.util;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class CinematicaRutaTest {
+
+    private static final GeometryFactory FABRICA = new GeometryFactory();
+    // 0,01° en el ecuador, con la aproximación plana de la simulación
+    private static final double TRAMO = 1_113.2;
+
+    // Ruta en L sobre el ecuador, con un vértice repetido (tramo de largo 0)
+    private static final LineString RUTA = FABRICA.createLineString(new Coordinate[]{
+            new Coordinate(0, 0, 100), new Coordinate(0.01, 0, 200), new Coordinate(0.01, 0, 200),
+            new Coordinate(0.01, 0.01, 300)});
+
+    @Test
+    void largoYPosicionesSobreLaRuta() {
+        CinematicaRuta cinematica = new CinematicaRuta(RUTA);
+
+        assertThat(cinematica.longitudTotal()).isCloseTo(2 * TRAMO, within(1e-6));
+
+        Coordinate mitadPrimerTramo = cinematica.posicion(TRAMO / 2);
+        assertThat(mitadPrimerTramo.x).isCloseTo(0.005, within(1e-12));
+        assertThat(mitadPrimerTramo.y).isCloseTo(0.0, within(1e-12));
+        assertThat(mitadPrimerTramo.getZ()).isCloseTo(150, within(1e-9));
+
+        Coordinate vertice = cinematica.posicion(TRAMO);
+        assertThat(vertice.x).isCloseTo(0.01, within(1e-12));
+        assertThat(vertice.y).isCloseTo(0.0, within(1e-12));
+
+        Coordinate mitadSegundoTramo = cinematica.posicion(TRAMO * 1.5);
+        assertThat(mitadSegundoTramo.x).isCloseTo(0.01, within(1e-12));
+        assertThat(mitadSegundoTramo.y).isCloseTo(0.005, within(1e-12));
+        assertThat(mitadSegundoTramo.getZ()).isCloseTo(250, within(1e-9));
+    }
+
+    @Test
+    void posicionAcotadaALosExtremos() {
+        CinematicaRuta cinematica = new CinematicaRuta(RUTA);
+
+        assertThat(cinematica.posicion(-10)).isEqualTo(new Coordinate(0, 0));
+        assertThat(cinematica.posicion(-10).getZ()).isEqualTo(100);
+        assertThat(cinematica.posicion(1e9)).isEqualTo(new Coordinate(0.01, 0.01));
+        assertThat(cinematica.posicion(1e9).getZ()).isEqualTo(300);
+    }
+
+    @Test
+    void posicionVueloSumaLaParabolaDeAltitud() {
+        CinematicaRuta cinematica = new CinematicaRuta(RUTA);
+
+        // En la mitad del vuelo se suben 100 m sobre la ruta; en los extremos, nada
+        assertThat(cinematica.posicionVuelo(TRAMO).getZ()).isCloseTo(300, within(1e-6));
+        assertThat(cinematica.posicionVuelo(0).getZ()).isCloseTo(100, within(1e-9));
+        assertThat(cinematica.posicionVuelo(2 * TRAMO).getZ()).isCloseTo(300, within(1e-6));
+
+        LineString alta = FABRICA.createLineString(new Coordinate[]{
+                new Coordinate(0, 0, 790), new Coordinate(0.01, 0, 790)});
+        assertThat(new CinematicaRuta(alta).posicionVuelo(TRAMO / 2).getZ()).isEqualTo(800);
+    }
+
+    @Test
+    void proyectarDevuelveLaDistanciaDelPuntoMasCercano() {
+        CinematicaRuta cinematica = new CinematicaRuta(RUTA);
+
+        assertThat(cinematica.proyectar(0.0105, 0.005)).isCloseTo(TRAMO * 1.5, within(1e-6));
+        assertThat(cinematica.proyectar(0.003, -0.002)).isCloseTo(TRAMO * 0.3, within(1e-6));
+        assertThat(cinematica.proyectar(-1, -1)).isZero();
+        // Volver a ubicar una posición de la ruta da su misma distancia
+        assertThat(cinematica.proyectar(0.01, 0.002)).isCloseTo(TRAMO * 1.2, within(1e-6));
+    }
+
+    @Test
+    void correspondeDetectaRutasEditadas() {
+        CinematicaRuta cinematica = new CinematicaRuta(RUTA);
+
+        assertThat(cinematica.corresponde(RUTA)).isTrue();
+        assertThat(cinematica.corresponde(FABRICA.createLineString(new Coordinate[]{
+                new Coordinate(0, 0), new Coordinate(0.01, 0.01)}))).isFalse();
+        assertThat(cinematica.corresponde(FABRICA.createLineString(new Coordinate[]{
+                new Coordinate(0, 0), new Coordinate(0.01, 0), new Coordinate(0.01, 0),
+                new Coordinate(0.02, 0.01)}))).isFalse();
+    }
+
+    @Test
+    void rutaDeLargoCeroYRutaVacia() {
+        CinematicaRuta punto = new CinematicaRuta(FABRICA.createLineString(new Coordinate[]{
+                new Coordinate(1, 2), new Coordinate(1, 2)}));
+        assertThat(punto.longitudTotal()).isZero();
+        assertThat(punto.posicion(50)).isEqualTo(new Coordinate(1, 2));
+        assertThat(punto.posicionVuelo(50).getZ()).isZero();
+
+        assertThatThrownBy(() -> new CinematicaRuta(FABRICA.createLineString()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
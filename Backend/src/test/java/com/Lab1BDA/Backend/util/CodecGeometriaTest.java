@@ -0,0 +1,103 @@
+package com.Lab1BDA.Backend.util;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.PrecisionModel;
+import org.locationtech.jts.io.ByteOrderValues;
+import org.locationtech.jts.io.WKBWriter;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CodecGeometriaTest {
+
+    private static final GeometryFactory FABRICA = new GeometryFactory(new PrecisionModel(), 4326);
+
+    private final CodecGeometria codec = new CodecGeometria();
+
+    @Test
+    void leePuntos2DY3DEnAmbosOrdenes() throws SQLException {
+        Point punto2D = FABRICA.createPoint(new Coordinate(-70.65, -33.45));
+        Point punto3D = FABRICA.createPoint(new Coordinate(-70.65, -33.45, 520.5));
+
+        for (int orden : new int[]{ByteOrderValues.BIG_ENDIAN, ByteOrderValues.LITTLE_ENDIAN}) {
+            Point leido2D = codec.leer(columna(new WKBWriter(2, orden).write(punto2D)), "g", Point.class);
+            assertThat(leido2D.getX()).isEqualTo(-70.65);
+            assertThat(leido2D.getY()).isEqualTo(-33.45);
+            assertThat(leido2D.getCoordinate().getZ()).isNaN();
+            assertThat(leido2D.getSRID()).isEqualTo(4326);
+
+            Point leido3D = codec.leer(columna(new WKBWriter(3, orden).write(punto3D)), "g", Point.class);
+            assertThat(leido3D.getCoordinate().getZ()).isEqualTo(520.5);
+        }
+    }
+
+    @Test
+    void leePuntosEwkbConSridEIsoConZM() throws SQLException {
+        Point punto = FABRICA.createPoint(new Coordinate(1.5, 2.5, 3.5));
+        byte[] ewkb = new WKBWriter(3, ByteOrderValues.LITTLE_ENDIAN, true).write(punto);
+        assertThat(codec.leer(columna(ewkb), "g", Point.class).getCoordinate().getZ()).isEqualTo(3.5);
+
+        // ISO: tipo 3001 = punto ZM
+        ByteBuffer iso = ByteBuffer.allocate(1 + 4 + 4 * 8).order(ByteOrder.LITTLE_ENDIAN);
+        iso.put((byte) 1).putInt(3001).putDouble(1.5).putDouble(2.5).putDouble(3.5).putDouble(99);
+        Point leido = codec.leer(columna(iso.array()), "g", Point.class);
+        assertThat(leido.getX()).isEqualTo(1.5);
+        assertThat(leido.getCoordinate().getZ()).isEqualTo(3.5);
+    }
+
+    @Test
+    void puntoVacio() throws SQLException {
+        ByteBuffer vacio = ByteBuffer.allocate(21).order(ByteOrder.LITTLE_ENDIAN);
+        vacio.put((byte) 1).putInt(1).putDouble(Double.NaN).putDouble(Double.NaN);
+
+        assertThat(codec.leer(columna(vacio.array()), "g", Point.class).isEmpty()).isTrue();
+    }
+
+    @Test
+    void otrasGeometriasPasanPorWkbReader() throws SQLException {
+        Polygon poligono = FABRICA.createPolygon(new Coordinate[]{
+                new Coordinate(0, 0), new Coordinate(1, 0), new Coordinate(1, 1), new Coordinate(0, 0)});
+        byte[] wkb = new WKBWriter().write(poligono);
+
+        Polygon leido = codec.leer(columna(wkb), "g", Polygon.class);
+        assertThat(leido.equalsExact(poligono)).isTrue();
+        assertThat(leido.getSRID()).isEqualTo(4326);
+        assertThat(codec.leer(columna(wkb), "g", Geometry.class)).isInstanceOf(Polygon.class);
+    }
+
+    @Test
+    void tipoDistintoONuloDevuelveNull() throws SQLException {
+        byte[] punto = new WKBWriter().write(FABRICA.createPoint(new Coordinate(1, 2)));
+
+        assertThat(codec.leer(columna(punto), "g", Polygon.class)).isNull();
+        assertThat(codec.leer(columna(null), "g", Point.class)).isNull();
+        assertThat(codec.leer(columna(new byte[0]), "g", Point.class)).isNull();
+    }
+
+    @Test
+    void wkbInvalidoLanzaSQLException() throws SQLException {
+        ResultSet rs = columna(new byte[]{1, 3, 0, 0, 0, 7});
+
+        assertThatThrownBy(() -> codec.leer(rs, "g", Polygon.class))
+                .isInstanceOf(SQLException.class)
+                .hasMessageContaining("g");
+    }
+
+    private static ResultSet columna(byte[] wkb) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getBytes("g")).thenReturn(wkb);
+        return rs;
+    }
+}
@@ -0,0 +1,95 @@
+package com.Lab1BDA.Backend.util;
+
+import com.Lab1BDA.Backend.util.CodecGorilla.DeltaDelta;
+import com.Lab1BDA.Backend.util.CodecGorilla.EscritorBits;
+import com.Lab1BDA.Backend.util.CodecGorilla.LectorBits;
+import com.Lab1BDA.Backend.util.CodecGorilla.Xor;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CodecGorillaTest {
+
+    @Test
+    void bitsSeLeenEnElMismoOrden() {
+        EscritorBits salida = new EscritorBits(1);
+        salida.escribir(0b101, 3);
+        salida.escribir(-1L, 64);
+        salida.escribirBit(false);
+        salida.escribir(0x1234, 16);
+
+        LectorBits entrada = new LectorBits(salida.toByteArray());
+        assertThat(entrada.leer(3)).isEqualTo(0b101);
+        assertThat(entrada.leer(64)).isEqualTo(-1L);
+        assertThat(entrada.leerBit()).isFalse();
+        assertThat(entrada.leer(16)).isEqualTo(0x1234);
+    }
+
+    @Test
+    void lectorRechazaDatosTruncados() {
+        LectorBits entrada = new LectorBits(new byte[1]);
+        entrada.leer(8);
+        assertThatThrownBy(() -> entrada.leer(1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void deltaDeltaRecuperaTodosLosRangos() {
+        long[] valores = {
+                1_700_000_000_000_000L, 1_700_000_000_000_000L, 1_700_000_001_000_000L, 1_700_000_002_000_000L,
+                1_700_000_002_000_050L, 1_700_000_002_000_300L, 1_700_000_002_003_000L, 1_700_000_010_000_000L,
+                0L, Long.MAX_VALUE, Long.MIN_VALUE, -5L, 42L
+        };
+        EscritorBits salida = new EscritorBits(16);
+        DeltaDelta escritor = new DeltaDelta();
+        for (long valor : valores) {
+            escritor.escribir(salida, valor);
+        }
+
+        LectorBits entrada = new LectorBits(salida.toByteArray());
+        DeltaDelta lector = new DeltaDelta();
+        for (long valor : valores) {
+            assertThat(lector.leer(entrada)).isEqualTo(valor);
+        }
+    }
+
+    @Test
+    void deltaDeltaAPasoConstanteCuestaUnBitPorValor() {
+        EscritorBits salida = new EscritorBits(16);
+        DeltaDelta escritor = new DeltaDelta();
+        for (int i = 0; i < 1000; i++) {
+            escritor.escribir(salida, 1_000_000L * i);
+        }
+        // 64 bits del primero, un prefijo para el segundo delta y luego 1 bit por valor
+        assertThat(salida.toByteArray().length).isLessThan(150);
+    }
+
+    @Test
+    void xorRecuperaLosBitsExactos() {
+        SplittableRandom random = new SplittableRandom(7);
+        double[] valores = new double[2000];
+        double valor = -70.65;
+        for (int i = 0; i < valores.length; i++) {
+            valor += random.nextDouble(-1e-4, 1e-4);
+            valores[i] = i % 50 == 0 ? valores[Math.max(0, i - 1)] : valor;
+        }
+        valores[10] = Double.NaN;
+        valores[11] = -0.0;
+        valores[12] = Double.MAX_VALUE;
+        valores[13] = Double.MIN_VALUE;
+
+        EscritorBits salida = new EscritorBits(16);
+        Xor escritor = new Xor();
+        for (double v : valores) {
+            escritor.escribir(salida, v);
+        }
+
+        LectorBits entrada = new LectorBits(salida.toByteArray());
+        Xor lector = new Xor();
+        for (double v : valores) {
+            assertThat(Double.doubleToRawLongBits(lector.leer(entrada))).isEqualTo(Double.doubleToRawLongBits(v));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.Lab1BDA.Backend.util;
+
+import com.Lab1BDA.Backend.model.RegistroVuelo;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CodecTrayectoriaTest {
+
+    private static final GeometryFactory FABRICA = new GeometryFactory();
+
+    @Test
+    void idaYVueltaSinPerdida() {
+        List<RegistroVuelo> registros = trayectoria(5000, 11);
+
+        List<RegistroVuelo> decodificados = CodecTrayectoria.decodificar(7L, CodecTrayectoria.codificar(registros));
+
+        assertThat(decodificados).hasSameSizeAs(registros);
+        for (int i = 0; i < registros.size(); i++) {
+            RegistroVuelo esperado = registros.get(i);
+            RegistroVuelo obtenido = decodificados.get(i);
+            assertThat(obtenido.getIdMision()).isEqualTo(7L);
+            assertThat(obtenido.getIdRegistroVuelo()).isEqualTo(esperado.getIdRegistroVuelo());
+            assertThat(obtenido.getTimestamp()).isEqualTo(esperado.getTimestamp());
+            assertThat(obtenido.getCoordenadas().getX()).isEqualTo(esperado.getCoordenadas().getX());
+            assertThat(obtenido.getCoordenadas().getY()).isEqualTo(esperado.getCoordenadas().getY());
+            assertThat(obtenido.getCoordenadas().getCoordinate().getZ()).isEqualTo(esperado.getCoordenadas().getCoordinate().getZ());
+            assertThat(obtenido.getAltitudMsnm()).isEqualTo(esperado.getAltitudMsnm());
+            assertThat(obtenido.getVelocidadKmh()).isEqualTo(esperado.getVelocidadKmh());
+            assertThat(obtenido.getNivelBateriaPorcentaje()).isEqualTo(esperado.getNivelBateriaPorcentaje());
+        }
+    }
+
+    @Test
+    void recorrerExpandeLosMismosPuntosQueDecodificar() {
+        byte[] datos = CodecTrayectoria.codificar(trayectoria(2000, 5));
+        List<RegistroVuelo> decodificados = CodecTrayectoria.decodificar(7L, datos);
+
+        Iterator<RegistroVuelo> iterador = CodecTrayectoria.recorrer(7L, datos);
+        for (RegistroVuelo esperado : decodificados) {
+            assertThat(iterador.hasNext()).isTrue();
+            RegistroVuelo obtenido = iterador.next();
+            assertThat(obtenido.getTimestamp()).isEqualTo(esperado.getTimestamp());
+            assertThat(obtenido.getCoordenadas().getCoordinate()).isEqualTo(esperado.getCoordenadas().getCoordinate());
+            assertThat(obtenido.getVelocidadKmh()).isEqualTo(esperado.getVelocidadKmh());
+        }
+        assertThat(iterador.hasNext()).isFalse();
+        assertThatThrownBy(iterador::next).isInstanceOf(NoSuchElementException.class);
+    }
+
+    @Test
+    void comprimeMasQueLasColumnasCrudas() {
+        List<RegistroVuelo> registros = trayectoria(5000, 3);
+        // 8 columnas de 8 bytes por punto
+        assertThat(CodecTrayectoria.codificar(registros).length).isLessThan(5000 * 64 / 2);
+    }
+
+    @Test
+    void trayectoriaVacia() {
+        assertThat(CodecTrayectoria.decodificar(1L, CodecTrayectoria.codificar(List.of()))).isEmpty();
+    }
+
+    @Test
+    void rechazaOtraVersion() {
+        byte[] datos = CodecTrayectoria.codificar(trayectoria(3, 1));
+        datos[0] = 99;
+        assertThatThrownBy(() -> CodecTrayectoria.decodificar(1L, datos)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Puntos cada ~5 s con microsegundos, coordenadas con ruido, nulos y valores NUMERIC(5,2).
+     */
+    private static List<RegistroVuelo> trayectoria(int cantidad, long semilla) {
+        SplittableRandom random = new SplittableRandom(semilla);
+        List<RegistroVuelo> registros = new ArrayList<>(cantidad);
+        LocalDateTime timestamp = LocalDateTime.of(2025, 3, 1, 10, 0, 0, 123_456_000);
+        double longitud = -70.65, latitud = -33.45, bateria = 100.0;
+        for (int i = 0; i < cantidad; i++) {
+            timestamp = timestamp.plusNanos(5_000_000_000L + random.nextLong(-3_000, 3_000) * 1_000);
+            longitud += random.nextDouble(-1e-4, 1e-4);
+            latitud += random.nextDouble(-1e-4, 1e-4);
+            bateria = Math.max(0, bateria - random.nextInt(3) / 100.0);
+            double altitud = Math.round(random.nextDouble(500, 800) * 100) / 100.0;
+
+            RegistroVuelo registro = new RegistroVuelo();
+            registro.setIdRegistroVuelo(1000L + i * (random.nextInt(10) == 0 ? 3L : 1L));
+            registro.setTimestamp(timestamp);
+            registro.setCoordenadas(FABRICA.createPoint(new Coordinate(longitud, latitud, altitud)));
+            registro.setAltitudMsnm(i % 17 == 0 ? null : altitud);
+            registro.setVelocidadKmh(i % 13 == 0 ? null : Math.round(random.nextDouble(0, 120) * 100) / 100.0);
+            registro.setNivelBateriaPorcentaje(Math.round(bateria * 100) / 100.0);
+            registros.add(registro);
+        }
+        return registros;
+    }
+}
@@ -0,0 +1,133 @@
+package com.Lab1BDA.Backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EstadoFlotaTest {
+
+    @Test
+    void soloGuardaPosicionesMasRecientes() {
+        EstadoFlota estado = new EstadoFlota(16, 16, 0.01);
+
+        assertThat(estado.actualizar(1, 100, -70.6, -33.4, 500, 30, 90, false)).isFalse();
+        assertThat(estado.actualizar(1, 100, -70.6, -33.4, 500, 30, 90, true)).isTrue();
+        assertThat(estado.actualizar(1, 50, -71.0, -34.0, 0, 0, 0, false)).isFalse();
+        assertThat(estado.actualizar(1, 200, -70.7, -33.5, 510, 31, 89, false)).isTrue();
+
+        Map<Long, double[]> posiciones = posiciones(estado);
+        assertThat(posiciones).containsOnlyKeys(1L);
+        assertThat(posiciones.get(1L)).containsExactly(-70.7, -33.5, 89);
+    }
+
+    @Test
+    void eliminarMueveLaUltimaFilaSinMezclarDatos() {
+        EstadoFlota estado = new EstadoFlota(16, 16, 0.01);
+        // Más que la capacidad inicial, para que los arreglos crezcan
+        for (long mision = 1; mision <= 40; mision++) {
+            estado.actualizar(mision, 1, -70 - mision / 100.0, -33 - mision / 100.0, 0, Double.NaN, mision, true);
+        }
+
+        assertThat(estado.eliminar(5)).isTrue();
+        assertThat(estado.eliminar(5)).isFalse();
+        assertThat(estado.eliminar(40)).isTrue();
+
+        Map<Long, double[]> posiciones = posiciones(estado);
+        assertThat(estado.cantidad()).isEqualTo(38);
+        assertThat(posiciones).doesNotContainKeys(5L, 40L);
+        for (Map.Entry<Long, double[]> fila : posiciones.entrySet()) {
+            long mision = fila.getKey();
+            assertThat(fila.getValue()).containsExactly(-70 - mision / 100.0, -33 - mision / 100.0, mision);
+        }
+    }
+
+    @Test
+    void cambiosDesdeUnaVersion() {
+        EstadoFlota estado = new EstadoFlota(16, 16, 0.01);
+        estado.actualizar(1, 1, -70.6, -33.4, 0, 0, 0, true);
+        estado.actualizar(2, 1, -70.6, -33.4, 0, 0, 0, true);
+        estado.actualizar(3, 1, -70.6, -33.4, 0, 0, 0, true);
+        long version = estado.version();
+
+        estado.actualizar(2, 2, -70.5, -33.4, 0, 0, 0, false);
+        estado.eliminar(3);
+        // Quitada y vuelta a agregar: sólo se informa como fila
+        estado.eliminar(1);
+        estado.actualizar(1, 3, -70.6, -33.4, 0, 0, 0, true);
+
+        List<Long> filas = new ArrayList<>();
+        List<Long> eliminadas = new ArrayList<>();
+        EstadoFlota.Cambios cambios = estado.cambiosDesde(version,
+                (idMision, ts, lon, lat, alt, vel, bat) -> filas.add(idMision), eliminadas::add);
+
+        assertThat(cambios.completo()).isFalse();
+        assertThat(cambios.version()).isEqualTo(estado.version());
+        assertThat(filas).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(eliminadas).containsExactly(3L);
+    }
+
+    @Test
+    void versionesOlvidadasOFuturasPidenLaFlotaCompleta() {
+        EstadoFlota estado = new EstadoFlota(16, 2, 0.01);
+        for (long mision = 1; mision <= 4; mision++) {
+            estado.actualizar(mision, 1, -70.6, -33.4, 0, 0, 0, true);
+        }
+        long version = estado.version();
+        estado.eliminar(1);
+        estado.eliminar(2);
+        estado.eliminar(3); // Sólo se recuerdan 2: la de 1 se olvida
+
+        List<Long> filas = new ArrayList<>();
+        EstadoFlota.Cambios cambios = estado.cambiosDesde(version,
+                (idMision, ts, lon, lat, alt, vel, bat) -> filas.add(idMision), mision -> { });
+        assertThat(cambios.completo()).isTrue();
+        assertThat(filas).containsExactly(4L);
+
+        assertThat(estado.cambiosDesde(0, (idMision, ts, lon, lat, alt, vel, bat) -> { }, mision -> { }).completo()).isTrue();
+        assertThat(estado.cambiosDesde(estado.version() + 1, (idMision, ts, lon, lat, alt, vel, bat) -> { }, mision -> { })
+                .completo()).isTrue();
+    }
+
+    @Test
+    void cambiosEnAreaInformaEntradasYSalidas() {
+        EstadoFlota estado = new EstadoFlota(16, 16, 0.01);
+        estado.actualizar(1, 1, -70.60, -33.40, 0, 0, 0, true); // Dentro
+        estado.actualizar(2, 1, -70.61, -33.41, 0, 0, 0, true); // Dentro
+        estado.actualizar(3, 1, -70.00, -33.00, 0, 0, 0, true); // Fuera
+        Set<Long> visibles = new HashSet<>();
+
+        List<Long> vistas = new ArrayList<>();
+        List<Long> salidas = new ArrayList<>();
+        long version = estado.cambiosEnArea(-70.65, -33.45, -70.55, -33.35, 0, visibles,
+                (idMision, ts, lon, lat, alt, vel, bat) -> vistas.add(idMision), salidas::add);
+        assertThat(vistas).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(salidas).isEmpty();
+        assertThat(visibles).containsExactlyInAnyOrder(1L, 2L);
+
+        // 1 sale del área, 3 entra, 2 no cambia
+        estado.actualizar(1, 2, -70.00, -33.00, 0, 0, 0, false);
+        estado.actualizar(3, 2, -70.59, -33.39, 0, 0, 0, false);
+        vistas.clear();
+        estado.cambiosEnArea(-70.65, -33.45, -70.55, -33.35, version, visibles,
+                (idMision, ts, lon, lat, alt, vel, bat) -> vistas.add(idMision), salidas::add);
+        assertThat(vistas).containsExactly(3L);
+        assertThat(salidas).containsExactly(1L);
+        assertThat(visibles).containsExactlyInAnyOrder(2L, 3L);
+    }
+
+    /**
+     * Longitud, latitud y batería de cada misión.
+     */
+    private static Map<Long, double[]> posiciones(EstadoFlota estado) {
+        Map<Long, double[]> posiciones = new HashMap<>();
+        estado.recorrer((idMision, ts, lon, lat, alt, vel, bat) -> posiciones.put(idMision, new double[]{lon, lat, bat}));
+        return posiciones;
+    }
+}
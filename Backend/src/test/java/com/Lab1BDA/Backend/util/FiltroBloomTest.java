@@ -0,0 +1,49 @@
+package com.Lab1BDA.Backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FiltroBloomTest {
+
+    @Test
+    void sinFalsosNegativos() {
+        FiltroBloom filtro = new FiltroBloom(4096, 0.01);
+        int yaPresentes = 0;
+        for (long clave = 0; clave < 4096; clave++) {
+            if (filtro.agregar(1_700_000_000_000_000L + clave * 5_000_000L)) {
+                yaPresentes++; // Falso positivo al agregar
+            }
+        }
+        for (long clave = 0; clave < 4096; clave++) {
+            long timestamp = 1_700_000_000_000_000L + clave * 5_000_000L;
+            assertThat(filtro.contiene(timestamp)).isTrue();
+            assertThat(filtro.agregar(timestamp)).isTrue();
+        }
+        assertThat(yaPresentes).isLessThan(82);
+        assertThat(filtro.elementos()).isEqualTo(4096 - yaPresentes);
+    }
+
+    @Test
+    void tasaDeFalsosPositivosCercanaALaPedida() {
+        FiltroBloom filtro = new FiltroBloom(10_000, 0.01);
+        for (long clave = 0; clave < 10_000; clave++) {
+            filtro.agregar(clave * 1_000_000L);
+        }
+        int falsosPositivos = 0;
+        int consultas = 100_000;
+        for (long clave = 0; clave < consultas; clave++) {
+            if (filtro.contiene(clave * 1_000_000L + 500_000L)) {
+                falsosPositivos++;
+            }
+        }
+        assertThat(falsosPositivos / (double) consultas).isLessThan(0.02);
+    }
+
+    @Test
+    void filtroVacioNoContieneNada() {
+        FiltroBloom filtro = new FiltroBloom(100, 0.01);
+        assertThat(filtro.contiene(42L)).isFalse();
+        assertThat(filtro.elementos()).isZero();
+    }
+}
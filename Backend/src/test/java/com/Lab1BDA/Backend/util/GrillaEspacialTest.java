@@ -0,0 +1,91 @@
+package com.Lab1BDA.Backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GrillaEspacialTest {
+
+    private static final double CELDA = 0.01;
+
+    @Test
+    void buscarIncluyeTodoLoQueEstaDentro() {
+        GrillaEspacial grilla = new GrillaEspacial(CELDA);
+        SplittableRandom random = new SplittableRandom(5);
+        Map<Long, double[]> posiciones = new HashMap<>();
+        // Puntos que se mueven alrededor de Santiago (longitud y latitud negativas)
+        for (int paso = 0; paso < 5; paso++) {
+            for (long mision = 0; mision < 2_000; mision++) {
+                double[] posicion = {random.nextDouble(-70.8, -70.5), random.nextDouble(-33.6, -33.3)};
+                posiciones.put(mision, posicion);
+                grilla.mover(mision, posicion[0], posicion[1]);
+            }
+        }
+        for (long mision = 0; mision < 2_000; mision += 7) {
+            grilla.quitar(mision);
+            posiciones.remove(mision);
+        }
+
+        // Un área chica (recorre sus celdas) y una que cubre todo (recorre las celdas ocupadas)
+        comprobar(grilla, posiciones, -70.66, -33.47, -70.62, -33.43);
+        comprobar(grilla, posiciones, -180, -90, 180, 90);
+    }
+
+    @Test
+    void moverDentroDeLaCeldaYQuitar() {
+        GrillaEspacial grilla = new GrillaEspacial(CELDA);
+        grilla.mover(1, -70.6051, -33.4051);
+        grilla.mover(1, -70.6059, -33.4059);
+        assertThat(buscar(grilla, -70.61, -33.41, -70.60, -33.40)).containsExactly(1L);
+
+        grilla.mover(1, -70.5, -33.3);
+        assertThat(buscar(grilla, -70.61, -33.41, -70.60, -33.40)).isEmpty();
+        assertThat(buscar(grilla, -70.51, -33.31, -70.49, -33.29)).containsExactly(1L);
+
+        grilla.quitar(1);
+        grilla.quitar(1);
+        assertThat(buscar(grilla, -180, -90, 180, 90)).isEmpty();
+    }
+
+    @Test
+    void rechazaCeldasNoPositivas() {
+        assertThatThrownBy(() -> new GrillaEspacial(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new GrillaEspacial(Double.NaN)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Las candidatas incluyen todas las misiones dentro del rectángulo y sólo las de celdas que lo tocan.
+     */
+    private static void comprobar(GrillaEspacial grilla, Map<Long, double[]> posiciones,
+                                  double minLongitud, double minLatitud, double maxLongitud, double maxLatitud) {
+        Set<Long> candidatas = buscar(grilla, minLongitud, minLatitud, maxLongitud, maxLatitud);
+        for (Map.Entry<Long, double[]> entrada : posiciones.entrySet()) {
+            double longitud = entrada.getValue()[0];
+            double latitud = entrada.getValue()[1];
+            boolean dentro = longitud >= minLongitud && longitud <= maxLongitud
+                    && latitud >= minLatitud && latitud <= maxLatitud;
+            boolean celdaCercana = longitud >= minLongitud - CELDA && longitud <= maxLongitud + CELDA
+                    && latitud >= minLatitud - CELDA && latitud <= maxLatitud + CELDA;
+            if (dentro) {
+                assertThat(candidatas).contains(entrada.getKey());
+            } else if (!celdaCercana) {
+                assertThat(candidatas).doesNotContain(entrada.getKey());
+            }
+        }
+        assertThat(posiciones.keySet()).containsAll(candidatas);
+    }
+
+    private static Set<Long> buscar(GrillaEspacial grilla, double minLongitud, double minLatitud,
+                                    double maxLongitud, double maxLatitud) {
+        Set<Long> candidatas = new HashSet<>();
+        grilla.buscar(minLongitud, minLatitud, maxLongitud, maxLatitud, candidatas::add);
+        return candidatas;
+    }
+}
@@ -0,0 +1,52 @@
+package com.Lab1BDA.Backend.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class HistogramaTest {
+
+    @Test
+    void vacioDevuelveCeros() {
+        Histograma histograma = new Histograma();
+
+        assertThat(histograma.conteo()).isZero();
+        assertThat(histograma.promedioMs()).isZero();
+        assertThat(histograma.percentilMs(99)).isZero();
+        assertThat(histograma.maxMs()).isZero();
+    }
+
+    @Test
+    void percentilesConErrorAcotado() {
+        Histograma histograma = new Histograma();
+        // 1 ms a 1000 ms, uno de cada uno
+        for (int ms = 1; ms <= 1000; ms++) {
+            histograma.registrar(ms * 1_000_000L);
+        }
+
+        assertThat(histograma.conteo()).isEqualTo(1000);
+        assertThat(histograma.promedioMs()).isCloseTo(500.5, within(1e-9));
+        assertThat(histograma.maxMs()).isEqualTo(1000.0);
+        // Es una cota superior, a lo más 12,5% por encima del valor exacto
+        for (double percentil : new double[]{1, 50, 90, 99}) {
+            double exacto = percentil * 10;
+            assertThat(histograma.percentilMs(percentil)).isBetween(exacto, exacto * 1.125);
+        }
+        assertThat(histograma.percentilMs(100)).isEqualTo(1000.0);
+    }
+
+    @Test
+    void valoresPequenosYFueraDeRango() {
+        Histograma histograma = new Histograma();
+        histograma.registrar(3_000);   // 3 us
+        histograma.registrar(-5);      // Negativo: cuenta como 0
+        histograma.registrar(Long.MAX_VALUE / 2);
+
+        assertThat(histograma.conteo()).isEqualTo(3);
+        assertThat(histograma.percentilMs(34)).isEqualTo(0.004);
+        // La muestra fuera del rango de cubetas cae en la última (2^40 us), aunque el máximo sea exacto
+        assertThat(histograma.percentilMs(100)).isEqualTo((1L << 40) / 1_000.0);
+        assertThat(histograma.maxMs()).isEqualTo(Long.MAX_VALUE / 2 / 1_000 / 1_000.0);
+    }
+}
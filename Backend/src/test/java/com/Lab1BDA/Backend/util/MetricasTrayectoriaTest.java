@@ -0,0 +1,79 @@
+package com.Lab1BDA.Backend.util;
+
+import com.Lab1BDA.Backend.dto.VelocidadCalculadaDTO;
+import com.Lab1BDA.Backend.model.RegistroVuelo;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class MetricasTrayectoriaTest {
+
+    private static final GeometryFactory FABRICA = new GeometryFactory();
+    private static final LocalDateTime INICIO = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    @Test
+    void distanciaGeodesicaCoincideConVincenty() {
+        // Ejemplo clásico de Vincenty (Flinders Peak - Buninyong): 54.972,271 m
+        double distancia = MetricasTrayectoria.distanciaGeodesica(
+                144 + 25 / 60.0 + 29.52440 / 3600, -(37 + 57 / 60.0 + 3.72030 / 3600),
+                143 + 55 / 60.0 + 35.38390 / 3600, -(37 + 39 / 60.0 + 10.15610 / 3600));
+        assertThat(distancia).isCloseTo(54_972.271, within(0.001));
+        // Un grado sobre el ecuador
+        assertThat(MetricasTrayectoria.distanciaGeodesica(0, 0, 1, 0)).isCloseTo(111_319.491, within(0.001));
+        assertThat(MetricasTrayectoria.distanciaGeodesica(-70.6, -33.4, -70.6, -33.4)).isZero();
+    }
+
+    @Test
+    void distanciaGeodesicaCasiAntipodaNoFalla() {
+        assertThat(MetricasTrayectoria.distanciaGeodesica(0, 0, 179.7, 0.5)).isBetween(19_900_000.0, 20_100_000.0);
+    }
+
+    @Test
+    void longitudEnWebMercator() {
+        List<RegistroVuelo> puntos = List.of(punto(0, 0, 0, 0), punto(10, 1, 0, 0), punto(20, 1, 0, 0));
+        assertThat(MetricasTrayectoria.longitudMercator(puntos)).isCloseTo(111_319.491, within(0.001));
+        assertThat(MetricasTrayectoria.longitudMercator(List.of(punto(0, 0, 0, 0)))).isZero();
+    }
+
+    @Test
+    void velocidadesRespectoAlPuntoAnterior() {
+        List<RegistroVuelo> puntos = List.of(punto(0, 0, 0, 0), punto(100, 0.01, 0, 0), punto(100, 0.02, 0, 0));
+
+        List<VelocidadCalculadaDTO> velocidades = MetricasTrayectoria.velocidades(puntos);
+
+        assertThat(velocidades).hasSize(3);
+        assertThat(velocidades.get(0).distanciaRecorrida()).isNull();
+        assertThat(velocidades.get(0).velocidadCalculada()).isNull();
+        VelocidadCalculadaDTO segunda = velocidades.get(1);
+        assertThat(segunda.distanciaRecorrida()).isCloseTo(1_113.195, within(0.001));
+        assertThat(segunda.segundosTranscurridos()).isEqualTo(100.0);
+        assertThat(segunda.velocidadCalculada()).isCloseTo(1_113.195 / 100 * 3.6, within(0.001));
+        // Mismo timestamp: sin velocidad
+        assertThat(velocidades.get(2).segundosTranscurridos()).isZero();
+        assertThat(velocidades.get(2).velocidadCalculada()).isNull();
+    }
+
+    @Test
+    void distanciaMinima3DConsideraLaAltura() {
+        List<RegistroVuelo> puntos = List.of(punto(0, 0.01, 0, 500), punto(10, 0, 0, 400), punto(20, -0.01, 0, 500));
+
+        Double distancia = MetricasTrayectoria.distanciaMinima3D(puntos, FABRICA.createPoint(new Coordinate(0, 0, 100)));
+
+        assertThat(distancia).isCloseTo(300.0, within(1e-6));
+        assertThat(MetricasTrayectoria.distanciaMinima3D(List.of(), FABRICA.createPoint(new Coordinate(0, 0)))).isNull();
+    }
+
+    private static RegistroVuelo punto(int segundos, double longitud, double latitud, double z) {
+        RegistroVuelo registro = new RegistroVuelo();
+        registro.setTimestamp(INICIO.plusSeconds(segundos));
+        registro.setCoordenadas(FABRICA.createPoint(new Coordinate(longitud, latitud, z)));
+        registro.setNivelBateriaPorcentaje(100.0);
+        return registro;
+    }
+}
@@ -0,0 +1,116 @@
+package com.Lab1BDA.Backend.util;
+
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class SimplificadorTrayectoriaTest {
+
+    private static final double METROS_POR_GRADO = 111_320.0;
+
+    @Test
+    void lineaRectaQuedaEnSusExtremos() {
+        List<Coordinate> recta = new ArrayList<>();
+        for (int i = 0; i <= 100; i++) {
+            recta.add(new Coordinate(-70.6 + i * 1e-4, -33.4 + i * 1e-4, 100 + i));
+        }
+
+        List<Coordinate> resultado = SimplificadorTrayectoria.simplificar(recta, 1.0);
+
+        assertThat(resultado).containsExactly(recta.get(0), recta.get(100));
+        // Conserva los puntos originales, con su altura
+        assertThat(resultado.get(1).getZ()).isEqualTo(200.0);
+    }
+
+    @Test
+    void respetaLaTolerancia() {
+        List<Coordinate> trayectoria = caminata(5000, 3);
+        double tolerancia = 5.0;
+
+        List<Coordinate> resultado = SimplificadorTrayectoria.simplificar(trayectoria, tolerancia);
+
+        assertThat(resultado.size()).isLessThan(trayectoria.size());
+        assertThat(resultado.get(0)).isSameAs(trayectoria.get(0));
+        assertThat(resultado.get(resultado.size() - 1)).isSameAs(trayectoria.get(trayectoria.size() - 1));
+        assertThat(desviacionMaxima(trayectoria, resultado)).isLessThanOrEqualTo(tolerancia + 1e-6);
+    }
+
+    @Test
+    void sinEvaluacionesConservaTodo() {
+        List<Coordinate> trayectoria = caminata(500, 5);
+
+        List<Coordinate> resultado = SimplificadorTrayectoria.simplificar(trayectoria, 5.0, Integer.MAX_VALUE, 0);
+
+        // Con el presupuesto agotado el resultado sólo puede ser más detallado
+        assertThat(resultado.size()).isGreaterThanOrEqualTo(SimplificadorTrayectoria.simplificar(trayectoria, 5.0).size());
+        assertThat(desviacionMaxima(trayectoria, resultado)).isLessThanOrEqualTo(5.0 + 1e-6);
+    }
+
+    @Test
+    void diezmaSobreMaxPuntos() {
+        List<Coordinate> trayectoria = caminata(10_001, 9);
+
+        List<Coordinate> resultado = SimplificadorTrayectoria.simplificar(trayectoria, 0.0, 1000, Long.MAX_VALUE);
+
+        assertThat(resultado.size()).isLessThanOrEqualTo(1001);
+        assertThat(resultado.get(resultado.size() - 1)).isSameAs(trayectoria.get(trayectoria.size() - 1));
+    }
+
+    @Test
+    void toleranciaParaZoom() {
+        assertThat(SimplificadorTrayectoria.toleranciaParaZoom(0, 0)).isCloseTo(156_543.03, within(0.01));
+        assertThat(SimplificadorTrayectoria.toleranciaParaZoom(10, 60)).isCloseTo(156_543.03 / 2 / 1024, within(0.01));
+    }
+
+    private static List<Coordinate> caminata(int puntos, long semilla) {
+        SplittableRandom random = new SplittableRandom(semilla);
+        List<Coordinate> trayectoria = new ArrayList<>(puntos);
+        double lon = -70.6, lat = -33.4, rumbo = 0;
+        for (int i = 0; i < puntos; i++) {
+            rumbo += random.nextDouble(-0.3, 0.3);
+            lon += Math.cos(rumbo) * 5e-5;
+            lat += Math.sin(rumbo) * 5e-5;
+            trayectoria.add(new Coordinate(lon, lat, 100));
+        }
+        return trayectoria;
+    }
+
+    /**
+     * Distancia máxima (en metros, misma proyección que el simplificador) de los puntos originales
+     * al tramo simplificado que los cubre. Los puntos simplificados son los mismos objetos originales.
+     */
+    private static double desviacionMaxima(List<Coordinate> original, List<Coordinate> simplificada) {
+        double latitudMedia = original.stream().mapToDouble(c -> c.y).average().orElse(0);
+        double escalaX = METROS_POR_GRADO * Math.cos(Math.toRadians(latitudMedia));
+        double maxima = 0;
+        int inicio = 0;
+        for (int k = 1; k < simplificada.size(); k++) {
+            int fin = inicio + 1;
+            while (original.get(fin) != simplificada.get(k)) {
+                fin++;
+            }
+            Coordinate a = original.get(inicio);
+            Coordinate b = original.get(fin);
+            for (int i = inicio + 1; i < fin; i++) {
+                Coordinate c = original.get(i);
+                maxima = Math.max(maxima, distanciaASegmento(c.x * escalaX, c.y * METROS_POR_GRADO,
+                        a.x * escalaX, a.y * METROS_POR_GRADO, b.x * escalaX, b.y * METROS_POR_GRADO));
+            }
+            inicio = fin;
+        }
+        return maxima;
+    }
+
+    private static double distanciaASegmento(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax, dy = by - ay;
+        double largo = dx * dx + dy * dy;
+        double t = largo > 0 ? Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / largo)) : 0;
+        return Math.hypot(px - (ax + t * dx), py - (ay + t * dy));
+    }
+}
@@ -79,8 +79,10 @@ CREATE TABLE IF NOT EXISTS misiones (
 );
 
 -- Tabla de Registro de Vuelo (Telemetría) 
+-- Particionada por mes sobre "timestamp" (las particiones las crea ParticionRegistroVueloService).
+-- La clave primaria debe incluir la columna de partición.
 CREATE TABLE IF NOT EXISTS registro_vuelo (
-    id_registro_vuelo BIGSERIAL PRIMARY KEY,
+    id_registro_vuelo BIGSERIAL,
     id_mision INT NOT NULL,
     "timestamp" TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     
@@ -93,12 +95,96 @@ CREATE TABLE IF NOT EXISTS registro_vuelo (
     velocidad_kmh NUMERIC(5, 2),
     nivel_bateria_porcentaje NUMERIC(5, 2) NOT NULL,
     
+    CONSTRAINT pk_registro_vuelo PRIMARY KEY (id_registro_vuelo, "timestamp"),
+    -- Un dron no reporta dos posiciones en el mismo instante: descarta retransmisiones.
+    -- Su índice sirve también para leer la telemetría de una misión ordenada por tiempo.
+    CONSTRAINT uq_registro_vuelo_mision_timestamp UNIQUE (id_mision, "timestamp"),
     CONSTRAINT fk_mision 
         FOREIGN KEY(id_mision) 
         REFERENCES misiones(id_mision)
         ON DELETE CASCADE
+) PARTITION BY RANGE ("timestamp");
+
+-- Recibe las filas que no caen en ninguna partición mensual (Ej: datos de prueba antiguos).
+-- Al arrancar, el backend las mueve a su partición correspondiente.
+CREATE TABLE IF NOT EXISTS registro_vuelo_default PARTITION OF registro_vuelo DEFAULT;
+
+-- Telemetría comprimida de misiones completadas (una fila por misión).
+-- 'datos' lo escribe y lee el backend (CodecTrayectoria); el resto de columnas permite
+-- consultas de resumen sin descomprimir.
+CREATE TABLE IF NOT EXISTS registro_vuelo_archivo (
+    id_mision INT PRIMARY KEY,
+    cantidad_puntos INT NOT NULL,
+    timestamp_inicio TIMESTAMP NOT NULL,
+    timestamp_fin TIMESTAMP NOT NULL,
+    bateria_inicial NUMERIC(5, 2) NOT NULL,
+    bateria_final NUMERIC(5, 2) NOT NULL,
+    datos BYTEA NOT NULL,
+    fecha_archivado TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT fk_mision_archivo
+        FOREIGN KEY(id_mision)
+        REFERENCES misiones(id_mision)
+        ON DELETE CASCADE
+);
+
+-- Agregados de telemetría por misión en intervalos de 10 s y 1 min (resolucion_segundos).
+-- Los mantiene el backend (RollupTelemetriaService) a medida que se escribe la telemetría.
+CREATE TABLE IF NOT EXISTS registro_vuelo_rollup (
+    id_mision INT NOT NULL,
+    resolucion_segundos INT NOT NULL,
+    inicio TIMESTAMP NOT NULL,
+    cantidad INT NOT NULL,
+
+    -- Último punto del intervalo
+    ultimo_timestamp TIMESTAMP NOT NULL,
+    ultima_longitud DOUBLE PRECISION NOT NULL,
+    ultima_latitud DOUBLE PRECISION NOT NULL,
+    ultima_altitud DOUBLE PRECISION NOT NULL,
+
+    -- Sumas y cantidades (en vez de promedios) para poder acumular
+    altitud_min DOUBLE PRECISION,
+    altitud_max DOUBLE PRECISION,
+    altitud_suma DOUBLE PRECISION NOT NULL DEFAULT 0,
+    cantidad_altitud INT NOT NULL DEFAULT 0,
+    velocidad_min DOUBLE PRECISION,
+    velocidad_max DOUBLE PRECISION,
+    velocidad_suma DOUBLE PRECISION NOT NULL DEFAULT 0,
+    cantidad_velocidad INT NOT NULL DEFAULT 0,
+    bateria_min DOUBLE PRECISION NOT NULL,
+    bateria_max DOUBLE PRECISION NOT NULL,
+    bateria_suma DOUBLE PRECISION NOT NULL,
+
+    CONSTRAINT pk_registro_vuelo_rollup PRIMARY KEY (id_mision, resolucion_segundos, inicio),
+    CONSTRAINT fk_mision_rollup
+        FOREIGN KEY(id_mision)
+        REFERENCES misiones(id_mision)
+        ON DELETE CASCADE
 );
 
+-- Versiones simplificadas (Douglas-Peucker) de la ruta planificada y de la trayectoria volada
+-- de cada misión completada, una por tolerancia, para dibujar el mapa según el zoom.
+-- Las genera el backend (SimplificacionTrayectoriaService).
+CREATE TABLE IF NOT EXISTS trayectoria_simplificada (
+    id_mision INT NOT NULL,
+    origen VARCHAR(10) NOT NULL CHECK (origen IN ('ruta', 'vuelo')),
+    tolerancia_metros DOUBLE PRECISION NOT NULL,
+    cantidad_puntos INT NOT NULL,
+    -- Puntos de telemetría simplificados (sólo 'vuelo'): los niveles se regeneran si llegan más
+    puntos_origen INT,
+    geometria GEOGRAPHY(LINESTRINGZ, 4326) NOT NULL,
+    fecha_generacion TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    CONSTRAINT pk_trayectoria_simplificada PRIMARY KEY (id_mision, origen, tolerancia_metros),
+    CONSTRAINT fk_mision_simplificada
+        FOREIGN KEY(id_mision)
+        REFERENCES misiones(id_mision)
+        ON DELETE CASCADE
+);
+
+-- Para bases creadas antes de puntos_origen
+ALTER TABLE trayectoria_simplificada ADD COLUMN IF NOT EXISTS puntos_origen INT;
+
 -- Tabla de Puntos de Interés
 CREATE TABLE puntos_interes (
     poi_id SERIAL PRIMARY KEY,
@@ -125,11 +211,11 @@ CREATE TABLE zonas_prohibidas (
 CREATE INDEX IF NOT EXISTS idx_drones_estado ON drones(estado);
 CREATE INDEX IF NOT EXISTS idx_misiones_estado ON misiones(estado);
 CREATE INDEX IF NOT EXISTS idx_misiones_tipo ON misiones(id_tipo_mision);
-CREATE INDEX IF NOT EXISTS idx_registro_vuelo_mision_time ON registro_vuelo(id_mision, "timestamp" DESC);
 CREATE INDEX IF NOT EXISTS idx_usuarios_email ON usuarios(email);
 
 -- Índice ESPACIAL (GIST): Fundamental para búsquedas rápidas de coordenadas
 -- Esto es lo que permite que la consulta 9 sea eficiente 
+-- (Este índice y el de uq_registro_vuelo_mision_timestamp se crean en cada partición automáticamente)
 CREATE INDEX IF NOT EXISTS idx_registro_vuelo_coordenadas ON registro_vuelo USING GIST (coordenadas);
 
 CREATE INDEX IF NOT EXISTS idx_poi_geom ON puntos_interes USING GIST (ubicacion);
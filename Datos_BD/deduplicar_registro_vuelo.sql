@@ -0,0 +1,21 @@
+-- Migración: elimina la telemetría repetida (mismo id_mision y "timestamp") y agrega la
+-- restricción única que usa el backend para descartar retransmisiones de los drones.
+-- Sólo es necesaria en bases creadas con una versión anterior de Crear_BD.sql
+-- (después de particionar_registro_vuelo.sql, si corresponde).
+
+BEGIN;
+
+-- Se conserva el primer registro recibido de cada (id_mision, "timestamp")
+DELETE FROM registro_vuelo rv
+USING registro_vuelo otro
+WHERE rv.id_mision = otro.id_mision
+  AND rv."timestamp" = otro."timestamp"
+  AND rv.id_registro_vuelo > otro.id_registro_vuelo;
+
+ALTER TABLE registro_vuelo
+    ADD CONSTRAINT uq_registro_vuelo_mision_timestamp UNIQUE (id_mision, "timestamp");
+
+-- El índice de la restricción reemplaza al índice (id_mision, "timestamp" DESC)
+DROP INDEX IF EXISTS idx_registro_vuelo_mision_time;
+
+COMMIT;
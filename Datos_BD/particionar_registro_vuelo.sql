@@ -0,0 +1,40 @@
+-- Migración: convierte una tabla registro_vuelo existente (sin particionar) en una tabla
+-- particionada por mes sobre "timestamp". Sólo es necesaria en bases creadas con una versión
+-- anterior de Crear_BD.sql. Las filas antiguas quedan en registro_vuelo_default y el backend
+-- (ParticionRegistroVueloService) las mueve a sus particiones mensuales al arrancar.
+
+BEGIN;
+
+ALTER TABLE registro_vuelo RENAME TO registro_vuelo_sin_particionar;
+ALTER INDEX IF EXISTS idx_registro_vuelo_mision_time RENAME TO idx_registro_vuelo_sin_particionar_mision_time;
+ALTER INDEX IF EXISTS idx_registro_vuelo_coordenadas RENAME TO idx_registro_vuelo_sin_particionar_coordenadas;
+
+CREATE TABLE registro_vuelo (
+    id_registro_vuelo BIGINT NOT NULL DEFAULT nextval('registro_vuelo_id_registro_vuelo_seq'),
+    id_mision INT NOT NULL,
+    "timestamp" TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    coordenadas GEOGRAPHY(POINTZ, 4326) NOT NULL,
+    altitud_msnm NUMERIC(7, 2),
+    velocidad_kmh NUMERIC(5, 2),
+    nivel_bateria_porcentaje NUMERIC(5, 2) NOT NULL,
+    CONSTRAINT pk_registro_vuelo PRIMARY KEY (id_registro_vuelo, "timestamp"),
+    CONSTRAINT fk_mision_particionada
+        FOREIGN KEY(id_mision)
+        REFERENCES misiones(id_mision)
+        ON DELETE CASCADE
+) PARTITION BY RANGE ("timestamp");
+
+CREATE TABLE registro_vuelo_default PARTITION OF registro_vuelo DEFAULT;
+
+CREATE INDEX idx_registro_vuelo_mision_time ON registro_vuelo(id_mision, "timestamp" DESC);
+CREATE INDEX idx_registro_vuelo_coordenadas ON registro_vuelo USING GIST (coordenadas);
+
+INSERT INTO registro_vuelo
+SELECT id_registro_vuelo, id_mision, "timestamp", coordenadas, altitud_msnm, velocidad_kmh, nivel_bateria_porcentaje
+FROM registro_vuelo_sin_particionar;
+
+-- La secuencia pasa a pertenecer a la nueva tabla para que no se borre junto con la antigua
+ALTER SEQUENCE registro_vuelo_id_registro_vuelo_seq OWNED BY registro_vuelo.id_registro_vuelo;
+DROP TABLE registro_vuelo_sin_particionar;
+
+COMMIT;
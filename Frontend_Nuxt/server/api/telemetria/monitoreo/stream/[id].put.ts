@@ -0,0 +1,33 @@
+import { getCookie, createError, getRouterParam, getQuery } from "h3";
+
+// Cambia el área (bbox) de una suscripción del monitoreo en vivo, Ej: al mover el mapa
+export default defineEventHandler(async (event) => {
+  const idSuscripcion = getRouterParam(event, "id");
+  if (!idSuscripcion) {
+    throw createError({ statusCode: 400, statusMessage: "Missing subscription id" });
+  }
+
+  const token = getCookie(event, "token");
+  const headers: Record<string, string> = {};
+  if (token) headers["Authorization"] = `Bearer ${token}`;
+
+  const { bbox } = getQuery(event);
+
+  try {
+    await $fetch(
+      `http://localhost:8080/api/telemetria/monitoreo/stream/${encodeURIComponent(idSuscripcion)}`,
+      {
+        method: "PUT",
+        headers,
+        query: bbox ? { bbox } : undefined,
+      },
+    );
+    return null;
+  } catch (err: any) {
+    console.error("[monitoreo stream proxy] error updating subscription area", err);
+    throw createError({
+      statusCode: err?.statusCode || 502,
+      statusMessage: err?.data?.message || String(err),
+    });
+  }
+});
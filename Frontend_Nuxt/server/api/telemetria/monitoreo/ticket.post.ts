@@ -0,0 +1,21 @@
+import { getCookie, createError } from 'h3';
+
+// El navegador no puede leer la cookie httpOnly ni enviar cabeceras con EventSource:
+// este proxy pide al backend un ticket de vida corta para abrir el monitoreo en vivo
+export default defineEventHandler(async (event) => {
+  const token = getCookie(event, 'token');
+
+  const headers: Record<string, string> = {};
+  if (token) headers['Authorization'] = `Bearer ${token}`;
+
+  try {
+    const data = await $fetch('http://localhost:8080/api/telemetria/monitoreo/stream/ticket', {
+      method: 'POST',
+      headers
+    });
+    return data;
+  } catch (err: any) {
+    console.error('[monitoreo ticket proxy] error', err);
+    throw createError({ statusCode: err?.statusCode || 502, statusMessage: err?.data?.message || String(err) });
+  }
+});